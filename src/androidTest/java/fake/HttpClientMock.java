@@ -1,12 +1,14 @@
 package fake;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.net.URI;
 import java.util.Map;
 
 import io.split.android.client.network.HttpClient;
 import io.split.android.client.network.HttpMethod;
 import io.split.android.client.network.HttpRequest;
+import io.split.android.client.network.HttpRequestBodyWriter;
 import io.split.android.client.network.HttpResponse;
 import io.split.android.client.network.HttpStreamRequest;
 import io.split.android.client.network.HttpStreamResponse;
@@ -54,12 +56,27 @@ public class HttpClientMock implements HttpClient {
         return new HttpRequestMock(response);
     }
 
+    @Override
+    public HttpRequest gzipRequest(URI uri, HttpMethod httpMethod, HttpRequestBodyWriter bodyWriter) {
+        StringWriter body = new StringWriter();
+        try {
+            bodyWriter.writeTo(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return request(uri, httpMethod, body.toString());
+    }
+
     @Override
     public HttpStreamRequest streamRequest(URI uri) {
         HttpStreamResponse response = mResponseDispatcher.getStreamResponse(uri);
         return new HttpStreamRequestMock(response);
     }
 
+    @Override
+    public void prewarm(URI uri) {
+    }
+
     @Override
     public void close() {
     }
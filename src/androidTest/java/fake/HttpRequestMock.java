@@ -1,8 +1,13 @@
 package fake;
 
+import java.io.BufferedReader;
+import java.io.StringReader;
+
 import io.split.android.client.network.HttpException;
 import io.split.android.client.network.HttpRequest;
 import io.split.android.client.network.HttpResponse;
+import io.split.android.client.network.HttpStreamResponse;
+import io.split.android.client.network.HttpStreamResponseImpl;
 
 public class HttpRequestMock implements HttpRequest {
     final private HttpResponse mResponse;
@@ -15,4 +20,11 @@ public class HttpRequestMock implements HttpRequest {
     public HttpResponse execute() throws HttpException {
         return mResponse;
     }
+
+    @Override
+    public HttpStreamResponse executeStreaming() throws HttpException {
+        String data = mResponse.getData();
+        return new HttpStreamResponseImpl(mResponse.getHttpStatus(),
+                data != null ? new BufferedReader(new StringReader(data)) : null);
+    }
 }
@@ -0,0 +1,130 @@
+package tests.integration;
+
+import android.content.Context;
+
+import androidx.core.util.Pair;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import helper.IntegrationHelper;
+import helper.SplitEventTaskHelper;
+import io.split.android.client.ServiceEndpoints;
+import io.split.android.client.SplitClient;
+import io.split.android.client.SplitClientConfig;
+import io.split.android.client.SplitFactory;
+import io.split.android.client.SplitFactoryBuilder;
+import io.split.android.client.events.SplitEvent;
+import io.split.android.client.storage.db.GeneralInfoEntity;
+import io.split.android.client.storage.db.SplitEntity;
+import io.split.android.client.storage.db.SplitRoomDatabase;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+
+public class ConnectionPrewarmReadyTest {
+
+    private static final long CHANGE_NUMBER = 1000;
+    private static final int CACHED_SPLITS_COUNT = 500;
+    private static final String SPLIT_TEMPLATE = "{\"name\":\"%s\", \"changeNumber\": %d, \"trafficTypeName\":\"account\", \"status\":\"ACTIVE\", \"conditions\":[]}";
+
+    Context mContext;
+    HandshakeCertificates mServerCertificates;
+
+    @Before
+    public void setup() {
+        mContext = InstrumentationRegistry.getInstrumentation().getContext();
+        mServerCertificates = new HandshakeCertificates.Builder()
+                .heldCertificate(new HeldCertificate.Builder().addSubjectAlternativeName("localhost").build())
+                .build();
+    }
+
+    /**
+     * Compares time to SDK_READY with and without prewarming the connection,
+     * having cached splits to load. Local server uses TLS, so the handshake is included,
+     * but not the network round trips.
+     * Not a real benchmark, just run it manually to get an idea.
+     */
+    @Ignore
+    @Test
+    public void compareTimeToReady() throws Exception {
+        for (int round = 0; round < 5; round++) {
+            long cold = timeToReady(false);
+            long prewarmed = timeToReady(true);
+            System.out.println("SDK_READY without prewarm: " + cold + " ms, prewarmed: " + prewarmed + " ms");
+        }
+    }
+
+    private long timeToReady(boolean prewarm) throws Exception {
+        MockWebServer webServer = new MockWebServer();
+        webServer.useHttps(mServerCertificates.sslSocketFactory(), false);
+        webServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getPath().contains("/mySegments")) {
+                    return new MockResponse().setResponseCode(200).setBody(IntegrationHelper.dummyMySegments());
+                } else if (request.getPath().contains("/splitChanges")) {
+                    return new MockResponse().setResponseCode(200)
+                            .setBody(IntegrationHelper.emptySplitChanges(CHANGE_NUMBER, CHANGE_NUMBER));
+                } else {
+                    return new MockResponse().setResponseCode(200);
+                }
+            }
+        });
+        webServer.start();
+
+        Pair<String, String> apiKeyAndDb = IntegrationHelper.dummyApiKeyAndDb();
+        loadCachedSplits(apiKeyAndDb.second);
+        final String url = webServer.url("/").url().toString();
+        ServiceEndpoints endpoints = ServiceEndpoints.builder()
+                .apiEndpoint(url).eventsEndpoint(url).build();
+        SplitClientConfig config = SplitClientConfig.builder()
+                .serviceEndpoints(endpoints)
+                .ready(30000)
+                .streamingEnabled(false)
+                .impressionsRefreshRate(IntegrationHelper.NEVER_REFRESH_RATE)
+                .enableSslDevelopmentMode()
+                .prewarmConnections(prewarm)
+                .build();
+
+        CountDownLatch readyLatch = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        SplitFactory splitFactory = SplitFactoryBuilder.build(apiKeyAndDb.first,
+                IntegrationHelper.dummyUserKey(), config, mContext);
+        SplitClient client = splitFactory.client();
+        client.on(SplitEvent.SDK_READY, new SplitEventTaskHelper(readyLatch));
+        readyLatch.await(40, TimeUnit.SECONDS);
+        long time = System.currentTimeMillis() - start;
+
+        splitFactory.destroy();
+        webServer.shutdown();
+        return time;
+    }
+
+    private void loadCachedSplits(String databaseName) {
+        SplitRoomDatabase splitRoomDatabase = SplitRoomDatabase.getDatabase(mContext, databaseName);
+        splitRoomDatabase.clearAllTables();
+        List<SplitEntity> entities = new ArrayList<>();
+        for (int i = 0; i < CACHED_SPLITS_COUNT; i++) {
+            String splitName = "split-" + i;
+            SplitEntity entity = new SplitEntity();
+            entity.setName(splitName);
+            entity.setBody(String.format(SPLIT_TEMPLATE, splitName, CHANGE_NUMBER));
+            entities.add(entity);
+        }
+        splitRoomDatabase.splitDao().insert(entities);
+        splitRoomDatabase.generalInfoDao().update(new GeneralInfoEntity(GeneralInfoEntity.DATBASE_MIGRATION_STATUS, GeneralInfoEntity.DATBASE_MIGRATION_STATUS_DONE));
+        splitRoomDatabase.generalInfoDao().update(new GeneralInfoEntity(GeneralInfoEntity.CHANGE_NUMBER_INFO, CHANGE_NUMBER));
+        splitRoomDatabase.generalInfoDao().update(new GeneralInfoEntity(GeneralInfoEntity.SPLITS_UPDATE_TIMESTAMP, System.currentTimeMillis() / 1000));
+    }
+}
@@ -37,6 +37,7 @@ import io.split.android.client.service.synchronizer.ThreadUtils;
 import io.split.android.client.storage.db.GeneralInfoEntity;
 import io.split.android.client.storage.db.SplitEntity;
 import io.split.android.client.storage.db.SplitRoomDatabase;
+import io.split.android.client.storage.splits.SplitBodyCodec;
 import io.split.android.client.utils.Json;
 import io.split.android.client.utils.Logger;
 import io.split.sharedtest.fake.HttpStreamResponseMock;
@@ -207,7 +208,7 @@ public class SplitsTwoDifferentApiKeyTest {
     }
 
     private Split parseEntity(SplitEntity entity) {
-        return Json.fromJson(entity.getBody(), Split.class);
+        return SplitBodyCodec.decode(entity.getBody());
     }
 
     private void testSplitsUpdate(long changeNumber) throws IOException, InterruptedException {
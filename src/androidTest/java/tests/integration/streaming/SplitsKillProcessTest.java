@@ -38,6 +38,7 @@ import io.split.android.client.network.HttpMethod;
 import io.split.android.client.storage.db.GeneralInfoEntity;
 import io.split.android.client.storage.db.SplitEntity;
 import io.split.android.client.storage.db.SplitRoomDatabase;
+import io.split.android.client.storage.splits.SplitBodyCodec;
 import io.split.android.client.utils.Json;
 import io.split.android.client.utils.Logger;
 
@@ -121,7 +122,7 @@ public class SplitsKillProcessTest {
 
         Split splitOld = getSplitEntityByName(mSplitRoomDatabase.splitDao().getAll(), "test_feature_1");
         sleep(500);
-        long storedChangeNumber = mSplitRoomDatabase.generalInfoDao().getByName(GeneralInfoEntity.CHANGE_NUMBER_INFO).getLongValue();
+        long storedChangeNumber = mSplitRoomDatabase.generalInfoDao().getByName(GeneralInfoEntity.SPLITS_ENCODED_CHANGE_NUMBER).getLongValue();
 
         Assert.assertEquals(2, splitCount);
         Assert.assertEquals(CHANGE_NUMBER, split.changeNumber);
@@ -246,7 +247,7 @@ public class SplitsKillProcessTest {
     }
 
     private Split parseEntity(SplitEntity entity) {
-        return Json.fromJson(entity.getBody(), Split.class);
+        return SplitBodyCodec.decode(entity.getBody());
     }
 
     private Split getSplitEntityByName(List<SplitEntity> splits, String name) {
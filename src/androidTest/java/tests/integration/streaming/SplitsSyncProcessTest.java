@@ -37,6 +37,7 @@ import io.split.android.client.network.HttpMethod;
 import io.split.android.client.storage.db.GeneralInfoEntity;
 import io.split.android.client.storage.db.SplitEntity;
 import io.split.android.client.storage.db.SplitRoomDatabase;
+import io.split.android.client.storage.splits.SplitBodyCodec;
 import io.split.android.client.utils.Json;
 import io.split.android.client.utils.Logger;
 
@@ -121,7 +122,7 @@ public class SplitsSyncProcessTest {
         testOldSplitsUpdate();
 
         sleep(500);
-        long storedChangeNumber = mSplitRoomDatabase.generalInfoDao().getByName(GeneralInfoEntity.CHANGE_NUMBER_INFO).getLongValue();
+        long storedChangeNumber = mSplitRoomDatabase.generalInfoDao().getByName(GeneralInfoEntity.SPLITS_ENCODED_CHANGE_NUMBER).getLongValue();
 
         Assert.assertEquals(1, splitCount);
         Assert.assertEquals(CHANGE_NUMBER, split.changeNumber);
@@ -224,7 +225,7 @@ public class SplitsSyncProcessTest {
     }
 
     private Split parseEntity(SplitEntity entity) {
-        return Json.fromJson(entity.getBody(), Split.class);
+        return SplitBodyCodec.decode(entity.getBody());
     }
 
 }
\ No newline at end of file
@@ -42,6 +42,7 @@ import io.split.android.client.network.HttpMethod;
 import io.split.android.client.storage.db.GeneralInfoEntity;
 import io.split.android.client.storage.db.SplitEntity;
 import io.split.android.client.storage.db.SplitRoomDatabase;
+import io.split.android.client.storage.splits.SplitBodyCodec;
 import io.split.android.client.utils.Json;
 import io.split.android.client.utils.Logger;
 import io.split.sharedtest.fake.HttpStreamResponseMock;
@@ -381,7 +382,7 @@ public class SdkUpdatePollingTest {
     }
 
     private Split parseEntity(SplitEntity entity) {
-        return Json.fromJson(entity.getBody(), Split.class);
+        return SplitBodyCodec.decode(entity.getBody());
     }
 
 }
\ No newline at end of file
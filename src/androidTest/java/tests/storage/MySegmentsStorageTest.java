@@ -18,9 +18,11 @@ import java.util.concurrent.TimeUnit;
 
 import io.split.android.client.storage.db.MySegmentEntity;
 import io.split.android.client.storage.db.SplitRoomDatabase;
+import io.split.android.client.storage.mysegments.MySegmentsSnapshot;
 import io.split.android.client.storage.mysegments.MySegmentsStorage;
 import io.split.android.client.storage.mysegments.MySegmentsStorageImpl;
 import io.split.android.client.storage.mysegments.PersistentMySegmentsStorage;
+import io.split.android.client.storage.mysegments.SegmentIds;
 import io.split.android.client.storage.mysegments.SqLitePersistentMySegmentsStorage;
 
 public class MySegmentsStorageTest {
@@ -72,6 +74,23 @@ public class MySegmentsStorageTest {
         Assert.assertTrue(snapshot.contains("s3"));
     }
 
+    @Test
+    public void snapshotIsNotAffectedByUpdates() {
+        mMySegmentsStorage.loadLocal();
+        MySegmentsSnapshot snapshot = mMySegmentsStorage.getSnapshot();
+
+        mMySegmentsStorage.set(Arrays.asList("a1", "a2"));
+        MySegmentsSnapshot newSnapshot = mMySegmentsStorage.getSnapshot();
+
+        Assert.assertTrue(snapshot.contains(SegmentIds.idFor("s1")));
+        Assert.assertFalse(snapshot.contains(SegmentIds.idFor("a1")));
+        Assert.assertEquals(3, snapshot.names().size());
+        Assert.assertFalse(newSnapshot.contains(SegmentIds.idFor("s1")));
+        Assert.assertTrue(newSnapshot.contains(SegmentIds.idFor("a1")));
+        Assert.assertTrue(newSnapshot.contains(SegmentIds.idFor("a2")));
+        Assert.assertEquals(2, newSnapshot.names().size());
+    }
+
     @Test
     public void updateSegments() {
         mMySegmentsStorage.loadLocal();
@@ -19,8 +19,10 @@ import io.split.android.client.dtos.Status;
 import io.split.android.client.storage.db.GeneralInfoEntity;
 import io.split.android.client.storage.db.SplitEntity;
 import io.split.android.client.storage.db.SplitRoomDatabase;
+import io.split.android.client.storage.splits.LazySplit;
 import io.split.android.client.storage.splits.PersistentSplitsStorage;
 import io.split.android.client.storage.splits.ProcessedSplitChange;
+import io.split.android.client.storage.splits.SplitBodyCodec;
 import io.split.android.client.storage.splits.SqLitePersistentSplitsStorage;
 import io.split.android.client.storage.splits.SplitsSnapshot;
 
@@ -230,6 +232,112 @@ public class PersistentSplitsStorageTest {
         Assert.assertEquals(1L, changeNumber);
     }
 
+    @Test
+    public void jsonBodiesMigratedWithNextUpdate() {
+        List<LazySplit> jsonSplits = mPersistentSplitsStorage.getSnapshot().getLazySplits();
+        boolean anyBinary = false;
+        for (SplitEntity entity : mRoomDb.splitDao().getAll()) {
+            anyBinary |= SplitBodyCodec.isBinary(entity.getBody());
+        }
+
+        mPersistentSplitsStorage.update(new ProcessedSplitChange(new ArrayList<>(), new ArrayList<>(), 1L, 0L));
+        Map<String, SplitEntity> entities = new HashMap<>();
+        for (SplitEntity entity : mRoomDb.splitDao().getAll()) {
+            entities.put(entity.getName(), entity);
+        }
+
+        Assert.assertEquals(10, jsonSplits.size());
+        Assert.assertFalse(anyBinary);
+        Assert.assertEquals(10, entities.size());
+        for (SplitEntity entity : entities.values()) {
+            Assert.assertTrue(SplitBodyCodec.isBinary(entity.getBody()));
+        }
+        Assert.assertEquals(INITIAL_CHANGE_NUMBER - 9,
+                SplitBodyCodec.decode(entities.get("split-9").getBody()).changeNumber);
+    }
+
+    @Test
+    public void changeNumberNotKeptForPreviousVersions() {
+        mPersistentSplitsStorage.update(new ProcessedSplitChange(new ArrayList<>(), new ArrayList<>(), 1L, 0L));
+
+        Assert.assertEquals(-1L, mRoomDb.generalInfoDao()
+                .getByName(GeneralInfoEntity.CHANGE_NUMBER_INFO).getLongValue());
+        Assert.assertEquals(1L, mRoomDb.generalInfoDao()
+                .getByName(GeneralInfoEntity.SPLITS_ENCODED_CHANGE_NUMBER).getLongValue());
+        Assert.assertEquals(1L, mPersistentSplitsStorage.getSnapshot().getChangeNumber());
+    }
+
+    @Test
+    public void encodedSplitsDiscardedAfterPreviousVersionUpdate() {
+        List<Split> splits = new ArrayList<>();
+        splits.add(newSplit("encoded", Status.ACTIVE, null));
+        mPersistentSplitsStorage.update(new ProcessedSplitChange(splits, new ArrayList<>(), 1L, 0L));
+        // As a previous version does after fetching splits
+        mRoomDb.generalInfoDao().update(new GeneralInfoEntity(GeneralInfoEntity.CHANGE_NUMBER_INFO, 2L));
+
+        SplitsSnapshot snapshot = new SqLitePersistentSplitsStorage(mRoomDb).getSnapshot();
+        Map<String, Split> splitMap = listToMap(snapshot.getSplits());
+
+        Assert.assertEquals(2L, snapshot.getChangeNumber());
+        Assert.assertEquals(10, splitMap.size());
+        Assert.assertNull(splitMap.get("encoded"));
+    }
+
+    @Test
+    public void encodedSplitsDeletedOnUpdateAfterPreviousVersionUpdate() {
+        List<Split> splits = new ArrayList<>();
+        splits.add(newSplit("encoded", Status.ACTIVE, null));
+        mPersistentSplitsStorage.update(new ProcessedSplitChange(splits, new ArrayList<>(), 1L, 0L));
+        mRoomDb.generalInfoDao().update(new GeneralInfoEntity(GeneralInfoEntity.CHANGE_NUMBER_INFO, 2L));
+
+        PersistentSplitsStorage storage = new SqLitePersistentSplitsStorage(mRoomDb);
+        storage.getSnapshot();
+        storage.update(new ProcessedSplitChange(new ArrayList<>(), new ArrayList<>(), 3L, 0L));
+        SplitsSnapshot snapshot = storage.getSnapshot();
+        Map<String, Split> splitMap = listToMap(snapshot.getSplits());
+
+        Assert.assertEquals(3L, snapshot.getChangeNumber());
+        Assert.assertEquals(10, splitMap.size());
+        Assert.assertNull(splitMap.get("encoded"));
+        Assert.assertEquals(10, mRoomDb.splitDao().getAll().size());
+    }
+
+    @Test
+    public void encodedChangeNumberNotUsedWithoutSplits() {
+        mPersistentSplitsStorage.update(new ProcessedSplitChange(new ArrayList<>(), new ArrayList<>(), 1L, 0L));
+        // As a previous version does when clearing splits
+        mRoomDb.splitDao().deleteAll();
+
+        Assert.assertEquals(-1L, mPersistentSplitsStorage.getSnapshot().getChangeNumber());
+    }
+
+    @Test
+    public void snapshotSplitsDecodedWhenRead() {
+        mPersistentSplitsStorage.getSnapshot();
+        SplitEntity entity = new SplitEntity();
+        entity.setName("broken");
+        entity.setBody("{\"name\":");
+        List<SplitEntity> entities = new ArrayList<>();
+        entities.add(entity);
+        mRoomDb.splitDao().insert(entities);
+
+        List<LazySplit> lazySplits = mPersistentSplitsStorage.getSnapshot().getLazySplits();
+        boolean anyDecoded = false;
+        for (LazySplit lazySplit : lazySplits) {
+            anyDecoded |= lazySplit.isDecoded();
+        }
+        Map<String, Split> splits = new HashMap<>();
+        for (LazySplit lazySplit : lazySplits) {
+            splits.put(lazySplit.name(), lazySplit.get());
+        }
+
+        Assert.assertEquals(11, lazySplits.size());
+        Assert.assertFalse(anyDecoded);
+        Assert.assertEquals("split-0", splits.get("split-0").name);
+        Assert.assertEquals(INITIAL_CHANGE_NUMBER - 9, splits.get("split-9").changeNumber);
+        Assert.assertNull(splits.get("broken"));
+    }
+
     private Split newSplit(String name, Status status, String trafficType) {
         Split split = new Split();
         split.name = name;
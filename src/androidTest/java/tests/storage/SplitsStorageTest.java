@@ -20,6 +20,7 @@ import io.split.android.client.dtos.Status;
 import io.split.android.client.storage.db.GeneralInfoEntity;
 import io.split.android.client.storage.db.SplitEntity;
 import io.split.android.client.storage.db.SplitRoomDatabase;
+import io.split.android.client.storage.splits.InMemorySplitsSnapshot;
 import io.split.android.client.storage.splits.ProcessedSplitChange;
 import io.split.android.client.storage.splits.SplitsStorage;
 import io.split.android.client.storage.splits.SplitsStorageImpl;
@@ -319,6 +320,46 @@ public class SplitsStorageTest {
         Assert.assertTrue(mSplitsStorage.isValidTrafficType("mytt"));
     }
 
+    @Test
+    public void inMemorySnapshotNotChangedByUpdate() {
+        mSplitsStorage.loadLocal();
+        InMemorySplitsSnapshot snapshot = mSplitsStorage.getInMemorySnapshot();
+
+        mSplitsStorage.update(new ProcessedSplitChange(
+                Arrays.asList(newSplit("split-0", Status.ACTIVE, "tt"), newSplit("n_s0", Status.ACTIVE, "tt")),
+                Arrays.asList(newSplit("split-1", Status.ARCHIVED, null)),
+                INITIAL_CHANGE_NUMBER + 1, 0L));
+        InMemorySplitsSnapshot updatedSnapshot = mSplitsStorage.getInMemorySnapshot();
+
+        Assert.assertEquals((long) INITIAL_CHANGE_NUMBER, snapshot.getChangeNumber());
+        Assert.assertEquals(4, snapshot.getAll().size());
+        Assert.assertNotNull(snapshot.get("split-1"));
+        Assert.assertNull(snapshot.get("n_s0"));
+        Assert.assertFalse(snapshot.isValidTrafficType("tt"));
+        Assert.assertEquals(INITIAL_CHANGE_NUMBER + 1, updatedSnapshot.getChangeNumber());
+        Assert.assertEquals(4, updatedSnapshot.getAll().size());
+        Assert.assertNull(updatedSnapshot.get("split-1"));
+        Assert.assertNotNull(updatedSnapshot.get("n_s0"));
+        Assert.assertTrue(updatedSnapshot.isValidTrafficType("tt"));
+    }
+
+    @Test
+    public void loadedTrafficTypes() {
+        mRoomDb.splitDao().insert(Arrays.asList(newSplitEntity("n_s0", "loadedtt")));
+
+        mSplitsStorage.loadLocal();
+
+        Assert.assertTrue(mSplitsStorage.isValidTrafficType("loadedtt"));
+    }
+
+    private SplitEntity newSplitEntity(String name, String trafficType) {
+        SplitEntity entity = new SplitEntity();
+        entity.setName(name);
+        entity.setBody(String.format("{\"name\":\"%s\", \"changeNumber\": %d, \"trafficTypeName\": \"%s\"}",
+                name, INITIAL_CHANGE_NUMBER, trafficType));
+        return entity;
+    }
+
     private Split newSplit(String name, Status status, String trafficType) {
         Split split = new Split();
         split.name = name;
@@ -0,0 +1,146 @@
+package io.split.android.client;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import io.split.android.client.storage.mysegments.MySegmentsSnapshot;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Bounded LRU cache of evaluation results for a single client.
+ * Results are keyed by split name, keys and attributes, with the attributes
+ * map hash as fingerprint. Each entry keeps the splits version and my segments
+ * snapshot it was evaluated with and it is discarded if any of them
+ * is not the current one.
+ */
+public class EvaluationResultsCache {
+
+    private final int mMaxSize;
+    private final LinkedHashMap<CacheKey, CacheEntry> mEntries;
+
+    public EvaluationResultsCache(int maxSize) {
+        checkArgument(maxSize > 0);
+        mMaxSize = maxSize;
+        mEntries = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                return size() > mMaxSize;
+            }
+        };
+    }
+
+    @Nullable
+    public synchronized EvaluationResult get(@NonNull String splitName,
+                                             @NonNull String matchingKey,
+                                             @Nullable String bucketingKey,
+                                             @Nullable Map<String, Object> attributes,
+                                             long splitsVersion,
+                                             @NonNull MySegmentsSnapshot mySegments) {
+        CacheKey key = new CacheKey(splitName, matchingKey, bucketingKey, attributes);
+        CacheEntry entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.splitsVersion != splitsVersion || entry.mySegments != mySegments) {
+            mEntries.remove(key);
+            return null;
+        }
+        return entry.result;
+    }
+
+    public synchronized void put(@NonNull String splitName,
+                                 @NonNull String matchingKey,
+                                 @Nullable String bucketingKey,
+                                 @Nullable Map<String, Object> attributes,
+                                 long splitsVersion,
+                                 @NonNull MySegmentsSnapshot mySegments,
+                                 @NonNull EvaluationResult result) {
+        checkNotNull(result);
+        mEntries.put(new CacheKey(splitName, matchingKey, bucketingKey, copyOf(attributes)),
+                new CacheEntry(splitsVersion, mySegments, result));
+    }
+
+    public synchronized void clear() {
+        mEntries.clear();
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Attributes are copied when stored so that later changes to the map
+     * (or to its collection values) done by the caller don't affect the key.
+     */
+    private static Map<String, Object> copyOf(Map<String, Object> attributes) {
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, Object> copy = new HashMap<>(attributes.size());
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            Object value = attribute.getValue();
+            if (value instanceof Set) {
+                value = new HashSet<>((Set<?>) value);
+            } else if (value instanceof Collection) {
+                value = new ArrayList<>((Collection<?>) value);
+            }
+            copy.put(attribute.getKey(), value);
+        }
+        return copy;
+    }
+
+    private static class CacheKey {
+        private final String mSplitName;
+        private final String mMatchingKey;
+        private final String mBucketingKey;
+        private final Map<String, Object> mAttributes;
+        private final int mHash;
+
+        CacheKey(String splitName, String matchingKey, String bucketingKey, Map<String, Object> attributes) {
+            mSplitName = splitName;
+            mMatchingKey = matchingKey;
+            mBucketingKey = bucketingKey;
+            mAttributes = attributes;
+            mHash = 31 * splitName.hashCode() + (attributes != null ? attributes.hashCode() : 0);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            CacheKey that = (CacheKey) o;
+            if (mHash != that.mHash || !mSplitName.equals(that.mSplitName)) return false;
+            if (!mMatchingKey.equals(that.mMatchingKey)) return false;
+            if (mBucketingKey != null ? !mBucketingKey.equals(that.mBucketingKey) : that.mBucketingKey != null) return false;
+            return mAttributes != null ? mAttributes.equals(that.mAttributes) : that.mAttributes == null;
+        }
+    }
+
+    private static class CacheEntry {
+        final long splitsVersion;
+        final MySegmentsSnapshot mySegments;
+        final EvaluationResult result;
+
+        CacheEntry(long splitsVersion, MySegmentsSnapshot mySegments, EvaluationResult result) {
+            this.splitsVersion = splitsVersion;
+            this.mySegments = mySegments;
+            this.result = result;
+        }
+    }
+}
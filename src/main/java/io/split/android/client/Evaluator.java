@@ -4,4 +4,11 @@ import java.util.Map;
 
 public interface Evaluator {
     EvaluationResult getTreatment(String matchingKey, String bucketingKey, String split, Map<String, Object> attributes);
+
+    /**
+     * Returns an evaluator that reads splits and resolves segment membership
+     * against the current splits and my segments snapshots for every evaluation
+     * done through it, so that several evaluations see the same splits and segments.
+     */
+    Evaluator pinSnapshots();
 }
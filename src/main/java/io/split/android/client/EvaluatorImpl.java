@@ -1,38 +1,178 @@
 package io.split.android.client;
 
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import io.split.android.client.dtos.ConditionType;
 import io.split.android.client.dtos.Split;
 import io.split.android.client.exceptions.ChangeNumberExceptionWrapper;
+import io.split.android.client.storage.mysegments.MySegmentsSnapshot;
+import io.split.android.client.storage.mysegments.MySegmentsStorage;
+import io.split.android.client.storage.splits.InMemorySplitsSnapshot;
 import io.split.android.client.storage.splits.SplitsStorage;
 import io.split.android.client.utils.Logger;
+import io.split.android.engine.experiments.CompiledSplit;
 import io.split.android.engine.experiments.ParsedCondition;
 import io.split.android.engine.experiments.ParsedSplit;
+import io.split.android.engine.experiments.ParsedSplitsCache;
+import io.split.android.engine.experiments.SplitDependencyGraph;
 import io.split.android.engine.experiments.SplitFetcher;
 import io.split.android.engine.experiments.SplitParser;
+import io.split.android.engine.experiments.TypedAttributes;
+import io.split.android.engine.splitter.KeyBuckets;
 import io.split.android.engine.splitter.Splitter;
 import io.split.android.grammar.Treatments;
 
 public class EvaluatorImpl implements Evaluator {
 
     private final SplitsStorage mSplitsStorage;
-    private final SplitParser mSplitParser;
+    private final ParsedSplitsCache mParsedSplitsCache;
+    private final MySegmentsStorage mMySegmentsStorage;
+    private final EvaluationResultsCache mResultsCache;
+    private volatile PreEvaluatedTreatments mPreEvaluatedTreatments;
+    private volatile KeyBuckets mKeyBuckets;
+    private volatile SplitDependencyGraph mDependencyGraph;
 
     public EvaluatorImpl(SplitsStorage splitsStorage, SplitParser splitParser) {
+        this(splitsStorage, new ParsedSplitsCache(splitParser));
+    }
+
+    public EvaluatorImpl(SplitsStorage splitsStorage, ParsedSplitsCache parsedSplitsCache) {
+        this(splitsStorage, parsedSplitsCache, null);
+    }
+
+    public EvaluatorImpl(SplitsStorage splitsStorage, ParsedSplitsCache parsedSplitsCache,
+                         @Nullable EvaluationResultsCache resultsCache) {
         mSplitsStorage = splitsStorage;
-        mSplitParser = splitParser;
+        mParsedSplitsCache = parsedSplitsCache;
+        mMySegmentsStorage = parsedSplitsCache.getMySegmentsStorage();
+        mResultsCache = resultsCache;
     }
 
     @Override
     public EvaluationResult getTreatment(String matchingKey, String bucketingKey, String splitName, Map<String, Object> attributes) {
+        return pinSnapshots().getTreatment(matchingKey, bucketingKey, splitName, attributes);
+    }
 
+    @Override
+    public Evaluator pinSnapshots() {
+        return pin();
+    }
+
+    /**
+     * Evaluates for the given key every split that doesn't depend on attributes
+     * and publishes the results, so that later evaluations of those splits
+     * are a lookup while splits and segments don't change.
+     * Buckets for the key are also computed for the remaining splits.
+     */
+    public synchronized void preEvaluate(String matchingKey, String bucketingKey) {
+        PinnedEvaluator evaluator = pin();
+        KeyBuckets keyBuckets = keyBuckets(bucketingKey == null ? matchingKey : bucketingKey);
+        Map<String, EvaluationResult> results = new HashMap<>();
+        for (Split split : evaluator.mSplits.getAll().values()) {
+            CompiledSplit compiledSplit = mParsedSplitsCache.getCompiled(split);
+            if (compiledSplit == null) {
+                continue;
+            }
+            if (!compiledSplit.isAttributeFree()) {
+                ParsedSplit parsedSplit = compiledSplit.parsedSplit();
+                keyBuckets.getBucket(parsedSplit.seed(), parsedSplit.algo());
+                if (parsedSplit.trafficAllocation() < 100) {
+                    keyBuckets.getBucket(parsedSplit.trafficAllocationSeed(), parsedSplit.algo());
+                }
+                continue;
+            }
+            EvaluationResult result = evaluate(matchingKey, bucketingKey, compiledSplit, null, evaluator);
+            if (!TreatmentLabels.EXCEPTION.equals(result.getLabel())) {
+                results.put(split.name, result);
+            }
+        }
+        mPreEvaluatedTreatments = new PreEvaluatedTreatments(matchingKey, bucketingKey,
+                evaluator.mSplitsVersion, evaluator.mMySegments, results);
+    }
+
+    private PinnedEvaluator pin() {
+        // Version is read before the splits, so that results stored
+        // for a version never come from splits older than it
+        long splitsVersion = mParsedSplitsCache.version();
+        return new PinnedEvaluator(mSplitsStorage.getInMemorySnapshot(), splitsVersion,
+                mMySegmentsStorage.getSnapshot());
+    }
+
+    private EvaluationResult getTreatment(String matchingKey, String bucketingKey, String splitName, Map<String, Object> attributes,
+                                          PinnedEvaluator evaluator) {
+        EvaluationResult result = evaluator.memoized(matchingKey, bucketingKey, splitName, attributes);
+        if (result == null) {
+            result = lookUpOrEvaluate(matchingKey, bucketingKey, splitName, attributes, evaluator);
+            evaluator.memoize(matchingKey, bucketingKey, splitName, attributes, result);
+        }
+        return result;
+    }
+
+    private EvaluationResult lookUpOrEvaluate(String matchingKey, String bucketingKey, String splitName, Map<String, Object> attributes,
+                                              PinnedEvaluator evaluator) {
+        PreEvaluatedTreatments preEvaluatedTreatments = mPreEvaluatedTreatments;
+        if (preEvaluatedTreatments != null && splitName != null && matchingKey != null) {
+            EvaluationResult result = preEvaluatedTreatments.get(splitName, matchingKey, bucketingKey,
+                    evaluator.mSplitsVersion, evaluator.mMySegments);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        if (mResultsCache == null || splitName == null || matchingKey == null) {
+            return evaluate(matchingKey, bucketingKey, splitName, attributes, evaluator);
+        }
+
+        long splitsVersion = evaluator.mSplitsVersion;
+        EvaluationResult result = mResultsCache.get(splitName, matchingKey, bucketingKey, attributes,
+                splitsVersion, evaluator.mMySegments);
+        if (result != null) {
+            return result;
+        }
+
+        result = evaluate(matchingKey, bucketingKey, splitName, attributes, evaluator);
+        if (!TreatmentLabels.EXCEPTION.equals(result.getLabel())) {
+            mResultsCache.put(splitName, matchingKey, bucketingKey, attributes,
+                    splitsVersion, evaluator.mMySegments, result);
+        }
+        return result;
+    }
+
+    private EvaluationResult evaluate(String matchingKey, String bucketingKey, String splitName, Map<String, Object> attributes,
+                                      PinnedEvaluator evaluator) {
+
+        CompiledSplit compiledSplit;
         try {
-            ParsedSplit parsedSplit = mSplitParser.parse(mSplitsStorage.get(splitName));
-            if (parsedSplit == null) {
-                return new EvaluationResult(Treatments.CONTROL, TreatmentLabels.DEFINITION_NOT_FOUND);
+            compiledSplit = mParsedSplitsCache.getCompiled(evaluator.mSplits.get(splitName));
+        } catch (Exception e) {
+            Logger.e(e, "Catch All Exception");
+            return new EvaluationResult(Treatments.CONTROL, TreatmentLabels.EXCEPTION);
+        }
+        if (compiledSplit == null) {
+            return new EvaluationResult(Treatments.CONTROL, TreatmentLabels.DEFINITION_NOT_FOUND);
+        }
+        return evaluate(matchingKey, bucketingKey, compiledSplit, attributes, evaluator);
+    }
+
+    private EvaluationResult evaluate(String matchingKey, String bucketingKey, CompiledSplit compiledSplit, Map<String, Object> attributes,
+                                      PinnedEvaluator evaluator) {
+        try {
+            if (!compiledSplit.dependencies().isEmpty()) {
+                List<String> dependencies = dependencyGraph(evaluator.mSplits).evaluationOrder(compiledSplit);
+                if (dependencies == null) {
+                    Logger.e("Split %s has circular dependencies", compiledSplit.parsedSplit().feature());
+                    return new EvaluationResult(Treatments.CONTROL, TreatmentLabels.EXCEPTION);
+                }
+                // Dependencies are evaluated first so that matchers get them from the memo
+                for (String dependency : dependencies) {
+                    getTreatment(matchingKey, bucketingKey, dependency, attributes, evaluator);
+                }
             }
-            return getTreatment(matchingKey, bucketingKey, parsedSplit, attributes);
+            return getTreatment(matchingKey, bucketingKey, compiledSplit, attributes, evaluator);
 
         } catch (ChangeNumberExceptionWrapper ex) {
             Logger.e(ex, "Catch Change Number Exception");
@@ -45,12 +185,15 @@ public class EvaluatorImpl implements Evaluator {
     /**
      * @param matchingKey  MUST NOT be null
      * @param bucketingKey
-     * @param parsedSplit  MUST NOT be null
+     * @param compiledSplit  MUST NOT be null
      * @param attributes   MUST NOT be null
+     * @param evaluator  evaluator pinned to the splits and segments snapshots used for this evaluation
      * @return
      * @throws ChangeNumberExceptionWrapper
      */
-    private EvaluationResult getTreatment(String matchingKey, String bucketingKey, ParsedSplit parsedSplit, Map<String, Object> attributes) throws ChangeNumberExceptionWrapper {
+    private EvaluationResult getTreatment(String matchingKey, String bucketingKey, CompiledSplit compiledSplit, Map<String, Object> attributes,
+                                          PinnedEvaluator evaluator) throws ChangeNumberExceptionWrapper {
+        ParsedSplit parsedSplit = compiledSplit.parsedSplit();
         try {
             if (parsedSplit.killed()) {
                 return new EvaluationResult(parsedSplit.defaultTreatment(), TreatmentLabels.KILLED, parsedSplit.changeNumber(), configForTreatment(parsedSplit, parsedSplit.defaultTreatment()));
@@ -64,15 +207,18 @@ public class EvaluatorImpl implements Evaluator {
              */
             boolean inRollout = false;
 
-            String bk = (bucketingKey == null) ? matchingKey : bucketingKey;
+            KeyBuckets keyBuckets = keyBuckets((bucketingKey == null) ? matchingKey : bucketingKey);
 
-            for (ParsedCondition parsedCondition : parsedSplit.parsedConditions()) {
+            TypedAttributes typedAttributes = evaluator.typedAttributes(attributes);
+            List<ParsedCondition> parsedConditions = parsedSplit.parsedConditions();
+            for (int i = 0; i < parsedConditions.size(); i++) {
+                ParsedCondition parsedCondition = parsedConditions.get(i);
 
                 if (!inRollout && parsedCondition.conditionType() == ConditionType.ROLLOUT) {
 
                     if (parsedSplit.trafficAllocation() < 100) {
                         // if the traffic allocation is 100%, no need to do anything special.
-                        int bucket = Splitter.getBucket(bk, parsedSplit.trafficAllocationSeed(), parsedSplit.algo());
+                        int bucket = keyBuckets.getBucket(parsedSplit.trafficAllocationSeed(), parsedSplit.algo());
 
                         if (bucket > parsedSplit.trafficAllocation()) {
                             // out of split
@@ -83,8 +229,8 @@ public class EvaluatorImpl implements Evaluator {
                     inRollout = true;
                 }
 
-                if (parsedCondition.matcher().match(matchingKey, bucketingKey, attributes, this)) {
-                    String treatment = Splitter.getTreatment(bk, parsedSplit.seed(), parsedCondition.partitions(), parsedSplit.algo());
+                if (compiledSplit.match(i, matchingKey, bucketingKey, typedAttributes, evaluator.mMySegments, evaluator)) {
+                    String treatment = Splitter.getTreatment(keyBuckets, parsedSplit.seed(), parsedCondition.partitions(), parsedSplit.algo());
                     return new EvaluationResult(treatment, parsedCondition.label(), parsedSplit.changeNumber(), configForTreatment(parsedSplit, treatment));
                 }
             }
@@ -95,6 +241,28 @@ public class EvaluatorImpl implements Evaluator {
         }
     }
 
+    private SplitDependencyGraph dependencyGraph(InMemorySplitsSnapshot splits) {
+        SplitDependencyGraph dependencyGraph = mDependencyGraph;
+        if (dependencyGraph == null || dependencyGraph.splits() != splits) {
+            dependencyGraph = new SplitDependencyGraph(splits, mParsedSplitsCache);
+            mDependencyGraph = dependencyGraph;
+        }
+        return dependencyGraph;
+    }
+
+    /**
+     * Clients evaluate always for the same key, so only the buckets
+     * of the last one are kept.
+     */
+    private KeyBuckets keyBuckets(String bucketingKey) {
+        KeyBuckets keyBuckets = mKeyBuckets;
+        if (keyBuckets == null || !keyBuckets.key().equals(bucketingKey)) {
+            keyBuckets = new KeyBuckets(bucketingKey);
+            mKeyBuckets = keyBuckets;
+        }
+        return keyBuckets;
+    }
+
     private String configForTreatment(ParsedSplit split, String treatment) {
         String config = null;
         if (split.configurations() != null) {
@@ -102,4 +270,81 @@ public class EvaluatorImpl implements Evaluator {
         }
         return config;
     }
+
+    /**
+     * Evaluates against fixed splits and my segments snapshots. Dependency matchers
+     * get this evaluator, so that the splits they evaluate see the same splits and segments.
+     * Results are memoized for the keys and attributes of the first evaluation,
+     * so that a split is evaluated once per call even if others depend on it.
+     * It is meant to be used for a single call, so it is not thread safe.
+     */
+    private class PinnedEvaluator implements Evaluator {
+        private final InMemorySplitsSnapshot mSplits;
+        private final long mSplitsVersion;
+        private final MySegmentsSnapshot mMySegments;
+        private Map<String, EvaluationResult> mResults;
+        private String mMatchingKey;
+        private String mBucketingKey;
+        private Map<String, Object> mAttributes;
+        private TypedAttributes mTypedAttributes;
+
+        PinnedEvaluator(InMemorySplitsSnapshot splits, long splitsVersion, MySegmentsSnapshot mySegments) {
+            mSplits = splits;
+            mSplitsVersion = splitsVersion;
+            mMySegments = mySegments;
+        }
+
+        EvaluationResult memoized(String matchingKey, String bucketingKey, String splitName,
+                                  Map<String, Object> attributes) {
+            if (mResults == null || !isMemoizedInput(matchingKey, bucketingKey, attributes)) {
+                return null;
+            }
+            return mResults.get(splitName);
+        }
+
+        void memoize(String matchingKey, String bucketingKey, String splitName,
+                     Map<String, Object> attributes, EvaluationResult result) {
+            if (splitName == null || matchingKey == null) {
+                return;
+            }
+            if (mResults == null) {
+                mResults = new HashMap<>();
+                mMatchingKey = matchingKey;
+                mBucketingKey = bucketingKey;
+                mAttributes = attributes;
+            } else if (!isMemoizedInput(matchingKey, bucketingKey, attributes)) {
+                return;
+            }
+            mResults.put(splitName, result);
+        }
+
+        /**
+         * The same attributes map is passed for every split in a call,
+         * so conversions done by one split are reused by the others.
+         */
+        TypedAttributes typedAttributes(Map<String, Object> attributes) {
+            TypedAttributes typedAttributes = mTypedAttributes;
+            if (typedAttributes == null || typedAttributes.asMap() != attributes) {
+                typedAttributes = TypedAttributes.of(attributes);
+                mTypedAttributes = typedAttributes;
+            }
+            return typedAttributes;
+        }
+
+        // Attributes are compared by reference given that the caller could change the map
+        private boolean isMemoizedInput(String matchingKey, String bucketingKey, Map<String, Object> attributes) {
+            return mAttributes == attributes && mMatchingKey.equals(matchingKey)
+                    && (mBucketingKey != null ? mBucketingKey.equals(bucketingKey) : bucketingKey == null);
+        }
+
+        @Override
+        public EvaluationResult getTreatment(String matchingKey, String bucketingKey, String splitName, Map<String, Object> attributes) {
+            return EvaluatorImpl.this.getTreatment(matchingKey, bucketingKey, splitName, attributes, this);
+        }
+
+        @Override
+        public Evaluator pinSnapshots() {
+            return this;
+        }
+    }
 }
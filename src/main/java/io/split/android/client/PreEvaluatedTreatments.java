@@ -0,0 +1,55 @@
+package io.split.android.client;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+
+import io.split.android.client.storage.mysegments.MySegmentsSnapshot;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable results of evaluating, for one key, every split that doesn't
+ * depend on attributes. Results are only returned for the same key and while
+ * the splits version and my segments snapshot are the ones used to build them.
+ */
+public final class PreEvaluatedTreatments {
+
+    private final String mMatchingKey;
+    private final String mBucketingKey;
+    private final long mSplitsVersion;
+    private final MySegmentsSnapshot mMySegments;
+    private final Map<String, EvaluationResult> mResults;
+
+    PreEvaluatedTreatments(@NonNull String matchingKey,
+                           @Nullable String bucketingKey,
+                           long splitsVersion,
+                           @NonNull MySegmentsSnapshot mySegments,
+                           @NonNull Map<String, EvaluationResult> results) {
+        mMatchingKey = checkNotNull(matchingKey);
+        mBucketingKey = bucketingKey;
+        mSplitsVersion = splitsVersion;
+        mMySegments = checkNotNull(mySegments);
+        mResults = Collections.unmodifiableMap(results);
+    }
+
+    @Nullable
+    public EvaluationResult get(@NonNull String splitName,
+                                @NonNull String matchingKey,
+                                @Nullable String bucketingKey,
+                                long splitsVersion,
+                                @NonNull MySegmentsSnapshot mySegments) {
+        if (splitsVersion != mSplitsVersion || mySegments != mMySegments
+                || !mMatchingKey.equals(matchingKey)
+                || (mBucketingKey != null ? !mBucketingKey.equals(bucketingKey) : bucketingKey != null)) {
+            return null;
+        }
+        return mResults.get(splitName);
+    }
+
+    public int size() {
+        return mResults.size();
+    }
+}
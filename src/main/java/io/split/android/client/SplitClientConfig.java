@@ -45,6 +45,7 @@ public class SplitClientConfig {
     private static final int DEFAULT_EVENTS_FLUSH_INTERVAL = 1800;
     private static final int DEFAULT_EVENTS_PER_PUSH = 2000;
     private static final int DEFAULT_BACKGROUND_SYNC_PERIOD_MINUTES = 15;
+    private static final int DEFAULT_TREATMENTS_CACHE_SIZE = 0;
 
     private static final int DEFAULT_AUTH_RETRY_BACKOFF_BASE_SECS = 1;
     private static final int DEFAULT_STREAMING_RECONNECT_BACKOFF_BASE_SECS = 1;
@@ -115,6 +116,11 @@ public class SplitClientConfig {
 
     private boolean _legacyStorageMigrationEnabled;
     private ImpressionsMode _impressionsMode;
+    private final int _treatmentsCacheSize;
+    private final boolean _preEvaluateTreatments;
+    private final boolean _splitsSnapshotFileEnabled;
+    private final boolean _gzipUploadsEnabled;
+    private final boolean _prewarmConnectionsEnabled;
 
     // To be set during startup
     public static String splitSdkVersion;
@@ -162,7 +168,12 @@ public class SplitClientConfig {
                               SyncConfig syncConfig,
                               boolean legacyStorageMigrationEnabled,
                               ImpressionsMode impressionsMode,
-                              int impCountersRefreshRate) {
+                              int impCountersRefreshRate,
+                              int treatmentsCacheSize,
+                              boolean preEvaluateTreatments,
+                              boolean splitsSnapshotFileEnabled,
+                              boolean gzipUploadsEnabled,
+                              boolean prewarmConnectionsEnabled) {
         _endpoint = endpoint;
         _eventsEndpoint = eventsEndpoint;
         _featuresRefreshRate = pollForFeatureChangesEveryNSeconds;
@@ -204,6 +215,11 @@ public class SplitClientConfig {
         _syncConfig = syncConfig;
         _legacyStorageMigrationEnabled = legacyStorageMigrationEnabled;
         _impressionsMode = impressionsMode;
+        _treatmentsCacheSize = treatmentsCacheSize;
+        _preEvaluateTreatments = preEvaluateTreatments;
+        _splitsSnapshotFileEnabled = splitsSnapshotFileEnabled;
+        _gzipUploadsEnabled = gzipUploadsEnabled;
+        _prewarmConnectionsEnabled = prewarmConnectionsEnabled;
 
         splitSdkVersion = "Android-" + BuildConfig.SPLIT_VERSION_NAME;
 
@@ -460,6 +476,26 @@ public class SplitClientConfig {
         return _impCountersRefreshRate;
     }
 
+    public int treatmentsCacheSize() {
+        return _treatmentsCacheSize;
+    }
+
+    public boolean preEvaluateTreatments() {
+        return _preEvaluateTreatments;
+    }
+
+    public boolean splitsSnapshotFileEnabled() {
+        return _splitsSnapshotFileEnabled;
+    }
+
+    public boolean gzipUploadsEnabled() {
+        return _gzipUploadsEnabled;
+    }
+
+    public boolean prewarmConnectionsEnabled() {
+        return _prewarmConnectionsEnabled;
+    }
+
     public static final class Builder {
 
         private ServiceEndpoints _serviceEndpoints = null;
@@ -513,6 +549,16 @@ public class SplitClientConfig {
 
         private ImpressionsMode _impressionsMode = ImpressionsMode.OPTIMIZED;
 
+        private int _treatmentsCacheSize = DEFAULT_TREATMENTS_CACHE_SIZE;
+
+        private boolean _preEvaluateTreatments = false;
+
+        private boolean _splitsSnapshotFileEnabled = false;
+
+        private boolean _gzipUploadsEnabled = false;
+
+        private boolean _prewarmConnectionsEnabled = false;
+
         public Builder() {
             _serviceEndpoints = ServiceEndpoints.builder().build();
         }
@@ -979,6 +1025,81 @@ public class SplitClientConfig {
             return this;
         }
 
+        /**
+         * Maximum number of evaluation results each client keeps in memory.
+         * Results are reused while splits, segments and attributes don't change,
+         * impressions are logged for every call anyway.
+         * Zero disables the cache.
+         *
+         * @param treatmentsCacheSize
+         * @return: This builder
+         * @default: 0
+         */
+        public Builder treatmentsCacheSize(int treatmentsCacheSize) {
+            _treatmentsCacheSize = treatmentsCacheSize;
+            return this;
+        }
+
+        /**
+         * Evaluates in background, each time splits or segments are updated,
+         * every split that doesn't use attributes for the client key.
+         * Getting the treatment of those splits is then a lookup.
+         *
+         * @param preEvaluateTreatments
+         * @return: This builder
+         * @default: false
+         */
+        public Builder preEvaluateTreatments(boolean preEvaluateTreatments) {
+            _preEvaluateTreatments = preEvaluateTreatments;
+            return this;
+        }
+
+        /**
+         * Keeps all the splits in a file next to the database, besides the database.
+         * Splits are loaded from it at startup, which is faster than querying
+         * the database when there are many splits, at the cost of rewriting it
+         * in background shortly after splits are updated.
+         *
+         * @param splitsSnapshotFileEnabled
+         * @return: This builder
+         * @default: false
+         */
+        public Builder splitsSnapshotFile(boolean splitsSnapshotFileEnabled) {
+            _splitsSnapshotFileEnabled = splitsSnapshotFileEnabled;
+            return this;
+        }
+
+        /**
+         * Compresses impressions and events using gzip when sending them,
+         * writing them directly to the connection instead of building the whole body first.
+         * Events endpoint should accept gzip encoded requests.
+         *
+         * @param gzipUploadsEnabled
+         * @return: This builder
+         * @default: false
+         */
+        public Builder gzipUploads(boolean gzipUploadsEnabled) {
+            _gzipUploadsEnabled = gzipUploadsEnabled;
+            return this;
+        }
+
+        /**
+         * Opens a connection to Split sdk server in background when the factory is created,
+         * while cached data is loaded, so that first requests don't wait for
+         * DNS resolution and connection setup.
+         * An additional request is sent to open it, and it only helps when loading
+         * cached data takes longer than the connection setup. Otherwise first
+         * requests open a connection of their own.
+         *
+         * @param prewarmConnectionsEnabled
+         * @return: This builder
+         * @default: false
+         */
+        public Builder prewarmConnections(boolean prewarmConnectionsEnabled) {
+            _prewarmConnectionsEnabled = prewarmConnectionsEnabled;
+            return this;
+        }
+
         public SplitClientConfig build() {
 
 
@@ -1028,6 +1149,10 @@ public class SplitClientConfig {
                         "streaming notifications MUST be greater than zero");
             }
 
+            if (_treatmentsCacheSize < 0) {
+                throw new IllegalArgumentException("treatmentsCacheSize must be >= 0: " + _treatmentsCacheSize);
+            }
+
             if (_backgroundSyncPeriod < DEFAULT_BACKGROUND_SYNC_PERIOD_MINUTES) {
                 Logger.w("Background sync period is lower than allowed. " +
                         "Setting to default value.");
@@ -1075,7 +1200,12 @@ public class SplitClientConfig {
                     _syncConfig,
                     _legacyStorageMigrationEnabled,
                     _impressionsMode,
-                    _impCountersRefreshRate);
+                    _impCountersRefreshRate,
+                    _treatmentsCacheSize,
+                    _preEvaluateTreatments,
+                    _splitsSnapshotFileEnabled,
+                    _gzipUploadsEnabled,
+                    _prewarmConnectionsEnabled);
         }
 
         public void set_impressionsChunkSize(long _impressionsChunkSize) {
@@ -22,7 +22,7 @@ import io.split.android.client.validators.TreatmentManagerImpl;
 import io.split.android.client.validators.ValidationErrorInfo;
 import io.split.android.client.validators.ValidationMessageLogger;
 import io.split.android.client.validators.ValidationMessageLoggerImpl;
-import io.split.android.engine.experiments.SplitParser;
+import io.split.android.engine.experiments.ParsedSplitsCache;
 import io.split.android.engine.metrics.Metrics;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -41,6 +41,7 @@ public final class SplitClientImpl implements SplitClient {
     private final EventValidator mEventValidator;
     private final ValidationMessageLogger mValidationLogger;
     private final SyncManager mSyncManager;
+    private final EvaluatorImpl mEvaluator;
 
     private static final double TRACK_DEFAULT_VALUE = 0.0;
 
@@ -48,7 +49,7 @@ public final class SplitClientImpl implements SplitClient {
 
     public SplitClientImpl(SplitFactory container,
                            Key key,
-                           SplitParser splitParser,
+                           ParsedSplitsCache parsedSplitsCache,
                            ImpressionListener impressionListener,
                            Metrics metrics,
                            SplitClientConfig config,
@@ -57,7 +58,7 @@ public final class SplitClientImpl implements SplitClient {
                            EventPropertiesProcessor eventPropertiesProcessor,
                            SyncManager syncManager) {
 
-        checkNotNull(splitParser);
+        checkNotNull(parsedSplitsCache);
         checkNotNull(impressionListener);
 
         String mBucketingKey = key.bucketingKey();
@@ -68,8 +69,14 @@ public final class SplitClientImpl implements SplitClient {
         mEventsManager = checkNotNull(eventsManager);
         mEventValidator = new EventValidatorImpl(new KeyValidatorImpl(), splitsStorage);
         mValidationLogger = new ValidationMessageLoggerImpl();
+        EvaluationResultsCache resultsCache = null;
+        if (mConfig.treatmentsCacheSize() > 0) {
+            resultsCache = new EvaluationResultsCache(mConfig.treatmentsCacheSize());
+            mEventsManager.register(SplitEvent.SDK_UPDATE, new ClearResultsCacheTask(resultsCache));
+        }
+        mEvaluator = new EvaluatorImpl(splitsStorage, parsedSplitsCache, resultsCache);
         mTreatmentManager = new TreatmentManagerImpl(
-                mMatchingKey, mBucketingKey, new EvaluatorImpl(splitsStorage, splitParser),
+                mMatchingKey, mBucketingKey, mEvaluator,
                 new KeyValidatorImpl(), new SplitValidatorImpl(), metrics,
                 impressionListener, mConfig, eventsManager);
         mEventPropertiesProcessor = checkNotNull(eventPropertiesProcessor);
@@ -210,4 +217,21 @@ public final class SplitClientImpl implements SplitClient {
         return true;
     }
 
+
+    EvaluatorImpl getEvaluator() {
+        return mEvaluator;
+    }
+
+    private static class ClearResultsCacheTask extends SplitEventTask {
+        private final EvaluationResultsCache mResultsCache;
+
+        ClearResultsCacheTask(EvaluationResultsCache resultsCache) {
+            mResultsCache = resultsCache;
+        }
+
+        @Override
+        public void onPostExecution(SplitClient client) {
+            mResultsCache.clear();
+        }
+    }
 }
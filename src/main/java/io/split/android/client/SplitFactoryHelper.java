@@ -2,6 +2,7 @@ package io.split.android.client;
 
 import android.content.Context;
 
+import androidx.annotation.Nullable;
 import androidx.work.WorkManager;
 
 import java.net.URI;
@@ -12,6 +13,7 @@ import java.util.concurrent.LinkedBlockingDeque;
 
 import io.split.android.client.api.Key;
 import io.split.android.client.network.HttpClient;
+import io.split.android.client.network.SdkTargetPath;
 import io.split.android.client.network.SplitHttpHeadersBuilder;
 import io.split.android.client.service.ServiceFactory;
 import io.split.android.client.service.SplitApiFacade;
@@ -44,8 +46,14 @@ import io.split.android.client.service.synchronizer.WorkManagerWrapper;
 import io.split.android.client.storage.SplitStorageContainer;
 import io.split.android.client.storage.db.SplitRoomDatabase;
 import io.split.android.client.storage.db.StorageFactory;
+import io.split.android.client.storage.mysegments.MySegmentsStorage;
+import io.split.android.client.storage.splits.WriteBehindPersistentSplitsStorage;
+import io.split.android.client.storage.splits.WriteBehindSplitsSnapshotFile;
+import io.split.android.client.utils.Logger;
 import io.split.android.client.utils.NetworkHelper;
 import io.split.android.client.utils.Utils;
+import io.split.android.engine.experiments.ParsedSplitsCache;
+import io.split.android.engine.experiments.SplitParser;
 import io.split.android.engine.metrics.Metrics;
 
 class SplitFactoryHelper {
@@ -76,14 +84,26 @@ class SplitFactoryHelper {
         return headersBuilder.build();
     }
 
-    SplitStorageContainer buildStorageContainer(SplitRoomDatabase splitRoomDatabase, Context context, Key key) {
+    SplitStorageContainer buildStorageContainer(SplitRoomDatabase splitRoomDatabase, Context context, Key key,
+                                                @Nullable WriteBehindSplitsSnapshotFile splitsSnapshotFile) {
+        MySegmentsStorage mySegmentsStorage
+                = StorageFactory.getMySegmentsStorage(splitRoomDatabase, key.matchingKey());
+        ParsedSplitsCache parsedSplitsCache
+                = new ParsedSplitsCache(new SplitParser(mySegmentsStorage));
+        // Shared so that pending writes are seen when reading from the persistent storage
+        WriteBehindPersistentSplitsStorage persistentSplitsStorage
+                = StorageFactory.getWriteBehindPersistentSplitsStorage(splitRoomDatabase, splitsSnapshotFile);
+        if (splitsSnapshotFile != null) {
+            splitsSnapshotFile.setPersistentStorage(persistentSplitsStorage);
+        }
         return new SplitStorageContainer(
-                StorageFactory.getSplitsStorage(splitRoomDatabase),
-                StorageFactory.getMySegmentsStorage(splitRoomDatabase, key.matchingKey()),
-                StorageFactory.getPersistentSplitsStorage(splitRoomDatabase),
+                StorageFactory.getSplitsStorage(persistentSplitsStorage, parsedSplitsCache, splitsSnapshotFile),
+                mySegmentsStorage,
+                persistentSplitsStorage,
                 StorageFactory.getPersistenEventsStorage(splitRoomDatabase),
                 StorageFactory.getPersistenImpressionsStorage(splitRoomDatabase),
-                StorageFactory.getPersistenImpressionsCountStorage(splitRoomDatabase));
+                StorageFactory.getPersistenImpressionsCountStorage(splitRoomDatabase),
+                parsedSplitsCache);
     }
 
     String buildSplitsFilterQueryString(SplitClientConfig config) {
@@ -109,13 +129,30 @@ class SplitFactoryHelper {
                 ServiceFactory.getSseAuthenticationFetcher(networkHelper, httpClient,
                         splitClientConfig.authServiceUrl()),
                 ServiceFactory.getEventsRecorder(networkHelper, httpClient,
-                        splitClientConfig.eventsEndpoint()),
+                        splitClientConfig.eventsEndpoint(), splitClientConfig.gzipUploadsEnabled()),
                 ServiceFactory.getImpressionsRecorder(networkHelper, httpClient,
-                        splitClientConfig.eventsEndpoint()),
+                        splitClientConfig.eventsEndpoint(), splitClientConfig.gzipUploadsEnabled()),
                 ServiceFactory.getImpressionsCountRecorder(networkHelper, httpClient,
                         splitClientConfig.eventsEndpoint()));
     }
 
+    /**
+     * Prewarms a connection to the sdk host, where the requests needed for SDK_READY are sent.
+     * The my segments endpoint is used with the sdk headers, so that it is answered as a
+     * regular request. Other hosts are not prewarmed, given that they aren't needed to be
+     * ready and don't have an endpoint to answer a request like this one.
+     */
+    void prewarmConnection(HttpClient httpClient, SplitClientConfig config, String matchingKey) {
+        URI uri;
+        try {
+            uri = SdkTargetPath.mySegments(config.endpoint(), matchingKey);
+        } catch (URISyntaxException e) {
+            Logger.d("Invalid url to prewarm connection: " + e.getLocalizedMessage());
+            return;
+        }
+        httpClient.prewarm(uri);
+    }
+
     WorkManagerWrapper buildWorkManagerWrapper(Context context, SplitClientConfig splitClientConfig,
                                                String apiKey, String key, String databaseName) {
         return new WorkManagerWrapper(
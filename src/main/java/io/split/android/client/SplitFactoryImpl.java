@@ -11,15 +11,19 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import io.split.android.client.api.Key;
+import io.split.android.client.events.SplitEvent;
+import io.split.android.client.events.SplitEventTask;
 import io.split.android.client.events.SplitEventsManager;
 import io.split.android.client.factory.FactoryMonitor;
 import io.split.android.client.factory.FactoryMonitorImpl;
 import io.split.android.client.impressions.ImpressionListener;
 import io.split.android.client.impressions.SyncImpressionListener;
+import io.split.android.client.lifecycle.SplitLifecycleAware;
 import io.split.android.client.lifecycle.SplitLifecycleManager;
 import io.split.android.client.metrics.CachedMetrics;
 import io.split.android.client.metrics.FireAndForgetMetrics;
 import io.split.android.client.metrics.HttpMetrics;
+import io.split.android.client.network.ConnectivityMonitor;
 import io.split.android.client.network.HttpClient;
 import io.split.android.client.network.HttpClientImpl;
 import io.split.android.client.service.SplitApiFacade;
@@ -27,11 +31,15 @@ import io.split.android.client.service.executor.SplitTaskExecutor;
 import io.split.android.client.service.executor.SplitTaskExecutorImpl;
 import io.split.android.client.service.executor.SplitTaskFactory;
 import io.split.android.client.service.executor.SplitTaskFactoryImpl;
+import io.split.android.client.service.splits.PreEvaluateTreatmentsTask;
 import io.split.android.client.service.synchronizer.SyncManager;
 import io.split.android.client.service.synchronizer.Synchronizer;
 import io.split.android.client.service.synchronizer.SynchronizerImpl;
 import io.split.android.client.storage.SplitStorageContainer;
 import io.split.android.client.storage.db.SplitRoomDatabase;
+import io.split.android.client.storage.splits.PersistentSplitsStorage;
+import io.split.android.client.storage.splits.SplitsSnapshotFile;
+import io.split.android.client.storage.splits.WriteBehindSplitsSnapshotFile;
 import io.split.android.client.utils.Logger;
 import io.split.android.client.validators.ApiKeyValidator;
 import io.split.android.client.validators.ApiKeyValidatorImpl;
@@ -85,7 +93,6 @@ public class SplitFactoryImpl implements SplitFactory {
         } else {
             defaultHttpClient = httpClient;
         }
-
         ValidationErrorInfo errorInfo = keyValidator.validate(key.matchingKey(), key.bucketingKey());
         String validationTag = "factory instantiation";
         if (errorInfo != null) {
@@ -119,6 +126,10 @@ public class SplitFactoryImpl implements SplitFactory {
 
         defaultHttpClient.addHeaders(factoryHelper.buildHeaders(config, apiToken));
         defaultHttpClient.addStreamingHeaders(factoryHelper.buildStreamingHeaders(apiToken));
+        if (config.prewarmConnectionsEnabled()) {
+            // While cached data is loaded
+            factoryHelper.prewarmConnection(defaultHttpClient, config, key.matchingKey());
+        }
 
         URI eventsRootTarget = URI.create(config.eventsEndpoint());
 
@@ -127,7 +138,16 @@ public class SplitFactoryImpl implements SplitFactory {
 
         SplitEventsManager _eventsManager = new SplitEventsManager(config);
 
-        SplitStorageContainer storageContainer = factoryHelper.buildStorageContainer(_splitDatabase, context, key);
+        final WriteBehindSplitsSnapshotFile splitsSnapshotFile;
+        if (config.splitsSnapshotFileEnabled()) {
+            splitsSnapshotFile = WriteBehindSplitsSnapshotFile.forDatabase(context, databaseName);
+        } else {
+            // Might be outdated if it was enabled before
+            SplitsSnapshotFile.forDatabase(context, databaseName).delete();
+            splitsSnapshotFile = null;
+        }
+        SplitStorageContainer storageContainer = factoryHelper.buildStorageContainer(_splitDatabase, context, key,
+                splitsSnapshotFile);
 
         SplitParser splitParser = new SplitParser(storageContainer.getMySegmentsStorage());
 
@@ -137,6 +157,7 @@ public class SplitFactoryImpl implements SplitFactory {
 
 
         String splitsFilterQueryString = factoryHelper.buildSplitsFilterQueryString(config);
+        ConnectivityMonitor.getInstance().start(context);
         SplitApiFacade splitApiFacade = factoryHelper.buildApiFacade(
                 config, key, defaultHttpClient, cachedFireAndForgetMetrics, splitsFilterQueryString);
 
@@ -171,6 +192,15 @@ public class SplitFactoryImpl implements SplitFactory {
 
         _lifecyleManager = new SplitLifecycleManager();
         _lifecyleManager.register(_syncManager);
+        final PersistentSplitsStorage persistentSplitsStorage = storageContainer.getPersistentSplitsStorage();
+        if (persistentSplitsStorage instanceof SplitLifecycleAware) {
+            // To write pending split updates when going to background
+            _lifecyleManager.register((SplitLifecycleAware) persistentSplitsStorage);
+        }
+        if (splitsSnapshotFile != null) {
+            // Same for a pending snapshot file write
+            _lifecyleManager.register(splitsSnapshotFile);
+        }
 
         destroyer = new Runnable() {
             public void run() {
@@ -194,6 +224,11 @@ public class SplitFactoryImpl implements SplitFactory {
                     Logger.i("Successful shutdown of manager");
                     _splitTaskExecutor.stop();
                     Logger.i("Successful shutdown of task executor");
+                    persistentSplitsStorage.close();
+                    if (splitsSnapshotFile != null) {
+                        splitsSnapshotFile.close();
+                    }
+                    Logger.i("Successful shutdown of splits storage");
 
                 } catch (Exception e) {
                     Logger.e(e, "We could not shutdown split");
@@ -211,16 +246,26 @@ public class SplitFactoryImpl implements SplitFactory {
             }
         });
 
-        _client = new SplitClientImpl(this, key, splitParser,
+        SplitClientImpl client = new SplitClientImpl(this, key, storageContainer.getParsedSplitsCache(),
                 customerImpressionListener, cachedFireAndForgetMetrics, config, _eventsManager,
                 storageContainer.getSplitsStorage(), new EventPropertiesProcessorImpl(),
                 _syncManager);
+        _client = client;
         _manager = new SplitManagerImpl(
                 storageContainer.getSplitsStorage(),
                 new SplitValidatorImpl(), splitParser);
 
         _eventsManager.getExecutorResources().setSplitClient(_client);
 
+        if (config.preEvaluateTreatments()) {
+            SplitEventTask preEvaluation = new PreEvaluateTreatmentsEventTask(_splitTaskExecutor,
+                    new PreEvaluateTreatmentsTask(client.getEvaluator(),
+                            key.matchingKey(), key.bucketingKey()));
+            _eventsManager.register(SplitEvent.SDK_READY_FROM_CACHE, preEvaluation);
+            _eventsManager.register(SplitEvent.SDK_READY, preEvaluation);
+            _eventsManager.register(SplitEvent.SDK_UPDATE, preEvaluation);
+        }
+
         Logger.i("Android SDK initialized!");
     }
 
@@ -260,4 +305,23 @@ public class SplitFactoryImpl implements SplitFactory {
                                SplitTaskFactory splitTaskFactory) {
         splitTaskExecutor.submit(splitTaskFactory.createCleanUpDatabaseTask(System.currentTimeMillis() / 1000), null);
     }
+
+    /**
+     * Submits the pre evaluation to the task executor each time the event is triggered
+     */
+    private static class PreEvaluateTreatmentsEventTask extends SplitEventTask {
+        private final SplitTaskExecutor mSplitTaskExecutor;
+        private final PreEvaluateTreatmentsTask mPreEvaluateTreatmentsTask;
+
+        PreEvaluateTreatmentsEventTask(SplitTaskExecutor splitTaskExecutor,
+                                       PreEvaluateTreatmentsTask preEvaluateTreatmentsTask) {
+            mSplitTaskExecutor = splitTaskExecutor;
+            mPreEvaluateTreatmentsTask = preEvaluateTreatmentsTask;
+        }
+
+        @Override
+        public void onPostExecution(SplitClient client) {
+            mSplitTaskExecutor.submit(mPreEvaluateTreatmentsTask, null);
+        }
+    }
 }
@@ -0,0 +1,17 @@
+package io.split.android.client.impressions;
+
+import java.util.List;
+
+/**
+ * An {@link ImpressionListener} that can take all the impressions
+ * generated by a getTreatments call at once.
+ */
+public interface BatchImpressionListener extends ImpressionListener {
+
+    /**
+     * Log these impressions to the listener. This method MUST NOT throw any exception
+     *
+     * @param impressions
+     */
+    void logBatch(List<Impression> impressions);
+}
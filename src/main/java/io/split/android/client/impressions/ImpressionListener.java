@@ -31,7 +31,7 @@ public interface ImpressionListener {
         }
     }
 
-    final class FederatedImpressionListener implements ImpressionListener {
+    final class FederatedImpressionListener implements BatchImpressionListener {
         private List<ImpressionListener> _delegates;
 
         public FederatedImpressionListener(List<ImpressionListener> delegates) {
@@ -45,6 +45,19 @@ public interface ImpressionListener {
             }
         }
 
+        @Override
+        public void logBatch(List<Impression> impressions) {
+            for (ImpressionListener listener : _delegates) {
+                if (listener instanceof BatchImpressionListener) {
+                    ((BatchImpressionListener) listener).logBatch(impressions);
+                    continue;
+                }
+                for (Impression impression : impressions) {
+                    listener.log(impression);
+                }
+            }
+        }
+
         @Override
         public void close() {
             for (ImpressionListener listener : _delegates) {
@@ -1,10 +1,12 @@
 package io.split.android.client.impressions;
 
+import java.util.List;
+
 import io.split.android.client.service.synchronizer.SyncManager;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-public class SyncImpressionListener implements ImpressionListener {
+public class SyncImpressionListener implements BatchImpressionListener {
 
     private final SyncManager mSyncManager;
 
@@ -17,6 +19,11 @@ public class SyncImpressionListener implements ImpressionListener {
         mSyncManager.pushImpression(impression);
     }
 
+    @Override
+    public void logBatch(List<Impression> impressions) {
+        mSyncManager.pushImpressions(impressions);
+    }
+
     @Override
     public void close() {
     }
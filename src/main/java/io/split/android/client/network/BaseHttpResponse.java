@@ -1,5 +1,8 @@
 package io.split.android.client.network;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 public interface BaseHttpResponse {
     boolean isSuccess();
 
@@ -9,5 +12,9 @@ public interface BaseHttpResponse {
 
     boolean isClientRelatedError();
 
+    boolean isNotModified();
+
     int getHttpStatus();
+
+    @Nullable String getHeader(@NonNull String name);
 }
@@ -1,16 +1,31 @@
 package io.split.android.client.network;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
 public abstract class BaseHttpResponseImpl implements BaseHttpResponse {
 private static final int HTTP_OK = 200;
     protected static final int HTTP_MULTIPLE_CHOICES = 300;
+    protected static final int HTTP_NOT_MODIFIED = 304;
     protected static final int HTTP_UNAUTHORIZED = 401;
     protected static final int HTTP_BAD_REQUEST = 400;
     protected static final int HTTP_INTERNAL_SERVER_ERROR = 500;
 
     private int mHttpStatus;
+    // Header names in lower case
+    private Map<String, String> mHeaders;
 
     protected BaseHttpResponseImpl(int httpStatus) {
+        this(httpStatus, null);
+    }
+
+    protected BaseHttpResponseImpl(int httpStatus, @Nullable Map<String, String> headers) {
         mHttpStatus = httpStatus;
+        mHeaders = (headers != null ? headers : Collections.<String, String>emptyMap());
     }
 
     @Override
@@ -33,8 +48,19 @@ private static final int HTTP_OK = 200;
         return mHttpStatus == HTTP_BAD_REQUEST;
     }
 
+    @Override
+    public boolean isNotModified() {
+        return mHttpStatus == HTTP_NOT_MODIFIED;
+    }
+
     @Override
     public int getHttpStatus() {
         return mHttpStatus;
     }
+
+    @Override
+    @Nullable
+    public String getHeader(@NonNull String name) {
+        return mHeaders.get(name.toLowerCase(Locale.US));
+    }
 }
@@ -0,0 +1,140 @@
+package io.split.android.client.network;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkInfo;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import androidx.annotation.VisibleForTesting;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.split.android.client.utils.Logger;
+
+/**
+ * Keeps track of whether there is network and which hosts failed recently,
+ * so that requests can check if it makes sense to be sent without opening a connection.
+ * Network state is updated from {@link ConnectivityManager} and a host is considered
+ * unreachable after a request to it fails, for a few seconds or until network changes.
+ * Until started, or if network state can't be read, network is considered available.
+ * A single instance is shared by the whole process.
+ */
+public class ConnectivityMonitor {
+
+    private static final long DEFAULT_UNREACHABLE_HOST_RETRY_MS = 10000;
+    private static final ConnectivityMonitor INSTANCE
+            = new ConnectivityMonitor(DEFAULT_UNREACHABLE_HOST_RETRY_MS);
+
+    private final long mUnreachableHostRetryMs;
+    // Host -> time of the last failed request
+    private final Map<String, Long> mUnreachableHosts = new ConcurrentHashMap<>();
+    private final AtomicBoolean mStarted = new AtomicBoolean(false);
+    private volatile boolean mNetworkAvailable = true;
+
+    public static ConnectivityMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    public ConnectivityMonitor(long unreachableHostRetryMs) {
+        mUnreachableHostRetryMs = unreachableHostRetryMs;
+    }
+
+    /**
+     * Starts listening to network changes. Only the first call has effect.
+     */
+    public void start(@NonNull Context context) {
+        if (!mStarted.compareAndSet(false, true)) {
+            return;
+        }
+        Context appContext = context.getApplicationContext() != null
+                ? context.getApplicationContext() : context;
+        final ConnectivityManager connectivityManager
+                = (ConnectivityManager) appContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null) {
+            return;
+        }
+        try {
+            updateNetworkState(connectivityManager);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                registerNetworkCallback(connectivityManager);
+            } else {
+                appContext.registerReceiver(new BroadcastReceiver() {
+                    @Override
+                    public void onReceive(Context context, Intent intent) {
+                        updateNetworkState(connectivityManager);
+                    }
+                }, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+            }
+        } catch (SecurityException e) {
+            Logger.w("Network state not available: " + e.getLocalizedMessage());
+            onNetworkChanged(true);
+        }
+    }
+
+    public boolean isReachable(@NonNull URI target) {
+        if (!mNetworkAvailable) {
+            return false;
+        }
+        String host = target.getHost();
+        Long failedAt = host != null ? mUnreachableHosts.get(host) : null;
+        // Once retry time has passed requests are sent again to find out
+        return failedAt == null || System.currentTimeMillis() - failedAt >= mUnreachableHostRetryMs;
+    }
+
+    public void reportReachable(@NonNull URI target) {
+        String host = target.getHost();
+        if (host != null) {
+            mUnreachableHosts.remove(host);
+        }
+    }
+
+    public void reportUnreachable(@NonNull URI target) {
+        String host = target.getHost();
+        if (host != null) {
+            mUnreachableHosts.put(host, System.currentTimeMillis());
+        }
+    }
+
+    @VisibleForTesting
+    public void onNetworkChanged(boolean available) {
+        mNetworkAvailable = available;
+        if (available) {
+            // New network, previous failures don't apply
+            mUnreachableHosts.clear();
+        }
+    }
+
+    private void updateNetworkState(ConnectivityManager connectivityManager) {
+        try {
+            NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+            onNetworkChanged(networkInfo != null && networkInfo.isConnected());
+        } catch (SecurityException e) {
+            onNetworkChanged(true);
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    private void registerNetworkCallback(ConnectivityManager connectivityManager) {
+        connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                onNetworkChanged(true);
+            }
+
+            @Override
+            public void onLost(Network network) {
+                onNetworkChanged(false);
+            }
+        });
+    }
+}
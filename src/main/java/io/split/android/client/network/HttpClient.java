@@ -18,7 +18,19 @@ public interface HttpClient {
 
     HttpRequest request(URI uri, HttpMethod httpMethod, String body);
 
+    /**
+     * Request whose body is written by the given writer while it is sent,
+     * compressed with gzip.
+     */
+    HttpRequest gzipRequest(URI uri, HttpMethod httpMethod, HttpRequestBodyWriter bodyWriter);
+
     HttpStreamRequest streamRequest(URI uri);
 
+    /**
+     * Sends a HEAD request with common headers in background, so that the
+     * connection opened for it is left in the pool to be reused by the next requests.
+     */
+    void prewarm(URI uri);
+
     void close();
 }
@@ -9,6 +9,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
 import java.net.Proxy;
 import java.net.URI;
 import java.security.GeneralSecurityException;
@@ -22,6 +23,8 @@ import javax.net.ssl.SSLSocketFactory;
 
 import io.split.android.client.utils.Logger;
 import okhttp3.Authenticator;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.Credentials;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -65,11 +68,43 @@ public class HttpClientImpl implements HttpClient {
         return request(uri, requestMethod, body, null);
     }
 
+    @Override
+    public HttpRequest gzipRequest(URI uri, HttpMethod requestMethod, HttpRequestBodyWriter bodyWriter) {
+        return new HttpRequestImpl(mOkHttpClient, uri, requestMethod, bodyWriter, new HashMap<>(mCommonHeaders));
+    }
+
     @Override
     public HttpStreamRequest streamRequest(URI uri) {
         return new HttpStreamRequestImpl(mOkHttpClientStreaming, uri, mStreamingHeaders);
     }
 
+    // Runs in OkHttp dispatcher threads, not to delay the caller
+    @Override
+    public void prewarm(final URI uri) {
+        Request request;
+        try {
+            Request.Builder builder = new Request.Builder().url(uri.toURL()).head();
+            for (Map.Entry<String, String> header : mCommonHeaders.entrySet()) {
+                builder.header(header.getKey(), header.getValue());
+            }
+            request = builder.build();
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            Logger.d("Invalid url to prewarm connection: " + e.getLocalizedMessage());
+            return;
+        }
+        mOkHttpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                Logger.d("Could not prewarm connection to " + uri.getHost() + ": " + e.getLocalizedMessage());
+            }
+
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                response.close();
+            }
+        });
+    }
+
     @Override
     public void setHeader(String name, String value) {
         if (name == null || value == null) {
@@ -2,4 +2,11 @@ package io.split.android.client.network;
 
 public interface HttpRequest {
     HttpResponse execute() throws HttpException;
+
+    /**
+     * Same as {@link #execute()} but the body of a successful response is not loaded in memory,
+     * it is read from the returned response as it is received.
+     * The reader, if any, has to be closed once read.
+     */
+    HttpStreamResponse executeStreaming() throws HttpException;
 }
@@ -0,0 +1,14 @@
+package io.split.android.client.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the body of a request while it is being sent.
+ * It might be called more than once if the request is retried.
+ */
+public interface HttpRequestBodyWriter {
+    void writeTo(@NonNull Writer writer) throws IOException;
+}
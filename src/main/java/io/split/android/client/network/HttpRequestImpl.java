@@ -3,22 +3,32 @@ package io.split.android.client.network;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.google.common.base.Charsets;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.ProtocolException;
 import java.net.URI;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
+import okhttp3.Headers;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -26,11 +36,14 @@ public class HttpRequestImpl implements HttpRequest {
 
     private static final MediaType JSON
             = MediaType.get("application/json; charset=utf-8");
+    private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    private static final String GZIP_ENCODING = "gzip";
     private OkHttpClient mOkHttpClient;
     private URI mUri;
     private String mBody;
     private HttpMethod mHttpMethod;
     private Map<String, String> mHeaders;
+    private HttpRequestBodyWriter mGzipBodyWriter;
 
 
     HttpRequestImpl(@NonNull OkHttpClient okHttpClient, @NonNull URI uri,
@@ -43,8 +56,32 @@ public class HttpRequestImpl implements HttpRequest {
         mHeaders = new HashMap<>(checkNotNull(headers));
     }
 
+    /**
+     * Request whose body is written while it is sent, compressed with gzip.
+     */
+    HttpRequestImpl(@NonNull OkHttpClient okHttpClient, @NonNull URI uri,
+                    @NonNull HttpMethod httpMethod,
+                    @NonNull HttpRequestBodyWriter gzipBodyWriter, @NonNull Map<String, String> headers) {
+        this(okHttpClient, uri, httpMethod, (String) null, headers);
+        mGzipBodyWriter = checkNotNull(gzipBodyWriter);
+        mHeaders.put(CONTENT_ENCODING_HEADER, GZIP_ENCODING);
+    }
+
     @Override
     public HttpResponse execute() throws HttpException {
+        try {
+            return buildResponse(executeRequest());
+        } catch (IOException e) {
+            throw new HttpException("Something happened while retrieving data: " + e.getLocalizedMessage());
+        }
+    }
+
+    @Override
+    public HttpStreamResponse executeStreaming() throws HttpException {
+        return buildStreamResponse(executeRequest());
+    }
+
+    private Response executeRequest() throws HttpException {
 
         switch (mHttpMethod) {
             case GET:
@@ -61,17 +98,16 @@ public class HttpRequestImpl implements HttpRequest {
         }
     }
 
-    private HttpResponse getRequest() throws HttpException {
+    private Response getRequest() throws HttpException {
         URL url;
-        HttpResponse response;
+        Response response;
         try {
             url = mUri.toURL();
             Request.Builder requestBuilder = new Request.Builder()
                     .url(url);
             addHeaders(requestBuilder);
             Request okHttpRequest = requestBuilder.build();
-            Response okHttpResponse = mOkHttpClient.newCall(okHttpRequest).execute();
-            response = buildResponse(okHttpResponse);
+            response = mOkHttpClient.newCall(okHttpRequest).execute();
 
         } catch (MalformedURLException e) {
             throw new HttpException("URL is malformed: " + e.getLocalizedMessage());
@@ -83,23 +119,22 @@ public class HttpRequestImpl implements HttpRequest {
         return response;
     }
 
-    private HttpResponse postRequest() throws IOException {
+    private Response postRequest() throws IOException {
 
-        if(mBody == null) {
+        if(mBody == null && mGzipBodyWriter == null) {
             throw new IOException("Json data is null");
         }
 
         URL url = mUri.toURL();
-        RequestBody body = RequestBody.create(JSON, mBody);
+        RequestBody body = (mGzipBodyWriter != null ? new GzipRequestBody(mGzipBodyWriter)
+                : RequestBody.create(JSON, mBody));
         Request.Builder builder = new Request.Builder()
                 .url(url)
                 .post(body);
 
         addHeaders(builder);
         Request httpOkRequest = builder.build();
-        Response httpOkResponse = mOkHttpClient.newCall(httpOkRequest).execute();
-        HttpResponse httpResponse = buildResponse(httpOkResponse);
-        return httpResponse;
+        return mOkHttpClient.newCall(httpOkRequest).execute();
     }
 
     private void addHeaders(Request.Builder request) {
@@ -121,9 +156,64 @@ public class HttpRequestImpl implements HttpRequest {
             }
             in.close();
 
-            return new HttpResponseImpl(responseCode, (responseData.length() > 0 ? responseData.toString() : null));
+            return new HttpResponseImpl(responseCode, (responseData.length() > 0 ? responseData.toString() : null),
+                    getHeaders(okHttpResponse));
+        }
+        okHttpResponse.close();
+        return new HttpResponseImpl(responseCode, null, getHeaders(okHttpResponse));
+    }
+
+    /**
+     * Body written straight into a gzip sink as it is sent, so that
+     * the uncompressed body is never held in memory.
+     */
+    private static class GzipRequestBody extends RequestBody {
+
+        private final HttpRequestBodyWriter mBodyWriter;
+
+        GzipRequestBody(HttpRequestBodyWriter bodyWriter) {
+            mBodyWriter = bodyWriter;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return JSON;
+        }
+
+        @Override
+        public long contentLength() {
+            // Unknown until written
+            return -1;
+        }
+
+        @Override
+        public void writeTo(@NonNull BufferedSink sink) throws IOException {
+            BufferedSink gzipSink = Okio.buffer(new GzipSink(sink));
+            Writer writer = new OutputStreamWriter(gzipSink.outputStream(), Charsets.UTF_8);
+            mBodyWriter.writeTo(writer);
+            writer.flush();
+            gzipSink.close();
+        }
+    }
+
+    private HttpStreamResponse buildStreamResponse(Response okHttpResponse) {
+        int responseCode = okHttpResponse.code();
+        ResponseBody body = okHttpResponse.body();
+        if (responseCode >= HttpURLConnection.HTTP_OK && responseCode < 300 && body != null) {
+            return new HttpStreamResponseImpl(responseCode, new BufferedReader(body.charStream()),
+                    getHeaders(okHttpResponse));
+        }
+        okHttpResponse.close();
+        return new HttpStreamResponseImpl(responseCode, null, getHeaders(okHttpResponse));
+    }
+
+    private Map<String, String> getHeaders(Response okHttpResponse) {
+        Headers headers = okHttpResponse.headers();
+        Map<String, String> headersMap = new HashMap<>();
+        for (int i = 0; i < headers.size(); i++) {
+            headersMap.put(headers.name(i).toLowerCase(Locale.US), headers.value(i));
         }
-        return new HttpResponseImpl(responseCode);
+        return headersMap;
     }
 
 }
@@ -1,5 +1,7 @@
 package io.split.android.client.network;
 
+import java.util.Map;
+
 public class HttpResponseImpl extends BaseHttpResponseImpl implements  HttpResponse {
 
     private String mData;
@@ -9,7 +11,11 @@ public class HttpResponseImpl extends BaseHttpResponseImpl implements  HttpRespo
     }
 
     public HttpResponseImpl(int httpStatus, String data) {
-        super(httpStatus);
+        this(httpStatus, data, null);
+    }
+
+    public HttpResponseImpl(int httpStatus, String data, Map<String, String> headers) {
+        super(httpStatus, headers);
         mData = data;
     }
 
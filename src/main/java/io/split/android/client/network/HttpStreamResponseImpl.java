@@ -3,6 +3,7 @@ package io.split.android.client.network;
 import androidx.annotation.Nullable;
 
 import java.io.BufferedReader;
+import java.util.Map;
 
 public class HttpStreamResponseImpl extends BaseHttpResponseImpl implements HttpStreamResponse {
 
@@ -13,7 +14,11 @@ public class HttpStreamResponseImpl extends BaseHttpResponseImpl implements Http
     }
 
     public HttpStreamResponseImpl(int httpStatus, BufferedReader data) {
-        super(httpStatus);
+        this(httpStatus, data, null);
+    }
+
+    public HttpStreamResponseImpl(int httpStatus, BufferedReader data, Map<String, String> headers) {
+        super(httpStatus, headers);
         mData = data;
     }
 
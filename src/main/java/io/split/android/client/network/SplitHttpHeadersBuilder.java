@@ -21,6 +21,10 @@ public class SplitHttpHeadersBuilder {
     private static final String ABLY_CLIENT_KEY = "SplitSDKClientKey";
     public final static String CACHE_CONTROL_HEADER = "Cache-Control";
     public final static String CACHE_CONTROL_NO_CACHE = "no-cache";
+    public final static String ETAG_HEADER = "ETag";
+    public final static String LAST_MODIFIED_HEADER = "Last-Modified";
+    public final static String IF_NONE_MATCH_HEADER = "If-None-Match";
+    public final static String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
 
     private static final String CONTENT_TYPE_HEADER = "Content-Type";
     private static final String ACCEPT_TYPE_HEADER = "Accept";
@@ -11,6 +11,8 @@ public class ServiceConstants {
 
     public static final int MAX_ROWS_PER_QUERY = 100;
 
+    public static final int MAX_SPLIT_CHANGES_PAGES_PER_SYNC = 20;
+
     public static final int DEFAULT_IMPRESSION_COUNT_ROWS_POP = 200;
 
     public final static String TASK_INFO_FIELD_STATUS = "taskStatus";
@@ -26,6 +28,7 @@ public class ServiceConstants {
     public final static String WORKER_PARAM_IMPRESSIONS_PER_PUSH = "impressionsPerPush";
     public final static String WORKER_PARAM_EVENTS_PER_PUSH = "eventsPerPush";
     public final static String WORKER_PARAM_SPLIT_CACHE_EXPIRATION = "splitCacheExpiration";
+    public final static String WORKER_PARAM_GZIP_UPLOADS = "gzipUploads";
 
     public static final long LAST_SEEN_IMPRESSION_CACHE_SIZE = 500;
 }
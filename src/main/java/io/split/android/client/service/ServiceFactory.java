@@ -71,18 +71,34 @@ public class ServiceFactory {
             NetworkHelper networkHelper,
             HttpClient httpClient,
             String endPoint) throws URISyntaxException {
+        return getEventsRecorder(networkHelper, httpClient, endPoint, false);
+    }
+
+    public static HttpRecorder<List<Event>> getEventsRecorder(
+            NetworkHelper networkHelper,
+            HttpClient httpClient,
+            String endPoint,
+            boolean gzipEnabled) throws URISyntaxException {
         return new HttpRecorderImpl<>(
                 httpClient, SdkTargetPath.events(endPoint), networkHelper,
-                new EventsRequestBodySerializer());
+                new EventsRequestBodySerializer(), gzipEnabled);
     }
 
     public static HttpRecorder<List<KeyImpression>> getImpressionsRecorder(
             NetworkHelper networkHelper,
             HttpClient httpClient,
             String endPoint) throws URISyntaxException {
+        return getImpressionsRecorder(networkHelper, httpClient, endPoint, false);
+    }
+
+    public static HttpRecorder<List<KeyImpression>> getImpressionsRecorder(
+            NetworkHelper networkHelper,
+            HttpClient httpClient,
+            String endPoint,
+            boolean gzipEnabled) throws URISyntaxException {
         return new HttpRecorderImpl<>(
                 httpClient, SdkTargetPath.impressions(endPoint), networkHelper,
-                new ImpressionsRequestBodySerializer());
+                new ImpressionsRequestBodySerializer(), gzipEnabled);
     }
 
     public static HttpRecorder<ImpressionsCount> getImpressionsCountRecorder(
@@ -2,14 +2,27 @@ package io.split.android.client.service.events;
 
 import androidx.annotation.NonNull;
 
+import com.google.gson.JsonIOException;
+
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 import io.split.android.client.dtos.Event;
-import io.split.android.client.service.http.HttpRequestBodySerializer;
+import io.split.android.client.service.http.HttpRequestBodyStreamSerializer;
 import io.split.android.client.utils.Json;
 
-public class EventsRequestBodySerializer implements HttpRequestBodySerializer<List<Event>> {
+public class EventsRequestBodySerializer implements HttpRequestBodyStreamSerializer<List<Event>> {
     public String serialize(@NonNull List<Event> data) {
         return Json.toJson(data);
     }
+
+    @Override
+    public void serialize(@NonNull List<Event> data, @NonNull Writer writer) throws IOException {
+        try {
+            Json.toJson(data, writer);
+        } catch (JsonIOException e) {
+            throw new IOException(e.getLocalizedMessage());
+        }
+    }
 }
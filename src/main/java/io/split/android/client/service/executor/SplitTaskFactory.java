@@ -34,7 +34,7 @@ public interface SplitTaskFactory {
 
     SplitKillTask createSplitKillTask(Split split);
 
-    MySegmentsUpdateTask createMySegmentsUpdateTask(List<String> segments);
+    MySegmentsUpdateTask createMySegmentsUpdateTask(List<String> segments, long changeNumber);
 
     SplitsUpdateTask createSplitsUpdateTask(long since);
 
@@ -24,6 +24,7 @@ import io.split.android.client.service.impressions.SaveImpressionsCountTask;
 import io.split.android.client.service.mysegments.LoadMySegmentsTask;
 import io.split.android.client.service.mysegments.MySegmentsSyncTask;
 import io.split.android.client.service.mysegments.MySegmentsUpdateTask;
+import io.split.android.client.service.mysegments.MySegmentsUpdater;
 import io.split.android.client.service.splits.FilterSplitsInCacheTask;
 import io.split.android.client.service.splits.LoadSplitsTask;
 import io.split.android.client.service.splits.SplitChangeProcessor;
@@ -44,6 +45,7 @@ public class SplitTaskFactoryImpl implements SplitTaskFactory {
     private final SplitsSyncHelper mSplitsSyncHelper;
     private final String mSplitsFilterQueryString;
     private final SplitEventsManager mEventsManager;
+    private final MySegmentsUpdater mMySegmentsUpdater;
 
     public SplitTaskFactoryImpl(@NonNull SplitClientConfig splitClientConfig,
                                 @NonNull SplitApiFacade splitApiFacade,
@@ -59,6 +61,8 @@ public class SplitTaskFactoryImpl implements SplitTaskFactory {
         mSplitsSyncHelper = new SplitsSyncHelper(mSplitApiFacade.getSplitFetcher(),
                 mSplitsStorageContainer.getSplitsStorage(),
                 new SplitChangeProcessor());
+        mMySegmentsUpdater = new MySegmentsUpdater(mSplitApiFacade.getMySegmentsFetcher(),
+                mSplitsStorageContainer.getMySegmentsStorage(), mEventsManager);
     }
 
     @Override
@@ -88,10 +92,7 @@ public class SplitTaskFactoryImpl implements SplitTaskFactory {
 
     @Override
     public MySegmentsSyncTask createMySegmentsSyncTask(boolean avoidCache) {
-        return new MySegmentsSyncTask(
-                mSplitApiFacade.getMySegmentsFetcher(),
-                mSplitsStorageContainer.getMySegmentsStorage(),
-                avoidCache, mEventsManager);
+        return new MySegmentsSyncTask(mMySegmentsUpdater, avoidCache);
     }
 
     @Override
@@ -110,8 +111,8 @@ public class SplitTaskFactoryImpl implements SplitTaskFactory {
     }
 
     @Override
-    public MySegmentsUpdateTask createMySegmentsUpdateTask(List<String> segments) {
-        return new MySegmentsUpdateTask(mSplitsStorageContainer.getMySegmentsStorage(), segments, mEventsManager);
+    public MySegmentsUpdateTask createMySegmentsUpdateTask(List<String> segments, long changeNumber) {
+        return new MySegmentsUpdateTask(mMySegmentsUpdater, segments, changeNumber);
     }
 
     @Override
@@ -6,5 +6,15 @@ import androidx.annotation.Nullable;
 import java.util.Map;
 
 public interface HttpFetcher<T> {
-    T execute(@NonNull Map<String, Object> params, @Nullable Map<String, String> headers) throws HttpFetcherException;
+    /**
+     * Returns null when the server answers that the data hasn't changed since
+     * the last response received for the same request.
+     */
+    @Nullable T execute(@NonNull Map<String, Object> params, @Nullable Map<String, String> headers) throws HttpFetcherException;
+
+    /**
+     * Forgets the validators of the last response, so that the next request
+     * always gets the data back, even if it hasn't changed.
+     */
+    void resetValidators();
 }
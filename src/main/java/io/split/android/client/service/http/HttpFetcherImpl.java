@@ -3,12 +3,22 @@ package io.split.android.client.service.http;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.net.URI;
+import java.util.HashMap;
 import java.util.Map;
 
+import io.split.android.client.network.BaseHttpResponse;
 import io.split.android.client.network.HttpClient;
+import io.split.android.client.network.HttpException;
 import io.split.android.client.network.HttpMethod;
+import io.split.android.client.network.HttpRequest;
 import io.split.android.client.network.HttpResponse;
+import io.split.android.client.network.HttpStreamResponse;
+import io.split.android.client.network.SplitHttpHeadersBuilder;
 import io.split.android.client.network.URIBuilder;
 import io.split.android.client.utils.Logger;
 import io.split.android.client.utils.NetworkHelper;
@@ -25,6 +35,9 @@ public class HttpFetcherImpl<T> implements HttpFetcher<T> {
     private FetcherMetricsConfig mFetcherMetricsConfig;
     private final NetworkHelper mNetworkHelper;
     private HttpResponseParser<T> mResponseParser;
+    private HttpResponseStreamParser<T> mStreamParser;
+    // Validators of the last response, to make the next request for the same uri conditional
+    private volatile ResponseValidators mLastValidators;
 
     public HttpFetcherImpl(@NonNull HttpClient client,
                            @NonNull URI target,
@@ -44,6 +57,9 @@ public class HttpFetcherImpl<T> implements HttpFetcher<T> {
         mTarget = checkNotNull(target);
         mNetworkHelper = checkNotNull(networkHelper);
         mResponseParser = checkNotNull(responseParser);
+        if (responseParser instanceof HttpResponseStreamParser) {
+            mStreamParser = (HttpResponseStreamParser<T>) responseParser;
+        }
         mMetrics = metrics;
         mFetcherMetricsConfig = fetcherMetricsConfig;
         if(metrics != null) {
@@ -52,6 +68,7 @@ public class HttpFetcherImpl<T> implements HttpFetcher<T> {
     }
 
     @Override
+    @Nullable
     public T execute(@NonNull Map<String, Object> params,
                      @Nullable Map<String, String> headers) throws HttpFetcherException {
         checkNotNull(params);
@@ -67,21 +84,38 @@ public class HttpFetcherImpl<T> implements HttpFetcher<T> {
                 uriBuilder.addParameter(param.getKey(), value != null ? value.toString() : "");
             }
             URI u = uriBuilder.build();
-            HttpResponse response = mClient.request(uriBuilder.build(), HttpMethod.GET, null, headers).execute();
-            Logger.d("Received from: " + u.toString() + " -> " + response.getData());
-            if (!response.isSuccess()) {
-                if(mMetrics != null) {
-                    mMetrics.count(String.format(mFetcherMetricsConfig.getStatusLabel(), response.getHttpStatus()), 1);
+            HttpRequest request = mClient.request(u, HttpMethod.GET, null, addConditionalHeaders(u, headers));
+            BaseHttpResponse response;
+            if (mStreamParser != null) {
+                HttpStreamResponse streamResponse = request.executeStreaming();
+                mNetworkHelper.reportReachable(mTarget);
+                response = streamResponse;
+                if (!streamResponse.isNotModified()) {
+                    responseData = parseStreaming(u, streamResponse);
+                }
+            } else {
+                HttpResponse dataResponse = request.execute();
+                mNetworkHelper.reportReachable(mTarget);
+                response = dataResponse;
+                Logger.d("Received from: " + u.toString() + " -> " + dataResponse.getData());
+                if (!dataResponse.isNotModified()) {
+                    checkStatus(dataResponse);
+                    responseData = mResponseParser.parse(dataResponse.getData());
                 }
-                throw new IllegalStateException("http return code " + response.getHttpStatus());
             }
 
-            responseData = mResponseParser.parse(response.getData());
-
+            if (response.isNotModified()) {
+                Logger.d("Not modified since last request: " + u.toString());
+                return null;
+            }
             if (responseData == null) {
-                throw new IllegalStateException("Wrong data received from split changes server");
+                throw new IllegalStateException("Wrong data received from " + mTarget.toString());
             }
+            mLastValidators = ResponseValidators.of(u, response);
         } catch (Exception e) {
+            if (e instanceof HttpException) {
+                mNetworkHelper.reportUnreachable(mTarget);
+            }
             if(mMetrics != null) {
                 mMetrics.count(mFetcherMetricsConfig.getExceptionLabel(), 1);
             }
@@ -93,4 +127,89 @@ public class HttpFetcherImpl<T> implements HttpFetcher<T> {
         }
         return responseData;
     }
+
+    @Override
+    public void resetValidators() {
+        mLastValidators = null;
+    }
+
+    // Body is parsed as it is received and is not logged, given that it might be large
+    private T parseStreaming(URI uri, HttpStreamResponse response) throws HttpResponseParserException, HttpException {
+        Logger.d("Received from: " + uri.toString() + " -> status " + response.getHttpStatus());
+        BufferedReader reader = response.getBufferedReader();
+        try {
+            checkStatus(response);
+            return reader != null ? mStreamParser.parse(reader) : null;
+        } catch (HttpResponseParserException e) {
+            // Connection errors while reading the body reach here wrapped by the parser
+            IOException readError = readError(e);
+            if (readError != null) {
+                throw new HttpException("Error reading response: " + readError.getLocalizedMessage());
+            }
+            throw e;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    Logger.d("Error closing response: " + e.getLocalizedMessage());
+                }
+            }
+        }
+    }
+
+    private static @Nullable IOException readError(@NonNull Throwable e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException && !(cause instanceof MalformedJsonException)) {
+                return (IOException) cause;
+            }
+        }
+        return null;
+    }
+
+    private @Nullable Map<String, String> addConditionalHeaders(@NonNull URI uri,
+                                                                @Nullable Map<String, String> headers) {
+        ResponseValidators validators = mLastValidators;
+        if (validators == null || !validators.uri.equals(uri)) {
+            return headers;
+        }
+        Map<String, String> conditionalHeaders = (headers != null ? new HashMap<>(headers) : new HashMap<String, String>());
+        if (validators.eTag != null) {
+            conditionalHeaders.put(SplitHttpHeadersBuilder.IF_NONE_MATCH_HEADER, validators.eTag);
+        }
+        if (validators.lastModified != null) {
+            conditionalHeaders.put(SplitHttpHeadersBuilder.IF_MODIFIED_SINCE_HEADER, validators.lastModified);
+        }
+        return conditionalHeaders;
+    }
+
+    private void checkStatus(BaseHttpResponse response) {
+        if (!response.isSuccess()) {
+            if(mMetrics != null) {
+                mMetrics.count(String.format(mFetcherMetricsConfig.getStatusLabel(), response.getHttpStatus()), 1);
+            }
+            throw new IllegalStateException("http return code " + response.getHttpStatus());
+        }
+    }
+
+    private static class ResponseValidators {
+        final URI uri;
+        final String eTag;
+        final String lastModified;
+
+        private ResponseValidators(URI uri, String eTag, String lastModified) {
+            this.uri = uri;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        static @Nullable ResponseValidators of(URI uri, BaseHttpResponse response) {
+            String eTag = response.getHeader(SplitHttpHeadersBuilder.ETAG_HEADER);
+            String lastModified = response.getHeader(SplitHttpHeadersBuilder.LAST_MODIFIED_HEADER);
+            if (eTag == null && lastModified == null) {
+                return null;
+            }
+            return new ResponseValidators(uri, eTag, lastModified);
+        }
+    }
 }
@@ -2,10 +2,15 @@ package io.split.android.client.service.http;
 
 import androidx.annotation.NonNull;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.net.URI;
 
 import io.split.android.client.network.HttpClient;
+import io.split.android.client.network.HttpException;
 import io.split.android.client.network.HttpMethod;
+import io.split.android.client.network.HttpRequest;
+import io.split.android.client.network.HttpRequestBodyWriter;
 import io.split.android.client.network.HttpResponse;
 import io.split.android.client.utils.NetworkHelper;
 
@@ -17,37 +22,65 @@ public class HttpRecorderImpl<T> implements HttpRecorder<T> {
     private final URI mTarget;
     private final NetworkHelper mNetworkHelper;
     private HttpRequestBodySerializer<T> mRequestSerializer;
+    private HttpRequestBodyStreamSerializer<T> mGzipSerializer;
 
     public HttpRecorderImpl(@NonNull HttpClient client,
                             @NonNull URI target,
                             @NonNull NetworkHelper networkHelper,
                             @NonNull HttpRequestBodySerializer<T> requestSerializer) {
+        this(client, target, networkHelper, requestSerializer, false);
+    }
+
+    /**
+     * When gzip is enabled and the serializer is able to write the body as it is sent,
+     * the body is serialized straight into the compressed request.
+     */
+    public HttpRecorderImpl(@NonNull HttpClient client,
+                            @NonNull URI target,
+                            @NonNull NetworkHelper networkHelper,
+                            @NonNull HttpRequestBodySerializer<T> requestSerializer,
+                            boolean gzipEnabled) {
 
         mClient = checkNotNull(client);
         mTarget = checkNotNull(target);
         mNetworkHelper = checkNotNull(networkHelper);
         mRequestSerializer = checkNotNull(requestSerializer);
+        if (gzipEnabled && requestSerializer instanceof HttpRequestBodyStreamSerializer) {
+            mGzipSerializer = (HttpRequestBodyStreamSerializer<T>) requestSerializer;
+        }
     }
 
     @Override
     public void execute(@NonNull T data) throws HttpRecorderException {
         checkNotNull(data);
 
-        String serializedData = mRequestSerializer.serialize(data);
         try {
             if (!mNetworkHelper.isReachable(mTarget)) {
                 throw new IllegalStateException("Source not reachable");
             }
 
-            HttpResponse response = mClient.request(mTarget, HttpMethod.POST, serializedData).execute();
+            HttpResponse response = buildRequest(data).execute();
+            mNetworkHelper.reportReachable(mTarget);
             if (!response.isSuccess()) {
                 throw new IllegalStateException("http return code " + response.getHttpStatus());
             }
         } catch (Exception e) {
+            if (e instanceof HttpException) {
+                mNetworkHelper.reportUnreachable(mTarget);
+            }
             throw new HttpRecorderException(mTarget.toString(), e.getLocalizedMessage());
         }
     }
-}
-
-
 
+    private HttpRequest buildRequest(@NonNull final T data) {
+        if (mGzipSerializer == null) {
+            return mClient.request(mTarget, HttpMethod.POST, mRequestSerializer.serialize(data));
+        }
+        return mClient.gzipRequest(mTarget, HttpMethod.POST, new HttpRequestBodyWriter() {
+            @Override
+            public void writeTo(@NonNull Writer writer) throws IOException {
+                mGzipSerializer.serialize(data, writer);
+            }
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package io.split.android.client.service.http;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Serializer able to write the body as it is sent, without building it as a string.
+ * {@link HttpRecorderImpl} uses it when compressing requests.
+ */
+public interface HttpRequestBodyStreamSerializer<T> extends HttpRequestBodySerializer<T> {
+    void serialize(@NonNull T data, @NonNull Writer writer) throws IOException;
+}
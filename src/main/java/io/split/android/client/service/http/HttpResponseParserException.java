@@ -5,4 +5,8 @@ public class HttpResponseParserException extends Exception {
         super(message);
     }
 
+    public HttpResponseParserException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
 }
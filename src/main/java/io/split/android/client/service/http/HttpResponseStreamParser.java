@@ -0,0 +1,13 @@
+package io.split.android.client.service.http;
+
+import androidx.annotation.NonNull;
+
+import java.io.Reader;
+
+/**
+ * Parser able to decode the response as it is read, without loading the whole body in memory.
+ * {@link HttpFetcherImpl} uses it when available.
+ */
+public interface HttpResponseStreamParser<T> extends HttpResponseParser<T> {
+    T parse(@NonNull Reader responseData) throws HttpResponseParserException;
+}
@@ -7,6 +7,7 @@ import java.net.URI;
 import java.util.Map;
 
 import io.split.android.client.network.HttpClient;
+import io.split.android.client.network.HttpException;
 import io.split.android.client.network.HttpMethod;
 import io.split.android.client.network.HttpResponse;
 import io.split.android.client.network.URIBuilder;
@@ -51,6 +52,7 @@ public class HttpSseAuthTokenFetcher implements HttpFetcher<SseAuthenticationRes
             }
 
             HttpResponse response = mClient.request(uriBuilder.build(), HttpMethod.GET).execute();
+            mNetworkHelper.reportReachable(mTarget);
 
             if (!response.isSuccess()) {
                 if (response.isClientRelatedError()) {
@@ -65,8 +67,16 @@ public class HttpSseAuthTokenFetcher implements HttpFetcher<SseAuthenticationRes
                 throw new IllegalStateException("Wrong data received from split changes server");
             }
         } catch (Exception e) {
+            if (e instanceof HttpException) {
+                mNetworkHelper.reportUnreachable(mTarget);
+            }
             throw new HttpFetcherException(mTarget.toString(), e.getLocalizedMessage());
         }
         return responseData;
     }
+
+    @Override
+    public void resetValidators() {
+        // Auth requests are never conditional
+    }
 }
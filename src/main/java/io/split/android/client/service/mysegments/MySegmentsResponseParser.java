@@ -1,18 +1,21 @@
 package io.split.android.client.service.mysegments;
 
+import androidx.annotation.NonNull;
+
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
 
+import java.io.Reader;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
 
 import io.split.android.client.dtos.MySegment;
-import io.split.android.client.service.http.HttpResponseParser;
 import io.split.android.client.service.http.HttpResponseParserException;
+import io.split.android.client.service.http.HttpResponseStreamParser;
 import io.split.android.client.utils.Json;
 
-public class MySegmentsResponseParser implements HttpResponseParser<List<MySegment>> {
+public class MySegmentsResponseParser implements HttpResponseStreamParser<List<MySegment>> {
 
     static final private Type MY_SEGMENTS_RESPONSE_TYPE
             = new TypeToken<Map<String, List<MySegment>>>() {
@@ -29,4 +32,16 @@ public class MySegmentsResponseParser implements HttpResponseParser<List<MySegme
             throw new HttpResponseParserException("Unknown error parsing my segments http response: " + e.getLocalizedMessage());
         }
     }
+
+    @Override
+    public List<MySegment> parse(@NonNull Reader responseData) throws HttpResponseParserException {
+        try {
+            Map<String, List<MySegment>> parsedResponse = Json.fromJson(responseData, MY_SEGMENTS_RESPONSE_TYPE);
+            return parsedResponse != null ? parsedResponse.get("mySegments") : null;
+        } catch (JsonSyntaxException e) {
+            throw new HttpResponseParserException("Syntax error parsing my segments http response: " + e.getLocalizedMessage(), e);
+        } catch (Exception e) {
+            throw new HttpResponseParserException("Unknown error parsing my segments http response: " + e.getLocalizedMessage(), e);
+        }
+    }
 }
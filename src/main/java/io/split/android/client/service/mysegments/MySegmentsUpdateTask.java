@@ -3,63 +3,45 @@ package io.split.android.client.service.mysegments;
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import io.split.android.client.events.SplitEventsManager;
-import io.split.android.client.events.SplitInternalEvent;
 import io.split.android.client.service.executor.SplitTask;
 import io.split.android.client.service.executor.SplitTaskExecutionInfo;
-import io.split.android.client.service.executor.SplitTaskType;
 import io.split.android.client.service.synchronizer.MySegmentsChangeChecker;
 import io.split.android.client.storage.mysegments.MySegmentsStorage;
-import io.split.android.client.utils.Logger;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class MySegmentsUpdateTask implements SplitTask {
 
     private final List<String> mMySegments;
-    private final MySegmentsStorage mMySegmentsStorage;
-    private final SplitEventsManager mEventsManager;
-    private MySegmentsChangeChecker mMySegmentsChangeChecker;
+    private final long mChangeNumber;
+    private final MySegmentsUpdater mMySegmentsUpdater;
 
     public MySegmentsUpdateTask(@NonNull MySegmentsStorage mySegmentsStorage,
                                 List<String> mySegments,
                                 SplitEventsManager eventsManager) {
-        mMySegmentsStorage = checkNotNull(mySegmentsStorage);
+        this(new MySegmentsUpdater(null, mySegmentsStorage, eventsManager),
+                mySegments, MySegmentsUpdater.NO_CHANGE_NUMBER);
+    }
+
+    public MySegmentsUpdateTask(@NonNull MySegmentsUpdater mySegmentsUpdater,
+                                List<String> mySegments,
+                                long changeNumber) {
+        mMySegmentsUpdater = checkNotNull(mySegmentsUpdater);
         mMySegments = mySegments;
-        mEventsManager = eventsManager;
-        mMySegmentsChangeChecker = new MySegmentsChangeChecker();
+        mChangeNumber = changeNumber;
     }
 
     @Override
     @NonNull
     public SplitTaskExecutionInfo execute() {
-        try {
-            if (mMySegments == null) {
-                logError("My segment list could not be null.");
-                return SplitTaskExecutionInfo.error(SplitTaskType.MY_SEGMENTS_UPDATE);
-            }
-            List<String> oldSegments = new ArrayList(mMySegmentsStorage.getAll());
-            mMySegmentsStorage.set(mMySegments);
-            if(mMySegmentsChangeChecker.mySegmentsHaveChanged(oldSegments, mMySegments)) {
-                mEventsManager.notifyInternalEvent(SplitInternalEvent.MY_SEGMENTS_UPDATED);
-            }
-        } catch (Exception e) {
-            logError("Unknown error while updating my segments: " + e.getLocalizedMessage());
-            return SplitTaskExecutionInfo.error(SplitTaskType.MY_SEGMENTS_UPDATE);
-        }
-        Logger.d("My Segments have been updated");
-        return SplitTaskExecutionInfo.success(SplitTaskType.MY_SEGMENTS_UPDATE);
-    }
-
-    private void logError(String message) {
-        Logger.e("Error while executing my segments update task: " + message);
+        return mMySegmentsUpdater.update(mMySegments, mChangeNumber);
     }
 
     @VisibleForTesting
     public void setChangesChecker(MySegmentsChangeChecker changesChecker) {
-        mMySegmentsChangeChecker = changesChecker;
+        mMySegmentsUpdater.setChangesChecker(changesChecker);
     }
 }
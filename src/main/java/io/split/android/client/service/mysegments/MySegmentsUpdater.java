@@ -0,0 +1,204 @@
+package io.split.android.client.service.mysegments;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.split.android.client.dtos.MySegment;
+import io.split.android.client.events.SplitEventsManager;
+import io.split.android.client.events.SplitInternalEvent;
+import io.split.android.client.network.SplitHttpHeadersBuilder;
+import io.split.android.client.service.executor.SplitTaskExecutionInfo;
+import io.split.android.client.service.executor.SplitTaskType;
+import io.split.android.client.service.http.HttpFetcher;
+import io.split.android.client.service.http.HttpFetcherException;
+import io.split.android.client.service.synchronizer.MySegmentsChangeChecker;
+import io.split.android.client.storage.mysegments.MySegmentsStorage;
+import io.split.android.client.utils.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Applies every change to the segments of a key, pushed or fetched, one at a time.
+ * Pushed payloads older than the last one applied are ignored. So are fetched segments
+ * when a payload was pushed while the request was running, because the response
+ * could bring back the segments the payload replaced. In that case segments
+ * are fetched again, given that the payload could also be older than the response.
+ * Only one fetch runs at a time; syncs requested meanwhile are merged
+ * into a single fetch, sent when the running one ends.
+ */
+public class MySegmentsUpdater {
+
+    public static final long NO_CHANGE_NUMBER = -1;
+
+    private final HttpFetcher<List<MySegment>> mMySegmentsFetcher;
+    private final MySegmentsStorage mMySegmentsStorage;
+    private final SplitEventsManager mEventsManager;
+    private MySegmentsChangeChecker mMySegmentsChangeChecker;
+
+    // Guards storage updates and the fields below
+    private final Object mLock = new Object();
+    private long mLastPushedChangeNumber = NO_CHANGE_NUMBER;
+    // Number of pushed payloads applied, to know if one arrived during a fetch
+    private long mPushedUpdateCount;
+    private boolean mFetchInFlight;
+    private boolean mFetchPending;
+    private boolean mNoCacheFetchPending;
+
+    public MySegmentsUpdater(@Nullable HttpFetcher<List<MySegment>> mySegmentsFetcher,
+                             @NonNull MySegmentsStorage mySegmentsStorage,
+                             @Nullable SplitEventsManager eventsManager) {
+        mMySegmentsFetcher = mySegmentsFetcher;
+        mMySegmentsStorage = checkNotNull(mySegmentsStorage);
+        mEventsManager = eventsManager;
+        mMySegmentsChangeChecker = new MySegmentsChangeChecker();
+    }
+
+    /**
+     * Applies a pushed payload.
+     *
+     * @param changeNumber change number of the notification,
+     *                     or {@link #NO_CHANGE_NUMBER} to apply it regardless of order
+     */
+    @NonNull
+    public SplitTaskExecutionInfo update(List<String> mySegments, long changeNumber) {
+        if (mySegments == null) {
+            logError("My segment list could not be null.", "update");
+            return SplitTaskExecutionInfo.error(SplitTaskType.MY_SEGMENTS_UPDATE);
+        }
+        try {
+            synchronized (mLock) {
+                if (changeNumber != NO_CHANGE_NUMBER && changeNumber < mLastPushedChangeNumber) {
+                    Logger.d("Ignoring my segments update older than the last one applied");
+                    return SplitTaskExecutionInfo.success(SplitTaskType.MY_SEGMENTS_UPDATE);
+                }
+                mLastPushedChangeNumber = Math.max(mLastPushedChangeNumber, changeNumber);
+                mPushedUpdateCount++;
+                if (set(mySegments)) {
+                    notifyEvent(SplitInternalEvent.MY_SEGMENTS_UPDATED);
+                }
+            }
+        } catch (Exception e) {
+            logError("Unknown error while updating my segments: " + e.getLocalizedMessage(), "update");
+            return SplitTaskExecutionInfo.error(SplitTaskType.MY_SEGMENTS_UPDATE);
+        }
+        Logger.d("My Segments have been updated");
+        return SplitTaskExecutionInfo.success(SplitTaskType.MY_SEGMENTS_UPDATE);
+    }
+
+    /**
+     * Fetches segments and applies them. If a fetch is already running
+     * returns right away and one more fetch is sent when it ends.
+     */
+    @NonNull
+    public SplitTaskExecutionInfo sync(boolean avoidCache) {
+        checkNotNull(mMySegmentsFetcher);
+        synchronized (mLock) {
+            if (mFetchInFlight) {
+                mFetchPending = true;
+                mNoCacheFetchPending = mNoCacheFetchPending || avoidCache;
+                Logger.d("My segments already being fetched. Sync merged into next fetch");
+                return SplitTaskExecutionInfo.success(SplitTaskType.MY_SEGMENTS_SYNC);
+            }
+            mFetchInFlight = true;
+        }
+
+        boolean noCache = avoidCache;
+        while (true) {
+            SplitTaskExecutionInfo result = fetchAndApply(noCache);
+            synchronized (mLock) {
+                if (!mFetchPending) {
+                    mFetchInFlight = false;
+                    return result;
+                }
+                noCache = mNoCacheFetchPending;
+                mFetchPending = false;
+                mNoCacheFetchPending = false;
+            }
+        }
+    }
+
+    @VisibleForTesting
+    public void setChangesChecker(MySegmentsChangeChecker changesChecker) {
+        mMySegmentsChangeChecker = changesChecker;
+    }
+
+    private SplitTaskExecutionInfo fetchAndApply(boolean avoidCache) {
+        long pushedUpdateCount;
+        synchronized (mLock) {
+            pushedUpdateCount = mPushedUpdateCount;
+        }
+        try {
+            List<MySegment> response = mMySegmentsFetcher.execute(new HashMap<>(), getHeaders(avoidCache));
+            if (response == null) {
+                // Not modified since last fetch, nothing to parse or store
+                Logger.d("My Segments have not changed");
+                notifyEvent(SplitInternalEvent.MY_SEGMENTS_FETCHED);
+                return SplitTaskExecutionInfo.success(SplitTaskType.MY_SEGMENTS_SYNC);
+            }
+            List<String> mySegments = getNameList(response);
+            synchronized (mLock) {
+                if (pushedUpdateCount != mPushedUpdateCount) {
+                    // Validators of the discarded response were kept by the fetcher.
+                    // They are dropped so that the next fetch isn't answered as not modified,
+                    // which would leave the pushed segments in place even if they are older
+                    Logger.d("Discarding my segments fetched before last pushed update. Fetching again");
+                    mMySegmentsFetcher.resetValidators();
+                    mFetchPending = true;
+                    return SplitTaskExecutionInfo.success(SplitTaskType.MY_SEGMENTS_SYNC);
+                }
+                notifyEvent(set(mySegments) ? SplitInternalEvent.MY_SEGMENTS_UPDATED
+                        : SplitInternalEvent.MY_SEGMENTS_FETCHED);
+            }
+        } catch (HttpFetcherException e) {
+            logError("Network error while retrieving my segments: " + e.getLocalizedMessage(), "sync");
+            // Segments might not be stored, so a response already fetched must not be answered as not modified
+            mMySegmentsFetcher.resetValidators();
+            return SplitTaskExecutionInfo.error(SplitTaskType.MY_SEGMENTS_SYNC);
+        } catch (Exception e) {
+            logError("Unknown error while retrieving my segments: " + e.getLocalizedMessage(), "sync");
+            mMySegmentsFetcher.resetValidators();
+            return SplitTaskExecutionInfo.error(SplitTaskType.MY_SEGMENTS_SYNC);
+        }
+        Logger.d("My Segments have been updated");
+        return SplitTaskExecutionInfo.success(SplitTaskType.MY_SEGMENTS_SYNC);
+    }
+
+    // Returns true if segments have changed
+    private boolean set(List<String> mySegments) {
+        List<String> oldSegments = new ArrayList<>(mMySegmentsStorage.getAll());
+        mMySegmentsStorage.set(mySegments);
+        return mMySegmentsChangeChecker.mySegmentsHaveChanged(oldSegments, mySegments);
+    }
+
+    private List<String> getNameList(List<MySegment> mySegments) {
+        List<String> nameList = new ArrayList<String>();
+        for (MySegment segment : mySegments) {
+            nameList.add(segment.name);
+        }
+        return nameList;
+    }
+
+    private @Nullable Map<String, String> getHeaders(boolean avoidCache) {
+        if (avoidCache) {
+            return SplitHttpHeadersBuilder.noCacheHeaders();
+        }
+        return null;
+    }
+
+    private void notifyEvent(SplitInternalEvent event) {
+        if (mEventsManager == null) {
+            return;
+        }
+        mEventsManager.notifyInternalEvent(event);
+    }
+
+    private void logError(String message, String taskName) {
+        Logger.e("Error while executing my segments " + taskName + " task: " + message);
+    }
+}
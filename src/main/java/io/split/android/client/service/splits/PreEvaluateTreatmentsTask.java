@@ -0,0 +1,39 @@
+package io.split.android.client.service.splits;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import io.split.android.client.EvaluatorImpl;
+import io.split.android.client.service.executor.SplitTask;
+import io.split.android.client.service.executor.SplitTaskExecutionInfo;
+import io.split.android.client.service.executor.SplitTaskType;
+import io.split.android.client.utils.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class PreEvaluateTreatmentsTask implements SplitTask {
+
+    private final EvaluatorImpl mEvaluator;
+    private final String mMatchingKey;
+    private final String mBucketingKey;
+
+    public PreEvaluateTreatmentsTask(@NonNull EvaluatorImpl evaluator,
+                                     @NonNull String matchingKey,
+                                     @Nullable String bucketingKey) {
+        mEvaluator = checkNotNull(evaluator);
+        mMatchingKey = checkNotNull(matchingKey);
+        mBucketingKey = bucketingKey;
+    }
+
+    @Override
+    @NonNull
+    public SplitTaskExecutionInfo execute() {
+        try {
+            mEvaluator.preEvaluate(mMatchingKey, mBucketingKey);
+        } catch (Exception e) {
+            Logger.e("Error while pre evaluating treatments: " + e.getLocalizedMessage());
+            return SplitTaskExecutionInfo.error(SplitTaskType.PRE_EVALUATE_TREATMENTS);
+        }
+        return SplitTaskExecutionInfo.success(SplitTaskType.PRE_EVALUATE_TREATMENTS);
+    }
+}
@@ -1,22 +1,37 @@
 package io.split.android.client.service.splits;
 
+import androidx.annotation.NonNull;
+
 import com.google.gson.JsonSyntaxException;
 
+import java.io.Reader;
+
 import io.split.android.client.dtos.SplitChange;
-import io.split.android.client.service.http.HttpResponseParser;
 import io.split.android.client.service.http.HttpResponseParserException;
+import io.split.android.client.service.http.HttpResponseStreamParser;
 import io.split.android.client.utils.Json;
 
-public class SplitChangeResponseParser implements HttpResponseParser<SplitChange> {
+public class SplitChangeResponseParser implements HttpResponseStreamParser<SplitChange> {
 
     @Override
     public SplitChange parse(String responseData) throws HttpResponseParserException {
         try {
             return Json.fromJson(responseData, SplitChange.class);
         } catch (JsonSyntaxException e) {
-            throw new HttpResponseParserException("Syntax error parsing my segments http response: " + e.getLocalizedMessage());
+            throw new HttpResponseParserException("Syntax error parsing split changes http response: " + e.getLocalizedMessage());
+        } catch (Exception e) {
+            throw new HttpResponseParserException("Unknown error parsing split changes http response: " + e.getLocalizedMessage());
+        }
+    }
+
+    @Override
+    public SplitChange parse(@NonNull Reader responseData) throws HttpResponseParserException {
+        try {
+            return Json.fromJson(responseData, SplitChange.class);
+        } catch (JsonSyntaxException e) {
+            throw new HttpResponseParserException("Syntax error parsing split changes http response: " + e.getLocalizedMessage(), e);
         } catch (Exception e) {
-            throw new HttpResponseParserException("Unknown error parsing my segments http response: " + e.getLocalizedMessage());
+            throw new HttpResponseParserException("Unknown error parsing split changes http response: " + e.getLocalizedMessage(), e);
         }
     }
 }
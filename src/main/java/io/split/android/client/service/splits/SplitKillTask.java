@@ -43,10 +43,8 @@ public class SplitKillTask implements SplitTask {
                 return SplitTaskExecutionInfo.success(SplitTaskType.SPLIT_KILL);
             }
 
-            Split splitToKill = mSplitsStorage.get(mKilledSplit.name);
-            splitToKill.killed = true;
-            splitToKill.defaultTreatment = mKilledSplit.defaultTreatment;
-            splitToKill.changeNumber = mKilledSplit.changeNumber;
+            // Stored split is shared with published snapshots, so it is not modified
+            Split splitToKill = killedCopy(mSplitsStorage.get(mKilledSplit.name));
 
             mSplitsStorage.updateWithoutChecks(splitToKill);
             mEventsManager.notifyInternalEvent(SplitInternalEvent.SPLIT_KILLED_NOTIFICATION);
@@ -58,7 +56,24 @@ public class SplitKillTask implements SplitTask {
         return SplitTaskExecutionInfo.success(SplitTaskType.SPLIT_KILL);
     }
 
-    private void logError(String message) {
+    private Split killedCopy(Split split) {
+        Split killedSplit = new Split();
+        killedSplit.name = split.name;
+        killedSplit.seed = split.seed;
+        killedSplit.status = split.status;
+        killedSplit.killed = true;
+        killedSplit.defaultTreatment = mKilledSplit.defaultTreatment;
+        killedSplit.conditions = split.conditions;
+        killedSplit.trafficTypeName = split.trafficTypeName;
+        killedSplit.changeNumber = mKilledSplit.changeNumber;
+        killedSplit.trafficAllocation = split.trafficAllocation;
+        killedSplit.trafficAllocationSeed = split.trafficAllocationSeed;
+        killedSplit.algo = split.algo;
+        killedSplit.configurations = split.configurations;
+        return killedSplit;
+    }
+
+        private void logError(String message) {
         Logger.e("Error while executing Split kill task: " + message);
     }
 }
@@ -2,10 +2,15 @@ package io.split.android.client.service.splits;
 
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import io.split.android.client.dtos.Split;
 import io.split.android.client.dtos.SplitChange;
 import io.split.android.client.network.SplitHttpHeadersBuilder;
+import io.split.android.client.service.ServiceConstants;
 import io.split.android.client.service.executor.SplitTaskExecutionInfo;
 import io.split.android.client.service.executor.SplitTaskType;
 import io.split.android.client.service.http.HttpFetcher;
@@ -19,6 +24,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 public class SplitsSyncHelper {
 
+    private static final String SINCE_PARAM = "since";
+    private static final int MAX_PAGES = ServiceConstants.MAX_SPLIT_CHANGES_PAGES_PER_SYNC;
+
     private final HttpFetcher<SplitChange> mSplitFetcher;
     private final SplitsStorage mSplitsStorage;
     private final SplitChangeProcessor mSplitChangeProcessor;
@@ -35,23 +43,87 @@ public class SplitsSyncHelper {
                                        boolean clearBeforeUpdate,
                                        boolean avoidCache) {
         try {
-            SplitChange splitChange = mSplitFetcher.execute(params, getHeaders(avoidCache));
-            if (clearBeforeUpdate) {
-                mSplitsStorage.clear();
+            SplitChange splitChange = fetchUntilUpToDate(params, getHeaders(avoidCache));
+            // Null when not modified since last fetch, so there's nothing to parse or store
+            if (splitChange != null) {
+                if (clearBeforeUpdate) {
+                    mSplitsStorage.clear();
+                }
+                mSplitsStorage.update(mSplitChangeProcessor.process(splitChange));
             }
-            mSplitsStorage.update(mSplitChangeProcessor.process(splitChange));
         } catch (HttpFetcherException e) {
             logError("Newtwork error while fetching splits" + e.getLocalizedMessage());
-
+            // Nothing was stored, so a response already fetched must not be answered as not modified
+            mSplitFetcher.resetValidators();
             return SplitTaskExecutionInfo.error(SplitTaskType.SPLITS_SYNC);
         } catch (Exception e) {
             logError("Unexpected while fetching splits" + e.getLocalizedMessage());
+            mSplitFetcher.resetValidators();
             return SplitTaskExecutionInfo.error(SplitTaskType.SPLITS_SYNC);
         }
         Logger.d("Features have been updated");
         return SplitTaskExecutionInfo.success(SplitTaskType.SPLITS_SYNC);
     }
 
+    /**
+     * Fetches changes until till equals the requested since, so that changes from
+     * a long time ago are fetched in one sync.
+     * Pages are merged in a single change, keeping the last version of each split,
+     * to be stored at once. If fetching any page fails nothing is returned.
+     */
+    private @Nullable SplitChange fetchUntilUpToDate(Map<String, Object> params,
+                                                     Map<String, String> headers) throws HttpFetcherException {
+        Map<String, Object> pageParams = params;
+        SplitChange firstPage = null;
+        SplitChange lastPage = null;
+        Map<String, Split> mergedSplits = null;
+        for (int page = 0; page < MAX_PAGES; page++) {
+            SplitChange splitChange = mSplitFetcher.execute(pageParams, headers);
+            if (splitChange == null) {
+                break;
+            }
+            if (firstPage == null) {
+                firstPage = splitChange;
+            } else {
+                if (mergedSplits == null) {
+                    mergedSplits = new LinkedHashMap<>();
+                    addSplits(mergedSplits, firstPage);
+                }
+                addSplits(mergedSplits, splitChange);
+            }
+            lastPage = splitChange;
+
+            Object since = pageParams.get(SINCE_PARAM);
+            if (!(since instanceof Long) || splitChange.till <= (Long) since) {
+                break;
+            }
+            pageParams = new HashMap<>(params);
+            pageParams.put(SINCE_PARAM, splitChange.till);
+        }
+
+        if (mergedSplits == null) {
+            return firstPage;
+        }
+        SplitChange splitChange = new SplitChange();
+        splitChange.splits = new ArrayList<>(mergedSplits.values());
+        splitChange.since = firstPage.since;
+        splitChange.till = lastPage.till;
+        return splitChange;
+    }
+
+    private void addSplits(Map<String, Split> splits, SplitChange splitChange) {
+        if (splitChange.splits == null) {
+            return;
+        }
+        for (Split split : splitChange.splits) {
+            if (split.name != null) {
+                // Removed first to keep them in the order of the last change
+                splits.remove(split.name);
+                splits.put(split.name, split);
+            }
+        }
+    }
+
     private long now() {
         return System.currentTimeMillis() / 1000;
     }
@@ -80,7 +80,8 @@ public class NotificationProcessor {
             mMySegmentUpdateNotificationsQueue.offer(notification);
         } else {
             List<String> segmentList = notification.getSegmentList() != null ? notification.getSegmentList() : new ArrayList<>();
-            MySegmentsUpdateTask task = mSplitTaskFactory.createMySegmentsUpdateTask(segmentList);
+            MySegmentsUpdateTask task = mSplitTaskFactory.createMySegmentsUpdateTask(segmentList,
+                    notification.getChangeNumber());
             mSplitTaskExecutor.submit(task, null);
         }
     }
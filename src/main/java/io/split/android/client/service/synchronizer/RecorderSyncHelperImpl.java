@@ -3,6 +3,7 @@ package io.split.android.client.service.synchronizer;
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -43,8 +44,25 @@ class RecorderSyncHelperImpl<T extends InBytesSizable> implements RecorderSyncHe
     @Override
     public boolean pushAndCheckIfFlushNeeded(T entity) {
         pushAsync(entity);
-        int pushedEventCount = mPushedCount.addAndGet(1);
-        long totalEventsSizeInBytes = mTotalPushedSizeInBytes.addAndGet(entity.getSizeInBytes());
+        return checkIfFlushNeeded(1, entity.getSizeInBytes());
+    }
+
+    @Override
+    public boolean pushAndCheckIfFlushNeeded(List<T> entities) {
+        if (entities.isEmpty()) {
+            return false;
+        }
+        pushManyAsync(entities);
+        long sizeInBytes = 0;
+        for (T entity : entities) {
+            sizeInBytes += entity.getSizeInBytes();
+        }
+        return checkIfFlushNeeded(entities.size(), sizeInBytes);
+    }
+
+    private boolean checkIfFlushNeeded(int count, long sizeInBytes) {
+        int pushedEventCount = mPushedCount.addAndGet(count);
+        long totalEventsSizeInBytes = mTotalPushedSizeInBytes.addAndGet(sizeInBytes);
         if (pushedEventCount > mMaxQueueSize ||
                 totalEventsSizeInBytes >= mMaxQueueSizeInBytes) {
             mPushedCount.set(0);
@@ -75,4 +93,15 @@ class RecorderSyncHelperImpl<T extends InBytesSizable> implements RecorderSyncHe
             }
         }, null);
     }
+
+    private void pushManyAsync(List<T> entities) {
+        mSplitTaskExecutor.submit(new SplitTask() {
+            @NonNull
+            @Override
+            public SplitTaskExecutionInfo execute() {
+                mStorage.pushMany(entities);
+                return SplitTaskExecutionInfo.success(SplitTaskType.GENERIC_TASK);
+            }
+        }, null);
+    }
 }
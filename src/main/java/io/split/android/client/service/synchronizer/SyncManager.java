@@ -2,6 +2,8 @@ package io.split.android.client.service.synchronizer;
 
 import androidx.annotation.VisibleForTesting;
 
+import java.util.List;
+
 import io.split.android.client.dtos.Event;
 import io.split.android.client.impressions.Impression;
 import io.split.android.client.lifecycle.SplitLifecycleAware;
@@ -16,6 +18,8 @@ public interface SyncManager extends SplitLifecycleAware {
 
     void pushImpression(Impression impression);
 
+    void pushImpressions(List<Impression> impressions);
+
     void stop();
 
 }
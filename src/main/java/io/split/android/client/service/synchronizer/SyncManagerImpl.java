@@ -2,6 +2,7 @@ package io.split.android.client.service.synchronizer;
 
 import androidx.annotation.NonNull;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.split.android.client.SplitClientConfig;
@@ -123,6 +124,11 @@ public class SyncManagerImpl implements SyncManager, BroadcastedEventListener {
         mSynchronizer.pushImpression(impression);
     }
 
+    @Override
+    public void pushImpressions(List<Impression> impressions) {
+        mSynchronizer.pushImpressions(impressions);
+    }
+
     @Override
     public void stop() {
         mSynchronizer.stopPeriodicFetching();
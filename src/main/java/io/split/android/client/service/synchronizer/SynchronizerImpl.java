@@ -38,6 +38,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @VisibleForTesting(otherwise = VisibleForTesting.PROTECTED)
 public class SynchronizerImpl implements Synchronizer, SplitTaskExecutionListener {
 
+    private static final long NO_CHANGE_NUMBER = -1;
+
     private final SplitTaskExecutor mTaskExecutor;
     private final SplitStorageContainer mSplitsStorageContainer;
     private final SplitClientConfig mSplitClientConfig;
@@ -62,6 +64,29 @@ public class SynchronizerImpl implements Synchronizer, SplitTaskExecutionListene
     private final ImpressionsObserver mImpressionsObserver;
     private final ImpressionsCounter mImpressionsCounter;
 
+    // At most one splits and one my segments fetch run at the same time.
+    // Requests arriving meanwhile are merged into a single follow up run
+    private final Object mSplitsSyncLock = new Object();
+    private boolean mSplitsSyncInFlight;
+    private boolean mSplitsFullSyncPending;
+    private long mSplitsPendingChangeNumber = NO_CHANGE_NUMBER;
+    private final Object mMySegmentsSyncLock = new Object();
+    private boolean mMySegmentsSyncInFlight;
+    private boolean mMySegmentsSyncPending;
+    private boolean mMySegmentsForcedSyncPending;
+    private final SplitTaskExecutionListener mSplitsSyncListener = new SplitTaskExecutionListener() {
+        @Override
+        public void taskExecuted(@NonNull SplitTaskExecutionInfo taskInfo) {
+            onSplitsSyncFinished();
+        }
+    };
+    private final SplitTaskExecutionListener mMySegmentsSyncListener = new SplitTaskExecutionListener() {
+        @Override
+        public void taskExecuted(@NonNull SplitTaskExecutionInfo taskInfo) {
+            onMySegmentsSyncFinished();
+        }
+    };
+
     public SynchronizerImpl(@NonNull SplitClientConfig splitClientConfig,
                             @NonNull SplitTaskExecutor taskExecutor,
                             @NonNull SplitStorageContainer splitStorageContainer,
@@ -85,7 +110,7 @@ public class SynchronizerImpl implements Synchronizer, SplitTaskExecutionListene
         mImpressionsCounter = new ImpressionsCounter();
 
         setupListeners();
-        mSplitsSyncRetryTimer.setTask(mSplitTaskFactory.createSplitsSyncTask(true), null);
+        mSplitsSyncRetryTimer.setTask(mSplitTaskFactory.createSplitsSyncTask(true), mSplitsSyncListener);
 
         if (mSplitClientConfig.synchronizeInBackground()) {
             mWorkManagerWrapper.setFetcherExecutionListener(this);
@@ -123,25 +148,36 @@ public class SynchronizerImpl implements Synchronizer, SplitTaskExecutionListene
 
     @Override
     public void synchronizeSplits(long since) {
-        mSplitsUpdateRetryTimer.setTask(mSplitTaskFactory.createSplitsUpdateTask(since), null);
-        mSplitsUpdateRetryTimer.start();
+        synchronized (mSplitsSyncLock) {
+            if (mSplitsSyncInFlight) {
+                mSplitsPendingChangeNumber = Math.max(mSplitsPendingChangeNumber, since);
+                return;
+            }
+            mSplitsSyncInFlight = true;
+        }
+        startSplitsUpdate(since);
     }
 
     @Override
     public void synchronizeSplits() {
+        synchronized (mSplitsSyncLock) {
+            if (mSplitsSyncInFlight) {
+                mSplitsFullSyncPending = true;
+                return;
+            }
+            mSplitsSyncInFlight = true;
+        }
         mSplitsSyncRetryTimer.start();
     }
 
     @Override
     public void synchronizeMySegments() {
-        mMySegmentsSyncRetryTimer.setTask(mSplitTaskFactory.createMySegmentsSyncTask(false), null);
-        mMySegmentsSyncRetryTimer.start();
+        requestMySegmentsSync(false);
     }
 
     @Override
     public void forceMySegmentsSync() {
-        mMySegmentsSyncRetryTimer.setTask(mSplitTaskFactory.createMySegmentsSyncTask(true), null);
-        mMySegmentsSyncRetryTimer.start();
+        requestMySegmentsSync(true);
     }
 
     @Override
@@ -248,6 +284,31 @@ public class SynchronizerImpl implements Synchronizer, SplitTaskExecutionListene
         }
     }
 
+    /**
+     * Same as pushing each impression, but queued to the storage
+     * in a single task, as all the impressions from a getTreatments call.
+     */
+    @Override
+    public void pushImpressions(List<Impression> impressions) {
+        List<KeyImpression> keyImpressions = new ArrayList<>(impressions.size());
+        for (Impression impression : impressions) {
+            impression = impression.withPreviousTime(mImpressionsObserver.testAndSet(impression));
+            KeyImpression keyImpression = KeyImpression.fromImpression(impression);
+            if (isOptimizedImpressionsMode()) {
+                mImpressionsCounter.inc(impression.split(), impression.time(), 1);
+            }
+            if (!isOptimizedImpressionsMode() || shouldPushImpression(keyImpression)) {
+                keyImpressions.add(keyImpression);
+            }
+        }
+
+        if (mImpressionsSyncHelper.pushAndCheckIfFlushNeeded(keyImpressions)) {
+            mTaskExecutor.submit(
+                    mSplitTaskFactory.createImpressionsRecorderTask(),
+                    mImpressionsSyncHelper);
+        }
+    }
+
     private void saveImpressionsCount() {
         if(!isOptimizedImpressionsMode()) {
             return;
@@ -309,6 +370,65 @@ public class SynchronizerImpl implements Synchronizer, SplitTaskExecutionListene
                 mSplitClientConfig.impressionsCounterRefreshRate(), null);
     }
 
+    private void startSplitsUpdate(long since) {
+        mSplitsUpdateRetryTimer.setTask(mSplitTaskFactory.createSplitsUpdateTask(since), mSplitsSyncListener);
+        mSplitsUpdateRetryTimer.start();
+    }
+
+    private void onSplitsSyncFinished() {
+        boolean fullSync;
+        long changeNumber;
+        synchronized (mSplitsSyncLock) {
+            fullSync = mSplitsFullSyncPending;
+            changeNumber = mSplitsPendingChangeNumber;
+            mSplitsFullSyncPending = false;
+            mSplitsPendingChangeNumber = NO_CHANGE_NUMBER;
+            if (!fullSync && changeNumber == NO_CHANGE_NUMBER) {
+                mSplitsSyncInFlight = false;
+                return;
+            }
+        }
+        // A full sync fetches until up to date, so it covers any pending change number.
+        // Update task doesn't fetch if the change number is already stored
+        if (fullSync) {
+            mSplitsSyncRetryTimer.start();
+        } else {
+            startSplitsUpdate(changeNumber);
+        }
+    }
+
+    private void requestMySegmentsSync(boolean avoidCache) {
+        synchronized (mMySegmentsSyncLock) {
+            if (mMySegmentsSyncInFlight) {
+                mMySegmentsSyncPending = true;
+                mMySegmentsForcedSyncPending = mMySegmentsForcedSyncPending || avoidCache;
+                return;
+            }
+            mMySegmentsSyncInFlight = true;
+        }
+        startMySegmentsSync(avoidCache);
+    }
+
+    private void startMySegmentsSync(boolean avoidCache) {
+        mMySegmentsSyncRetryTimer.setTask(mSplitTaskFactory.createMySegmentsSyncTask(avoidCache),
+                mMySegmentsSyncListener);
+        mMySegmentsSyncRetryTimer.start();
+    }
+
+    private void onMySegmentsSyncFinished() {
+        boolean avoidCache;
+        synchronized (mMySegmentsSyncLock) {
+            if (!mMySegmentsSyncPending) {
+                mMySegmentsSyncInFlight = false;
+                return;
+            }
+            avoidCache = mMySegmentsForcedSyncPending;
+            mMySegmentsSyncPending = false;
+            mMySegmentsForcedSyncPending = false;
+        }
+        startMySegmentsSync(avoidCache);
+    }
+
     private void submitSplitLoadingTask(SplitTaskExecutionListener listener) {
         mTaskExecutor.submit(mSplitTaskFactory.createLoadSplitsTask(),
                 listener);
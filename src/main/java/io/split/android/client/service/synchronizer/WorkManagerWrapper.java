@@ -191,6 +191,8 @@ public class WorkManagerWrapper {
                 ServiceConstants.WORKER_PARAM_ENDPOINT, mSplitClientConfig.eventsEndpoint());
         dataBuilder.putInt(
                 ServiceConstants.WORKER_PARAM_EVENTS_PER_PUSH, mSplitClientConfig.eventsPerPush());
+        dataBuilder.putBoolean(
+                ServiceConstants.WORKER_PARAM_GZIP_UPLOADS, mSplitClientConfig.gzipUploadsEnabled());
         return buildInputData(dataBuilder.build());
     }
 
@@ -201,6 +203,8 @@ public class WorkManagerWrapper {
         dataBuilder.putInt(
                 ServiceConstants.WORKER_PARAM_IMPRESSIONS_PER_PUSH,
                 mSplitClientConfig.impressionsPerPush());
+        dataBuilder.putBoolean(
+                ServiceConstants.WORKER_PARAM_GZIP_UPLOADS, mSplitClientConfig.gzipUploadsEnabled());
         return buildInputData(dataBuilder.build());
     }
 
@@ -25,9 +25,11 @@ public class EventsRecorderWorker extends SplitWorker {
             int eventsPerPush = workerParams.getInputData().getInt(
                     ServiceConstants.WORKER_PARAM_EVENTS_PER_PUSH,
                     ServiceConstants.DEFAULT_RECORDS_PER_PUSH);
+            boolean gzipUploads = workerParams.getInputData().getBoolean(
+                    ServiceConstants.WORKER_PARAM_GZIP_UPLOADS, false);
 
             mSplitTask = new EventsRecorderTask(ServiceFactory.getEventsRecorder(
-                    getNetworkHelper(), getHttpClient(), getEndPoint()),
+                    getNetworkHelper(), getHttpClient(), getEndPoint(), gzipUploads),
                     StorageFactory.getPersistenEventsStorage(getDatabase()),
                     new EventsRecorderTaskConfig(eventsPerPush));
         } catch (URISyntaxException e) {
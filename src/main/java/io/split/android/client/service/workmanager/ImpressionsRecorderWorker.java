@@ -22,6 +22,8 @@ public class ImpressionsRecorderWorker extends SplitWorker {
             int impressionsPerPush = workerParams.getInputData().getInt(
                     ServiceConstants.WORKER_PARAM_IMPRESSIONS_PER_PUSH,
                     ServiceConstants.DEFAULT_RECORDS_PER_PUSH);
+            boolean gzipUploads = workerParams.getInputData().getBoolean(
+                    ServiceConstants.WORKER_PARAM_GZIP_UPLOADS, false);
 
             ImpressionsRecorderTaskConfig config =
                     new ImpressionsRecorderTaskConfig(
@@ -29,7 +31,7 @@ public class ImpressionsRecorderWorker extends SplitWorker {
                             ServiceConstants.ESTIMATED_IMPRESSION_SIZE_IN_BYTES);
 
             mSplitTask = new ImpressionsRecorderTask(ServiceFactory.getImpressionsRecorder(
-                            getNetworkHelper(), getHttpClient(), getEndPoint()),
+                            getNetworkHelper(), getHttpClient(), getEndPoint(), gzipUploads),
                             StorageFactory.getPersistenImpressionsStorage(getDatabase()),
                             config);
         } catch (URISyntaxException e) {
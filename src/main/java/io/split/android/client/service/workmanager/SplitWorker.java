@@ -7,16 +7,8 @@ import androidx.work.Data;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.util.concurrent.TimeUnit;
-
-import io.split.android.android_client.BuildConfig;
-import io.split.android.client.metrics.CachedMetrics;
-import io.split.android.client.metrics.HttpMetrics;
+import io.split.android.client.network.ConnectivityMonitor;
 import io.split.android.client.network.HttpClient;
-import io.split.android.client.network.HttpClientImpl;
-import io.split.android.client.network.SplitHttpHeadersBuilder;
 import io.split.android.client.service.ServiceConstants;
 import io.split.android.client.service.executor.SplitTask;
 import io.split.android.client.storage.db.SplitRoomDatabase;
@@ -28,6 +20,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public abstract class SplitWorker extends Worker {
 
     private final SplitRoomDatabase mDatabase;
+    private final String mDatabaseName;
     private final HttpClient mHttpClient;
     private final NetworkHelper mNetworkHelper;
     private final String mEndpoint;
@@ -46,25 +39,15 @@ public abstract class SplitWorker extends Worker {
         String apiKey = inputData.getString(ServiceConstants.WORKER_PARAM_API_KEY);
         mEndpoint = inputData.getString(ServiceConstants.WORKER_PARAM_ENDPOINT);
         String metricsEndpoint = inputData.getString(ServiceConstants.WORKER_PARAM_EVENTS_ENDPOINT);
+        mDatabaseName = databaseName;
         mDatabase = SplitRoomDatabase.getDatabase(context, databaseName);
         mCacheExpirationInSeconds = inputData.getLong(ServiceConstants.WORKER_PARAM_SPLIT_CACHE_EXPIRATION,
                 ServiceConstants.DEFAULT_SPLITS_CACHE_EXPIRATION_IN_SECONDS);
-        SplitHttpHeadersBuilder headersBuilder = new SplitHttpHeadersBuilder();
-        headersBuilder.setClientVersion(BuildConfig.SPLIT_VERSION_NAME);
-        headersBuilder.setApiToken(apiKey);
-        headersBuilder.addJsonTypeHeaders();
-        mHttpClient = new HttpClientImpl.Builder().build();
-        mHttpClient.addHeaders(headersBuilder.build());
+        SplitWorkerResources resources = SplitWorkerResources.get(apiKey, metricsEndpoint);
+        mHttpClient = resources.getHttpClient();
+        mMetrics = resources.getMetrics();
+        ConnectivityMonitor.getInstance().start(context);
         mNetworkHelper = new NetworkHelper();
-
-        URI eventsRootTarget = URI.create(metricsEndpoint);
-        HttpMetrics httpMetrics = null;
-        try {
-            httpMetrics = HttpMetrics.create(mHttpClient, eventsRootTarget);
-        } catch (URISyntaxException e) {
-            e.printStackTrace();
-        }
-        mMetrics = new CachedMetrics(httpMetrics, TimeUnit.SECONDS.toMillis(1));
     }
 
     @NonNull
@@ -79,6 +62,10 @@ public abstract class SplitWorker extends Worker {
         return mDatabase;
     }
 
+    protected String getDatabaseName() {
+        return mDatabaseName;
+    }
+
     public HttpClient getHttpClient() {
         return mHttpClient;
     }
@@ -0,0 +1,72 @@
+package io.split.android.client.service.workmanager;
+
+import androidx.annotation.NonNull;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.split.android.android_client.BuildConfig;
+import io.split.android.client.metrics.CachedMetrics;
+import io.split.android.client.metrics.HttpMetrics;
+import io.split.android.client.network.HttpClient;
+import io.split.android.client.network.HttpClientImpl;
+import io.split.android.client.network.SplitHttpHeadersBuilder;
+import io.split.android.client.utils.Logger;
+import io.split.android.engine.metrics.Metrics;
+
+/**
+ * Objects shared by all workers running in the process, created on first use.
+ * Background runs reuse the connection pool and dispatcher of a single http client
+ * instead of opening new connections on each worker.
+ * Workers from different factories may use a different api key or events endpoint,
+ * so a set of objects is kept for each of them.
+ * Sets are never evicted: they live for the whole process, so the map grows by one
+ * entry for each api key and events endpoint pair used by background workers.
+ */
+class SplitWorkerResources {
+
+    private static final Map<String, SplitWorkerResources> sInstances = new HashMap<>();
+
+    private final HttpClient mHttpClient;
+    private final Metrics mMetrics;
+
+    static SplitWorkerResources get(@NonNull String apiKey, @NonNull String eventsEndpoint) {
+        String key = apiKey + "|" + eventsEndpoint;
+        synchronized (SplitWorkerResources.class) {
+            SplitWorkerResources instance = sInstances.get(key);
+            if (instance == null) {
+                instance = new SplitWorkerResources(apiKey, eventsEndpoint);
+                sInstances.put(key, instance);
+            }
+            return instance;
+        }
+    }
+
+    private SplitWorkerResources(String apiKey, String eventsEndpoint) {
+        SplitHttpHeadersBuilder headersBuilder = new SplitHttpHeadersBuilder();
+        headersBuilder.setClientVersion(BuildConfig.SPLIT_VERSION_NAME);
+        headersBuilder.setApiToken(apiKey);
+        headersBuilder.addJsonTypeHeaders();
+        mHttpClient = new HttpClientImpl.Builder().build();
+        mHttpClient.addHeaders(headersBuilder.build());
+
+        HttpMetrics httpMetrics = null;
+        try {
+            httpMetrics = HttpMetrics.create(mHttpClient, URI.create(eventsEndpoint));
+        } catch (URISyntaxException e) {
+            Logger.e("Error creating metrics for background sync: " + e.getLocalizedMessage());
+        }
+        mMetrics = new CachedMetrics(httpMetrics, TimeUnit.SECONDS.toMillis(1));
+    }
+
+    HttpClient getHttpClient() {
+        return mHttpClient;
+    }
+
+    Metrics getMetrics() {
+        return mMetrics;
+    }
+}
@@ -15,6 +15,7 @@ import io.split.android.client.service.splits.SplitsSyncBackgroundTask;
 import io.split.android.client.service.splits.SplitsSyncHelper;
 import io.split.android.client.service.splits.SplitsSyncTask;
 import io.split.android.client.storage.db.StorageFactory;
+import io.split.android.client.storage.splits.SplitsSnapshotFile;
 import io.split.android.client.storage.splits.SplitsStorage;
 import io.split.android.client.utils.Logger;
 
@@ -23,7 +24,9 @@ public class SplitsSyncWorker extends SplitWorker {
                             @NonNull WorkerParameters workerParams) {
         super(context, workerParams);
         try {
-            SplitsStorage splitsStorage = StorageFactory.getSplitsStorage(getDatabase());
+            // Splits aren't loaded here, so updates delete the snapshot file if there is one
+            SplitsStorage splitsStorage = StorageFactory.getSplitsStorage(getDatabase(), null,
+                    SplitsSnapshotFile.forDatabase(context, getDatabaseName()));
             HttpFetcher<SplitChange> splitsFetcher = ServiceFactory.getSplitsFetcher(getNetworkHelper(), getHttpClient(),
                             getEndPoint(), getMetrics(), splitsStorage.getSplitsFilterQueryString());
             SplitsSyncHelper splitsSyncHelper = new SplitsSyncHelper(splitsFetcher, splitsStorage, new SplitChangeProcessor());
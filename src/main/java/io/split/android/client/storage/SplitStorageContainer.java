@@ -8,6 +8,7 @@ import io.split.android.client.storage.impressions.PersistentImpressionsStorage;
 import io.split.android.client.storage.mysegments.MySegmentsStorage;
 import io.split.android.client.storage.splits.PersistentSplitsStorage;
 import io.split.android.client.storage.splits.SplitsStorage;
+import io.split.android.engine.experiments.ParsedSplitsCache;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -19,13 +20,15 @@ public class SplitStorageContainer {
     private final PersistentEventsStorage mPersistentEventsStorage;
     private final PersistentImpressionsStorage mPersistentImpressionsStorage;
     private final PersistentImpressionsCountStorage mPersistentImpressionsCountStorage;
+    private final ParsedSplitsCache mParsedSplitsCache;
 
     public SplitStorageContainer(@NonNull SplitsStorage splitStorage,
                                  @NonNull MySegmentsStorage mySegmentsStorage,
                                  @NonNull PersistentSplitsStorage persistentSplitsStorage,
                                  @NonNull PersistentEventsStorage persistentEventsStorage,
                                  @NonNull PersistentImpressionsStorage persistentImpressionsStorage,
-                                 @NonNull PersistentImpressionsCountStorage persistentImpressionsCountStorage) {
+                                 @NonNull PersistentImpressionsCountStorage persistentImpressionsCountStorage,
+                                 @NonNull ParsedSplitsCache parsedSplitsCache) {
 
         mSplitStorage = checkNotNull(splitStorage);
         mMySegmentsStorage = checkNotNull(mySegmentsStorage);
@@ -33,6 +36,7 @@ public class SplitStorageContainer {
         mPersistentEventsStorage = checkNotNull(persistentEventsStorage);
         mPersistentImpressionsStorage = checkNotNull(persistentImpressionsStorage);
         mPersistentImpressionsCountStorage = checkNotNull(persistentImpressionsCountStorage);
+        mParsedSplitsCache = checkNotNull(parsedSplitsCache);
     }
 
     public SplitsStorage getSplitsStorage() {
@@ -58,4 +62,8 @@ public class SplitStorageContainer {
     public PersistentImpressionsCountStorage getImpressionsCountStorage() {
         return mPersistentImpressionsCountStorage;
     }
-}
\ No newline at end of file
+
+    public ParsedSplitsCache getParsedSplitsCache() {
+        return mParsedSplitsCache;
+    }
+}
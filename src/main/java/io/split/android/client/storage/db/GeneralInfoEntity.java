@@ -11,6 +11,9 @@ public class GeneralInfoEntity {
 
     public static final String SPLITS_UPDATE_TIMESTAMP = "splitsUpdateTimestamp";
     public static final String CHANGE_NUMBER_INFO = "splitChangesChangeNumber";
+    // Change number of splits stored with bodies that previous versions can't decode.
+    // While it is used CHANGE_NUMBER_INFO is -1, so that those versions fetch all splits
+    public static final String SPLITS_ENCODED_CHANGE_NUMBER = "splitsEncodedChangeNumber";
     public static final String SPLITS_FILTER_QUERY_STRING = "splitsFilterQueryString";
     public static final String DATBASE_MIGRATION_STATUS = "databaseMigrationStatus";
 
@@ -20,4 +20,7 @@ public interface SplitDao {
 
     @Query("DELETE FROM splits")
     void deleteAll();
+
+    @Query("DELETE FROM splits WHERE body LIKE :prefix || '%'")
+    void deleteByBodyPrefix(String prefix);
 }
@@ -14,18 +14,38 @@ import io.split.android.client.storage.mysegments.MySegmentsStorageImpl;
 import io.split.android.client.storage.mysegments.PersistentMySegmentsStorage;
 import io.split.android.client.storage.mysegments.SqLitePersistentMySegmentsStorage;
 import io.split.android.client.storage.splits.PersistentSplitsStorage;
+import io.split.android.client.storage.splits.SplitsSnapshotFile;
 import io.split.android.client.storage.splits.SplitsStorage;
 import io.split.android.client.storage.splits.SplitsStorageImpl;
 import io.split.android.client.storage.splits.SqLitePersistentSplitsStorage;
+import io.split.android.client.storage.splits.WriteBehindPersistentSplitsStorage;
+import io.split.android.engine.experiments.ParsedSplitsCache;
 
 import static androidx.annotation.RestrictTo.Scope.LIBRARY;
 
 @RestrictTo(LIBRARY)
 public class StorageFactory {
     public static SplitsStorage getSplitsStorage(SplitRoomDatabase splitRoomDatabase) {
+        return getSplitsStorage(splitRoomDatabase, null);
+    }
+
+    public static SplitsStorage getSplitsStorage(SplitRoomDatabase splitRoomDatabase,
+                                                 ParsedSplitsCache parsedSplitsCache) {
+        return getSplitsStorage(splitRoomDatabase, parsedSplitsCache, null);
+    }
+
+    public static SplitsStorage getSplitsStorage(SplitRoomDatabase splitRoomDatabase,
+                                                 ParsedSplitsCache parsedSplitsCache,
+                                                 SplitsSnapshotFile splitsSnapshotFile) {
         PersistentSplitsStorage persistentSplitsStorage
                 = new SqLitePersistentSplitsStorage(splitRoomDatabase);
-        return new SplitsStorageImpl(persistentSplitsStorage);
+        return getSplitsStorage(persistentSplitsStorage, parsedSplitsCache, splitsSnapshotFile);
+    }
+
+    public static SplitsStorage getSplitsStorage(PersistentSplitsStorage persistentSplitsStorage,
+                                                 ParsedSplitsCache parsedSplitsCache,
+                                                 SplitsSnapshotFile splitsSnapshotFile) {
+        return new SplitsStorageImpl(persistentSplitsStorage, parsedSplitsCache, splitsSnapshotFile);
     }
 
     public static MySegmentsStorage getMySegmentsStorage(SplitRoomDatabase splitRoomDatabase,
@@ -36,7 +56,18 @@ public class StorageFactory {
     }
 
     public static PersistentSplitsStorage getPersistentSplitsStorage(SplitRoomDatabase splitRoomDatabase) {
-        return new SqLitePersistentSplitsStorage(splitRoomDatabase);
+        return getPersistentSplitsStorage(splitRoomDatabase, null);
+    }
+
+    public static PersistentSplitsStorage getPersistentSplitsStorage(SplitRoomDatabase splitRoomDatabase,
+                                                                     SplitsSnapshotFile splitsSnapshotFile) {
+        return new SqLitePersistentSplitsStorage(splitRoomDatabase, splitsSnapshotFile);
+    }
+
+    public static WriteBehindPersistentSplitsStorage getWriteBehindPersistentSplitsStorage(
+            SplitRoomDatabase splitRoomDatabase, SplitsSnapshotFile splitsSnapshotFile) {
+        return new WriteBehindPersistentSplitsStorage(
+                getPersistentSplitsStorage(splitRoomDatabase, splitsSnapshotFile));
     }
 
     public static PersistentImpressionsStorage getPersistenImpressionsStorage(
@@ -0,0 +1,57 @@
+package io.split.android.client.storage.mysegments;
+
+import androidx.annotation.NonNull;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable view of my segments at some point in time.
+ * Membership is kept as a bitset indexed by the IDs from {@link SegmentIds}
+ * so that checking a segment is a single bit test.
+ * Segments without an ID are only found by name.
+ */
+public final class MySegmentsSnapshot {
+
+    public static final MySegmentsSnapshot EMPTY = new MySegmentsSnapshot(new BitSet(), Collections.<String>emptySet());
+
+    private final BitSet mSegmentIds;
+    private final Set<String> mNames;
+
+    private MySegmentsSnapshot(BitSet segmentIds, Set<String> names) {
+        mSegmentIds = segmentIds;
+        mNames = names;
+    }
+
+    public static @NonNull MySegmentsSnapshot of(@NonNull Collection<String> segmentNames) {
+        checkNotNull(segmentNames);
+        if (segmentNames.isEmpty()) {
+            return EMPTY;
+        }
+        BitSet segmentIds = new BitSet();
+        Set<String> names = new HashSet<>(segmentNames.size());
+        for (String name : segmentNames) {
+            if (name != null) {
+                int segmentId = SegmentIds.idFor(name);
+                if (segmentId != SegmentIds.NO_ID) {
+                    segmentIds.set(segmentId);
+                }
+                names.add(name);
+            }
+        }
+        return new MySegmentsSnapshot(segmentIds, Collections.unmodifiableSet(names));
+    }
+
+    public boolean contains(int segmentId) {
+        return segmentId >= 0 && mSegmentIds.get(segmentId);
+    }
+
+    public @NonNull Set<String> names() {
+        return mNames;
+    }
+}
@@ -10,6 +10,9 @@ public interface MySegmentsStorage {
 
     Set<String> getAll();
 
+    @NonNull
+    MySegmentsSnapshot getSnapshot();
+
     void set(@NonNull List<String> mySegments);
 
     void clear();
@@ -2,9 +2,8 @@ package io.split.android.client.storage.mysegments;
 
 import androidx.annotation.NonNull;
 
-import com.google.common.collect.Sets;
-
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -13,22 +12,30 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class MySegmentsStorageImpl implements MySegmentsStorage {
 
     private PersistentMySegmentsStorage mPersistentStorage;
-    private Set<String> mInMemoryMySegments;
+    private volatile MySegmentsSnapshot mSnapshot;
 
 
     public MySegmentsStorageImpl(@NonNull PersistentMySegmentsStorage persistentStorage) {
         mPersistentStorage = checkNotNull(persistentStorage);
-        mInMemoryMySegments = Sets.newConcurrentHashSet();
+        mSnapshot = MySegmentsSnapshot.EMPTY;
     }
 
     @Override
     public void loadLocal() {
-        mInMemoryMySegments.addAll(mPersistentStorage.getSnapshot());
+        Set<String> mySegments = new HashSet<>(mSnapshot.names());
+        mySegments.addAll(mPersistentStorage.getSnapshot());
+        mSnapshot = MySegmentsSnapshot.of(mySegments);
     }
 
     @Override
     public Set<String> getAll() {
-        return mInMemoryMySegments;
+        return mSnapshot.names();
+    }
+
+    @NonNull
+    @Override
+    public MySegmentsSnapshot getSnapshot() {
+        return mSnapshot;
     }
 
     @Override
@@ -36,14 +43,13 @@ public class MySegmentsStorageImpl implements MySegmentsStorage {
         if (mySegments == null) {
             return;
         }
-        mInMemoryMySegments.clear();
-        mInMemoryMySegments.addAll(mySegments);
+        mSnapshot = MySegmentsSnapshot.of(mySegments);
         mPersistentStorage.set(mySegments);
     }
 
     @Override
     public void clear() {
-        mInMemoryMySegments.clear();
+        mSnapshot = MySegmentsSnapshot.EMPTY;
         mPersistentStorage.set(new ArrayList<>());
     }
 }
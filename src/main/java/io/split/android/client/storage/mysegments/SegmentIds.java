@@ -0,0 +1,54 @@
+package io.split.android.client.storage.mysegments;
+
+import androidx.annotation.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns segment names to small int IDs.
+ * IDs are process wide so that the ones assigned when parsing a split
+ * are the same ones used by every my segments snapshot.
+ * IDs are never released, given that a name can be in use by any parsed split
+ * or snapshot. To bound the memory that takes, at most {@link #MAX_IDS} names
+ * get an ID. Later ones get {@link #NO_ID} and have to be checked by name.
+ */
+public final class SegmentIds {
+
+    public static final int NO_ID = -1;
+    static final int MAX_IDS = 10000;
+
+    private static final SegmentIds sInstance = new SegmentIds(MAX_IDS);
+
+    private final Map<String, Integer> mIds = new ConcurrentHashMap<>();
+    private final int mMaxIds;
+
+    SegmentIds(int maxIds) {
+        mMaxIds = maxIds;
+    }
+
+    /**
+     * Returns the ID for the segment, or {@link #NO_ID} if there are too many already.
+     */
+    public static int idFor(@NonNull String segmentName) {
+        return sInstance.get(segmentName);
+    }
+
+    int get(@NonNull String segmentName) {
+        Integer id = mIds.get(segmentName);
+        if (id != null) {
+            return id;
+        }
+        synchronized (mIds) {
+            id = mIds.get(segmentName);
+            if (id == null) {
+                if (mIds.size() >= mMaxIds) {
+                    return NO_ID;
+                }
+                id = mIds.size();
+                mIds.put(segmentName, id);
+            }
+            return id;
+        }
+    }
+}
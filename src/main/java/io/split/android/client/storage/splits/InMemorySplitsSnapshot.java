@@ -0,0 +1,195 @@
+package io.split.android.client.storage.splits;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.split.android.client.dtos.Split;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable version of the splits kept in memory, along with the change number
+ * and traffic type counts that go with them.
+ * Updates build a new snapshot from the current one, so that a reader holding one
+ * never sees a mix of splits from different changes.
+ * Splits loaded from disk are decoded when first read, see {@link LazySplit}.
+ * Their traffic types are read from the stored bodies when they are loaded,
+ * so checking a traffic type never decodes splits.
+ */
+public final class InMemorySplitsSnapshot {
+
+    static final InMemorySplitsSnapshot EMPTY = new InMemorySplitsSnapshot(
+            Collections.<String, LazySplit>emptyMap(), 0, 0, Collections.<String, Integer>emptyMap());
+
+    private final Map<String, LazySplit> mSplits;
+    private final long mChangeNumber;
+    private final long mUpdateTimestamp;
+    private final Map<String, Integer> mTrafficTypes;
+    private volatile Map<String, Split> mDecodedSplits;
+
+    private InMemorySplitsSnapshot(Map<String, LazySplit> splits,
+                                   long changeNumber,
+                                   long updateTimestamp,
+                                   Map<String, Integer> trafficTypes) {
+        mSplits = splits;
+        mChangeNumber = changeNumber;
+        mUpdateTimestamp = updateTimestamp;
+        mTrafficTypes = trafficTypes;
+    }
+
+    public static @NonNull InMemorySplitsSnapshot of(@NonNull Collection<Split> splits,
+                                                     long changeNumber,
+                                                     long updateTimestamp) {
+        checkNotNull(splits);
+        return EMPTY.withChange(new ArrayList<>(splits), null, changeNumber, updateTimestamp);
+    }
+
+    public @Nullable Split get(@Nullable String name) {
+        LazySplit split = mSplits.get(name);
+        return split != null ? split.get() : null;
+    }
+
+    /**
+     * Unmodifiable map of all the splits, by name.
+     * Splits not decoded yet are decoded the first time it is called.
+     */
+    public @NonNull Map<String, Split> getAll() {
+        Map<String, Split> decodedSplits = mDecodedSplits;
+        if (decodedSplits == null) {
+            decodedSplits = new HashMap<>();
+            for (LazySplit lazySplit : mSplits.values()) {
+                Split split = lazySplit.get();
+                if (split != null) {
+                    decodedSplits.put(lazySplit.name(), split);
+                }
+            }
+            decodedSplits = Collections.unmodifiableMap(decodedSplits);
+            mDecodedSplits = decodedSplits;
+        }
+        return decodedSplits;
+    }
+
+    @NonNull Collection<LazySplit> lazySplits() {
+        return mSplits.values();
+    }
+
+    public long getChangeNumber() {
+        return mChangeNumber;
+    }
+
+    public long getUpdateTimestamp() {
+        return mUpdateTimestamp;
+    }
+
+    public boolean isValidTrafficType(@Nullable String name) {
+        if (name == null) {
+            return false;
+        }
+        return mTrafficTypes.get(name.toLowerCase()) != null;
+    }
+
+    /**
+     * Adds or replaces the given splits, which are decoded when first read.
+     * Traffic types are counted from the stored bodies, so this is meant
+     * to be called off the main thread.
+     */
+    @NonNull InMemorySplitsSnapshot withLazySplits(@NonNull Collection<LazySplit> splits,
+                                                   long changeNumber,
+                                                   long updateTimestamp) {
+        Map<String, LazySplit> newSplits = new HashMap<>(mSplits);
+        Map<String, Integer> newTrafficTypes = new HashMap<>(mTrafficTypes);
+        for (LazySplit split : splits) {
+            LazySplit loadedSplit = newSplits.put(split.name(), split);
+            if (loadedSplit != null) {
+                decreaseTrafficTypeCount(loadedSplit.trafficTypeName(), newTrafficTypes);
+            }
+            increaseTrafficTypeCount(split.trafficTypeName(), newTrafficTypes);
+        }
+        return new InMemorySplitsSnapshot(Collections.unmodifiableMap(newSplits), changeNumber,
+                updateTimestamp, Collections.unmodifiableMap(newTrafficTypes));
+    }
+
+    @NonNull InMemorySplitsSnapshot withChange(@Nullable List<Split> activeSplits,
+                                               @Nullable List<Split> archivedSplits,
+                                               long changeNumber,
+                                               long updateTimestamp) {
+        Map<String, LazySplit> newSplits = new HashMap<>(mSplits);
+        Map<String, Integer> newTrafficTypes = new HashMap<>(mTrafficTypes);
+        if (activeSplits != null) {
+            for (Split split : activeSplits) {
+                LazySplit loadedSplit = newSplits.put(split.name, LazySplit.of(split));
+                if (loadedSplit != null) {
+                    decreaseTrafficTypeCount(loadedSplit.trafficTypeName(), newTrafficTypes);
+                }
+                increaseTrafficTypeCount(split.trafficTypeName, newTrafficTypes);
+            }
+        }
+        if (archivedSplits != null) {
+            for (Split split : archivedSplits) {
+                if (newSplits.remove(split.name) != null) {
+                    decreaseTrafficTypeCount(split.trafficTypeName, newTrafficTypes);
+                }
+            }
+        }
+        return new InMemorySplitsSnapshot(Collections.unmodifiableMap(newSplits), changeNumber,
+                updateTimestamp, Collections.unmodifiableMap(newTrafficTypes));
+    }
+
+    /**
+     * Replaces the split without changing traffic types nor change number.
+     */
+    @NonNull InMemorySplitsSnapshot withSplitWithoutChecks(@NonNull Split split) {
+        Map<String, LazySplit> newSplits = new HashMap<>(mSplits);
+        newSplits.put(split.name, LazySplit.of(split));
+        return new InMemorySplitsSnapshot(Collections.unmodifiableMap(newSplits), mChangeNumber,
+                mUpdateTimestamp, mTrafficTypes);
+    }
+
+    /**
+     * Removes all the splits, keeping the traffic types known so far.
+     */
+    @NonNull InMemorySplitsSnapshot cleared() {
+        return new InMemorySplitsSnapshot(Collections.<String, LazySplit>emptyMap(), -1,
+                mUpdateTimestamp, mTrafficTypes);
+    }
+
+    private static void increaseTrafficTypeCount(String name, Map<String, Integer> trafficTypes) {
+        if (name == null) {
+            return;
+        }
+
+        String lowercaseName = name.toLowerCase();
+        int count = countForTrafficType(lowercaseName, trafficTypes);
+        trafficTypes.put(lowercaseName, ++count);
+    }
+
+    private static void decreaseTrafficTypeCount(String name, Map<String, Integer> trafficTypes) {
+        if (name == null) {
+            return;
+        }
+        String lowercaseName = name.toLowerCase();
+
+        int count = countForTrafficType(lowercaseName, trafficTypes);
+        if (count > 1) {
+            trafficTypes.put(lowercaseName, --count);
+        } else {
+            trafficTypes.remove(lowercaseName);
+        }
+    }
+
+    private static int countForTrafficType(String name, Map<String, Integer> trafficTypes) {
+        int count = 0;
+        Integer countValue = trafficTypes.get(name);
+        if (countValue != null) {
+            count = countValue;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,91 @@
+package io.split.android.client.storage.splits;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import io.split.android.client.dtos.Split;
+import io.split.android.client.utils.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Split as stored, decoded the first time it is read.
+ * Loading splits from disk only reads names and bodies, so that splits
+ * that are never evaluated are never parsed.
+ * Decoding and encoding are idempotent, so two threads racing to do it
+ * for the same split is harmless and there is no need to lock.
+ */
+public final class LazySplit {
+
+    private static final Split UNDECODABLE = new Split();
+
+    private final String mName;
+    private volatile String mBody;
+    private volatile Split mSplit;
+
+    private LazySplit(String name, String body, Split split) {
+        mName = name;
+        mBody = body;
+        mSplit = split;
+    }
+
+    public static @NonNull LazySplit of(@NonNull String name, @Nullable String body) {
+        return new LazySplit(checkNotNull(name), body, null);
+    }
+
+    public static @NonNull LazySplit of(@NonNull Split split) {
+        return new LazySplit(checkNotNull(split).name, null, split);
+    }
+
+    public @NonNull String name() {
+        return mName;
+    }
+
+    /**
+     * Returns the split as stored, encoding it if it wasn't loaded from disk.
+     */
+    public @Nullable String body() {
+        String body = mBody;
+        if (body == null && mSplit != null) {
+            body = SplitBodyCodec.encode(mSplit);
+            mBody = body;
+        }
+        return body;
+    }
+
+    /**
+     * Returns the traffic type name, read from the stored body if not decoded yet.
+     */
+    public @Nullable String trafficTypeName() {
+        Split split = mSplit;
+        if (split != null) {
+            return split != UNDECODABLE ? split.trafficTypeName : null;
+        }
+        return SplitBodyCodec.readTrafficTypeName(mBody);
+    }
+
+    public boolean isDecoded() {
+        return mSplit != null;
+    }
+
+    /**
+     * Returns the split, or null if the stored body couldn't be parsed.
+     */
+    public @Nullable Split get() {
+        Split split = mSplit;
+        if (split == null) {
+            split = decode();
+            mSplit = split;
+        }
+        return split != UNDECODABLE ? split : null;
+    }
+
+    private Split decode() {
+        Split split = SplitBodyCodec.decode(mBody);
+        if (split == null) {
+            Logger.e("Could not parse entity to split: " + mName);
+            return UNDECODABLE;
+        }
+        return split;
+    }
+}
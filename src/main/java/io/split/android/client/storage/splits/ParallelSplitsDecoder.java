@@ -0,0 +1,112 @@
+package io.split.android.client.storage.splits;
+
+import androidx.annotation.NonNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.split.android.client.dtos.Split;
+import io.split.android.client.storage.db.SplitEntity;
+import io.split.android.client.utils.Logger;
+
+/**
+ * Decodes pages of split entities in a small pool of threads while the caller
+ * keeps reading the next pages from the database.
+ * Splits are returned in the same order pages were submitted.
+ * Threads are shared and stop when idle, given that loading splits
+ * is something done a few times per process.
+ * Not thread safe, it is meant to be used by the thread reading pages.
+ */
+class ParallelSplitsDecoder {
+
+    private static final int THREAD_COUNT
+            = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final ThreadPoolExecutor EXECUTOR = buildExecutor();
+
+    private final List<Page> mPages = new ArrayList<>();
+
+    void submit(@NonNull final List<SplitEntity> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        Future<List<Split>> future = null;
+        try {
+            future = EXECUTOR.submit(new Callable<List<Split>>() {
+                @Override
+                public List<Split> call() {
+                    return decode(entities);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Decoded when awaiting
+        }
+        mPages.add(new Page(entities, future));
+    }
+
+    /**
+     * Waits for all the submitted pages to be decoded.
+     * Pages that couldn't be decoded in the pool are decoded in the calling thread.
+     */
+    @NonNull List<Split> await() {
+        List<Split> splits = new ArrayList<>();
+        for (Page page : mPages) {
+            List<Split> pageSplits = null;
+            if (page.future != null) {
+                try {
+                    pageSplits = page.future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    Logger.e("Error decoding splits: " + e.getLocalizedMessage());
+                }
+            }
+            splits.addAll(pageSplits != null ? pageSplits : decode(page.entities));
+        }
+        mPages.clear();
+        return splits;
+    }
+
+    private static List<Split> decode(List<SplitEntity> entities) {
+        List<Split> splits = new ArrayList<>(entities.size());
+        for (SplitEntity entity : entities) {
+            Split split = SplitBodyCodec.decode(entity.getBody());
+            if (split != null) {
+                splits.add(split);
+            } else {
+                Logger.e("Could not parse entity to split: " + entity.getName());
+            }
+        }
+        return splits;
+    }
+
+    private static ThreadPoolExecutor buildExecutor() {
+        ThreadFactoryBuilder threadFactoryBuilder = new ThreadFactoryBuilder();
+        threadFactoryBuilder.setDaemon(true);
+        threadFactoryBuilder.setNameFormat("split-splitsDecoder-" + "%d");
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                threadFactoryBuilder.build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static class Page {
+        final List<SplitEntity> entities;
+        final Future<List<Split>> future;
+
+        Page(List<SplitEntity> entities, Future<List<Split>> future) {
+            this.entities = entities;
+            this.future = future;
+        }
+    }
+}
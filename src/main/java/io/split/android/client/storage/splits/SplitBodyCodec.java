@@ -0,0 +1,531 @@
+package io.split.android.client.storage.splits;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.BaseEncoding;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.split.android.client.dtos.BetweenMatcherData;
+import io.split.android.client.dtos.Condition;
+import io.split.android.client.dtos.ConditionType;
+import io.split.android.client.dtos.DataType;
+import io.split.android.client.dtos.DependencyMatcherData;
+import io.split.android.client.dtos.KeySelector;
+import io.split.android.client.dtos.Matcher;
+import io.split.android.client.dtos.MatcherCombiner;
+import io.split.android.client.dtos.MatcherGroup;
+import io.split.android.client.dtos.MatcherType;
+import io.split.android.client.dtos.Partition;
+import io.split.android.client.dtos.Split;
+import io.split.android.client.dtos.Status;
+import io.split.android.client.dtos.UnaryNumericMatcherData;
+import io.split.android.client.dtos.UserDefinedSegmentMatcherData;
+import io.split.android.client.dtos.WhitelistMatcherData;
+import io.split.android.client.utils.Json;
+import io.split.android.client.utils.Logger;
+
+/**
+ * Encodes splits to be stored in the body column of the splits table.
+ * Bodies are a compact binary encoding, base64 encoded given that the column is text,
+ * and prefixed by {@link #BINARY_PREFIX} so they can be told from the JSON bodies
+ * stored by previous versions, which are still decoded.
+ * Splits are encoded as JSON if binary encoding fails for any reason.
+ * <p>
+ * The binary encoding starts with a version byte. Numbers are zig-zag varints,
+ * enums are stored by name and strings are written once per body, later occurrences
+ * being a reference to the first one, given that treatments, traffic types
+ * and attribute names are repeated a lot.
+ * The traffic type name follows the split name, so that it can be read
+ * with {@link #readTrafficTypeName(String)} without decoding the rest.
+ */
+public final class SplitBodyCodec {
+
+    static final char BINARY_PREFIX = '~';
+    private static final byte VERSION = 2;
+    // Traffic type name after the conditions
+    private static final byte VERSION_1 = 1;
+
+    private static final String TRAFFIC_TYPE_NAME_FIELD = "trafficTypeName";
+
+    private static final BaseEncoding BASE64 = BaseEncoding.base64();
+
+    private static final int SEGMENT_DATA = 1;
+    private static final int WHITELIST_DATA = 1 << 1;
+    private static final int UNARY_NUMERIC_DATA = 1 << 2;
+    private static final int BETWEEN_DATA = 1 << 3;
+    private static final int DEPENDENCY_DATA = 1 << 4;
+    private static final int BOOLEAN_DATA = 1 << 5;
+    private static final int STRING_DATA = 1 << 6;
+
+    private SplitBodyCodec() {
+    }
+
+    public static @NonNull String encode(@NonNull Split split) {
+        try {
+            Writer writer = new Writer();
+            writer.writeByte(VERSION);
+            writer.writeSplit(split);
+            return BINARY_PREFIX + BASE64.encode(writer.mBuffer, 0, writer.mSize);
+        } catch (Exception e) {
+            Logger.e("Could not encode split " + split.name + ", storing it as JSON: " + e.getLocalizedMessage());
+            return Json.toJson(split);
+        }
+    }
+
+    /**
+     * Decodes either format. Returns null when the body can't be decoded.
+     */
+    public static @Nullable Split decode(@Nullable String body) {
+        if (body == null || body.isEmpty()) {
+            return null;
+        }
+        if (body.charAt(0) != BINARY_PREFIX) {
+            try {
+                return Json.fromJson(body, Split.class);
+            } catch (JsonSyntaxException e) {
+                return null;
+            }
+        }
+        try {
+            Reader reader = new Reader(BASE64.decode(body.substring(1)));
+            byte version = reader.readByte();
+            if (version != VERSION && version != VERSION_1) {
+                Logger.e("Unknown split encoding version: " + version);
+                return null;
+            }
+            return reader.readSplit(version);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the traffic type name of either format without building the split.
+     * Returns null when the body can't be decoded.
+     */
+    public static @Nullable String readTrafficTypeName(@Nullable String body) {
+        if (body == null || body.isEmpty()) {
+            return null;
+        }
+        if (body.charAt(0) != BINARY_PREFIX) {
+            return readJsonTrafficTypeName(body);
+        }
+        try {
+            Reader reader = new Reader(BASE64.decode(body.substring(1)));
+            byte version = reader.readByte();
+            if (version == VERSION_1) {
+                return reader.readSplit(version).trafficTypeName;
+            }
+            if (version != VERSION) {
+                return null;
+            }
+            reader.readString();
+            return reader.readString();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public static boolean isBinary(@Nullable String body) {
+        return body != null && !body.isEmpty() && body.charAt(0) == BINARY_PREFIX;
+    }
+
+    // Skips every other value, so nothing is built but the name
+    private static String readJsonTrafficTypeName(String body) {
+        try {
+            JsonReader reader = new JsonReader(new StringReader(body));
+            reader.setLenient(true);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (TRAFFIC_TYPE_NAME_FIELD.equals(reader.nextName())
+                        && reader.peek() == JsonToken.STRING) {
+                    return reader.nextString();
+                }
+                reader.skipValue();
+            }
+            return null;
+        } catch (IOException | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private static class Writer {
+        private byte[] mBuffer = new byte[256];
+        private int mSize;
+        private final Map<String, Integer> mStrings = new HashMap<>();
+
+        void writeSplit(Split split) {
+            writeString(split.name);
+            writeString(split.trafficTypeName);
+            writeLong(split.seed);
+            writeString(split.status != null ? split.status.name() : null);
+            writeBoolean(split.killed);
+            writeString(split.defaultTreatment);
+            List<Condition> conditions = split.conditions;
+            writeSize(conditions);
+            if (conditions != null) {
+                for (Condition condition : conditions) {
+                    writeCondition(condition);
+                }
+            }
+            writeLong(split.changeNumber);
+            writeNullableInt(split.trafficAllocation);
+            writeNullableInt(split.trafficAllocationSeed);
+            writeLong(split.algo);
+            Map<String, String> configurations = split.configurations;
+            writeSize(configurations != null ? configurations.entrySet() : null);
+            if (configurations != null) {
+                for (Map.Entry<String, String> entry : configurations.entrySet()) {
+                    writeString(entry.getKey());
+                    writeString(entry.getValue());
+                }
+            }
+        }
+
+        private void writeCondition(Condition condition) {
+            writeString(condition.conditionType != null ? condition.conditionType.name() : null);
+            MatcherGroup matcherGroup = condition.matcherGroup;
+            writeBoolean(matcherGroup != null);
+            if (matcherGroup != null) {
+                writeString(matcherGroup.combiner != null ? matcherGroup.combiner.name() : null);
+                writeSize(matcherGroup.matchers);
+                if (matcherGroup.matchers != null) {
+                    for (Matcher matcher : matcherGroup.matchers) {
+                        writeMatcher(matcher);
+                    }
+                }
+            }
+            writeSize(condition.partitions);
+            if (condition.partitions != null) {
+                for (Partition partition : condition.partitions) {
+                    writeString(partition.treatment);
+                    writeLong(partition.size);
+                }
+            }
+            writeString(condition.label);
+        }
+
+        private void writeMatcher(Matcher matcher) {
+            KeySelector keySelector = matcher.keySelector;
+            writeBoolean(keySelector != null);
+            if (keySelector != null) {
+                writeString(keySelector.trafficType);
+                writeString(keySelector.attribute);
+            }
+            writeString(matcher.matcherType != null ? matcher.matcherType.name() : null);
+            writeBoolean(matcher.negate);
+
+            int data = (matcher.userDefinedSegmentMatcherData != null ? SEGMENT_DATA : 0)
+                    | (matcher.whitelistMatcherData != null ? WHITELIST_DATA : 0)
+                    | (matcher.unaryNumericMatcherData != null ? UNARY_NUMERIC_DATA : 0)
+                    | (matcher.betweenMatcherData != null ? BETWEEN_DATA : 0)
+                    | (matcher.dependencyMatcherData != null ? DEPENDENCY_DATA : 0)
+                    | (matcher.booleanMatcherData != null ? BOOLEAN_DATA : 0)
+                    | (matcher.stringMatcherData != null ? STRING_DATA : 0);
+            writeByte((byte) data);
+            if (matcher.userDefinedSegmentMatcherData != null) {
+                writeString(matcher.userDefinedSegmentMatcherData.segmentName);
+            }
+            if (matcher.whitelistMatcherData != null) {
+                writeStrings(matcher.whitelistMatcherData.whitelist);
+            }
+            if (matcher.unaryNumericMatcherData != null) {
+                UnaryNumericMatcherData unaryNumericData = matcher.unaryNumericMatcherData;
+                writeString(unaryNumericData.dataType != null ? unaryNumericData.dataType.name() : null);
+                writeLong(unaryNumericData.value);
+            }
+            if (matcher.betweenMatcherData != null) {
+                BetweenMatcherData betweenData = matcher.betweenMatcherData;
+                writeString(betweenData.dataType != null ? betweenData.dataType.name() : null);
+                writeLong(betweenData.start);
+                writeLong(betweenData.end);
+            }
+            if (matcher.dependencyMatcherData != null) {
+                writeString(matcher.dependencyMatcherData.split);
+                writeStrings(matcher.dependencyMatcherData.treatments);
+            }
+            if (matcher.booleanMatcherData != null) {
+                writeBoolean(matcher.booleanMatcherData);
+            }
+            if (matcher.stringMatcherData != null) {
+                writeString(matcher.stringMatcherData);
+            }
+        }
+
+        private void writeStrings(List<String> strings) {
+            writeSize(strings);
+            if (strings != null) {
+                for (String string : strings) {
+                    writeString(string);
+                }
+            }
+        }
+
+        // Size plus one, zero meaning null
+        private void writeSize(Collection<?> collection) {
+            writeVarint(collection != null ? collection.size() + 1 : 0);
+        }
+
+        private void writeNullableInt(Integer value) {
+            writeBoolean(value != null);
+            if (value != null) {
+                writeLong(value);
+            }
+        }
+
+        /**
+         * Zero for null, odd for a reference to a string already written
+         * and even for a new string, followed by its UTF-8 bytes.
+         */
+        private void writeString(String string) {
+            if (string == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer index = mStrings.get(string);
+            if (index != null) {
+                writeVarint(((long) index << 1) | 1);
+                return;
+            }
+            mStrings.put(string, mStrings.size());
+            byte[] bytes = string.getBytes(Charsets.UTF_8);
+            writeVarint(((long) bytes.length + 1) << 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, mBuffer, mSize, bytes.length);
+            mSize += bytes.length;
+        }
+
+        private void writeBoolean(boolean value) {
+            writeByte((byte) (value ? 1 : 0));
+        }
+
+        private void writeLong(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                mBuffer[mSize++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            mBuffer[mSize++] = (byte) value;
+        }
+
+        private void writeByte(byte value) {
+            ensureCapacity(1);
+            mBuffer[mSize++] = value;
+        }
+
+        private void ensureCapacity(int count) {
+            if (mSize + count > mBuffer.length) {
+                mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length * 2, mSize + count));
+            }
+        }
+    }
+
+    private static class Reader {
+        private final byte[] mBuffer;
+        private int mPosition;
+        private final List<String> mStrings = new ArrayList<>();
+
+        Reader(byte[] buffer) {
+            mBuffer = buffer;
+        }
+
+        Split readSplit(byte version) {
+            Split split = new Split();
+            split.name = readString();
+            if (version != VERSION_1) {
+                split.trafficTypeName = readString();
+            }
+            split.seed = (int) readLong();
+            split.status = readEnum(Status.class);
+            split.killed = readBoolean();
+            split.defaultTreatment = readString();
+            int conditionCount = readSize();
+            if (conditionCount >= 0) {
+                split.conditions = new ArrayList<>(conditionCount);
+                for (int i = 0; i < conditionCount; i++) {
+                    split.conditions.add(readCondition());
+                }
+            }
+            if (version == VERSION_1) {
+                split.trafficTypeName = readString();
+            }
+            split.changeNumber = readLong();
+            split.trafficAllocation = readNullableInt();
+            split.trafficAllocationSeed = readNullableInt();
+            split.algo = (int) readLong();
+            int configurationCount = readSize();
+            if (configurationCount >= 0) {
+                split.configurations = new HashMap<>();
+                for (int i = 0; i < configurationCount; i++) {
+                    split.configurations.put(readString(), readString());
+                }
+            }
+            return split;
+        }
+
+        private Condition readCondition() {
+            Condition condition = new Condition();
+            condition.conditionType = readEnum(ConditionType.class);
+            if (readBoolean()) {
+                MatcherGroup matcherGroup = new MatcherGroup();
+                matcherGroup.combiner = readEnum(MatcherCombiner.class);
+                int matcherCount = readSize();
+                if (matcherCount >= 0) {
+                    matcherGroup.matchers = new ArrayList<>(matcherCount);
+                    for (int i = 0; i < matcherCount; i++) {
+                        matcherGroup.matchers.add(readMatcher());
+                    }
+                }
+                condition.matcherGroup = matcherGroup;
+            }
+            int partitionCount = readSize();
+            if (partitionCount >= 0) {
+                condition.partitions = new ArrayList<>(partitionCount);
+                for (int i = 0; i < partitionCount; i++) {
+                    Partition partition = new Partition();
+                    partition.treatment = readString();
+                    partition.size = (int) readLong();
+                    condition.partitions.add(partition);
+                }
+            }
+            condition.label = readString();
+            return condition;
+        }
+
+        private Matcher readMatcher() {
+            Matcher matcher = new Matcher();
+            if (readBoolean()) {
+                KeySelector keySelector = new KeySelector();
+                keySelector.trafficType = readString();
+                keySelector.attribute = readString();
+                matcher.keySelector = keySelector;
+            }
+            matcher.matcherType = readEnum(MatcherType.class);
+            matcher.negate = readBoolean();
+
+            int data = readByte();
+            if ((data & SEGMENT_DATA) != 0) {
+                matcher.userDefinedSegmentMatcherData = new UserDefinedSegmentMatcherData();
+                matcher.userDefinedSegmentMatcherData.segmentName = readString();
+            }
+            if ((data & WHITELIST_DATA) != 0) {
+                matcher.whitelistMatcherData = new WhitelistMatcherData();
+                matcher.whitelistMatcherData.whitelist = readStrings();
+            }
+            if ((data & UNARY_NUMERIC_DATA) != 0) {
+                matcher.unaryNumericMatcherData = new UnaryNumericMatcherData();
+                matcher.unaryNumericMatcherData.dataType = readEnum(DataType.class);
+                matcher.unaryNumericMatcherData.value = readLong();
+            }
+            if ((data & BETWEEN_DATA) != 0) {
+                matcher.betweenMatcherData = new BetweenMatcherData();
+                matcher.betweenMatcherData.dataType = readEnum(DataType.class);
+                matcher.betweenMatcherData.start = readLong();
+                matcher.betweenMatcherData.end = readLong();
+            }
+            if ((data & DEPENDENCY_DATA) != 0) {
+                matcher.dependencyMatcherData = new DependencyMatcherData();
+                matcher.dependencyMatcherData.split = readString();
+                matcher.dependencyMatcherData.treatments = readStrings();
+            }
+            if ((data & BOOLEAN_DATA) != 0) {
+                matcher.booleanMatcherData = readBoolean();
+            }
+            if ((data & STRING_DATA) != 0) {
+                matcher.stringMatcherData = readString();
+            }
+            return matcher;
+        }
+
+        private List<String> readStrings() {
+            int count = readSize();
+            if (count < 0) {
+                return null;
+            }
+            List<String> strings = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                strings.add(readString());
+            }
+            return strings;
+        }
+
+        // -1 for null
+        private int readSize() {
+            return (int) readVarint() - 1;
+        }
+
+        private Integer readNullableInt() {
+            return readBoolean() ? (int) readLong() : null;
+        }
+
+        // Unknown names are read as null, same as Gson does
+        private <T extends Enum<T>> T readEnum(Class<T> enumClass) {
+            String name = readString();
+            if (name == null) {
+                return null;
+            }
+            try {
+                return Enum.valueOf(enumClass, name);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        private String readString() {
+            long tag = readVarint();
+            if (tag == 0) {
+                return null;
+            }
+            if ((tag & 1) != 0) {
+                return mStrings.get((int) (tag >>> 1));
+            }
+            int length = (int) (tag >>> 1) - 1;
+            String string = new String(mBuffer, mPosition, length, Charsets.UTF_8);
+            mPosition += length;
+            mStrings.add(string);
+            return string;
+        }
+
+        private boolean readBoolean() {
+            return readByte() != 0;
+        }
+
+        private long readLong() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private long readVarint() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = mBuffer[mPosition++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private byte readByte() {
+            return mBuffer[mPosition++];
+        }
+    }
+}
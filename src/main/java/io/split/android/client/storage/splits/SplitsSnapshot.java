@@ -11,16 +11,30 @@ public class SplitsSnapshot {
 
     final private long changeNumber;
     final private List<Split> splits;
+    final private List<LazySplit> lazySplits;
     final private long updateTimestamp;
     final private String splitsFilterQueryString;
 
     public SplitsSnapshot(List<Split> splits, long changeNumber, long updateTimestamp, String splitsFilterQueryString) {
         this.changeNumber = changeNumber;
         this.splits = splits;
+        this.lazySplits = null;
         this.updateTimestamp = updateTimestamp;
         this.splitsFilterQueryString = splitsFilterQueryString;
     }
 
+    /**
+     * Snapshot of splits that haven't been decoded yet.
+     */
+    public SplitsSnapshot(long changeNumber, long updateTimestamp, String splitsFilterQueryString,
+                          List<LazySplit> lazySplits) {
+        this.changeNumber = changeNumber;
+        this.splits = null;
+        this.updateTimestamp = updateTimestamp;
+        this.splitsFilterQueryString = splitsFilterQueryString;
+        this.lazySplits = lazySplits;
+    }
+
     public long getChangeNumber() {
         return changeNumber;
     }
@@ -33,7 +47,35 @@ public class SplitsSnapshot {
         return splitsFilterQueryString;
     }
 
+    /**
+     * Decodes all the splits, so prefer {@link #getLazySplits()} when not all are needed.
+     */
     public @NonNull List<Split> getSplits() {
-        return (splits != null ? splits : new ArrayList<>());
+        if (splits != null) {
+            return splits;
+        }
+        List<Split> decodedSplits = new ArrayList<>();
+        if (lazySplits != null) {
+            for (LazySplit lazySplit : lazySplits) {
+                Split split = lazySplit.get();
+                if (split != null) {
+                    decodedSplits.add(split);
+                }
+            }
+        }
+        return decodedSplits;
+    }
+
+    public @NonNull List<LazySplit> getLazySplits() {
+        if (lazySplits != null) {
+            return lazySplits;
+        }
+        List<LazySplit> wrappedSplits = new ArrayList<>();
+        if (splits != null) {
+            for (Split split : splits) {
+                wrappedSplits.add(LazySplit.of(split));
+            }
+        }
+        return wrappedSplits;
     }
 }
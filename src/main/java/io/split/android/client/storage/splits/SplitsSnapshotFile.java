@@ -0,0 +1,192 @@
+package io.split.android.client.storage.splits;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.common.base.Charsets;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import io.split.android.client.utils.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * All the splits plus change number, update timestamp and filter query string
+ * in a single file, so that they can be loaded without querying the database.
+ * The file is memory mapped to be read and split bodies are kept as stored,
+ * to be decoded when first read.
+ * It is written to a temporary file that then replaces the current one,
+ * so a reader never sees a partially written file.
+ * Any problem reading it makes {@link #read()} return null, in which case
+ * the database has to be used.
+ */
+public class SplitsSnapshotFile {
+
+    private static final int MAGIC = 0x53504C54;
+    private static final int VERSION = 1;
+    private static final int NULL_STRING = -1;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String FILE_SUFFIX = ".splits";
+
+    private final File mFile;
+
+    public SplitsSnapshotFile(@NonNull File file) {
+        mFile = checkNotNull(file);
+    }
+
+    /**
+     * Snapshot file kept next to the database with the given name.
+     */
+    public static @NonNull SplitsSnapshotFile forDatabase(@NonNull Context context,
+                                                          @NonNull String databaseName) {
+        return new SplitsSnapshotFile(fileForDatabase(context, databaseName));
+    }
+
+    static @NonNull File fileForDatabase(@NonNull Context context, @NonNull String databaseName) {
+        File databaseFile = context.getDatabasePath(databaseName);
+        return new File(databaseFile.getPath() + FILE_SUFFIX);
+    }
+
+    public @Nullable SplitsSnapshot read() {
+        if (!mFile.exists()) {
+            return null;
+        }
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(mFile, "r");
+            FileChannel channel = randomAccessFile.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        } catch (IOException | RuntimeException e) {
+            Logger.e("Could not read splits snapshot file: " + e.getLocalizedMessage());
+            return null;
+        } finally {
+            close(randomAccessFile);
+        }
+    }
+
+    public boolean write(long changeNumber,
+                         long updateTimestamp,
+                         @Nullable String splitsFilterQueryString,
+                         @NonNull Collection<LazySplit> splits) {
+        File tempFile = new File(mFile.getPath() + TEMP_SUFFIX);
+        FileOutputStream fileOutputStream = null;
+        try {
+            fileOutputStream = new FileOutputStream(tempFile);
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(changeNumber);
+            output.writeLong(updateTimestamp);
+            writeString(output, splitsFilterQueryString);
+            output.writeInt(splits.size());
+            for (LazySplit split : splits) {
+                writeString(output, split.name());
+                writeString(output, split.body());
+            }
+            output.writeInt(MAGIC);
+            output.flush();
+            fileOutputStream.getFD().sync();
+            output.close();
+            fileOutputStream = null;
+            if (!tempFile.renameTo(mFile)) {
+                throw new IOException("Could not replace " + mFile.getName());
+            }
+            return true;
+        } catch (IOException e) {
+            Logger.e("Could not write splits snapshot file: " + e.getLocalizedMessage());
+            close(fileOutputStream);
+            tempFile.delete();
+            // Better no file than an outdated one
+            deleteFile();
+            return false;
+        }
+    }
+
+    public void delete() {
+        deleteFile();
+    }
+
+    private void deleteFile() {
+        if (mFile.exists() && !mFile.delete()) {
+            Logger.e("Could not delete splits snapshot file");
+        }
+    }
+
+    private SplitsSnapshot read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            Logger.e("Unknown splits snapshot file format");
+            return null;
+        }
+        long changeNumber = buffer.getLong();
+        long updateTimestamp = buffer.getLong();
+        String splitsFilterQueryString = readString(buffer);
+        int count = buffer.getInt();
+        // Each split takes at least the two lengths
+        if (count < 0 || count > buffer.remaining() / 8) {
+            return null;
+        }
+        List<LazySplit> splits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = readString(buffer);
+            String body = readString(buffer);
+            if (name == null) {
+                return null;
+            }
+            splits.add(LazySplit.of(name, body));
+        }
+        if (buffer.getInt() != MAGIC) {
+            return null;
+        }
+        return new SplitsSnapshot(changeNumber, updateTimestamp, splitsFilterQueryString, splits);
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        if (string == null) {
+            output.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = string.getBytes(Charsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, Charsets.UTF_8);
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            Logger.e("Could not close splits snapshot file: " + e.getLocalizedMessage());
+        }
+    }
+}
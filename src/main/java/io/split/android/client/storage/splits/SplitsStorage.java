@@ -16,6 +16,12 @@ public interface SplitsStorage {
 
     Map<String, Split> getAll();
 
+    /**
+     * Current version of the splits in memory. It doesn't change once returned,
+     * so it can be used to read several splits consistently without copying them.
+     */
+    InMemorySplitsSnapshot getInMemorySnapshot();
+
     void update(ProcessedSplitChange splitChange);
 
     void updateWithoutChecks(Split split);
@@ -1,58 +1,93 @@
 package io.split.android.client.storage.splits;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import io.split.android.client.dtos.Split;
+import io.split.android.engine.experiments.ParsedSplitsCache;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * Splits are kept in an {@link InMemorySplitsSnapshot} published through a volatile field,
+ * so reads don't lock and always see a consistent set of splits and change number.
+ * Writers are serialized and build the next snapshot from the current one.
+ * When there is a {@link SplitsSnapshotFile}, splits are loaded from it ahead of
+ * the persistent storage and it is rewritten after each update. Writes are only queued
+ * here when it is a {@link WriteBehindSplitsSnapshotFile}, which waits for the
+ * persistent storage to have the same splits before writing.
+ * If splits weren't loaded, as in background sync, the file is deleted instead,
+ * given that not all the splits are known.
+ */
 public class SplitsStorageImpl implements SplitsStorage {
 
     private PersistentSplitsStorage mPersistentStorage;
-    private Map<String, Split> mInMemorySplits;
-    private long mChangeNumber;
-    private long mUpdateTimestamp;
-    private String mSplitsFilterQueryString;
-    private Map<String, Integer> mTrafficTypes;
+    private volatile InMemorySplitsSnapshot mSnapshot;
+    private volatile String mSplitsFilterQueryString;
+    private final ParsedSplitsCache mParsedSplitsCache;
+    private final SplitsSnapshotFile mSnapshotFile;
+    // Filter query string in the persistent storage, to be written to the snapshot file
+    private String mPersistedFilterQueryString;
+    private boolean mLoaded;
 
     public SplitsStorageImpl(@NonNull PersistentSplitsStorage persistentStorage) {
+        this(persistentStorage, null);
+    }
+
+    public SplitsStorageImpl(@NonNull PersistentSplitsStorage persistentStorage,
+                             @Nullable ParsedSplitsCache parsedSplitsCache) {
+        this(persistentStorage, parsedSplitsCache, null);
+    }
+
+    public SplitsStorageImpl(@NonNull PersistentSplitsStorage persistentStorage,
+                             @Nullable ParsedSplitsCache parsedSplitsCache,
+                             @Nullable SplitsSnapshotFile snapshotFile) {
         mPersistentStorage = checkNotNull(persistentStorage);
-        mInMemorySplits = new ConcurrentHashMap<String, Split>();
-        mTrafficTypes = new ConcurrentHashMap<String, Integer>();
+        mParsedSplitsCache = parsedSplitsCache;
+        mSnapshotFile = snapshotFile;
+        mSnapshot = InMemorySplitsSnapshot.EMPTY;
     }
 
     @Override
-    public void loadLocal() {
-        SplitsSnapshot snapshot = mPersistentStorage.getSnapshot();
-        List<Split> splits = snapshot.getSplits();
-        mChangeNumber = snapshot.getChangeNumber();
-        mUpdateTimestamp = snapshot.getUpdateTimestamp();
+    public synchronized void loadLocal() {
+        SplitsSnapshot snapshot = (mSnapshotFile != null ? mSnapshotFile.read() : null);
+        boolean loadedFromFile = (snapshot != null);
+        if (!loadedFromFile) {
+            snapshot = mPersistentStorage.getSnapshot();
+        }
         mSplitsFilterQueryString = snapshot.getSplitsFilterQueryString();
-        for (Split split : splits) {
-            mInMemorySplits.put(split.name, split);
+        mPersistedFilterQueryString = mSplitsFilterQueryString;
+        mLoaded = true;
+        mSnapshot = mSnapshot.withLazySplits(snapshot.getLazySplits(),
+                snapshot.getChangeNumber(), snapshot.getUpdateTimestamp());
+        if (mParsedSplitsCache != null) {
+            mParsedSplitsCache.invalidateAll();
+        }
+        if (!loadedFromFile) {
+            writeSnapshotFile();
         }
     }
 
     @Override
     public Split get(@NonNull String name) {
-        return mInMemorySplits.get(name);
+        return mSnapshot.get(name);
     }
 
     @Override
     public Map<String, Split> getMany(@NonNull List<String> splitNames) {
+        Map<String, Split> inMemorySplits = mSnapshot.getAll();
         Map<String, Split> splits = new HashMap<>();
         if(splitNames == null || splitNames.isEmpty()) {
-            splits.putAll(mInMemorySplits);
+            splits.putAll(inMemorySplits);
             return splits;
         }
 
         for(String name : splitNames) {
-            Split split = mInMemorySplits.get(name);
+            Split split = inMemorySplits.get(name);
             if(split != null) {
                 splits.put(name, split);
             }
@@ -66,50 +101,43 @@ public class SplitsStorageImpl implements SplitsStorage {
     }
 
     @Override
-    public void update(ProcessedSplitChange splitChange) {
+    public InMemorySplitsSnapshot getInMemorySnapshot() {
+        return mSnapshot;
+    }
+
+    @Override
+    public synchronized void update(ProcessedSplitChange splitChange) {
         if(splitChange == null) {
             return;
         }
         List<Split> activeSplits = splitChange.getActiveSplits();
         List<Split> archivedSplits = splitChange.getArchivedSplits();
-        if(activeSplits != null) {
-            for (Split split : activeSplits) {
-                Split loadedSplit = mInMemorySplits.get(split.name);
-                if (loadedSplit != null && loadedSplit.trafficTypeName != null) {
-                    decreaseTrafficTypeCount(loadedSplit.trafficTypeName);
-                }
-                increaseTrafficTypeCount(split.trafficTypeName);
-                mInMemorySplits.put(split.name, split);
-            }
-        }
+        mSnapshot = mSnapshot.withChange(activeSplits, archivedSplits,
+                splitChange.getChangeNumber(), splitChange.getUpdateTimestamp());
 
-        if(archivedSplits != null) {
-            for (Split split : archivedSplits) {
-                if(mInMemorySplits.remove(split.name) != null) {
-                    decreaseTrafficTypeCount(split.trafficTypeName);
-                }
-            }
-        }
-
-        mChangeNumber = splitChange.getChangeNumber();
-        mUpdateTimestamp = splitChange.getUpdateTimestamp();
+        // Invalidated after publishing, so that a new version is never read with old splits
+        invalidateParsedSplits(activeSplits);
+        invalidateParsedSplits(archivedSplits);
         mPersistentStorage.update(splitChange);
+        writeSnapshotFile();
     }
 
     @Override
-    public void updateWithoutChecks(Split split) {
-        mInMemorySplits.put(split.name, split);
+    public synchronized void updateWithoutChecks(Split split) {
+        mSnapshot = mSnapshot.withSplitWithoutChecks(split);
+        invalidateParsedSplit(split.name);
         mPersistentStorage.update(split);
+        writeSnapshotFile();
     }
 
     @Override
     public long getTill() {
-        return mChangeNumber;
+        return mSnapshot.getChangeNumber();
     }
 
     @Override
     public long getUpdateTimestamp() {
-        return mUpdateTimestamp;
+        return mSnapshot.getUpdateTimestamp();
     }
 
     public String getSplitsFilterQueryString() {
@@ -117,55 +145,54 @@ public class SplitsStorageImpl implements SplitsStorage {
     }
 
     @Override
-    public void updateSplitsFilterQueryString(String queryString) {
+    public synchronized void updateSplitsFilterQueryString(String queryString) {
         mPersistentStorage.updateFilterQueryString(queryString);
+        mPersistedFilterQueryString = queryString;
+        writeSnapshotFile();
     }
 
     @Override
-    public void clear() {
-        mInMemorySplits.clear();
-        mChangeNumber = -1;
+    public synchronized void clear() {
+        mSnapshot = mSnapshot.cleared();
+        if (mParsedSplitsCache != null) {
+            mParsedSplitsCache.invalidateAll();
+        }
         mPersistentStorage.clear();
+        if (mSnapshotFile != null) {
+            mSnapshotFile.delete();
+        }
     }
 
     @Override
     public boolean isValidTrafficType(String name) {
-        if (name == null) {
-            return false;
-        }
-        return (mTrafficTypes.get(name.toLowerCase()) != null);
+        return mSnapshot.isValidTrafficType(name);
     }
 
-    private void increaseTrafficTypeCount(@NonNull String name) {
-        if (name == null) {
+    private void writeSnapshotFile() {
+        if (mSnapshotFile == null) {
             return;
         }
-
-        String lowercaseName = name.toLowerCase();
-        int count = countForTrafficType(lowercaseName);
-        mTrafficTypes.put(lowercaseName, ++count);
+        if (!mLoaded) {
+            mSnapshotFile.delete();
+            return;
+        }
+        InMemorySplitsSnapshot snapshot = mSnapshot;
+        mSnapshotFile.write(snapshot.getChangeNumber(), snapshot.getUpdateTimestamp(),
+                mPersistedFilterQueryString, snapshot.lazySplits());
     }
 
-    private void decreaseTrafficTypeCount(@NonNull String name) {
-        if (name == null) {
+    private void invalidateParsedSplits(List<Split> splits) {
+        if (splits == null) {
             return;
         }
-        String lowercaseName = name.toLowerCase();
-
-        int count = countForTrafficType(lowercaseName);
-        if (count > 1) {
-            mTrafficTypes.put(lowercaseName, --count);
-        } else {
-            mTrafficTypes.remove(lowercaseName);
+        for (Split split : splits) {
+            invalidateParsedSplit(split.name);
         }
     }
 
-    private int countForTrafficType(@NonNull String name) {
-        int count = 0;
-        Integer countValue = mTrafficTypes.get(name);
-        if (countValue != null) {
-            count = countValue;
+    private void invalidateParsedSplit(String name) {
+        if (mParsedSplitsCache != null) {
+            mParsedSplitsCache.invalidate(name);
         }
-        return count;
     }
 }
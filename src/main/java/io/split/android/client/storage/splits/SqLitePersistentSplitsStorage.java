@@ -5,10 +5,11 @@ import androidx.annotation.Nullable;
 import androidx.room.Query;
 
 import com.google.common.collect.Lists;
-import com.google.gson.JsonSyntaxException;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import io.split.android.client.dtos.Split;
 import io.split.android.client.service.ServiceConstants;
@@ -16,19 +17,41 @@ import io.split.android.client.storage.db.GeneralInfoEntity;
 import io.split.android.client.storage.db.SplitEntity;
 import io.split.android.client.storage.db.SplitQueryDao;
 import io.split.android.client.storage.db.SplitRoomDatabase;
-import io.split.android.client.utils.Json;
-import io.split.android.client.utils.Logger;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * Split bodies are written with {@link SplitBodyCodec}, which previous versions can't decode.
+ * So that a previous version reading them fetches all splits again instead of keeping
+ * the stored change number without the splits, the change number is stored as
+ * {@link GeneralInfoEntity#SPLITS_ENCODED_CHANGE_NUMBER} and
+ * {@link GeneralInfoEntity#CHANGE_NUMBER_INFO} is set to -1.
+ * If both are found, a previous version has written splits after this one did,
+ * and splits it couldn't decode are discarded given they might be outdated.
+ * JSON bodies written by previous versions are rewritten with the next splits update.
+ */
 public class SqLitePersistentSplitsStorage implements PersistentSplitsStorage {
 
     private static  final int MAX_ROWS_PER_QUERY = ServiceConstants.MAX_ROWS_PER_QUERY;
     private static final int SQL_PARAM_BIND_SIZE = 20;
+    private static final long NO_CHANGE_NUMBER = -1;
     SplitRoomDatabase mDatabase;
+    private final SplitsSnapshotFile mSnapshotFile;
+    // Splits loaded with JSON bodies, by name, to be rewritten with the next update
+    private final Map<String, LazySplit> mJsonSplits = new HashMap<>();
 
     public SqLitePersistentSplitsStorage(@NonNull SplitRoomDatabase database) {
+        this(database, null);
+    }
+
+    /**
+     * The snapshot file, if any, is deleted when splits are deleted from here
+     * given that it is written by {@link SplitsStorageImpl} only.
+     */
+    public SqLitePersistentSplitsStorage(@NonNull SplitRoomDatabase database,
+                                         @Nullable SplitsSnapshotFile snapshotFile) {
         mDatabase = checkNotNull(database);
+        mSnapshotFile = snapshotFile;
     }
 
     @Override
@@ -39,12 +62,16 @@ public class SqLitePersistentSplitsStorage implements PersistentSplitsStorage {
         }
         List<String> removedSplits = splitNameList(splitChange.getArchivedSplits());
         List<SplitEntity> splitEntities = convertSplitListToEntities(splitChange.getActiveSplits());
+        // Written before the change, so that newer versions of the same splits replace them
+        List<SplitEntity> migratedEntities = convertSplitListToEntities(takeJsonSplits());
 
         mDatabase.runInTransaction(new Runnable() {
             @Override
             public void run() {
+                prepareEncodedWrite();
                 mDatabase.generalInfoDao().update(
-                        new GeneralInfoEntity(GeneralInfoEntity.CHANGE_NUMBER_INFO, splitChange.getChangeNumber()));
+                        new GeneralInfoEntity(GeneralInfoEntity.SPLITS_ENCODED_CHANGE_NUMBER, splitChange.getChangeNumber()));
+                mDatabase.splitDao().insert(migratedEntities);
                 mDatabase.splitDao().insert(splitEntities);
                 mDatabase.splitDao().delete(removedSplits);
                 mDatabase.generalInfoDao().update(
@@ -59,15 +86,34 @@ public class SqLitePersistentSplitsStorage implements PersistentSplitsStorage {
     public SplitsSnapshot getSnapshot() {
         SplitsSnapshotLoader loader = new SplitsSnapshotLoader(mDatabase);
         mDatabase.runInTransaction(loader);
-        return new SplitsSnapshot(loadSplits(), loader.getChangeNumber(),
-                loader.getUpdateTimestamp(), loader.getSplitsFilterQueryString());
+        boolean writtenByPreviousVersion = loader.getChangeNumber() != NO_CHANGE_NUMBER
+                && loader.getEncodedChangeNumber() != NO_CHANGE_NUMBER;
+        List<LazySplit> splits = loadLazySplits(writtenByPreviousVersion);
+        long changeNumber = loader.getChangeNumber();
+        if (changeNumber == NO_CHANGE_NUMBER && !splits.isEmpty()) {
+            // Not used without splits, given that a previous version
+            // clearing them leaves the encoded change number behind
+            changeNumber = loader.getEncodedChangeNumber();
+        }
+        return new SplitsSnapshot(changeNumber, loader.getUpdateTimestamp(),
+                loader.getSplitsFilterQueryString(), splits);
     }
 
     @Override
     public void update(Split split) {
+        synchronized (mJsonSplits) {
+            mJsonSplits.remove(split.name);
+        }
         List<Split> splits = new ArrayList<>();
         splits.add(split);
-        mDatabase.splitDao().insert(convertSplitListToEntities(splits));
+        final List<SplitEntity> splitEntities = convertSplitListToEntities(splits);
+        mDatabase.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                prepareEncodedWrite();
+                mDatabase.splitDao().insert(splitEntities);
+            }
+        });
     }
 
     @Override
@@ -77,11 +123,17 @@ public class SqLitePersistentSplitsStorage implements PersistentSplitsStorage {
 
     @Override
     public void delete(List<String> splitNames) {
+        synchronized (mJsonSplits) {
+            mJsonSplits.keySet().removeAll(splitNames);
+        }
         // This is to avoid an sqlite error if there are many split to delete
         List<List<String>> deleteChunk = Lists.partition(splitNames, SQL_PARAM_BIND_SIZE);
         for(List<String> splits : deleteChunk) {
             mDatabase.splitDao().delete(splits);
         }
+        if (mSnapshotFile != null) {
+            mSnapshotFile.delete();
+        }
     }
 
     @Override
@@ -90,10 +142,14 @@ public class SqLitePersistentSplitsStorage implements PersistentSplitsStorage {
 
     @Override
     public void clear() {
+        synchronized (mJsonSplits) {
+            mJsonSplits.clear();
+        }
         mDatabase.runInTransaction(new Runnable() {
             @Override
             public void run() {
-                mDatabase.generalInfoDao().update(new GeneralInfoEntity(GeneralInfoEntity.CHANGE_NUMBER_INFO, -1));
+                mDatabase.generalInfoDao().update(new GeneralInfoEntity(GeneralInfoEntity.CHANGE_NUMBER_INFO, NO_CHANGE_NUMBER));
+                mDatabase.generalInfoDao().update(new GeneralInfoEntity(GeneralInfoEntity.SPLITS_ENCODED_CHANGE_NUMBER, NO_CHANGE_NUMBER));
                 mDatabase.splitDao().deleteAll();
             }
         });
@@ -111,21 +167,89 @@ public class SqLitePersistentSplitsStorage implements PersistentSplitsStorage {
         return generalInfoEntity != null ? generalInfoEntity.getStringValue() : null;
     }
 
+    // Pages are decoded in parallel while next ones are read
     private List<Split> loadSplits() {
-        List<Split> splits = new ArrayList<>();
+        ParallelSplitsDecoder decoder = new ParallelSplitsDecoder();
+        int count = 1;
+        long rowIdFrom = 0;
+        while(count > 0) {
+            List<SplitEntity> entities = mDatabase.splitQueryDao().get(rowIdFrom, MAX_ROWS_PER_QUERY);
+            decoder.submit(entities);
+            count = entities.size();
+            if(count > 0) {
+                rowIdFrom = entities.get(entities.size() - 1).getRowId();
+            };
+        }
+        return decoder.await();
+    }
+
+    // Bodies are kept as they are and decoded when each split is first read
+    private List<LazySplit> loadLazySplits(boolean skipEncoded) {
+        List<LazySplit> splits = new ArrayList<>();
+        Map<String, LazySplit> jsonSplits = new HashMap<>();
         int count = 1;
         long rowIdFrom = 0;
         while(count > 0) {
             List<SplitEntity> entities = mDatabase.splitQueryDao().get(rowIdFrom, MAX_ROWS_PER_QUERY);
-            splits.addAll(convertEntitiesToSplitList(entities));
+            for (SplitEntity entity : entities) {
+                boolean encoded = SplitBodyCodec.isBinary(entity.getBody());
+                if (encoded && skipEncoded) {
+                    continue;
+                }
+                LazySplit split = LazySplit.of(entity.getName(), entity.getBody());
+                splits.add(split);
+                if (!encoded) {
+                    jsonSplits.put(split.name(), split);
+                }
+            }
             count = entities.size();
             if(count > 0) {
                 rowIdFrom = entities.get(entities.size() - 1).getRowId();
             };
         }
+        synchronized (mJsonSplits) {
+            mJsonSplits.clear();
+            mJsonSplits.putAll(jsonSplits);
+        }
         return splits;
     }
 
+    private List<Split> takeJsonSplits() {
+        List<LazySplit> jsonSplits;
+        synchronized (mJsonSplits) {
+            jsonSplits = new ArrayList<>(mJsonSplits.values());
+            mJsonSplits.clear();
+        }
+        List<Split> splits = new ArrayList<>();
+        for (LazySplit jsonSplit : jsonSplits) {
+            Split split = jsonSplit.get();
+            if (split != null) {
+                splits.add(split);
+            }
+        }
+        return splits;
+    }
+
+    /**
+     * Called in a transaction before writing split bodies, so that previous versions
+     * don't keep a change number for splits they can't decode.
+     * If a previous version has written splits since this one did, the encoded ones
+     * are deleted given that they might have been updated or removed meanwhile.
+     */
+    private void prepareEncodedWrite() {
+        GeneralInfoEntity changeNumberEntity = mDatabase.generalInfoDao().getByName(GeneralInfoEntity.CHANGE_NUMBER_INFO);
+        if (changeNumberEntity == null || changeNumberEntity.getLongValue() == NO_CHANGE_NUMBER) {
+            return;
+        }
+        GeneralInfoEntity encodedChangeNumberEntity = mDatabase.generalInfoDao().getByName(GeneralInfoEntity.SPLITS_ENCODED_CHANGE_NUMBER);
+        if (encodedChangeNumberEntity != null && encodedChangeNumberEntity.getLongValue() != NO_CHANGE_NUMBER) {
+            mDatabase.splitDao().deleteByBodyPrefix(String.valueOf(SplitBodyCodec.BINARY_PREFIX));
+        }
+        mDatabase.generalInfoDao().update(new GeneralInfoEntity(GeneralInfoEntity.SPLITS_ENCODED_CHANGE_NUMBER,
+                changeNumberEntity.getLongValue()));
+        mDatabase.generalInfoDao().update(new GeneralInfoEntity(GeneralInfoEntity.CHANGE_NUMBER_INFO, NO_CHANGE_NUMBER));
+    }
+
     private List<SplitEntity> convertSplitListToEntities(List<Split> splits) {
         List<SplitEntity> splitEntities = new ArrayList<>();
         if (splits == null) {
@@ -134,30 +258,13 @@ public class SqLitePersistentSplitsStorage implements PersistentSplitsStorage {
         for (Split split : splits) {
             SplitEntity entity = new SplitEntity();
             entity.setName(split.name);
-            entity.setBody(Json.toJson(split));
+            entity.setBody(SplitBodyCodec.encode(split));
             entity.setUpdatedAt(System.currentTimeMillis() / 1000);
             splitEntities.add(entity);
         }
         return splitEntities;
     }
 
-    private List<Split> convertEntitiesToSplitList(List<SplitEntity> entities) {
-        List<Split> splits = new ArrayList<>();
-
-        if (entities == null) {
-            return splits;
-        }
-
-        for (SplitEntity entity : entities) {
-            try {
-                splits.add(Json.fromJson(entity.getBody(), Split.class));
-            } catch (JsonSyntaxException e) {
-                Logger.e("Could not parse entity to split: " + entity.getName());
-            }
-        }
-        return splits;
-    }
-
     private List<String> splitNameList(List<Split> splits) {
         List<String> names = new ArrayList<>();
         if (splits == null) {
@@ -172,6 +279,7 @@ public class SqLitePersistentSplitsStorage implements PersistentSplitsStorage {
     private static class SplitsSnapshotLoader implements Runnable {
         private SplitRoomDatabase mDatabase;
         private Long mChangeNumber = -1L;
+        private Long mEncodedChangeNumber = -1L;
         private Long mUpdateTimestamp = 0L;
         private String mSplitsFilterQueryString = "";
 
@@ -183,10 +291,14 @@ public class SqLitePersistentSplitsStorage implements PersistentSplitsStorage {
         public void run() {
             GeneralInfoEntity timestampEntity = mDatabase.generalInfoDao().getByName(GeneralInfoEntity.SPLITS_UPDATE_TIMESTAMP);
             GeneralInfoEntity changeNumberEntity = mDatabase.generalInfoDao().getByName(GeneralInfoEntity.CHANGE_NUMBER_INFO);
+            GeneralInfoEntity encodedChangeNumberEntity = mDatabase.generalInfoDao().getByName(GeneralInfoEntity.SPLITS_ENCODED_CHANGE_NUMBER);
             GeneralInfoEntity filterQueryStringEntity = mDatabase.generalInfoDao().getByName(GeneralInfoEntity.SPLITS_FILTER_QUERY_STRING);
             if (changeNumberEntity != null) {
                 mChangeNumber = changeNumberEntity.getLongValue();
             }
+            if (encodedChangeNumberEntity != null) {
+                mEncodedChangeNumber = encodedChangeNumberEntity.getLongValue();
+            }
 
             if (timestampEntity != null) {
                 mUpdateTimestamp = timestampEntity.getLongValue();
@@ -201,6 +313,10 @@ public class SqLitePersistentSplitsStorage implements PersistentSplitsStorage {
             return mChangeNumber;
         }
 
+        public Long getEncodedChangeNumber() {
+            return mEncodedChangeNumber;
+        }
+
         public Long getUpdateTimestamp() {
             return mUpdateTimestamp;
         }
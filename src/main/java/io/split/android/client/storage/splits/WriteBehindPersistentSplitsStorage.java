@@ -0,0 +1,284 @@
+package io.split.android.client.storage.splits;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.split.android.client.dtos.Split;
+import io.split.android.client.lifecycle.SplitLifecycleAware;
+import io.split.android.client.utils.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Queues split updates to be written to the wrapped storage a bit later in its own thread,
+ * so that updating splits doesn't wait for the disk.
+ * Updates queued in the meantime are coalesced, keeping only the last version of each split
+ * and the last change number, and written in a single {@link #update(ProcessedSplitChange)}
+ * which is one transaction.
+ * Pending updates are written before any read or delete, when the app goes
+ * to background and when closed.
+ * If writing fails, updates are queued again, older than the ones queued meanwhile,
+ * and retried later.
+ *
+ * If the process dies before pending updates are written they are lost, but the wrapped
+ * storage is left as it was after the last write: change number and splits are always written
+ * together, so the stored change number never gets ahead of the stored splits and
+ * the lost updates are fetched again on next sync.
+ * Killed splits are the exception, they are queued without change number and,
+ * if nothing else is pending, written on their own keeping the stored one.
+ */
+public class WriteBehindPersistentSplitsStorage implements PersistentSplitsStorage, SplitLifecycleAware {
+
+    private static final long DEFAULT_WRITE_DELAY_MS = 200;
+
+    private final PersistentSplitsStorage mPersistentStorage;
+    private final ScheduledThreadPoolExecutor mExecutor;
+    private final long mWriteDelay;
+    private final Runnable mWriteTask;
+    // Guards pending updates
+    private final Object mPendingLock = new Object();
+    // Taken while writing, so that pending updates are written in the order they were queued
+    private final Object mWriteLock = new Object();
+    private Map<String, Split> mPendingActiveSplits = new LinkedHashMap<>();
+    private Map<String, Split> mPendingArchivedSplits = new LinkedHashMap<>();
+    private Long mPendingChangeNumber;
+    private long mPendingUpdateTimestamp;
+    private boolean mWriteScheduled;
+
+    public WriteBehindPersistentSplitsStorage(@NonNull PersistentSplitsStorage persistentStorage) {
+        this(persistentStorage, DEFAULT_WRITE_DELAY_MS);
+    }
+
+    @VisibleForTesting
+    public WriteBehindPersistentSplitsStorage(@NonNull PersistentSplitsStorage persistentStorage,
+                                              long writeDelayMs) {
+        mPersistentStorage = checkNotNull(persistentStorage);
+        mWriteDelay = writeDelayMs;
+        ThreadFactoryBuilder threadFactoryBuilder = new ThreadFactoryBuilder();
+        threadFactoryBuilder.setDaemon(true);
+        threadFactoryBuilder.setNameFormat("split-splitsWriter-" + "%d");
+        mExecutor = new ScheduledThreadPoolExecutor(1, threadFactoryBuilder.build());
+        mWriteTask = new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        };
+    }
+
+    @Override
+    public boolean update(ProcessedSplitChange splitChange) {
+        if (splitChange == null) {
+            return false;
+        }
+        synchronized (mPendingLock) {
+            if (splitChange.getActiveSplits() != null) {
+                for (Split split : splitChange.getActiveSplits()) {
+                    mPendingArchivedSplits.remove(split.name);
+                    mPendingActiveSplits.put(split.name, split);
+                }
+            }
+            if (splitChange.getArchivedSplits() != null) {
+                for (Split split : splitChange.getArchivedSplits()) {
+                    mPendingActiveSplits.remove(split.name);
+                    mPendingArchivedSplits.put(split.name, split);
+                }
+            }
+            mPendingChangeNumber = splitChange.getChangeNumber();
+            mPendingUpdateTimestamp = splitChange.getUpdateTimestamp();
+            scheduleWrite();
+        }
+        return true;
+    }
+
+    @Override
+    public void update(Split split) {
+        synchronized (mPendingLock) {
+            mPendingArchivedSplits.remove(split.name);
+            mPendingActiveSplits.put(split.name, split);
+            scheduleWrite();
+        }
+    }
+
+    @Override
+    public SplitsSnapshot getSnapshot() {
+        flush();
+        return mPersistentStorage.getSnapshot();
+    }
+
+    @Override
+    public List<Split> getAll() {
+        flush();
+        return mPersistentStorage.getAll();
+    }
+
+    @Override
+    public String getFilterQueryString() {
+        flush();
+        return mPersistentStorage.getFilterQueryString();
+    }
+
+    @Override
+    public void updateFilterQueryString(String queryString) {
+        flush();
+        mPersistentStorage.updateFilterQueryString(queryString);
+    }
+
+    @Override
+    public void delete(List<String> splitNames) {
+        flush();
+        mPersistentStorage.delete(splitNames);
+    }
+
+    @Override
+    public void clear() {
+        synchronized (mWriteLock) {
+            synchronized (mPendingLock) {
+                takePending();
+            }
+            mPersistentStorage.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        mExecutor.shutdown();
+        flush();
+        mPersistentStorage.close();
+    }
+
+    /**
+     * Writes pending updates in the calling thread.
+     *
+     * @return false if they couldn't be written and are still pending
+     */
+    public boolean flush() {
+        synchronized (mWriteLock) {
+            PendingUpdates pending;
+            synchronized (mPendingLock) {
+                pending = takePending();
+            }
+            if (pending.isEmpty()) {
+                return true;
+            }
+            try {
+                write(pending);
+            } catch (Exception e) {
+                Logger.e("Error writing splits, retrying later: " + e.getLocalizedMessage());
+                synchronized (mPendingLock) {
+                    requeue(pending);
+                    scheduleWrite();
+                }
+                return false;
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void pause() {
+        // Not to block the main thread
+        try {
+            mExecutor.execute(mWriteTask);
+        } catch (RejectedExecutionException e) {
+            flush();
+        }
+    }
+
+    @Override
+    public void resume() {
+    }
+
+    private void write(PendingUpdates pending) {
+        if (pending.changeNumber != null) {
+            mPersistentStorage.update(new ProcessedSplitChange(pending.activeSplits,
+                    pending.archivedSplits, pending.changeNumber, pending.updateTimestamp));
+            return;
+        }
+        for (Split split : pending.activeSplits) {
+            mPersistentStorage.update(split);
+        }
+    }
+
+    private void scheduleWrite() {
+        if (mWriteScheduled) {
+            return;
+        }
+        try {
+            mExecutor.schedule(mWriteTask, mWriteDelay, TimeUnit.MILLISECONDS);
+            mWriteScheduled = true;
+        } catch (RejectedExecutionException e) {
+            // Closed, written by next flush
+        }
+    }
+
+    private PendingUpdates takePending() {
+        PendingUpdates pending = new PendingUpdates(
+                new ArrayList<>(mPendingActiveSplits.values()),
+                new ArrayList<>(mPendingArchivedSplits.values()),
+                mPendingChangeNumber, mPendingUpdateTimestamp);
+        mPendingActiveSplits = new LinkedHashMap<>();
+        mPendingArchivedSplits = new LinkedHashMap<>();
+        mPendingChangeNumber = null;
+        mPendingUpdateTimestamp = 0;
+        mWriteScheduled = false;
+        return pending;
+    }
+
+    // Updates queued after the given ones replace them
+    private void requeue(PendingUpdates pending) {
+        Map<String, Split> activeSplits = new LinkedHashMap<>();
+        Map<String, Split> archivedSplits = new LinkedHashMap<>();
+        for (Split split : pending.activeSplits) {
+            activeSplits.put(split.name, split);
+        }
+        for (Split split : pending.archivedSplits) {
+            archivedSplits.put(split.name, split);
+        }
+        for (Split split : mPendingActiveSplits.values()) {
+            archivedSplits.remove(split.name);
+            activeSplits.remove(split.name);
+            activeSplits.put(split.name, split);
+        }
+        for (Split split : mPendingArchivedSplits.values()) {
+            activeSplits.remove(split.name);
+            archivedSplits.remove(split.name);
+            archivedSplits.put(split.name, split);
+        }
+        mPendingActiveSplits = activeSplits;
+        mPendingArchivedSplits = archivedSplits;
+        if (mPendingChangeNumber == null) {
+            mPendingChangeNumber = pending.changeNumber;
+            mPendingUpdateTimestamp = pending.updateTimestamp;
+        }
+    }
+
+    private static class PendingUpdates {
+        final List<Split> activeSplits;
+        final List<Split> archivedSplits;
+        final Long changeNumber;
+        final long updateTimestamp;
+
+        PendingUpdates(List<Split> activeSplits, List<Split> archivedSplits,
+                       Long changeNumber, long updateTimestamp) {
+            this.activeSplits = activeSplits;
+            this.archivedSplits = archivedSplits;
+            this.changeNumber = changeNumber;
+            this.updateTimestamp = updateTimestamp;
+        }
+
+        boolean isEmpty() {
+            return changeNumber == null && activeSplits.isEmpty();
+        }
+    }
+}
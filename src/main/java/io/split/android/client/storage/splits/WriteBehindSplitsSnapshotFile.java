@@ -0,0 +1,194 @@
+package io.split.android.client.storage.splits;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.split.android.client.lifecycle.SplitLifecycleAware;
+import io.split.android.client.utils.Logger;
+
+/**
+ * Snapshot file written a bit later in its own thread, so that updating splits
+ * doesn't wait for the whole file to be rewritten.
+ * Writes queued in the meantime are coalesced and only the last one is done.
+ * A pending write is done before reading or deleting the file, when the app goes
+ * to background and when closed.
+ *
+ * If the process dies before a pending write is done, the file is left as it was.
+ * It is still consistent, and changes newer than it are fetched again on next sync.
+ *
+ * Given that the file is loaded ahead of the persistent storage, it must never have
+ * a change number newer than the stored one. Otherwise changes in between would be
+ * missing in the database once the file is deleted. So when the persistent storage
+ * also writes behind, its pending updates are written first, and the file
+ * is only written if that succeeds.
+ */
+public class WriteBehindSplitsSnapshotFile extends SplitsSnapshotFile implements SplitLifecycleAware {
+
+    private static final long DEFAULT_WRITE_DELAY_MS = 1000;
+
+    private final ScheduledThreadPoolExecutor mExecutor;
+    private final long mWriteDelay;
+    private final Runnable mWriteTask;
+    // Guards the pending write
+    private final Object mPendingLock = new Object();
+    // Taken while writing or deleting, so that an older write never replaces a newer one
+    private final Object mWriteLock = new Object();
+    private PendingWrite mPendingWrite;
+    private boolean mWriteScheduled;
+    private volatile WriteBehindPersistentSplitsStorage mPersistentStorage;
+
+    public WriteBehindSplitsSnapshotFile(@NonNull File file) {
+        this(file, DEFAULT_WRITE_DELAY_MS);
+    }
+
+    @VisibleForTesting
+    public WriteBehindSplitsSnapshotFile(@NonNull File file, long writeDelayMs) {
+        super(file);
+        mWriteDelay = writeDelayMs;
+        ThreadFactoryBuilder threadFactoryBuilder = new ThreadFactoryBuilder();
+        threadFactoryBuilder.setDaemon(true);
+        threadFactoryBuilder.setNameFormat("split-snapshotFileWriter-" + "%d");
+        mExecutor = new ScheduledThreadPoolExecutor(1, threadFactoryBuilder.build());
+        mWriteTask = new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        };
+    }
+
+    /**
+     * Snapshot file kept next to the database with the given name.
+     */
+    public static @NonNull WriteBehindSplitsSnapshotFile forDatabase(@NonNull Context context,
+                                                                     @NonNull String databaseName) {
+        return new WriteBehindSplitsSnapshotFile(fileForDatabase(context, databaseName));
+    }
+
+    /**
+     * Sets the storage whose pending updates are written before the file.
+     * Splits written to the file must have been updated there first.
+     */
+    public void setPersistentStorage(@Nullable WriteBehindPersistentSplitsStorage persistentStorage) {
+        mPersistentStorage = persistentStorage;
+    }
+
+    @Override
+    public @Nullable SplitsSnapshot read() {
+        flush();
+        return super.read();
+    }
+
+    /**
+     * Queues the write and returns right away. Splits must not change afterwards,
+     * as the ones of a published {@link InMemorySplitsSnapshot}.
+     */
+    @Override
+    public boolean write(long changeNumber,
+                         long updateTimestamp,
+                         @Nullable String splitsFilterQueryString,
+                         @NonNull Collection<LazySplit> splits) {
+        synchronized (mPendingLock) {
+            mPendingWrite = new PendingWrite(changeNumber, updateTimestamp, splitsFilterQueryString, splits);
+            scheduleWrite();
+        }
+        return true;
+    }
+
+    @Override
+    public void delete() {
+        synchronized (mWriteLock) {
+            synchronized (mPendingLock) {
+                mPendingWrite = null;
+            }
+            super.delete();
+        }
+    }
+
+    /**
+     * Does the pending write in the calling thread.
+     */
+    public void flush() {
+        synchronized (mWriteLock) {
+            PendingWrite pendingWrite;
+            synchronized (mPendingLock) {
+                pendingWrite = mPendingWrite;
+                mPendingWrite = null;
+                mWriteScheduled = false;
+            }
+            if (pendingWrite == null) {
+                return;
+            }
+            WriteBehindPersistentSplitsStorage persistentStorage = mPersistentStorage;
+            if (persistentStorage != null && !persistentStorage.flush()) {
+                Logger.d("Splits not stored yet, snapshot file will be written later");
+                synchronized (mPendingLock) {
+                    if (mPendingWrite == null) {
+                        mPendingWrite = pendingWrite;
+                    }
+                    scheduleWrite();
+                }
+                return;
+            }
+            super.write(pendingWrite.changeNumber, pendingWrite.updateTimestamp,
+                    pendingWrite.splitsFilterQueryString, pendingWrite.splits);
+        }
+    }
+
+    public void close() {
+        mExecutor.shutdown();
+        flush();
+    }
+
+    @Override
+    public void pause() {
+        // Not to block the main thread
+        try {
+            mExecutor.execute(mWriteTask);
+        } catch (RejectedExecutionException e) {
+            flush();
+        }
+    }
+
+    @Override
+    public void resume() {
+    }
+
+    private void scheduleWrite() {
+        if (mWriteScheduled) {
+            return;
+        }
+        try {
+            mExecutor.schedule(mWriteTask, mWriteDelay, TimeUnit.MILLISECONDS);
+            mWriteScheduled = true;
+        } catch (RejectedExecutionException e) {
+            // Closed, written by next flush
+        }
+    }
+
+    private static class PendingWrite {
+        final long changeNumber;
+        final long updateTimestamp;
+        final String splitsFilterQueryString;
+        final Collection<LazySplit> splits;
+
+        PendingWrite(long changeNumber, long updateTimestamp,
+                     String splitsFilterQueryString, Collection<LazySplit> splits) {
+            this.changeNumber = changeNumber;
+            this.updateTimestamp = updateTimestamp;
+            this.splitsFilterQueryString = splitsFilterQueryString;
+            this.splits = splits;
+        }
+    }
+}
@@ -2,9 +2,11 @@ package io.split.android.client.utils;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
 
+import java.io.Reader;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
@@ -17,6 +19,10 @@ public class Json {
         return _json.toJson(obj);
     }
 
+    public static void toJson(Object obj, Appendable writer) throws JsonIOException {
+        _json.toJson(obj, writer);
+    }
+
     public static <T> T fromJson(String json, Type typeOfT) throws JsonSyntaxException {
         return _json.fromJson(json, typeOfT);
     }
@@ -31,4 +37,12 @@ public class Json {
         return _json.fromJson(json, clz);
     }
 
+    public static <T> T fromJson(Reader json, Type typeOfT) throws JsonSyntaxException, JsonIOException {
+        return _json.fromJson(json, typeOfT);
+    }
+
+    public static <T> T fromJson(Reader json, Class<T> clz) throws JsonSyntaxException, JsonIOException {
+        return _json.fromJson(json, clz);
+    }
+
 }
@@ -1,9 +1,38 @@
 package io.split.android.client.utils;
 
+import androidx.annotation.NonNull;
+
 import java.net.URI;
 
+import io.split.android.client.network.ConnectivityMonitor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Checks reachability from the state cached by {@link ConnectivityMonitor},
+ * which requests update reporting whether the host could be reached.
+ */
 public class NetworkHelper {
+
+    private final ConnectivityMonitor mConnectivityMonitor;
+
+    public NetworkHelper() {
+        this(ConnectivityMonitor.getInstance());
+    }
+
+    public NetworkHelper(@NonNull ConnectivityMonitor connectivityMonitor) {
+        mConnectivityMonitor = checkNotNull(connectivityMonitor);
+    }
+
     public boolean isReachable(URI target) {
-        return Utils.isReachable(target);
+        return mConnectivityMonitor.isReachable(target);
+    }
+
+    public void reportReachable(URI target) {
+        mConnectivityMonitor.reportReachable(target);
+    }
+
+    public void reportUnreachable(URI target) {
+        mConnectivityMonitor.reportUnreachable(target);
     }
 }
@@ -1,5 +1,6 @@
 package io.split.android.client.validators;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -11,6 +12,7 @@ import io.split.android.client.SplitResult;
 import io.split.android.client.TreatmentLabels;
 import io.split.android.client.events.ISplitEventsManager;
 import io.split.android.client.events.SplitEvent;
+import io.split.android.client.impressions.BatchImpressionListener;
 import io.split.android.client.impressions.Impression;
 import io.split.android.client.impressions.ImpressionListener;
 import io.split.android.client.utils.Logger;
@@ -189,6 +191,11 @@ public class TreatmentManagerImpl implements TreatmentManager {
             return results;
         }
 
+        // Readiness is checked and splits and segments are pinned once for the whole batch
+        boolean isReady = isReady(validationTag);
+        Evaluator evaluator = mEvaluator.pinSnapshots();
+        List<Impression> impressions = new ArrayList<>(splits.size());
+        long time = System.currentTimeMillis();
         for(String split : splits) {
             errorInfo = mSplitValidator.validateName(split);
             if (errorInfo != null) {
@@ -199,7 +206,9 @@ public class TreatmentManagerImpl implements TreatmentManager {
                 mValidationLogger.w(errorInfo, validationTag);
             }
 
-            EvaluationResult result = evaluateIfReady(split.trim(), attributes, validationTag);
+            EvaluationResult result = isReady
+                    ? evaluator.getTreatment(mMatchingKey, mBucketingKey, split.trim(), attributes)
+                    : new EvaluationResult(Treatments.CONTROL, TreatmentLabels.NOT_READY, null, null);
             results.put(split.trim(), new SplitResult(result.getTreatment(), result.getConfigurations()));
 
             if(result.getLabel().equals(TreatmentLabels.DEFINITION_NOT_FOUND)) {
@@ -207,19 +216,39 @@ public class TreatmentManagerImpl implements TreatmentManager {
                 continue;
             }
 
-            logImpression(
+            impressions.add(new Impression(
                     mMatchingKey,
                     mBucketingKey,
                     split,
                     result.getTreatment(),
+                    time,
                     (mSplitClientConfig.labelsEnabled() ? result.getLabel() : null),
                     result.getChangeNumber(),
-                    attributes);
+                    attributes));
         }
 
+        logImpressions(impressions);
+
         return results;
     }
 
+    private void logImpressions(List<Impression> impressions) {
+        if (impressions.isEmpty()) {
+            return;
+        }
+        try {
+            if (mImpressionListener instanceof BatchImpressionListener) {
+                ((BatchImpressionListener) mImpressionListener).logBatch(impressions);
+                return;
+            }
+            for (Impression impression : impressions) {
+                mImpressionListener.log(impression);
+            }
+        } catch (Throwable t) {
+            Logger.e(t);
+        }
+    }
+
     private void logImpression(String matchingKey, String bucketingKey, String splitName, String result, String label, Long changeNumber, Map<String, Object> attributes) {
         try {
             mImpressionListener.log(new Impression(matchingKey, bucketingKey, splitName, result, System.currentTimeMillis(), label, changeNumber, attributes));
@@ -263,12 +292,19 @@ public class TreatmentManagerImpl implements TreatmentManager {
 
     private EvaluationResult evaluateIfReady(String splitName,
                                              Map<String, Object> attributes, String validationTag) {
+        if(!isReady(validationTag)) {
+            return new EvaluationResult(Treatments.CONTROL, TreatmentLabels.NOT_READY, null, null);
+        }
+        return mEvaluator.getTreatment(mMatchingKey, mBucketingKey, splitName, attributes);
+    }
+
+    private boolean isReady(String validationTag) {
         if(!mEventsManager.eventAlreadyTriggered(SplitEvent.SDK_READY) &&
                 !mEventsManager.eventAlreadyTriggered(SplitEvent.SDK_READY_FROM_CACHE) ) {
             mValidationLogger.w("the SDK is not ready, results may be incorrect. Make sure to wait for SDK readiness before using this method", validationTag);
-            return new EvaluationResult(Treatments.CONTROL, TreatmentLabels.NOT_READY, null, null);
+            return false;
         }
-        return mEvaluator.getTreatment(mMatchingKey, mBucketingKey, splitName, attributes);
+        return true;
     }
 
 }
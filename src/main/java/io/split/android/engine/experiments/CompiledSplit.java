@@ -0,0 +1,282 @@
+package io.split.android.engine.experiments;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import io.split.android.client.Evaluator;
+import io.split.android.client.storage.mysegments.MySegmentsSnapshot;
+import io.split.android.engine.matchers.Matcher;
+import io.split.android.engine.matchers.Transformers;
+import io.split.android.engine.matchers.strings.StringAutomaton;
+
+/**
+ * Flat evaluation program for a {@link ParsedSplit} built by {@link SplitCompiler}.
+ * Every attribute matcher of every condition is stored as one op in parallel arrays,
+ * with its attribute name resolved to a slot and its constants already normalized,
+ * so that matching a condition does not walk the matcher tree nor box values.
+ */
+public final class CompiledSplit {
+
+    static final int KEY_SLOT = -1;
+
+    static final int OP_ALL_KEYS = 0;
+    static final int OP_WHITELIST = 1;
+    static final int OP_IN_SEGMENT = 2;
+    static final int OP_EQUAL_TO_NUMBER = 3;
+    static final int OP_EQUAL_TO_DATE = 4;
+    static final int OP_GREATER_THAN_OR_EQUAL_TO_NUMBER = 5;
+    static final int OP_GREATER_THAN_OR_EQUAL_TO_DATETIME = 6;
+    static final int OP_LESS_THAN_OR_EQUAL_TO_NUMBER = 7;
+    static final int OP_LESS_THAN_OR_EQUAL_TO_DATETIME = 8;
+    static final int OP_BETWEEN_NUMBER = 9;
+    static final int OP_BETWEEN_DATETIME = 10;
+    static final int OP_EQUAL_TO_BOOLEAN = 11;
+    static final int OP_EQUAL_TO_SET = 12;
+    static final int OP_PART_OF_SET = 13;
+    static final int OP_CONTAINS_ALL_OF_SET = 14;
+    static final int OP_CONTAINS_ANY_OF_SET = 15;
+    static final int OP_STARTS_WITH = 16;
+    static final int OP_ENDS_WITH = 17;
+    static final int OP_CONTAINS_STRING = 18;
+    static final int OP_MATCHES_STRING = 19;
+    static final int OP_DELEGATE = 20;
+
+    private final ParsedSplit mParsedSplit;
+    private final int[] mConditionOffsets;
+    private final int[] mOps;
+    private final int[] mSlots;
+    private final boolean[] mNegate;
+    private final long[] mLongOperands;
+    private final long[] mSecondLongOperands;
+    private final Object[] mRefOperands;
+    private final String[] mAttributeNames;
+    private final boolean mAttributeFree;
+    private final List<String> mDependencies;
+
+    CompiledSplit(@NonNull ParsedSplit parsedSplit,
+                  int[] conditionOffsets,
+                  int[] ops,
+                  int[] slots,
+                  boolean[] negate,
+                  long[] longOperands,
+                  long[] secondLongOperands,
+                  Object[] refOperands,
+                  String[] attributeNames,
+                  List<String> dependencies) {
+        mParsedSplit = parsedSplit;
+        mConditionOffsets = conditionOffsets;
+        mOps = ops;
+        mSlots = slots;
+        mNegate = negate;
+        mLongOperands = longOperands;
+        mSecondLongOperands = secondLongOperands;
+        mRefOperands = refOperands;
+        mAttributeNames = attributeNames;
+        mAttributeFree = attributeNames.length == 0 && !hasOp(OP_DELEGATE);
+        mDependencies = dependencies;
+    }
+
+    public ParsedSplit parsedSplit() {
+        return mParsedSplit;
+    }
+
+    public int conditionCount() {
+        return mConditionOffsets.length - 1;
+    }
+
+    /**
+     * True when no op reads attributes, so the result for a key is the same
+     * whatever attributes are passed. Delegates (i.e. dependency matchers) could
+     * evaluate splits that read them, so splits having any are not attribute free.
+     */
+    public boolean isAttributeFree() {
+        return mAttributeFree;
+    }
+
+    /**
+     * Names of the splits this one depends on through IN_SPLIT_TREATMENT matchers.
+     */
+    public List<String> dependencies() {
+        return mDependencies;
+    }
+
+    /**
+     * Runs the ops of the condition at the given index. Same result as
+     * calling match on the {@link io.split.android.engine.matchers.CombiningMatcher}
+     * of that condition, with segment membership resolved against the given snapshot.
+     */
+    public boolean match(int conditionIndex, String matchingKey, String bucketingKey,
+                         TypedAttributes attributes, MySegmentsSnapshot mySegments,
+                         Evaluator evaluator) {
+        final int end = mConditionOffsets[conditionIndex + 1];
+        boolean result = true;
+        for (int op = mConditionOffsets[conditionIndex]; op < end; op++) {
+            result &= matchOp(op, matchingKey, bucketingKey, attributes, mySegments, evaluator);
+        }
+        return result;
+    }
+
+    private boolean matchOp(int op, String matchingKey, String bucketingKey,
+                            TypedAttributes attributes, MySegmentsSnapshot mySegments,
+                            Evaluator evaluator) {
+        final int slot = mSlots[op];
+        if (slot == KEY_SLOT) {
+            return mNegate[op] != run(op, matchingKey, null, bucketingKey, attributes, mySegments, evaluator);
+        }
+
+        String attributeName = mAttributeNames[slot];
+        Object value = attributes.get(attributeName);
+        if (value == null) {
+            return false;
+        }
+        return mNegate[op] != run(op, value, attributeName, bucketingKey, attributes, mySegments, null);
+    }
+
+    /**
+     * @param attributeName name of the attribute the value comes from, null when it is the key
+     */
+    @SuppressWarnings({"unchecked", "SuspiciousMethodCalls"})
+    private boolean run(int op, Object value, String attributeName, String bucketingKey, TypedAttributes attributes,
+                        MySegmentsSnapshot mySegments, Evaluator evaluator) {
+        switch (mOps[op]) {
+            case OP_ALL_KEYS:
+                return value != null;
+            case OP_WHITELIST:
+                return ((Set<String>) mRefOperands[op]).contains(value);
+            case OP_IN_SEGMENT:
+                return mySegments.contains((int) mLongOperands[op]);
+            case OP_EQUAL_TO_NUMBER:
+                return isLong(value) && toLong(value) == mLongOperands[op];
+            case OP_EQUAL_TO_DATE:
+                return isLong(value) && Transformers.truncateToDay(toLong(value)) == mLongOperands[op];
+            case OP_GREATER_THAN_OR_EQUAL_TO_NUMBER:
+                return isLong(value) && toLong(value) >= mLongOperands[op];
+            case OP_GREATER_THAN_OR_EQUAL_TO_DATETIME:
+                return isLong(value) && Transformers.truncateToMinute(toLong(value)) >= mLongOperands[op];
+            case OP_LESS_THAN_OR_EQUAL_TO_NUMBER:
+                return isLong(value) && toLong(value) <= mLongOperands[op];
+            case OP_LESS_THAN_OR_EQUAL_TO_DATETIME:
+                return isLong(value) && Transformers.truncateToMinute(toLong(value)) <= mLongOperands[op];
+            case OP_BETWEEN_NUMBER:
+                return isLong(value) && between(toLong(value), op);
+            case OP_BETWEEN_DATETIME:
+                return isLong(value) && between(Transformers.truncateToMinute(toLong(value)), op);
+            case OP_EQUAL_TO_BOOLEAN:
+                return matchBoolean(value, mLongOperands[op] != 0);
+            case OP_EQUAL_TO_SET:
+                return value instanceof Collection
+                        && stringSet(value, attributeName, attributes).equals(mRefOperands[op]);
+            case OP_PART_OF_SET:
+                return value instanceof Collection
+                        && partOfSet(stringSet(value, attributeName, attributes), (Set<String>) mRefOperands[op]);
+            case OP_CONTAINS_ALL_OF_SET:
+                return value instanceof Collection
+                        && containsAllOfSet(stringSet(value, attributeName, attributes), (Set<String>) mRefOperands[op]);
+            case OP_CONTAINS_ANY_OF_SET:
+                return value instanceof Collection
+                        && containsAnyOfSet(stringSet(value, attributeName, attributes), (Set<String>) mRefOperands[op]);
+            case OP_STARTS_WITH:
+            case OP_ENDS_WITH:
+            case OP_CONTAINS_STRING:
+                return value instanceof String && ((StringAutomaton) mRefOperands[op]).matches((String) value);
+            case OP_MATCHES_STRING:
+                return value instanceof String && ((Pattern) mRefOperands[op]).matcher((String) value).find();
+            case OP_DELEGATE:
+                return ((Matcher) mRefOperands[op]).match(value, bucketingKey, attributes.asMap(), evaluator);
+            default:
+                throw new IllegalStateException("Unknown op: " + mOps[op]);
+        }
+    }
+
+    private boolean hasOp(int opCode) {
+        for (int op : mOps) {
+            if (op == opCode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean between(long value, int op) {
+        return value >= mLongOperands[op] && value <= mSecondLongOperands[op];
+    }
+
+    private static boolean isLong(Object value) {
+        return value instanceof Long || value instanceof Integer;
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        return (Integer) value;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Set<String> stringSet(Object value, String attributeName, TypedAttributes attributes) {
+        if (attributeName == null) {
+            return Transformers.toSetOfStrings((Collection) value);
+        }
+        return attributes.stringSet(attributeName, (Collection) value);
+    }
+
+    private static boolean matchBoolean(Object value, boolean expected) {
+        if (value instanceof Boolean) {
+            return (Boolean) value == expected;
+        }
+        if (value instanceof String) {
+            String string = (String) value;
+            if (equalsAsciiIgnoreCase(string, "true")) {
+                return expected;
+            }
+            if (equalsAsciiIgnoreCase(string, "false")) {
+                return !expected;
+            }
+        }
+        return false;
+    }
+
+    private static boolean equalsAsciiIgnoreCase(String value, String lowerCaseAscii) {
+        if (value.length() != lowerCaseAscii.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if (c != lowerCaseAscii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean partOfSet(Set<String> values, Set<String> compareTo) {
+        if (values.isEmpty()) {
+            return false;
+        }
+        return compareTo.containsAll(values);
+    }
+
+    private static boolean containsAllOfSet(Set<String> values, Set<String> compareTo) {
+        if (compareTo.isEmpty()) {
+            return false;
+        }
+        return values.containsAll(compareTo);
+    }
+
+    private static boolean containsAnyOfSet(Set<String> values, Set<String> compareTo) {
+        for (String value : values) {
+            if (compareTo.contains(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
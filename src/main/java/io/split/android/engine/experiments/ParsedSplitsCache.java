@@ -0,0 +1,86 @@
+package io.split.android.engine.experiments;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.split.android.client.dtos.Split;
+import io.split.android.client.storage.mysegments.MySegmentsStorage;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps parsed splits around so that the matcher tree of a split
+ * is built and compiled once per change number instead of once per evaluation.
+ * Entries are keyed by split name and only returned when the change number
+ * of the cached split matches the one of the split definition being evaluated.
+ */
+public class ParsedSplitsCache {
+
+    private final SplitParser mSplitParser;
+    private final MySegmentsStorage mMySegmentsStorage;
+    private final SplitCompiler mSplitCompiler;
+    private final Map<String, CompiledSplit> mCompiledSplits;
+    private final AtomicLong mVersion;
+
+    public ParsedSplitsCache(@NonNull SplitParser splitParser) {
+        mSplitParser = checkNotNull(splitParser);
+        mMySegmentsStorage = splitParser.getMySegmentsStorage();
+        mSplitCompiler = new SplitCompiler();
+        mCompiledSplits = new ConcurrentHashMap<>();
+        mVersion = new AtomicLong(0);
+    }
+
+    public @Nullable ParsedSplit get(@Nullable Split split) {
+        CompiledSplit compiledSplit = getCompiled(split);
+        return compiledSplit != null ? compiledSplit.parsedSplit() : null;
+    }
+
+    public @Nullable CompiledSplit getCompiled(@Nullable Split split) {
+        if (split == null || split.name == null) {
+            return null;
+        }
+
+        CompiledSplit compiledSplit = mCompiledSplits.get(split.name);
+        if (compiledSplit != null && compiledSplit.parsedSplit().changeNumber() == split.changeNumber) {
+            return compiledSplit;
+        }
+
+        ParsedSplit parsedSplit = mSplitParser.parse(split);
+        if (parsedSplit == null) {
+            mCompiledSplits.remove(split.name);
+            return null;
+        }
+        compiledSplit = mSplitCompiler.compile(parsedSplit);
+        mCompiledSplits.put(split.name, compiledSplit);
+        return compiledSplit;
+    }
+
+    public void invalidate(@Nullable String splitName) {
+        if (splitName == null) {
+            return;
+        }
+        mCompiledSplits.remove(splitName);
+        mVersion.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        mCompiledSplits.clear();
+        mVersion.incrementAndGet();
+    }
+
+    /**
+     * Increases every time a split is invalidated, so it can be used
+     * to know if anything evaluated before could have changed.
+     */
+    public long version() {
+        return mVersion.get();
+    }
+
+    public @NonNull MySegmentsStorage getMySegmentsStorage() {
+        return mMySegmentsStorage;
+    }
+}
@@ -0,0 +1,185 @@
+package io.split.android.engine.experiments;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.split.android.client.dtos.DataType;
+import io.split.android.engine.matchers.AllKeysMatcher;
+import io.split.android.engine.matchers.AttributeMatcher;
+import io.split.android.engine.matchers.BetweenMatcher;
+import io.split.android.engine.matchers.BooleanMatcher;
+import io.split.android.engine.matchers.DependencyMatcher;
+import io.split.android.engine.matchers.EqualToMatcher;
+import io.split.android.engine.matchers.GreaterThanOrEqualToMatcher;
+import io.split.android.engine.matchers.LessThanOrEqualToMatcher;
+import io.split.android.engine.matchers.Matcher;
+import io.split.android.engine.matchers.MySegmentsMatcher;
+import io.split.android.engine.matchers.collections.ContainsAllOfSetMatcher;
+import io.split.android.engine.matchers.collections.ContainsAnyOfSetMatcher;
+import io.split.android.engine.matchers.collections.EqualToSetMatcher;
+import io.split.android.engine.matchers.collections.PartOfSetMatcher;
+import io.split.android.engine.matchers.strings.ContainsAnyOfMatcher;
+import io.split.android.engine.matchers.strings.EndsWithAnyOfMatcher;
+import io.split.android.engine.matchers.strings.RegularExpressionMatcher;
+import io.split.android.engine.matchers.strings.StartsWithAnyOfMatcher;
+import io.split.android.engine.matchers.strings.WhitelistMatcher;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Converts a ParsedSplit to a CompiledSplit.
+ * Matchers that have no op of their own (i.e. dependency matchers) are
+ * kept as delegates and called the same way AttributeMatcher calls them.
+ */
+public final class SplitCompiler {
+
+    public @NonNull CompiledSplit compile(@NonNull ParsedSplit parsedSplit) {
+        checkNotNull(parsedSplit);
+
+        List<ParsedCondition> parsedConditions = parsedSplit.parsedConditions();
+        int opCount = 0;
+        for (ParsedCondition parsedCondition : parsedConditions) {
+            opCount += parsedCondition.matcher().attributeMatchers().size();
+        }
+
+        int[] conditionOffsets = new int[parsedConditions.size() + 1];
+        int[] ops = new int[opCount];
+        int[] slots = new int[opCount];
+        boolean[] negate = new boolean[opCount];
+        long[] longOperands = new long[opCount];
+        long[] secondLongOperands = new long[opCount];
+        Object[] refOperands = new Object[opCount];
+        List<String> attributeNames = new ArrayList<>();
+
+        int op = 0;
+        for (int i = 0; i < parsedConditions.size(); i++) {
+            conditionOffsets[i] = op;
+            for (AttributeMatcher attributeMatcher : parsedConditions.get(i).matcher().attributeMatchers()) {
+                AttributeMatcher.NegatableMatcher negatableMatcher = (AttributeMatcher.NegatableMatcher) attributeMatcher.matcher();
+                slots[op] = slotFor(attributeMatcher.attribute(), attributeNames);
+                negate[op] = negatableMatcher.negate();
+                compileMatcher(negatableMatcher.delegate(), op, ops, longOperands, secondLongOperands, refOperands);
+                op++;
+            }
+        }
+        conditionOffsets[parsedConditions.size()] = op;
+
+        return new CompiledSplit(parsedSplit, conditionOffsets, ops, slots, negate,
+                longOperands, secondLongOperands, refOperands,
+                attributeNames.toArray(new String[0]),
+                dependencies(ops, refOperands));
+    }
+
+    private List<String> dependencies(int[] ops, Object[] refOperands) {
+        List<String> dependencies = new ArrayList<>();
+        for (int op = 0; op < ops.length; op++) {
+            if (ops[op] == CompiledSplit.OP_DELEGATE && refOperands[op] instanceof DependencyMatcher) {
+                String split = ((DependencyMatcher) refOperands[op]).split();
+                if (split != null && !dependencies.contains(split)) {
+                    dependencies.add(split);
+                }
+            }
+        }
+        return dependencies.isEmpty() ? Collections.<String>emptyList() : Collections.unmodifiableList(dependencies);
+    }
+
+    private int slotFor(String attribute, List<String> attributeNames) {
+        if (attribute == null) {
+            return CompiledSplit.KEY_SLOT;
+        }
+        int slot = attributeNames.indexOf(attribute);
+        if (slot < 0) {
+            attributeNames.add(attribute);
+            slot = attributeNames.size() - 1;
+        }
+        return slot;
+    }
+
+    private void compileMatcher(Matcher matcher, int op, int[] ops, long[] longOperands,
+                                long[] secondLongOperands, Object[] refOperands) {
+
+        if (matcher instanceof AllKeysMatcher) {
+            ops[op] = CompiledSplit.OP_ALL_KEYS;
+
+        } else if (matcher instanceof WhitelistMatcher) {
+            ops[op] = CompiledSplit.OP_WHITELIST;
+            refOperands[op] = ((WhitelistMatcher) matcher).whitelist();
+
+        } else if (matcher instanceof MySegmentsMatcher) {
+            ops[op] = CompiledSplit.OP_IN_SEGMENT;
+            longOperands[op] = ((MySegmentsMatcher) matcher).segmentId();
+
+        } else if (matcher instanceof EqualToMatcher) {
+            EqualToMatcher equalToMatcher = (EqualToMatcher) matcher;
+            ops[op] = isDateTime(equalToMatcher.dataType()) ?
+                    CompiledSplit.OP_EQUAL_TO_DATE : CompiledSplit.OP_EQUAL_TO_NUMBER;
+            longOperands[op] = equalToMatcher.normalizedCompareTo();
+
+        } else if (matcher instanceof GreaterThanOrEqualToMatcher) {
+            GreaterThanOrEqualToMatcher gteMatcher = (GreaterThanOrEqualToMatcher) matcher;
+            ops[op] = isDateTime(gteMatcher.dataType()) ?
+                    CompiledSplit.OP_GREATER_THAN_OR_EQUAL_TO_DATETIME : CompiledSplit.OP_GREATER_THAN_OR_EQUAL_TO_NUMBER;
+            longOperands[op] = gteMatcher.normalizedCompareTo();
+
+        } else if (matcher instanceof LessThanOrEqualToMatcher) {
+            LessThanOrEqualToMatcher lteMatcher = (LessThanOrEqualToMatcher) matcher;
+            ops[op] = isDateTime(lteMatcher.dataType()) ?
+                    CompiledSplit.OP_LESS_THAN_OR_EQUAL_TO_DATETIME : CompiledSplit.OP_LESS_THAN_OR_EQUAL_TO_NUMBER;
+            longOperands[op] = lteMatcher.normalizedCompareTo();
+
+        } else if (matcher instanceof BetweenMatcher) {
+            BetweenMatcher betweenMatcher = (BetweenMatcher) matcher;
+            ops[op] = isDateTime(betweenMatcher.dataType()) ?
+                    CompiledSplit.OP_BETWEEN_DATETIME : CompiledSplit.OP_BETWEEN_NUMBER;
+            longOperands[op] = betweenMatcher.normalizedStart();
+            secondLongOperands[op] = betweenMatcher.normalizedEnd();
+
+        } else if (matcher instanceof BooleanMatcher) {
+            ops[op] = CompiledSplit.OP_EQUAL_TO_BOOLEAN;
+            longOperands[op] = ((BooleanMatcher) matcher).booleanValue() ? 1 : 0;
+
+        } else if (matcher instanceof EqualToSetMatcher) {
+            ops[op] = CompiledSplit.OP_EQUAL_TO_SET;
+            refOperands[op] = ((EqualToSetMatcher) matcher).compareTo();
+
+        } else if (matcher instanceof PartOfSetMatcher) {
+            ops[op] = CompiledSplit.OP_PART_OF_SET;
+            refOperands[op] = ((PartOfSetMatcher) matcher).compareTo();
+
+        } else if (matcher instanceof ContainsAllOfSetMatcher) {
+            ops[op] = CompiledSplit.OP_CONTAINS_ALL_OF_SET;
+            refOperands[op] = ((ContainsAllOfSetMatcher) matcher).compareTo();
+
+        } else if (matcher instanceof ContainsAnyOfSetMatcher) {
+            ops[op] = CompiledSplit.OP_CONTAINS_ANY_OF_SET;
+            refOperands[op] = ((ContainsAnyOfSetMatcher) matcher).compareTo();
+
+        } else if (matcher instanceof StartsWithAnyOfMatcher) {
+            ops[op] = CompiledSplit.OP_STARTS_WITH;
+            refOperands[op] = ((StartsWithAnyOfMatcher) matcher).automaton();
+
+        } else if (matcher instanceof EndsWithAnyOfMatcher) {
+            ops[op] = CompiledSplit.OP_ENDS_WITH;
+            refOperands[op] = ((EndsWithAnyOfMatcher) matcher).automaton();
+
+        } else if (matcher instanceof ContainsAnyOfMatcher) {
+            ops[op] = CompiledSplit.OP_CONTAINS_STRING;
+            refOperands[op] = ((ContainsAnyOfMatcher) matcher).automaton();
+
+        } else if (matcher instanceof RegularExpressionMatcher) {
+            ops[op] = CompiledSplit.OP_MATCHES_STRING;
+            refOperands[op] = ((RegularExpressionMatcher) matcher).pattern();
+
+        } else {
+            ops[op] = CompiledSplit.OP_DELEGATE;
+            refOperands[op] = matcher;
+        }
+    }
+
+    private boolean isDateTime(DataType dataType) {
+        return dataType == DataType.DATETIME;
+    }
+}
@@ -0,0 +1,102 @@
+package io.split.android.engine.experiments;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.split.android.client.storage.splits.InMemorySplitsSnapshot;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Dependencies between splits given by IN_SPLIT_TREATMENT matchers
+ * for one splits snapshot.
+ * For each split it resolves once the order its dependencies have to be
+ * evaluated in, so that every split comes after the ones it depends on,
+ * or that the split is in a cycle or depends on one.
+ */
+public class SplitDependencyGraph {
+
+    private static final List<String> CYCLE = new ArrayList<>();
+
+    private final InMemorySplitsSnapshot mSplits;
+    private final ParsedSplitsCache mParsedSplitsCache;
+    private final Map<String, List<String>> mEvaluationOrders;
+
+    public SplitDependencyGraph(@NonNull InMemorySplitsSnapshot splits,
+                                @NonNull ParsedSplitsCache parsedSplitsCache) {
+        mSplits = checkNotNull(splits);
+        mParsedSplitsCache = checkNotNull(parsedSplitsCache);
+        mEvaluationOrders = new ConcurrentHashMap<>();
+    }
+
+    public @NonNull InMemorySplitsSnapshot splits() {
+        return mSplits;
+    }
+
+    /**
+     * Returns the names of all the splits the given one depends on, directly or not,
+     * in evaluation order. Returns null when there is a cycle.
+     */
+    public @Nullable List<String> evaluationOrder(@NonNull CompiledSplit compiledSplit) {
+        if (compiledSplit.dependencies().isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String splitName = compiledSplit.parsedSplit().feature();
+        List<String> evaluationOrder = mEvaluationOrders.get(splitName);
+        if (evaluationOrder == null) {
+            evaluationOrder = buildEvaluationOrder(splitName, compiledSplit);
+            mEvaluationOrders.put(splitName, evaluationOrder);
+        }
+        return evaluationOrder != CYCLE ? evaluationOrder : null;
+    }
+
+    private List<String> buildEvaluationOrder(String splitName, CompiledSplit compiledSplit) {
+        Set<String> visiting = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+        List<String> evaluationOrder = new ArrayList<>();
+        visiting.add(splitName);
+        for (String dependency : compiledSplit.dependencies()) {
+            if (!visit(dependency, visiting, visited, evaluationOrder)) {
+                return CYCLE;
+            }
+        }
+        return Collections.unmodifiableList(evaluationOrder);
+    }
+
+    /**
+     * Depth first, adding each split after its dependencies.
+     * Returns false if a split being visited is reached again.
+     */
+    private boolean visit(String splitName, Set<String> visiting, Set<String> visited,
+                          List<String> evaluationOrder) {
+        if (visited.contains(splitName)) {
+            return true;
+        }
+        if (!visiting.add(splitName)) {
+            return false;
+        }
+
+        CompiledSplit compiledSplit = mParsedSplitsCache.getCompiled(mSplits.get(splitName));
+        if (compiledSplit != null) {
+            for (String dependency : compiledSplit.dependencies()) {
+                if (!visit(dependency, visiting, visited, evaluationOrder)) {
+                    return false;
+                }
+            }
+        }
+
+        visiting.remove(splitName);
+        visited.add(splitName);
+        evaluationOrder.add(splitName);
+        return true;
+    }
+}
@@ -54,6 +54,10 @@ public final class SplitParser {
         mMySegmentsStorage = checkNotNull(mySegmentsStorage);
     }
 
+    MySegmentsStorage getMySegmentsStorage() {
+        return mMySegmentsStorage;
+    }
+
     public @Nullable ParsedSplit parse(@Nullable Split split) {
         try {
             return parseWithoutExceptionHandling(split);
@@ -111,7 +115,7 @@ public final class SplitParser {
                 break;
             case IN_SEGMENT:
                 checkNotNull(matcher.userDefinedSegmentMatcherData);
-                delegate = new MySegmentsMatcher(mMySegmentsStorage.getAll(), matcher.userDefinedSegmentMatcherData.segmentName);
+                delegate = new MySegmentsMatcher(mMySegmentsStorage, matcher.userDefinedSegmentMatcherData.segmentName);
                 break;
             case WHITELIST:
                 checkNotNull(matcher.whitelistMatcherData);
@@ -0,0 +1,60 @@
+package io.split.android.engine.experiments;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import io.split.android.engine.matchers.Transformers;
+
+/**
+ * Attributes of an evaluation, shared by every split evaluated in the same call.
+ * Collection values are converted to sets of strings the first time an op needs them
+ * and kept, so that each attribute is converted once per call instead of once per op.
+ * Numbers and dates aren't kept, given that reading them is unboxing plus
+ * some arithmetic, which is cheaper than a lookup here.
+ * It is meant to be used for a single call, so it is not thread safe.
+ */
+public final class TypedAttributes {
+
+    private static final TypedAttributes NONE = new TypedAttributes(null);
+
+    private final Map<String, Object> mAttributes;
+    private Map<String, Set<String>> mStringSets;
+
+    private TypedAttributes(Map<String, Object> attributes) {
+        mAttributes = attributes;
+    }
+
+    public static @NonNull TypedAttributes of(@Nullable Map<String, Object> attributes) {
+        return attributes != null ? new TypedAttributes(attributes) : NONE;
+    }
+
+    public @Nullable Map<String, Object> asMap() {
+        return mAttributes;
+    }
+
+    public @Nullable Object get(@NonNull String name) {
+        return mAttributes != null ? mAttributes.get(name) : null;
+    }
+
+    /**
+     * Returns the given collection, which is the value of the attribute,
+     * as a set of strings. Same as {@link Transformers#toSetOfStrings(Collection)}.
+     */
+    @SuppressWarnings("rawtypes")
+    @NonNull Set<String> stringSet(@NonNull String name, @NonNull Collection value) {
+        if (mStringSets == null) {
+            mStringSets = new HashMap<>();
+        }
+        Set<String> stringSet = mStringSets.get(name);
+        if (stringSet == null) {
+            stringSet = Transformers.toSetOfStrings(value);
+            mStringSets.put(name, stringSet);
+        }
+        return stringSet;
+    }
+}
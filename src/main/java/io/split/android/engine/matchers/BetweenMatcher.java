@@ -49,6 +49,18 @@ public class BetweenMatcher implements Matcher {
         return keyAsLong >= _normalizedStart && keyAsLong <= _normalizedEnd;
     }
 
+    public long normalizedStart() {
+        return _normalizedStart;
+    }
+
+    public long normalizedEnd() {
+        return _normalizedEnd;
+    }
+
+    public DataType dataType() {
+        return _dataType;
+    }
+
     @Override
     public String toString() {
         return "between " + _start + " and " + _end;
@@ -22,6 +22,10 @@ public class BooleanMatcher implements Matcher {
         return valueAsBoolean != null && valueAsBoolean == _booleanValue;
     }
 
+    public boolean booleanValue() {
+        return _booleanValue;
+    }
+
     @Override
     public String toString() {
         return "is " + _booleanValue;
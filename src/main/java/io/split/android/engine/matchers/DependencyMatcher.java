@@ -18,6 +18,10 @@ public class DependencyMatcher implements Matcher {
         _treatments = treatments;
     }
 
+    public String split() {
+        return _split;
+    }
+
     @Override
     public boolean match(Object matchValue, String bucketingKey, Map<String, Object> attributes, Evaluator evaluator) {
         if (matchValue == null) {
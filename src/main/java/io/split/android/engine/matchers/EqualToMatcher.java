@@ -37,6 +37,14 @@ public class EqualToMatcher implements Matcher {
     }
 
 
+    public long normalizedCompareTo() {
+        return _normalizedCompareTo;
+    }
+
+    public DataType dataType() {
+        return _dataType;
+    }
+
     @Override
     public String toString() {
         return "== " + _compareTo;
@@ -43,6 +43,14 @@ public class GreaterThanOrEqualToMatcher implements Matcher {
         return keyAsLong >= _normalizedCompareTo;
     }
 
+    public long normalizedCompareTo() {
+        return _normalizedCompareTo;
+    }
+
+    public DataType dataType() {
+        return _dataType;
+    }
+
     @Override
     public String toString() {
         return ">= " + _compareTo;
@@ -39,6 +39,14 @@ public class LessThanOrEqualToMatcher implements Matcher {
         return keyAsLong <= _normalizedCompareTo;
     }
 
+    public long normalizedCompareTo() {
+        return _normalizedCompareTo;
+    }
+
+    public DataType dataType() {
+        return _dataType;
+    }
+
     @Override
     public String toString() {
         return "<= " + _compareTo;
@@ -1,10 +1,10 @@
 package io.split.android.engine.matchers;
 
 import java.util.Map;
-import java.util.Set;
 
 import io.split.android.client.Evaluator;
-import io.split.android.engine.segments.MySegments;
+import io.split.android.client.storage.mysegments.MySegmentsStorage;
+import io.split.android.client.storage.mysegments.SegmentIds;
 
 /**
  * Created by guillermo on 12/12/17.
@@ -12,16 +12,29 @@ import io.split.android.engine.segments.MySegments;
 
 public class MySegmentsMatcher implements Matcher {
 
-    private Set<String> _mySegments;
+    private MySegmentsStorage _mySegmentsStorage;
     private String _segmentName;
+    private int _segmentId;
 
-    public MySegmentsMatcher(Set<String> mySegments, String segmentName) {
-        _mySegments = mySegments;
+    public MySegmentsMatcher(MySegmentsStorage mySegmentsStorage, String segmentName) {
+        _mySegmentsStorage = mySegmentsStorage;
         _segmentName = segmentName;
+        _segmentId = SegmentIds.idFor(segmentName);
     }
 
     @Override
     public boolean match(Object matchValue, String bucketingKey, Map<String, Object> attributes, Evaluator evaluator) {
-        return _mySegments.contains(_segmentName);
+        if (_segmentId == SegmentIds.NO_ID) {
+            return _mySegmentsStorage.getSnapshot().names().contains(_segmentName);
+        }
+        return _mySegmentsStorage.getSnapshot().contains(_segmentId);
+    }
+
+    public String segmentName() {
+        return _segmentName;
+    }
+
+    public int segmentId() {
+        return _segmentId;
     }
 }
@@ -2,16 +2,15 @@ package io.split.android.engine.matchers;
 
 import com.google.common.collect.Sets;
 
-import java.util.Calendar;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Set;
-import java.util.TimeZone;
 
 public class Transformers {
     private static Set<String> VALID_BOOLEAN_STRINGS = Sets.newHashSet("true", "false");
-    private static TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long MINUTE_IN_MILLIS = 60L * 1000L;
+    private static final long DAY_IN_MILLIS = 24L * 60L * MINUTE_IN_MILLIS;
 
     public static Long asLong(Object obj) {
         if (obj == null) {
@@ -30,32 +29,47 @@ public class Transformers {
     }
 
     public static Long asDate(Object obj) {
-        Calendar c = toCalendar(obj);
+        Long millisecondsSinceEpoch = asLong(obj);
 
-        if (c == null) {
+        if (millisecondsSinceEpoch == null) {
             return null;
         }
 
-        c.set(Calendar.HOUR_OF_DAY, 0);
-        c.set(Calendar.MINUTE, 0);
-        c.set(Calendar.SECOND, 0);
-        c.set(Calendar.MILLISECOND, 0);
-
-        return c.getTimeInMillis();
+        return truncateToDay(millisecondsSinceEpoch);
     }
 
     public static Long asDateHourMinute(Object obj) {
+        Long millisecondsSinceEpoch = asLong(obj);
 
-        Calendar c = toCalendar(obj);
-
-        if (c == null) {
+        if (millisecondsSinceEpoch == null) {
             return null;
         }
 
-        c.set(Calendar.SECOND, 0);
-        c.set(Calendar.MILLISECOND, 0);
+        return truncateToMinute(millisecondsSinceEpoch);
+    }
+
+    /**
+     * Start of the UTC day of the given time.
+     * Same as clearing the time fields of a UTC calendar, without creating one.
+     */
+    public static long truncateToDay(long millisecondsSinceEpoch) {
+        return truncate(millisecondsSinceEpoch, DAY_IN_MILLIS);
+    }
 
-        return c.getTimeInMillis();
+    /**
+     * Start of the minute of the given time.
+     * Same as clearing seconds and milliseconds of a UTC calendar, without creating one.
+     */
+    public static long truncateToMinute(long millisecondsSinceEpoch) {
+        return truncate(millisecondsSinceEpoch, MINUTE_IN_MILLIS);
+    }
+
+    private static long truncate(long millis, long unit) {
+        long remainder = millis % unit;
+        if (remainder < 0) {
+            remainder += unit;
+        }
+        return millis - remainder;
     }
 
     public static Boolean asBoolean(Object obj) {
@@ -76,20 +90,6 @@ public class Transformers {
         return null;
     }
 
-    private static Calendar toCalendar(Object obj) {
-        Long millisecondsSinceEpoch = asLong(obj);
-
-        if (millisecondsSinceEpoch == null) {
-            return null;
-        }
-
-        Calendar c = Calendar.getInstance();
-        c.setTimeZone(UTC);
-        c.setTimeInMillis(millisecondsSinceEpoch);
-
-        return c;
-    }
-
 
     public static Set<String> toSetOfStrings(Collection key) {
         Set<String> result = new HashSet<String>(key.size());
@@ -37,6 +37,10 @@ public class ContainsAllOfSetMatcher implements Matcher {
         return keyAsSet.containsAll(_compareTo);
     }
 
+    public Set<String> compareTo() {
+        return _compareTo;
+    }
+
     @Override
     public String toString() {
         return "contains all of " + _compareTo;
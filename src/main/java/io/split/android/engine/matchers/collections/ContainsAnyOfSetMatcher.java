@@ -43,6 +43,10 @@ public class ContainsAnyOfSetMatcher implements Matcher {
     }
 
 
+    public Set<String> compareTo() {
+        return _compareTo;
+    }
+
     @Override
     public String toString() {
         return "contains any of " + _compareTo;
@@ -35,6 +35,10 @@ public class EqualToSetMatcher implements Matcher {
         return keyAsSet.equals(_compareTo);
     }
 
+    public Set<String> compareTo() {
+        return _compareTo;
+    }
+
     @Override
     public String toString() {
         return "is equal to  " + _compareTo;
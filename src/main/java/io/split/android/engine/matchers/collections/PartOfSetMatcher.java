@@ -39,6 +39,10 @@ public class PartOfSetMatcher implements Matcher {
         return _compareTo.containsAll(keyAsSet);
     }
 
+    public Set<String> compareTo() {
+        return _compareTo;
+    }
+
     @Override
     public String toString() {
         return "is part of " + _compareTo;
@@ -11,12 +11,14 @@ import java.util.Set;
 public class EndsWithAnyOfMatcher implements Matcher {
 
     private final Set<String> _compareTo = new HashSet<>();
+    private final StringAutomaton _automaton;
 
     public EndsWithAnyOfMatcher(Collection<String> compareTo) {
         if (compareTo == null) {
             throw new IllegalArgumentException("Null whitelist");
         }
         _compareTo.addAll(compareTo);
+        _automaton = StringAutomaton.suffixes(_compareTo);
     }
 
     @Override
@@ -34,22 +36,19 @@ public class EndsWithAnyOfMatcher implements Matcher {
             return false;
         }
 
-        String keyAsString = (String) matchValue;
+        // empty strings are ignored by the automaton.
+        return _automaton.matches((String) matchValue);
+    }
 
-        for (String s : _compareTo) {
-            if (s.isEmpty()) {
-                // ignore empty strings.
-                continue;
-            }
-            if (keyAsString.endsWith(s)) {
-                return true;
-            }
-        }
 
-        return false;
-    }
 
+    public Set<String> compareTo() {
+        return _compareTo;
+    }
 
+    public StringAutomaton automaton() {
+        return _automaton;
+    }
 
     @Override
     public String toString() {
@@ -29,6 +29,10 @@ public class RegularExpressionMatcher implements Matcher {
         return false;
     }
 
+    public Pattern pattern() {
+        return _pattern;
+    }
+
     @Override
     public String toString() {
         return "matches " + _stringMatcher;
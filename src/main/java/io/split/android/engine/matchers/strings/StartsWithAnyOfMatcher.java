@@ -11,12 +11,14 @@ import java.util.Set;
 public class StartsWithAnyOfMatcher implements Matcher {
 
     private final Set<String> _compareTo = new HashSet<>();
+    private final StringAutomaton _automaton;
 
     public StartsWithAnyOfMatcher(Collection<String> compareTo) {
         if (compareTo == null) {
             throw new IllegalArgumentException("Null whitelist");
         }
         _compareTo.addAll(compareTo);
+        _automaton = StringAutomaton.prefixes(_compareTo);
     }
 
     @Override
@@ -33,23 +35,19 @@ public class StartsWithAnyOfMatcher implements Matcher {
             return false;
         }
 
-        String keyAsString = (String) matchValue;
+        // empty strings are ignored by the automaton.
+        return _automaton.matches((String) matchValue);
+    }
 
-        for (String s : _compareTo) {
-            if (s.isEmpty()) {
-                // ignore empty strings.
-                continue;
-            }
-            if (keyAsString.startsWith(s)) {
-                return true;
-            }
 
-        }
 
-        return false;
+    public Set<String> compareTo() {
+        return _compareTo;
     }
 
-
+    public StringAutomaton automaton() {
+        return _automaton;
+    }
 
     @Override
     public String toString() {
@@ -0,0 +1,202 @@
+package io.split.android.engine.matchers.strings;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Matches a string against a list of prefixes, suffixes or substrings
+ * in time proportional to the length of the string instead of to the list size.
+ * Prefixes and suffixes are kept in a trie, the latter with reversed strings,
+ * and substrings in an Aho-Corasick automaton built over the same trie.
+ * Nodes are stored in flat arrays with the edges of each node sorted by char.
+ * Empty strings are ignored, as they are by the matchers.
+ * Instances are immutable.
+ */
+public final class StringAutomaton {
+
+    private static final int PREFIX = 0;
+    private static final int SUFFIX = 1;
+    private static final int SUBSTRING = 2;
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private final int mMode;
+    private final int[] mEdgeOffsets;
+    private final char[] mEdgeChars;
+    private final int[] mEdgeTargets;
+    private final boolean[] mTerminal;
+    private final int[] mFail;
+
+    private StringAutomaton(int mode, Collection<String> values) {
+        mMode = mode;
+
+        List<TreeMap<Character, Integer>> edges = new ArrayList<>();
+        List<Boolean> terminal = new ArrayList<>();
+        edges.add(new TreeMap<Character, Integer>());
+        terminal.add(false);
+        for (String value : values) {
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            int node = ROOT;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(mode == SUFFIX ? value.length() - 1 - i : i);
+                Integer next = edges.get(node).get(c);
+                if (next == null) {
+                    next = edges.size();
+                    edges.add(new TreeMap<Character, Integer>());
+                    terminal.add(false);
+                    edges.get(node).put(c, next);
+                }
+                node = next;
+            }
+            terminal.set(node, true);
+        }
+
+        int nodeCount = edges.size();
+        mEdgeOffsets = new int[nodeCount + 1];
+        mEdgeChars = new char[nodeCount - 1];
+        mEdgeTargets = new int[nodeCount - 1];
+        mTerminal = new boolean[nodeCount];
+        int edge = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            mEdgeOffsets[node] = edge;
+            mTerminal[node] = terminal.get(node);
+            for (Map.Entry<Character, Integer> entry : edges.get(node).entrySet()) {
+                mEdgeChars[edge] = entry.getKey();
+                mEdgeTargets[edge] = entry.getValue();
+                edge++;
+            }
+        }
+        mEdgeOffsets[nodeCount] = edge;
+        mFail = mode == SUBSTRING ? buildFailLinks(nodeCount) : null;
+    }
+
+    public static @NonNull StringAutomaton prefixes(@NonNull Collection<String> values) {
+        return new StringAutomaton(PREFIX, values);
+    }
+
+    public static @NonNull StringAutomaton suffixes(@NonNull Collection<String> values) {
+        return new StringAutomaton(SUFFIX, values);
+    }
+
+    public static @NonNull StringAutomaton substrings(@NonNull Collection<String> values) {
+        return new StringAutomaton(SUBSTRING, values);
+    }
+
+    /**
+     * True if the value starts with, ends with or contains (depending on how
+     * the automaton was built) any of the non empty strings it was built with.
+     */
+    public boolean matches(@NonNull String value) {
+        switch (mMode) {
+            case PREFIX:
+                return matchesPrefix(value);
+            case SUFFIX:
+                return matchesSuffix(value);
+            default:
+                return matchesSubstring(value);
+        }
+    }
+
+    private boolean matchesPrefix(String value) {
+        int node = ROOT;
+        for (int i = 0; i < value.length(); i++) {
+            node = child(node, value.charAt(i));
+            if (node == NONE) {
+                return false;
+            }
+            if (mTerminal[node]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesSuffix(String value) {
+        int node = ROOT;
+        for (int i = value.length() - 1; i >= 0; i--) {
+            node = child(node, value.charAt(i));
+            if (node == NONE) {
+                return false;
+            }
+            if (mTerminal[node]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesSubstring(String value) {
+        int node = ROOT;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int next = child(node, c);
+            while (next == NONE && node != ROOT) {
+                node = mFail[node];
+                next = child(node, c);
+            }
+            node = next == NONE ? ROOT : next;
+            if (mTerminal[node]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int child(int node, char c) {
+        int low = mEdgeOffsets[node];
+        int high = mEdgeOffsets[node + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char edgeChar = mEdgeChars[middle];
+            if (edgeChar < c) {
+                low = middle + 1;
+            } else if (edgeChar > c) {
+                high = middle - 1;
+            } else {
+                return mEdgeTargets[middle];
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Breadth first, so that the fail link of a node is set before the ones of its children.
+     * A node is also marked terminal when its fail link is, given that reaching it
+     * means a shorter string has been matched too.
+     */
+    private int[] buildFailLinks(int nodeCount) {
+        int[] fail = new int[nodeCount];
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int edge = mEdgeOffsets[ROOT]; edge < mEdgeOffsets[ROOT + 1]; edge++) {
+            fail[mEdgeTargets[edge]] = ROOT;
+            queue[tail++] = mEdgeTargets[edge];
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            for (int edge = mEdgeOffsets[node]; edge < mEdgeOffsets[node + 1]; edge++) {
+                char c = mEdgeChars[edge];
+                int target = mEdgeTargets[edge];
+                int failNode = fail[node];
+                int failTarget = child(failNode, c);
+                while (failTarget == NONE && failNode != ROOT) {
+                    failNode = fail[failNode];
+                    failTarget = child(failNode, c);
+                }
+                fail[target] = failTarget == NONE ? ROOT : failTarget;
+                mTerminal[target] |= mTerminal[fail[target]];
+                queue[tail++] = target;
+            }
+        }
+        return fail;
+    }
+}
@@ -24,6 +24,10 @@ public class WhitelistMatcher implements Matcher {
         return _whitelist.contains(matchValue);
     }
 
+    public Set<String> whitelist() {
+        return _whitelist;
+    }
+
     @Override
     public String toString() {
         StringBuilder bldr = new StringBuilder();
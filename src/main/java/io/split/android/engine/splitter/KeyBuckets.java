@@ -0,0 +1,116 @@
+package io.split.android.engine.splitter;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Buckets for a single bucketing key, by seed and algo.
+ * Every split hashes the key with its own seeds, so once a key has been
+ * evaluated against a split the following evaluations only need a lookup here.
+ * Entries are kept in an open addressing table to avoid boxing on lookups.
+ * Each entry packs seed, algo and bucket in a single long, so lookups from several
+ * threads don't take any lock. An entry lost to a concurrent insert or resize
+ * is just computed again.
+ */
+public class KeyBuckets {
+
+    private static final int INITIAL_CAPACITY = 64;
+    // Seeds from removed splits are never read again,
+    // so the table is dropped when it gets this big
+    private static final int MAX_ENTRIES = 1 << 14;
+    // Bucket in the lowest byte, algo in the next one and seed in the high half
+    private static final long BUCKET_MASK = 0xffL;
+    private static final int MAX_ALGO = 0xff;
+
+    private final String mKey;
+    // 0 means empty slot, buckets go from 1 to 100
+    private volatile AtomicLongArray mEntries;
+    private final AtomicInteger mSize = new AtomicInteger(0);
+
+    public KeyBuckets(@NonNull String key) {
+        mKey = checkNotNull(key);
+        mEntries = new AtomicLongArray(INITIAL_CAPACITY);
+    }
+
+    public @NonNull String key() {
+        return mKey;
+    }
+
+    /**
+     * Returns the same bucket as {@link Splitter#getBucket(String, int, int)} for this key.
+     */
+    public int getBucket(int seed, int algo) {
+        if (algo < 0 || algo > MAX_ALGO) {
+            return Splitter.getBucket(mKey, seed, algo);
+        }
+        long seedAlgo = seedAlgo(seed, algo);
+        AtomicLongArray entries = mEntries;
+        int mask = entries.length() - 1;
+        int i = slot(seedAlgo, mask);
+        long entry;
+        while ((entry = entries.get(i)) != 0) {
+            if ((entry & ~BUCKET_MASK) == seedAlgo) {
+                return (int) (entry & BUCKET_MASK);
+            }
+            i = (i + 1) & mask;
+        }
+
+        int bucket = Splitter.getBucket(mKey, seed, algo);
+        if (entries.compareAndSet(i, 0, seedAlgo | bucket)) {
+            int size = mSize.incrementAndGet();
+            if (size >= MAX_ENTRIES) {
+                reset(entries);
+            } else if (size * 2 > entries.length()) {
+                grow(entries);
+            }
+        }
+        return bucket;
+    }
+
+    public int size() {
+        return mSize.get();
+    }
+
+    private synchronized void grow(AtomicLongArray entries) {
+        if (mEntries != entries) {
+            return;
+        }
+        AtomicLongArray grown = new AtomicLongArray(entries.length() * 2);
+        int mask = grown.length() - 1;
+        int size = 0;
+        for (int j = 0; j < entries.length(); j++) {
+            long entry = entries.get(j);
+            if (entry != 0) {
+                int i = slot(entry & ~BUCKET_MASK, mask);
+                while (grown.get(i) != 0) {
+                    i = (i + 1) & mask;
+                }
+                grown.set(i, entry);
+                size++;
+            }
+        }
+        mSize.set(size);
+        mEntries = grown;
+    }
+
+    private synchronized void reset(AtomicLongArray entries) {
+        if (mEntries != entries) {
+            return;
+        }
+        mSize.set(0);
+        mEntries = new AtomicLongArray(INITIAL_CAPACITY);
+    }
+
+    private static long seedAlgo(int seed, int algo) {
+        return ((long) seed << 32) | ((long) algo << 8);
+    }
+
+    private static int slot(long seedAlgo, int mask) {
+        long h = seedAlgo * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -29,6 +29,23 @@ public class Splitter {
         return getTreatment(bucket(hash(key, seed, algo)), partitions);
     }
 
+    /**
+     * Same as {@link #getTreatment(String, int, List, int)} but taking
+     * the bucket for the key from the given ones instead of hashing it.
+     */
+    public static String getTreatment(KeyBuckets keyBuckets, int seed, List<Partition> partitions, int algo) {
+
+        if (partitions.isEmpty()) {
+            return Treatments.CONTROL;
+        }
+
+        if (hundredPercentOneTreatment(partitions)) {
+            return partitions.get(0).treatment;
+        }
+
+        return getTreatment(keyBuckets.getBucket(seed, algo), partitions);
+    }
+
     static long hash(String key, int seed, int algo) {
         switch (algo) {
             case ALGO_MURMUR:
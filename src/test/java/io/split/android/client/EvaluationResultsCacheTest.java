@@ -0,0 +1,116 @@
+package io.split.android.client;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.split.android.client.storage.mysegments.MySegmentsSnapshot;
+
+public class EvaluationResultsCacheTest {
+
+    EvaluationResultsCache mCache;
+    MySegmentsSnapshot mMySegments;
+    EvaluationResult mResult;
+
+    @Before
+    public void setup() {
+        mCache = new EvaluationResultsCache(2);
+        mMySegments = MySegmentsSnapshot.of(Arrays.asList("s1"));
+        mResult = new EvaluationResult("on", "default rule", 1L, null);
+    }
+
+    @Test
+    public void sameAttributesHit() {
+        mCache.put("split", "key", null, attributes(10), 1, mMySegments, mResult);
+
+        Assert.assertSame(mResult, mCache.get("split", "key", null, attributes(10), 1, mMySegments));
+    }
+
+    @Test
+    public void nullAttributes() {
+        mCache.put("split", "key", null, null, 1, mMySegments, mResult);
+
+        Assert.assertSame(mResult, mCache.get("split", "key", null, null, 1, mMySegments));
+        Assert.assertNull(mCache.get("split", "key", null, new HashMap<>(), 1, mMySegments));
+    }
+
+    @Test
+    public void differentAttributesMiss() {
+        mCache.put("split", "key", null, attributes(10), 1, mMySegments, mResult);
+
+        Assert.assertNull(mCache.get("split", "key", null, attributes(11), 1, mMySegments));
+        Assert.assertNull(mCache.get("other_split", "key", null, attributes(10), 1, mMySegments));
+    }
+
+    @Test
+    public void differentKeysMiss() {
+        mCache.put("split", "key", "bucketing", null, 1, mMySegments, mResult);
+
+        Assert.assertNull(mCache.get("split", "other_key", "bucketing", null, 1, mMySegments));
+        Assert.assertNull(mCache.get("split", "key", null, null, 1, mMySegments));
+    }
+
+    @Test
+    public void newSplitsVersionMiss() {
+        mCache.put("split", "key", null, null, 1, mMySegments, mResult);
+
+        Assert.assertNull(mCache.get("split", "key", null, null, 2, mMySegments));
+        Assert.assertEquals(0, mCache.size());
+    }
+
+    @Test
+    public void newMySegmentsSnapshotMiss() {
+        mCache.put("split", "key", null, null, 1, mMySegments, mResult);
+
+        Assert.assertNull(mCache.get("split", "key", null, null, 1, MySegmentsSnapshot.of(Arrays.asList("s1"))));
+    }
+
+    @Test
+    public void changingStoredAttributesDoesNotAffectEntry() {
+        List<String> values = new ArrayList<>(Arrays.asList("a", "b"));
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("list", values);
+        mCache.put("split", "key", null, attributes, 1, mMySegments, mResult);
+
+        values.add("c");
+
+        Assert.assertNull(mCache.get("split", "key", null, attributes, 1, mMySegments));
+        Map<String, Object> original = new HashMap<>();
+        original.put("list", Arrays.asList("a", "b"));
+        Assert.assertSame(mResult, mCache.get("split", "key", null, original, 1, mMySegments));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        mCache.put("split1", "key", null, null, 1, mMySegments, mResult);
+        mCache.put("split2", "key", null, null, 1, mMySegments, mResult);
+        mCache.get("split1", "key", null, null, 1, mMySegments);
+        mCache.put("split3", "key", null, null, 1, mMySegments, mResult);
+
+        Assert.assertEquals(2, mCache.size());
+        Assert.assertNotNull(mCache.get("split1", "key", null, null, 1, mMySegments));
+        Assert.assertNull(mCache.get("split2", "key", null, null, 1, mMySegments));
+        Assert.assertNotNull(mCache.get("split3", "key", null, null, 1, mMySegments));
+    }
+
+    @Test
+    public void clear() {
+        mCache.put("split", "key", null, null, 1, mMySegments, mResult);
+        mCache.clear();
+
+        Assert.assertNull(mCache.get("split", "key", null, null, 1, mMySegments));
+    }
+
+    private Map<String, Object> attributes(int age) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("age", age);
+        attributes.put("name", "value");
+        return attributes;
+    }
+}
@@ -0,0 +1,48 @@
+package io.split.android.client;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+
+import io.split.android.client.network.HttpClient;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SplitFactoryHelperTest {
+
+    private HttpClient mHttpClient;
+    private SplitFactoryHelper mHelper;
+
+    @Before
+    public void setup() {
+        mHttpClient = mock(HttpClient.class);
+        mHelper = new SplitFactoryHelper();
+    }
+
+    @Test
+    public void prewarmSdkHostOnly() {
+        SplitClientConfig config = SplitClientConfig.builder().build();
+
+        mHelper.prewarmConnection(mHttpClient, config, "user key");
+
+        verify(mHttpClient, times(1)).prewarm(any(URI.class));
+        verify(mHttpClient, times(1)).prewarm(URI.create(config.endpoint() + "/mySegments/user+key"));
+    }
+
+    @Test
+    public void noPrewarmForInvalidEndpoint() {
+        ServiceEndpoints endpoints = ServiceEndpoints.builder()
+                .apiEndpoint("https://sdk .local/api")
+                .build();
+        SplitClientConfig config = SplitClientConfig.builder().serviceEndpoints(endpoints).build();
+
+        mHelper.prewarmConnection(mHttpClient, config, "key");
+
+        verify(mHttpClient, never()).prewarm(any(URI.class));
+    }
+}
@@ -5,6 +5,7 @@ import com.google.common.base.Strings;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -14,10 +15,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import io.split.android.client.dtos.Condition;
+import io.split.android.client.dtos.Partition;
 import io.split.android.client.dtos.Split;
 import io.split.android.client.events.ISplitEventsManager;
+import io.split.android.client.impressions.BatchImpressionListener;
+import io.split.android.client.impressions.Impression;
 import io.split.android.client.impressions.ImpressionListener;
+import io.split.android.client.storage.mysegments.MySegmentsSnapshot;
 import io.split.android.client.storage.mysegments.MySegmentsStorage;
+import io.split.android.client.storage.splits.InMemorySplitsSnapshot;
 import io.split.android.client.storage.splits.SplitsStorage;
 import io.split.android.client.validators.KeyValidatorImpl;
 import io.split.android.client.validators.SplitValidatorImpl;
@@ -25,6 +32,8 @@ import io.split.android.client.validators.TreatmentManager;
 import io.split.android.client.validators.TreatmentManagerImpl;
 import io.split.android.engine.experiments.SplitFetcher;
 import io.split.android.engine.experiments.SplitParser;
+import io.split.android.engine.matchers.AllKeysMatcher;
+import io.split.android.engine.matchers.CombiningMatcher;
 import io.split.android.engine.metrics.Metrics;
 import io.split.android.engine.segments.RefreshableMySegmentsFetcherProvider;
 import io.split.android.fake.ImpressionListenerMock;
@@ -33,8 +42,13 @@ import io.split.android.fake.RefreshableMySegmentsFetcherProviderStub;
 import io.split.android.fake.SplitEventsManagerStub;
 import io.split.android.grammar.Treatments;
 import io.split.android.helpers.FileHelper;
+import io.split.android.helpers.SplitHelper;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SuppressWarnings("ConstantConditions")
@@ -59,11 +73,13 @@ public class TreatmentManagerTest {
 
             Map<String, Split> splitsMap = splitsMap(splits);
             when(splitsStorage.getAll()).thenReturn(splitsMap);
+            when(splitsStorage.getInMemorySnapshot()).thenReturn(InMemorySplitsSnapshot.of(splits, 1, 0));
             when(splitsStorage.get("FACUNDO_TEST")).thenReturn(splitsMap.get("FACUNDO_TEST"));
             when(splitsStorage.get("testo2222")).thenReturn(splitsMap.get("testo2222"));
             when(splitsStorage.get("Test")).thenReturn(splitsMap.get("Test"));
 
             when(mySegmentsStorage.getAll()).thenReturn(mySegments);
+            when(mySegmentsStorage.getSnapshot()).thenReturn(MySegmentsSnapshot.of(mySegments));
 
             evaluator = new EvaluatorImpl(splitsStorage, splitParser);
         }
@@ -123,6 +139,43 @@ public class TreatmentManagerTest {
         Assert.assertNotNull(r3.config());
     }
 
+    @Test
+    public void testImpressionsLoggedAsBatch() {
+        String matchingKey = "thekey";
+        List<String> splitList = Arrays.asList("FACUNDO_TEST", "testo2222", "Test", "not_exists");
+        BatchImpressionListener batchListener = mock(BatchImpressionListener.class);
+        ArgumentCaptor<List<Impression>> impressionsCaptor = ArgumentCaptor.forClass(List.class);
+
+        TreatmentManager treatmentManager = createTreatmentManager(matchingKey, matchingKey, batchListener);
+        treatmentManager.getTreatments(splitList, null, false);
+
+        verify(batchListener, times(1)).logBatch(impressionsCaptor.capture());
+        verify(batchListener, never()).log(any());
+        List<Impression> impressions = impressionsCaptor.getValue();
+        Assert.assertEquals(3, impressions.size());
+        Assert.assertEquals("FACUNDO_TEST", impressions.get(0).split());
+        Assert.assertEquals("testo2222", impressions.get(1).split());
+        Assert.assertEquals("Test", impressions.get(2).split());
+    }
+
+    @Test
+    public void testBatchEvaluatedAgainstOneSplitsSnapshot() {
+        SplitsStorage splitsStorage = mock(SplitsStorage.class);
+        MySegmentsStorage mySegmentsStorage = mock(MySegmentsStorage.class);
+        when(mySegmentsStorage.getSnapshot()).thenReturn(MySegmentsSnapshot.of(new HashSet<>()));
+        when(splitsStorage.getInMemorySnapshot()).thenReturn(
+                InMemorySplitsSnapshot.of(Arrays.asList(split("a", false), split("b", false)), 1, 0),
+                InMemorySplitsSnapshot.of(Arrays.asList(split("a", true), split("b", true)), 2, 0));
+        evaluator = new EvaluatorImpl(splitsStorage, new SplitParser(mySegmentsStorage));
+
+        TreatmentManager treatmentManager = createTreatmentManager("thekey", "thekey");
+        Map<String, String> treatments = treatmentManager.getTreatments(Arrays.asList("a", "b"), null, false);
+
+        Assert.assertEquals("on", treatments.get("a"));
+        Assert.assertEquals("on", treatments.get("b"));
+        verify(splitsStorage, times(1)).getInMemorySnapshot();
+    }
+
     @Test
     public void testClientIsDestroyed() {
         String matchingKey = "nico_test";
@@ -252,6 +305,11 @@ public class TreatmentManagerTest {
     }
 
     private TreatmentManager createTreatmentManager(String matchingKey, String bucketingKey) {
+        return createTreatmentManager(matchingKey, bucketingKey, new ImpressionListenerMock());
+    }
+
+    private TreatmentManager createTreatmentManager(String matchingKey, String bucketingKey,
+                                                    ImpressionListener impressionListener) {
 
         FileHelper fileHelper = new FileHelper();
         List<String> mySegments = Arrays.asList("s1", "s2", "test_copy");
@@ -262,7 +320,16 @@ public class TreatmentManagerTest {
         return new TreatmentManagerImpl(
                 matchingKey, bucketingKey, evaluator,
                 new KeyValidatorImpl(), new SplitValidatorImpl(), new MetricsMock(),
-                new ImpressionListenerMock(), config, eventsManagerStub);
+                impressionListener, config, eventsManagerStub);
+    }
+
+    private Split split(String name, boolean killed) {
+        Partition partition = new Partition();
+        partition.treatment = "on";
+        partition.size = 100;
+        Condition condition = SplitHelper.createCondition(CombiningMatcher.of(new AllKeysMatcher()), Arrays.asList(partition));
+        condition.label = "default rule";
+        return SplitHelper.createSplit(name, 1, killed, "off", Arrays.asList(condition), null, killed ? 2 : 1, 2, null);
     }
 
     private Map<String, Split> splitsMap(List<Split> splits) {
@@ -0,0 +1,70 @@
+package io.split.android.client.network;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+
+public class ConnectivityMonitorTest {
+
+    private static final URI SDK_URI = URI.create("https://sdk.split.io/api/splitChanges");
+    private static final URI EVENTS_URI = URI.create("https://events.split.io/api/events/bulk");
+
+    private ConnectivityMonitor mMonitor;
+
+    @Before
+    public void setup() {
+        mMonitor = new ConnectivityMonitor(60000);
+    }
+
+    @Test
+    public void reachableByDefault() {
+        Assert.assertTrue(mMonitor.isReachable(SDK_URI));
+    }
+
+    @Test
+    public void notReachableWithoutNetwork() {
+        mMonitor.onNetworkChanged(false);
+
+        Assert.assertFalse(mMonitor.isReachable(SDK_URI));
+        Assert.assertFalse(mMonitor.isReachable(EVENTS_URI));
+
+        mMonitor.onNetworkChanged(true);
+
+        Assert.assertTrue(mMonitor.isReachable(SDK_URI));
+    }
+
+    @Test
+    public void failedHostNotReachableUntilSuccess() {
+        mMonitor.reportUnreachable(SDK_URI);
+
+        Assert.assertFalse(mMonitor.isReachable(URI.create("https://sdk.split.io/api/mySegments/key")));
+        Assert.assertTrue(mMonitor.isReachable(EVENTS_URI));
+
+        mMonitor.reportReachable(SDK_URI);
+
+        Assert.assertTrue(mMonitor.isReachable(SDK_URI));
+    }
+
+    @Test
+    public void failedHostReachableAgainAfterRetryTime() throws InterruptedException {
+        ConnectivityMonitor monitor = new ConnectivityMonitor(50);
+
+        monitor.reportUnreachable(SDK_URI);
+        boolean reachableAfterFailure = monitor.isReachable(SDK_URI);
+        Thread.sleep(100);
+
+        Assert.assertFalse(reachableAfterFailure);
+        Assert.assertTrue(monitor.isReachable(SDK_URI));
+    }
+
+    @Test
+    public void failuresClearedWhenNetworkChanges() {
+        mMonitor.reportUnreachable(SDK_URI);
+
+        mMonitor.onNetworkChanged(true);
+
+        Assert.assertTrue(mMonitor.isReachable(SDK_URI));
+    }
+}
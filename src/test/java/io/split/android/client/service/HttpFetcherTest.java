@@ -7,6 +7,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.HashMap;
@@ -24,6 +27,7 @@ import io.split.android.client.network.HttpMethod;
 import io.split.android.client.network.HttpRequest;
 import io.split.android.client.network.HttpResponse;
 import io.split.android.client.network.HttpResponseImpl;
+import io.split.android.client.network.HttpStreamResponseImpl;
 import io.split.android.client.network.SdkTargetPath;
 import io.split.android.client.network.URIBuilder;
 import io.split.android.client.service.http.HttpFetcher;
@@ -43,6 +47,7 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -107,7 +112,7 @@ public class HttpFetcherTest {
         HttpRequest request = mock(HttpRequest.class);
 
         HttpResponse response = new HttpResponseImpl(200, dummySplitChangeResponse());
-        when(request.execute()).thenReturn(response);
+        stubResponse(request, response);
         when(mClientMock.request(uri, HttpMethod.GET, null, null)).thenReturn(request);
 
         HttpFetcher<SplitChange> fetcher = new HttpFetcherImpl<>(mClientMock, mSplitChangesUrl, mMetricsMock,
@@ -140,7 +145,7 @@ public class HttpFetcherTest {
         HttpRequest request = mock(HttpRequest.class);
 
         HttpResponse response = new HttpResponseImpl(200, dummySplitChangeResponse());
-        when(request.execute()).thenReturn(response);
+        stubResponse(request, response);
         when(mClientMock.request(uri, HttpMethod.GET, null, headers)).thenReturn(request);
 
         HttpFetcher<SplitChange> fetcher = new HttpFetcherImpl<>(mClientMock, mSplitChangesUrl, mMetricsMock,
@@ -166,7 +171,7 @@ public class HttpFetcherTest {
         HttpRequest request = mock(HttpRequest.class);
 
         HttpResponse response = new HttpResponseImpl(500, "");
-        when(request.execute()).thenReturn(response);
+        stubResponse(request, response);
         when(mClientMock.request(uri, HttpMethod.GET, null, null)).thenReturn(request);
 
         HttpFetcher<SplitChange> fetcher = new HttpFetcherImpl<>(mClientMock, mSplitChangesUrl, mMetricsMock,
@@ -192,7 +197,7 @@ public class HttpFetcherTest {
         HttpRequest request = mock(HttpRequest.class);
 
         HttpResponse response = new HttpResponseImpl(200, "");
-        when(request.execute()).thenReturn(response);
+        stubResponse(request, response);
         when(mClientMock.request(uri, HttpMethod.GET, null, null)).thenReturn(request);
 
         HttpFetcher<SplitChange> fetcher = new HttpFetcherImpl<>(mClientMock, mSplitChangesUrl, mMetricsMock,
@@ -219,7 +224,7 @@ public class HttpFetcherTest {
         HttpRequest request = mock(HttpRequest.class);
 
         HttpResponse response = new HttpResponseImpl(200, dummyMySegmentsResponse());
-        when(request.execute()).thenReturn(response);
+        stubResponse(request, response);
         when(mClientMock.request(mMySegmentsUrl, HttpMethod.GET, null, null)).thenReturn(request);
 
         HttpFetcher<List<MySegment>> fetcher = new HttpFetcherImpl<>(mClientMock, mMySegmentsUrl, mMetricsMock,
@@ -250,7 +255,7 @@ public class HttpFetcherTest {
         HttpRequest request = mock(HttpRequest.class);
 
         HttpResponse response = new HttpResponseImpl(200, dummyMySegmentsResponse());
-        when(request.execute()).thenReturn(response);
+        stubResponse(request, response);
         when(mClientMock.request(mMySegmentsUrl, HttpMethod.GET, null, headers)).thenReturn(request);
 
         HttpFetcher<List<MySegment>> fetcher = new HttpFetcherImpl<>(mClientMock, mMySegmentsUrl, mMetricsMock,
@@ -275,7 +280,7 @@ public class HttpFetcherTest {
         HttpRequest request = mock(HttpRequest.class);
 
         HttpResponse response = new HttpResponseImpl(200, "wrong response here");
-        when(request.execute()).thenReturn(response);
+        stubResponse(request, response);
         when(mClientMock.request(mMySegmentsUrl, HttpMethod.GET)).thenReturn(request);
 
 
@@ -292,6 +297,108 @@ public class HttpFetcherTest {
         Assert.assertTrue(exceptionWasThrown);
     }
 
+    @Test
+    public void responseParsedWhileRead() throws URISyntaxException, HttpException, HttpFetcherException {
+        URI uri = new URIBuilder(mSplitChangesUrl).addParameter("since", "" + -1).build();
+        when(mNetworkHelperMock.isReachable(mSplitChangesUrl)).thenReturn(true);
+        HttpRequest request = mock(HttpRequest.class);
+        final boolean[] closed = {false};
+        BufferedReader reader = new BufferedReader(new StringReader(dummySplitChangeResponse())) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        when(request.executeStreaming()).thenReturn(new HttpStreamResponseImpl(200, reader));
+        when(mClientMock.request(uri, HttpMethod.GET, null, null)).thenReturn(request);
+
+        HttpFetcher<SplitChange> fetcher = new HttpFetcherImpl<>(mClientMock, mSplitChangesUrl, mMetricsMock,
+                mMetricsSplitFetcherConfig, mNetworkHelperMock, mSplitChangeResponseParser);
+        Map<String, Object> params = new HashMap<>();
+        params.put("since", -1);
+        SplitChange change = fetcher.execute(params, null);
+
+        verify(request, never()).execute();
+        Assert.assertTrue(closed[0]);
+        Assert.assertEquals("sample_feature", change.splits.get(0).name);
+        Assert.assertEquals(100, change.till);
+    }
+
+    @Test
+    public void reachabilityReportedFromResponses() throws URISyntaxException, HttpException {
+        URI uri = new URIBuilder(mSplitChangesUrl).addParameter("since", "" + -1).build();
+        when(mNetworkHelperMock.isReachable(mSplitChangesUrl)).thenReturn(true);
+        HttpRequest request = mock(HttpRequest.class);
+        stubResponse(request, new HttpResponseImpl(500, null));
+        HttpRequest failedRequest = mock(HttpRequest.class);
+        when(failedRequest.executeStreaming()).thenThrow(new HttpException("Connection refused"));
+        when(mClientMock.request(uri, HttpMethod.GET, null, null)).thenReturn(request, failedRequest);
+
+        HttpFetcher<SplitChange> fetcher = new HttpFetcherImpl<>(mClientMock, mSplitChangesUrl, mMetricsMock,
+                mMetricsSplitFetcherConfig, mNetworkHelperMock, mSplitChangeResponseParser);
+        Map<String, Object> params = new HashMap<>();
+        params.put("since", -1);
+        for (int i = 0; i < 2; i++) {
+            try {
+                fetcher.execute(params, null);
+            } catch (HttpFetcherException e) {
+            }
+        }
+
+        // Error status still means host was reached
+        verify(mNetworkHelperMock, times(1)).reportReachable(mSplitChangesUrl);
+        verify(mNetworkHelperMock, times(1)).reportUnreachable(mSplitChangesUrl);
+    }
+
+    @Test
+    public void unreachableReportedWhenBodyReadFails() throws URISyntaxException, HttpException {
+        URI uri = new URIBuilder(mSplitChangesUrl).addParameter("since", "" + -1).build();
+        when(mNetworkHelperMock.isReachable(mSplitChangesUrl)).thenReturn(true);
+        HttpRequest request = mock(HttpRequest.class);
+        final String body = dummySplitChangeResponse();
+        BufferedReader reader = new BufferedReader(new StringReader(body) {
+            private int mRead = 0;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                if (mRead > 0) {
+                    throw new IOException("Connection reset");
+                }
+                mRead = super.read(buffer, offset, Math.min(length, body.length() / 2));
+                return mRead;
+            }
+        });
+        HttpRequest malformedRequest = mock(HttpRequest.class);
+        stubResponse(malformedRequest, new HttpResponseImpl(200, "{\"splits\":[}"));
+        when(request.executeStreaming()).thenReturn(new HttpStreamResponseImpl(200, reader));
+        when(mClientMock.request(uri, HttpMethod.GET, null, null)).thenReturn(request, malformedRequest);
+
+        HttpFetcher<SplitChange> fetcher = new HttpFetcherImpl<>(mClientMock, mSplitChangesUrl, mMetricsMock,
+                mMetricsSplitFetcherConfig, mNetworkHelperMock, mSplitChangeResponseParser);
+        Map<String, Object> params = new HashMap<>();
+        params.put("since", -1);
+        int failures = 0;
+        for (int i = 0; i < 2; i++) {
+            try {
+                fetcher.execute(params, null);
+            } catch (HttpFetcherException e) {
+                failures++;
+            }
+        }
+
+        // Only the connection error means host was lost, not the malformed body
+        Assert.assertEquals(2, failures);
+        verify(mNetworkHelperMock, times(1)).reportUnreachable(mSplitChangesUrl);
+    }
+
+    private void stubResponse(HttpRequest request, HttpResponse response) throws HttpException {
+        when(request.execute()).thenReturn(response);
+        String data = response.getData();
+        when(request.executeStreaming()).thenReturn(new HttpStreamResponseImpl(response.getHttpStatus(),
+                data != null ? new BufferedReader(new StringReader(data)) : null));
+    }
+
     private String dummySplitChangeResponse() {
         return "{\"splits\":[{\"name\":\"sample_feature\", \"status\":\"ACTIVE\"}],\n" +
                 "  \"since\":-1,\n" +
@@ -3,8 +3,10 @@ package io.split.android.client.service;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
+import java.io.StringWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -18,6 +20,7 @@ import io.split.android.client.network.HttpClient;
 import io.split.android.client.network.HttpException;
 import io.split.android.client.network.HttpMethod;
 import io.split.android.client.network.HttpRequest;
+import io.split.android.client.network.HttpRequestBodyWriter;
 import io.split.android.client.network.HttpResponse;
 import io.split.android.client.network.HttpResponseImpl;
 import io.split.android.client.network.SdkTargetPath;
@@ -31,7 +34,10 @@ import io.split.android.client.utils.Json;
 import io.split.android.client.utils.NetworkHelper;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -190,6 +196,62 @@ public class HttpRecorderTest {
 
     }
 
+    @Test
+    public void connectionErrorReportedAsUnreachable() throws HttpException {
+        List<Event> events = createEvents();
+        String jsonEvents = Json.toJson(events);
+        when(mNetworkHelperMock.isReachable(mEventsUrl)).thenReturn(true);
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.execute()).thenThrow(new HttpException("Connection refused"));
+        when(mClientMock.request(mEventsUrl, HttpMethod.POST, jsonEvents)).thenReturn(request);
+
+        HttpRecorder<List<Event>> recorder = new HttpRecorderImpl<>(mClientMock, mEventsUrl, mNetworkHelperMock, mEventsRequestSerializer);
+        boolean exceptionWasThrown = false;
+        try {
+            recorder.execute(events);
+        } catch (HttpRecorderException e) {
+            exceptionWasThrown = true;
+        }
+
+        Assert.assertTrue(exceptionWasThrown);
+        verify(mNetworkHelperMock, times(1)).reportUnreachable(mEventsUrl);
+        verify(mNetworkHelperMock, never()).reportReachable(any(URI.class));
+    }
+
+    @Test
+    public void gzipEventsSend() throws Exception {
+        List<Event> events = createEvents();
+        when(mNetworkHelperMock.isReachable(mEventsUrl)).thenReturn(true);
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.execute()).thenReturn(new HttpResponseImpl(200, ""));
+        when(mClientMock.gzipRequest(eq(mEventsUrl), eq(HttpMethod.POST), any(HttpRequestBodyWriter.class)))
+                .thenReturn(request);
+
+        HttpRecorder<List<Event>> recorder = new HttpRecorderImpl<>(mClientMock, mEventsUrl,
+                mNetworkHelperMock, mEventsRequestSerializer, true);
+        recorder.execute(events);
+
+        ArgumentCaptor<HttpRequestBodyWriter> bodyWriter = ArgumentCaptor.forClass(HttpRequestBodyWriter.class);
+        verify(mClientMock, times(1)).gzipRequest(eq(mEventsUrl), eq(HttpMethod.POST), bodyWriter.capture());
+        verify(mClientMock, never()).request(any(URI.class), any(HttpMethod.class), anyString());
+        verify(request, times(1)).execute();
+        StringWriter body = new StringWriter();
+        bodyWriter.getValue().writeTo(body);
+        Assert.assertEquals(Json.toJson(events), body.toString());
+    }
+
+    @Test
+    public void gzipImpressionsWriteSameBody() throws Exception {
+        List<KeyImpression> impressions = new ArrayList<>(createImpressions("feature_1"));
+        impressions.addAll(createImpressions("feature_2"));
+        ImpressionsRequestBodySerializer serializer = new ImpressionsRequestBodySerializer();
+
+        StringWriter body = new StringWriter();
+        serializer.serialize(impressions, body);
+
+        Assert.assertEquals(serializer.serialize(impressions), body.toString());
+    }
+
     private List<KeyImpression> createImpressions(String feature) {
         List<KeyImpression> impressions = new ArrayList<>();
         for(int i = 0; i <= 5; i++) {
@@ -17,7 +17,10 @@ import java.util.Map;
 
 import io.split.android.client.dtos.MySegment;
 import io.split.android.client.events.SplitEventsManager;
+import io.split.android.client.events.SplitInternalEvent;
 import io.split.android.client.network.SplitHttpHeadersBuilder;
+import io.split.android.client.service.executor.SplitTaskExecutionInfo;
+import io.split.android.client.service.executor.SplitTaskExecutionStatus;
 import io.split.android.client.service.http.HttpFetcher;
 import io.split.android.client.service.http.HttpFetcherException;
 import io.split.android.client.service.mysegments.MySegmentsSyncTask;
@@ -120,6 +123,18 @@ public class MySegmentsSyncTaskTest {
         verify(mySegmentsStorage, times(1)).set(any());
     }
 
+    @Test
+    public void notModifiedNothingStored() throws HttpFetcherException {
+        when(mMySegmentsFetcher.execute(noParams, null)).thenReturn(null);
+
+        SplitTaskExecutionInfo result = mTask.execute();
+
+        verify(mySegmentsStorage, never()).set(any());
+        verify(mySegmentsStorage, never()).getAll();
+        verify(mEventsManager, times(1)).notifyInternalEvent(SplitInternalEvent.MY_SEGMENTS_FETCHED);
+        Assert.assertEquals(SplitTaskExecutionStatus.SUCCESS, result.getStatus());
+    }
+
     @After
     public void tearDown() {
         reset(mMySegmentsFetcher);
@@ -0,0 +1,203 @@
+package io.split.android.client.service;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import io.split.android.client.dtos.MySegment;
+import io.split.android.client.events.SplitEventsManager;
+import io.split.android.client.events.SplitInternalEvent;
+import io.split.android.client.network.SplitHttpHeadersBuilder;
+import io.split.android.client.service.executor.SplitTaskExecutionStatus;
+import io.split.android.client.service.http.HttpFetcher;
+import io.split.android.client.service.mysegments.MySegmentsUpdater;
+import io.split.android.client.storage.mysegments.MySegmentsStorage;
+import io.split.android.client.storage.mysegments.MySegmentsStorageImpl;
+import io.split.android.client.storage.mysegments.PersistentMySegmentsStorage;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MySegmentsUpdaterTest {
+
+    @Mock
+    HttpFetcher<List<MySegment>> mFetcher;
+    @Mock
+    SplitEventsManager mEventsManager;
+
+    MySegmentsStorage mStorage;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        mStorage = spy(new MySegmentsStorageImpl(mock(PersistentMySegmentsStorage.class)));
+    }
+
+    @Test
+    public void olderPushedPayloadIgnored() {
+        MySegmentsUpdater updater = new MySegmentsUpdater(mFetcher, mStorage, mEventsManager);
+
+        updater.update(Arrays.asList("s1", "s2"), 200L);
+        updater.update(Arrays.asList("s1"), 100L);
+        updater.update(Arrays.asList("s1", "s2"), 200L);
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("s1", "s2")), mStorage.getAll());
+        verify(mStorage, never()).set(Arrays.asList("s1"));
+        verify(mEventsManager, times(1)).notifyInternalEvent(SplitInternalEvent.MY_SEGMENTS_UPDATED);
+    }
+
+    @Test
+    public void fetchSentBeforePushedPayloadDiscarded() throws Exception {
+        final MySegmentsUpdater updater = new MySegmentsUpdater(mFetcher, mStorage, mEventsManager);
+        when(mFetcher.execute(any(), isNull())).thenAnswer(new Answer<List<MySegment>>() {
+            @Override
+            public List<MySegment> answer(InvocationOnMock invocation) {
+                updater.update(Arrays.asList("s1", "s2"), 100L);
+                return mySegments("s1");
+            }
+        }).thenReturn(mySegments("s1", "s2"));
+
+        Assert.assertEquals(SplitTaskExecutionStatus.SUCCESS, updater.sync(false).getStatus());
+
+        // Discarded response is fetched again without validators
+        Assert.assertEquals(new HashSet<>(Arrays.asList("s1", "s2")), mStorage.getAll());
+        verify(mFetcher, times(2)).execute(any(), isNull());
+        verify(mFetcher, times(1)).resetValidators();
+        verify(mStorage, times(2)).set(Arrays.asList("s1", "s2"));
+        verify(mStorage, never()).set(Arrays.asList("s1"));
+        verify(mEventsManager, times(1)).notifyInternalEvent(SplitInternalEvent.MY_SEGMENTS_UPDATED);
+        verify(mEventsManager, times(1)).notifyInternalEvent(SplitInternalEvent.MY_SEGMENTS_FETCHED);
+    }
+
+    @Test
+    public void syncsDuringFetchMergedInOneFetch() throws Exception {
+        final MySegmentsUpdater updater = new MySegmentsUpdater(mFetcher, mStorage, mEventsManager);
+        when(mFetcher.execute(any(), any())).thenAnswer(new Answer<List<MySegment>>() {
+            @Override
+            public List<MySegment> answer(InvocationOnMock invocation) {
+                if (invocation.getArgument(1) == null) {
+                    updater.sync(false);
+                    updater.sync(true);
+                    updater.sync(false);
+                }
+                return mySegments("s1");
+            }
+        });
+
+        updater.sync(false);
+
+        verify(mFetcher, times(2)).execute(any(), any());
+        verify(mFetcher, times(1)).execute(any(), isNull());
+        verify(mFetcher, times(1)).execute(any(), eq(SplitHttpHeadersBuilder.noCacheHeaders()));
+    }
+
+    /**
+     * While a slow fetch is running a payload is pushed, two notifications without payload
+     * force a sync and polling runs too. Then polling runs again.
+     * When each task applied changes on its own every sync sent a request, and the slow
+     * response overwrote the pushed segments until next polling corrected them,
+     * notifying updates three times.
+     */
+    @Test
+    public void redundantFetchesAndEventsRemoved() throws Exception {
+        final MySegmentsUpdater sharedUpdater = new MySegmentsUpdater(mFetcher, mStorage, mEventsManager);
+        runSlowFetchScenario(new UpdaterProvider() {
+            @Override
+            public MySegmentsUpdater get() {
+                return sharedUpdater;
+            }
+        });
+
+        verify(mFetcher, times(3)).execute(any(), any());
+        verify(mStorage, never()).set(Arrays.asList("s1"));
+        verify(mEventsManager, times(1)).notifyInternalEvent(SplitInternalEvent.MY_SEGMENTS_UPDATED);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("s1", "s2")), mStorage.getAll());
+    }
+
+    @Test
+    public void uncoordinatedTasksFetchAndNotifyMore() throws Exception {
+        // Same scenario, one updater per task as before
+        runSlowFetchScenario(new UpdaterProvider() {
+            @Override
+            public MySegmentsUpdater get() {
+                return new MySegmentsUpdater(mFetcher, mStorage, mEventsManager);
+            }
+        });
+
+        verify(mFetcher, times(5)).execute(any(), any());
+        verify(mStorage, times(1)).set(Arrays.asList("s1"));
+        verify(mEventsManager, times(3)).notifyInternalEvent(SplitInternalEvent.MY_SEGMENTS_UPDATED);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("s1", "s2")), mStorage.getAll());
+    }
+
+    @Test
+    public void validatorsResetWhenSegmentsNotStored() throws Exception {
+        MySegmentsStorage storage = mock(MySegmentsStorage.class);
+        when(storage.getAll()).thenReturn(new HashSet<String>());
+        doThrow(new RuntimeException("Storage error")).when(storage).set(any());
+        when(mFetcher.execute(any(), any())).thenReturn(mySegments("s1"));
+        MySegmentsUpdater updater = new MySegmentsUpdater(mFetcher, storage, mEventsManager);
+
+        Assert.assertEquals(SplitTaskExecutionStatus.ERROR, updater.sync(false).getStatus());
+
+        verify(mFetcher, times(1)).resetValidators();
+    }
+
+    private void runSlowFetchScenario(final UpdaterProvider provider) throws Exception {
+        mStorage.set(Arrays.asList("s1"));
+        clearInvocations(mStorage);
+        when(mFetcher.execute(any(), any())).thenAnswer(new Answer<List<MySegment>>() {
+            private int mCalls = 0;
+
+            @Override
+            public List<MySegment> answer(InvocationOnMock invocation) {
+                mCalls++;
+                if (mCalls == 1) {
+                    // Segments change before the first response arrives
+                    provider.get().update(Arrays.asList("s1", "s2"), 100L);
+                    provider.get().sync(true);
+                    provider.get().sync(true);
+                    provider.get().sync(false);
+                    return mySegments("s1");
+                }
+                return mySegments("s1", "s2");
+            }
+        });
+
+        provider.get().sync(false);
+        provider.get().sync(false);
+    }
+
+    private List<MySegment> mySegments(String... names) {
+        List<MySegment> mySegments = new ArrayList<>();
+        for (String name : names) {
+            MySegment segment = new MySegment();
+            segment.id = name;
+            segment.name = name;
+            mySegments.add(segment);
+        }
+        return mySegments;
+    }
+
+    private interface UpdaterProvider {
+        MySegmentsUpdater get();
+    }
+}
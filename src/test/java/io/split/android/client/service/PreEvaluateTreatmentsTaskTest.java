@@ -0,0 +1,46 @@
+package io.split.android.client.service;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import io.split.android.client.EvaluatorImpl;
+import io.split.android.client.service.executor.SplitTaskExecutionInfo;
+import io.split.android.client.service.executor.SplitTaskExecutionStatus;
+import io.split.android.client.service.executor.SplitTaskType;
+import io.split.android.client.service.splits.PreEvaluateTreatmentsTask;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class PreEvaluateTreatmentsTaskTest {
+
+    EvaluatorImpl mEvaluator;
+    PreEvaluateTreatmentsTask mTask;
+
+    @Before
+    public void setup() {
+        mEvaluator = Mockito.mock(EvaluatorImpl.class);
+        mTask = new PreEvaluateTreatmentsTask(mEvaluator, "key", "bucketing");
+    }
+
+    @Test
+    public void correctExecution() {
+        SplitTaskExecutionInfo result = mTask.execute();
+
+        verify(mEvaluator, times(1)).preEvaluate("key", "bucketing");
+        Assert.assertEquals(SplitTaskType.PRE_EVALUATE_TREATMENTS, result.getTaskType());
+        Assert.assertEquals(SplitTaskExecutionStatus.SUCCESS, result.getStatus());
+    }
+
+    @Test
+    public void errorIsReported() {
+        doThrow(NullPointerException.class).when(mEvaluator).preEvaluate("key", "bucketing");
+
+        SplitTaskExecutionInfo result = mTask.execute();
+
+        Assert.assertEquals(SplitTaskExecutionStatus.ERROR, result.getStatus());
+    }
+}
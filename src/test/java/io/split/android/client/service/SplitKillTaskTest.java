@@ -72,6 +72,23 @@ public class SplitKillTaskTest {
         verify(mEventsManager, times(1)).notifyInternalEvent(SplitInternalEvent.SPLIT_KILLED_NOTIFICATION);
     }
 
+    @Test
+    public void storedSplitNotModified() {
+        Split killed = new Split();
+        killed.name = "split1";
+        killed.defaultTreatment = "on";
+        killed.changeNumber = 1001;
+        Split stored = mSplitsStorage.get("split1");
+        mTask = new SplitKillTask(mSplitsStorage, killed, mEventsManager);
+        when(mSplitsStorage.getTill()).thenReturn(1000L);
+
+        mTask.execute();
+
+        Assert.assertFalse(stored.killed);
+        Assert.assertEquals("off", stored.defaultTreatment);
+        Assert.assertEquals(100, stored.changeNumber);
+    }
+
     @Test
     public void oldChangeNumber() throws HttpFetcherException {
         Split split = new Split();
@@ -4,12 +4,18 @@ import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import io.split.android.client.dtos.Split;
 import io.split.android.client.dtos.SplitChange;
+import io.split.android.client.dtos.Status;
 import io.split.android.client.network.SplitHttpHeadersBuilder;
 import io.split.android.client.service.executor.SplitTaskExecutionInfo;
 import io.split.android.client.service.executor.SplitTaskExecutionStatus;
@@ -111,6 +117,7 @@ public class SplitsSyncHelperTest {
         verify(mSplitsStorage, times(1)).update(any());
         verify(mSplitsStorage, times(1)).clear();
         verify(mSplitChangeProcessor, times(1)).process(mSplitChange);
+        verify(mSplitsFetcher, times(1)).resetValidators();
 
         Assert.assertEquals(SplitTaskExecutionStatus.ERROR, result.getStatus());
     }
@@ -129,6 +136,82 @@ public class SplitsSyncHelperTest {
         Assert.assertEquals(SplitTaskExecutionStatus.SUCCESS, result.getStatus());
     }
 
+    @Test
+    public void fetchUntilSinceEqualsTill() throws HttpFetcherException {
+        when(mSplitsFetcher.execute(sinceParams(-1L), null))
+                .thenReturn(splitChange(-1L, 100L, newSplit("s1", 100L, Status.ACTIVE),
+                        newSplit("s2", 100L, Status.ACTIVE)));
+        when(mSplitsFetcher.execute(sinceParams(100L), null))
+                .thenReturn(splitChange(100L, 200L, newSplit("s1", 200L, Status.ACTIVE),
+                        newSplit("s3", 200L, Status.ACTIVE)));
+        when(mSplitsFetcher.execute(sinceParams(200L), null))
+                .thenReturn(splitChange(200L, 300L, newSplit("s2", 300L, Status.ARCHIVED)));
+        when(mSplitsFetcher.execute(sinceParams(300L), null))
+                .thenReturn(splitChange(300L, 300L));
+
+        SplitTaskExecutionInfo result = mSplitsSyncHelper.sync(sinceParams(-1L), false, false);
+
+        ArgumentCaptor<ProcessedSplitChange> captor = ArgumentCaptor.forClass(ProcessedSplitChange.class);
+        verify(mSplitsFetcher, times(4)).execute(any(), any());
+        verify(mSplitsStorage, times(1)).update(captor.capture());
+        ProcessedSplitChange change = captor.getValue();
+        Assert.assertEquals(300L, change.getChangeNumber());
+        Assert.assertEquals(2, change.getActiveSplits().size());
+        Assert.assertEquals("s1", change.getActiveSplits().get(0).name);
+        Assert.assertEquals(200L, change.getActiveSplits().get(0).changeNumber);
+        Assert.assertEquals("s3", change.getActiveSplits().get(1).name);
+        Assert.assertEquals(1, change.getArchivedSplits().size());
+        Assert.assertEquals("s2", change.getArchivedSplits().get(0).name);
+        Assert.assertEquals(SplitTaskExecutionStatus.SUCCESS, result.getStatus());
+    }
+
+    @Test
+    public void nothingStoredWhenPageFails() throws HttpFetcherException {
+        when(mSplitsFetcher.execute(sinceParams(-1L), null))
+                .thenReturn(splitChange(-1L, 100L, newSplit("s1", 100L, Status.ACTIVE)));
+        when(mSplitsFetcher.execute(sinceParams(100L), null))
+                .thenThrow(HttpFetcherException.class);
+
+        SplitTaskExecutionInfo result = mSplitsSyncHelper.sync(sinceParams(-1L), true, false);
+
+        verify(mSplitsStorage, never()).update(any(ProcessedSplitChange.class));
+        verify(mSplitsStorage, never()).clear();
+        verify(mSplitsFetcher, times(1)).resetValidators();
+        Assert.assertEquals(SplitTaskExecutionStatus.ERROR, result.getStatus());
+    }
+
+    @Test
+    public void notModifiedNothingStored() throws HttpFetcherException {
+        when(mSplitsFetcher.execute(sinceParams(100L), null)).thenReturn(null);
+
+        SplitTaskExecutionInfo result = mSplitsSyncHelper.sync(sinceParams(100L), true, false);
+
+        verify(mSplitsFetcher, times(1)).execute(any(), any());
+        verify(mSplitsStorage, never()).update(any(ProcessedSplitChange.class));
+        verify(mSplitsStorage, never()).clear();
+        Assert.assertEquals(SplitTaskExecutionStatus.SUCCESS, result.getStatus());
+    }
+
+    @Test
+    public void pagesPerSyncLimited() throws HttpFetcherException {
+        when(mSplitsFetcher.execute(any(), any())).thenAnswer(new Answer<SplitChange>() {
+            @Override
+            public SplitChange answer(InvocationOnMock invocation) {
+                Map<String, Object> params = invocation.getArgument(0);
+                long since = (Long) params.get("since");
+                return splitChange(since, since + 1, newSplit("s1", since + 1, Status.ACTIVE));
+            }
+        });
+
+        SplitTaskExecutionInfo result = mSplitsSyncHelper.sync(sinceParams(0L), false, false);
+
+        ArgumentCaptor<ProcessedSplitChange> captor = ArgumentCaptor.forClass(ProcessedSplitChange.class);
+        verify(mSplitsFetcher, times(ServiceConstants.MAX_SPLIT_CHANGES_PAGES_PER_SYNC)).execute(any(), any());
+        verify(mSplitsStorage, times(1)).update(captor.capture());
+        Assert.assertEquals(ServiceConstants.MAX_SPLIT_CHANGES_PAGES_PER_SYNC, captor.getValue().getChangeNumber());
+        Assert.assertEquals(SplitTaskExecutionStatus.SUCCESS, result.getStatus());
+    }
+
     @Test
     public void cacheExpired() throws HttpFetcherException {
 
@@ -175,6 +258,28 @@ public class SplitsSyncHelperTest {
         reset(mSplitsStorage);
     }
 
+    private Map<String, Object> sinceParams(long since) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("since", since);
+        return params;
+    }
+
+    private SplitChange splitChange(long since, long till, Split... splits) {
+        SplitChange splitChange = new SplitChange();
+        splitChange.since = since;
+        splitChange.till = till;
+        splitChange.splits = Arrays.asList(splits);
+        return splitChange;
+    }
+
+    private Split newSplit(String name, long changeNumber, Status status) {
+        Split split = new Split();
+        split.name = name;
+        split.changeNumber = changeNumber;
+        split.status = status;
+        return split;
+    }
+
     private void loadSplitChanges() {
         if (mSplitChange == null) {
             FileHelper fileHelper = new FileHelper();
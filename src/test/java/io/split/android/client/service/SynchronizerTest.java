@@ -148,8 +148,8 @@ public class SynchronizerTest {
 
         when(mRetryBackoffFactory.create(any(), anyInt()))
                 .thenReturn(mRetryTimerSplitsSync)
-                .thenReturn(mRetryTimerMySegmentsSync)
-                .thenReturn(mRetryTimerSplitsUpdate);
+                .thenReturn(mRetryTimerSplitsUpdate)
+                .thenReturn(mRetryTimerMySegmentsSync);
 
         mSynchronizer = new SynchronizerImpl(splitClientConfig, mTaskExecutor,
                 mSplitStorageContainer, mTaskFactory, mEventsManager, mWorkManagerWrapper, mRetryBackoffFactory);
@@ -409,6 +409,33 @@ public class SynchronizerTest {
                 any(SplitTaskExecutionListener.class));
     }
 
+    @Test
+    public void pushImpressions() throws InterruptedException {
+        SplitClientConfig config = SplitClientConfig.builder()
+                .eventsQueueSize(10)
+                .sychronizeInBackground(false)
+                .impressionsMode(ImpressionsMode.DEBUG)
+                .impressionsQueueSize(3)
+                .build();
+        setup(config);
+        List<Impression> impressions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            impressions.add(createImpression());
+        }
+        ArgumentCaptor<List> impressionsCaptor = ArgumentCaptor.forClass(List.class);
+
+        mSynchronizer.startPeriodicRecording();
+        mSynchronizer.pushImpressions(impressions);
+        Thread.sleep(200);
+
+        verify(mImpressionsStorage, times(1)).pushMany(impressionsCaptor.capture());
+        verify(mImpressionsStorage, never()).push(any(KeyImpression.class));
+        verify(mTaskExecutor, times(1)).submit(
+                any(ImpressionsRecorderTask.class),
+                any(RecorderSyncHelper.class));
+        Assert.assertEquals(5, impressionsCaptor.getValue().size());
+    }
+
     public void pushImpressionBytesLimitImpOptimized() throws InterruptedException {
         SplitClientConfig config = SplitClientConfig.builder()
                 .eventsQueueSize(10)
@@ -442,8 +469,8 @@ public class SynchronizerTest {
         SplitTaskExecutor executor = new SplitTaskExecutorSub(list);
         when(mRetryBackoffFactory.create(any(), anyInt()))
                 .thenReturn(mRetryTimerSplitsSync)
-                .thenReturn(mRetryTimerMySegmentsSync)
-                .thenReturn(mRetryTimerSplitsUpdate);
+                .thenReturn(mRetryTimerSplitsUpdate)
+                .thenReturn(mRetryTimerMySegmentsSync);
 
         mSynchronizer = new SynchronizerImpl(config, executor,
                 mSplitStorageContainer, mTaskFactory, mEventsManager, mWorkManagerWrapper, mRetryBackoffFactory);
@@ -469,8 +496,8 @@ public class SynchronizerTest {
         SplitTaskExecutor executor = new SplitTaskExecutorSub(list);
         when(mRetryBackoffFactory.create(any(), anyInt()))
                 .thenReturn(mRetryTimerSplitsSync)
-                .thenReturn(mRetryTimerMySegmentsSync)
-                .thenReturn(mRetryTimerSplitsUpdate);
+                .thenReturn(mRetryTimerSplitsUpdate)
+                .thenReturn(mRetryTimerMySegmentsSync);
 
         mSynchronizer = new SynchronizerImpl(config, executor,
                 mSplitStorageContainer, mTaskFactory, mEventsManager, mWorkManagerWrapper, mRetryBackoffFactory);
@@ -480,6 +507,72 @@ public class SynchronizerTest {
         verify(mRetryTimerSplitsSync, times(1)).start();
     }
 
+    @Test
+    public void splitsUpdatesMergedWhileFetchInFlight() {
+        setup(SplitClientConfig.builder().sychronizeInBackground(false).build());
+        ArgumentCaptor<SplitTaskExecutionListener> listenerCaptor
+                = ArgumentCaptor.forClass(SplitTaskExecutionListener.class);
+
+        mSynchronizer.synchronizeSplits(100L);
+        mSynchronizer.synchronizeSplits(101L);
+        mSynchronizer.synchronizeSplits(105L);
+        mSynchronizer.synchronizeSplits(103L);
+        verify(mRetryTimerSplitsUpdate, times(1)).setTask(any(), listenerCaptor.capture());
+        verify(mRetryTimerSplitsUpdate, times(1)).start();
+
+        listenerCaptor.getValue().taskExecuted(SplitTaskExecutionInfo.success(SplitTaskType.SPLITS_SYNC));
+        listenerCaptor.getValue().taskExecuted(SplitTaskExecutionInfo.success(SplitTaskType.SPLITS_SYNC));
+
+        verify(mTaskFactory, times(1)).createSplitsUpdateTask(100L);
+        verify(mTaskFactory, times(1)).createSplitsUpdateTask(105L);
+        verify(mTaskFactory, times(2)).createSplitsUpdateTask(anyLong());
+        verify(mRetryTimerSplitsUpdate, times(2)).start();
+    }
+
+    @Test
+    public void fullSyncCoversPendingUpdates() {
+        setup(SplitClientConfig.builder().sychronizeInBackground(false).build());
+        ArgumentCaptor<SplitTaskExecutionListener> listenerCaptor
+                = ArgumentCaptor.forClass(SplitTaskExecutionListener.class);
+        verify(mRetryTimerSplitsSync).setTask(any(), listenerCaptor.capture());
+
+        mSynchronizer.synchronizeSplits();
+        mSynchronizer.synchronizeSplits(200L);
+        mSynchronizer.synchronizeSplits();
+        mSynchronizer.synchronizeSplits();
+        verify(mRetryTimerSplitsSync, times(1)).start();
+
+        listenerCaptor.getValue().taskExecuted(SplitTaskExecutionInfo.success(SplitTaskType.SPLITS_SYNC));
+        listenerCaptor.getValue().taskExecuted(SplitTaskExecutionInfo.success(SplitTaskType.SPLITS_SYNC));
+        mSynchronizer.synchronizeSplits(300L);
+
+        verify(mRetryTimerSplitsSync, times(2)).start();
+        verify(mTaskFactory, never()).createSplitsUpdateTask(200L);
+        verify(mTaskFactory, times(1)).createSplitsUpdateTask(300L);
+        verify(mRetryTimerSplitsUpdate, times(1)).start();
+    }
+
+    @Test
+    public void mySegmentsSyncsMergedWhileFetchInFlight() {
+        setup(SplitClientConfig.builder().sychronizeInBackground(false).build());
+        ArgumentCaptor<SplitTaskExecutionListener> listenerCaptor
+                = ArgumentCaptor.forClass(SplitTaskExecutionListener.class);
+
+        mSynchronizer.synchronizeMySegments();
+        mSynchronizer.forceMySegmentsSync();
+        mSynchronizer.synchronizeMySegments();
+        mSynchronizer.forceMySegmentsSync();
+        verify(mRetryTimerMySegmentsSync, times(1)).setTask(any(), listenerCaptor.capture());
+        verify(mRetryTimerMySegmentsSync, times(1)).start();
+
+        listenerCaptor.getValue().taskExecuted(SplitTaskExecutionInfo.success(SplitTaskType.MY_SEGMENTS_SYNC));
+        listenerCaptor.getValue().taskExecuted(SplitTaskExecutionInfo.success(SplitTaskType.MY_SEGMENTS_SYNC));
+
+        verify(mTaskFactory, times(1)).createMySegmentsSyncTask(false);
+        verify(mTaskFactory, times(1)).createMySegmentsSyncTask(true);
+        verify(mRetryTimerMySegmentsSync, times(2)).start();
+    }
+
     @Test
     public void stop() {
         SplitClientConfig config = SplitClientConfig.builder()
@@ -25,7 +25,9 @@ import io.split.android.client.service.sseclient.notifications.SplitKillNotifica
 import io.split.android.client.service.sseclient.notifications.SplitsChangeNotification;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -59,7 +61,7 @@ public class NotificationProcessorTest {
 
         MockitoAnnotations.initMocks(this);
         when(mIncomingNotification.getJsonData()).thenReturn("{}");
-        when(mSplitTaskFactory.createMySegmentsUpdateTask(any()))
+        when(mSplitTaskFactory.createMySegmentsUpdateTask(any(), anyLong()))
                 .thenReturn(Mockito.mock(MySegmentsUpdateTask.class));
         when(mSplitTaskFactory.createSplitKillTask(any()))
                 .thenReturn(Mockito.mock(SplitKillTask.class));
@@ -97,6 +99,7 @@ public class NotificationProcessorTest {
                 = Mockito.mock(MySegmentChangeNotification.class);
         when(mySegmentChangeNotification.isIncludesPayload()).thenReturn(true);
         when(mySegmentChangeNotification.getSegmentList()).thenReturn(segments);
+        when(mySegmentChangeNotification.getChangeNumber()).thenReturn(1000L);
         when(mIncomingNotification.getType()).thenReturn(NotificationType.MY_SEGMENTS_UPDATE);
         when(mNotificationParser.parseIncoming(anyString())).thenReturn(mIncomingNotification);
         when(mNotificationParser.parseMySegmentUpdate(anyString())).thenReturn(mySegmentChangeNotification);
@@ -104,7 +107,7 @@ public class NotificationProcessorTest {
         mNotificationProcessor.process(mIncomingNotification);
 
         verify(mSplitsChangeQueue, never()).offer(any());
-        verify(mSplitTaskFactory, times(1)).createMySegmentsUpdateTask(any());
+        verify(mSplitTaskFactory, times(1)).createMySegmentsUpdateTask(any(), eq(1000L));
         verify(mSplitTaskExecutor, times(1)).submit(any(), isNull());
     }
 
@@ -122,7 +125,7 @@ public class NotificationProcessorTest {
         mNotificationProcessor.process(mIncomingNotification);
 
         verify(mSplitsChangeQueue, never()).offer(any());
-        verify(mSplitTaskFactory, times(1)).createMySegmentsUpdateTask(any());
+        verify(mSplitTaskFactory, times(1)).createMySegmentsUpdateTask(any(), anyLong());
         verify(mSplitTaskExecutor, times(1)).submit(any(), isNull());
     }
 
@@ -139,7 +142,7 @@ public class NotificationProcessorTest {
 
         mNotificationProcessor.process(mIncomingNotification);
 
-        verify(mSplitTaskFactory, never()).createMySegmentsUpdateTask(any());
+        verify(mSplitTaskFactory, never()).createMySegmentsUpdateTask(any(), anyLong());
         ArgumentCaptor<MySegmentChangeNotification> messageCaptor =
                 ArgumentCaptor.forClass(MySegmentChangeNotification.class);
         verify(mMySegmentChangeQueue, times(1)).offer(messageCaptor.capture());
@@ -0,0 +1,29 @@
+package io.split.android.client.service.workmanager;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SplitWorkerResourcesTest {
+
+    private static final String EVENTS_ENDPOINT = "https://events.split.io/api";
+
+    @Test
+    public void sameResourcesForSameKeyAndEndpoint() {
+        SplitWorkerResources first = SplitWorkerResources.get("key1", EVENTS_ENDPOINT);
+        SplitWorkerResources second = SplitWorkerResources.get("key1", EVENTS_ENDPOINT);
+
+        Assert.assertSame(first, second);
+        Assert.assertSame(first.getHttpClient(), second.getHttpClient());
+        Assert.assertSame(first.getMetrics(), second.getMetrics());
+    }
+
+    @Test
+    public void differentResourcesForDifferentKeyOrEndpoint() {
+        SplitWorkerResources resources = SplitWorkerResources.get("key2", EVENTS_ENDPOINT);
+
+        Assert.assertNotSame(resources.getHttpClient(),
+                SplitWorkerResources.get("key3", EVENTS_ENDPOINT).getHttpClient());
+        Assert.assertNotSame(resources.getMetrics(),
+                SplitWorkerResources.get("key2", "https://proxy.local/api").getMetrics());
+    }
+}
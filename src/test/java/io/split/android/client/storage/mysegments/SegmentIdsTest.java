@@ -0,0 +1,29 @@
+package io.split.android.client.storage.mysegments;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SegmentIdsTest {
+
+    @Test
+    public void sameIdForSameName() {
+        SegmentIds segmentIds = new SegmentIds(10);
+
+        int id = segmentIds.get("s1");
+
+        Assert.assertEquals(id, segmentIds.get("s1"));
+        Assert.assertNotEquals(id, segmentIds.get("s2"));
+    }
+
+    @Test
+    public void noIdWhenFull() {
+        SegmentIds segmentIds = new SegmentIds(2);
+
+        int first = segmentIds.get("s1");
+        int second = segmentIds.get("s2");
+
+        Assert.assertEquals(SegmentIds.NO_ID, segmentIds.get("s3"));
+        Assert.assertEquals(first, segmentIds.get("s1"));
+        Assert.assertEquals(second, segmentIds.get("s2"));
+    }
+}
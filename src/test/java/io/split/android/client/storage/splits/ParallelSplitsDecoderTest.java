@@ -0,0 +1,119 @@
+package io.split.android.client.storage.splits;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.split.android.client.dtos.Split;
+import io.split.android.client.storage.db.SplitEntity;
+import io.split.android.client.utils.Json;
+import io.split.android.helpers.FileHelper;
+
+public class ParallelSplitsDecoderTest {
+
+    @Test
+    public void pagesDecodedInOrder() {
+        ParallelSplitsDecoder decoder = new ParallelSplitsDecoder();
+        List<String> expectedNames = new ArrayList<>();
+        for (int page = 0; page < 20; page++) {
+            List<SplitEntity> entities = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                Split split = newSplit("split_" + page + "_" + i);
+                // Previous and current encodings
+                String body = i % 2 == 0 ? Json.toJson(split) : SplitBodyCodec.encode(split);
+                entities.add(newEntity(split.name, body));
+                expectedNames.add(split.name);
+            }
+            decoder.submit(entities);
+        }
+
+        List<Split> splits = decoder.await();
+
+        Assert.assertEquals(expectedNames.size(), splits.size());
+        for (int i = 0; i < splits.size(); i++) {
+            Assert.assertEquals(expectedNames.get(i), splits.get(i).name);
+        }
+    }
+
+    @Test
+    public void invalidBodiesSkipped() {
+        ParallelSplitsDecoder decoder = new ParallelSplitsDecoder();
+        List<SplitEntity> entities = new ArrayList<>();
+        entities.add(newEntity("s1", Json.toJson(newSplit("s1"))));
+        entities.add(newEntity("broken", "{\"name\":"));
+        entities.add(newEntity("s2", SplitBodyCodec.encode(newSplit("s2"))));
+        decoder.submit(entities);
+        decoder.submit(new ArrayList<SplitEntity>());
+
+        List<Split> splits = decoder.await();
+
+        Assert.assertEquals(2, splits.size());
+        Assert.assertEquals("s1", splits.get(0).name);
+        Assert.assertEquals("s2", splits.get(1).name);
+    }
+
+    @Test
+    public void nothingSubmitted() {
+        Assert.assertEquals(0, new ParallelSplitsDecoder().await().size());
+    }
+
+    /**
+     * Compares decoding 2000 JSON bodies in the calling thread and in parallel,
+     * in pages of 100 as they are read from the database.
+     * Not a real benchmark, just run it manually to get an idea.
+     */
+    @Ignore
+    @Test
+    public void compareWithSequential() {
+        List<Split> baseSplits = new FileHelper().loadAndParseSplitChangeFile("split_changes_1.json");
+        List<List<SplitEntity>> pages = new ArrayList<>();
+        for (int page = 0; page < 20; page++) {
+            List<SplitEntity> entities = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                Split split = baseSplits.get((page * 100 + i) % baseSplits.size());
+                entities.add(newEntity(split.name, Json.toJson(split)));
+            }
+            pages.add(entities);
+        }
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            int count = 0;
+            for (List<SplitEntity> entities : pages) {
+                for (SplitEntity entity : entities) {
+                    count += SplitBodyCodec.decode(entity.getBody()) != null ? 1 : 0;
+                }
+            }
+            long sequential = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            ParallelSplitsDecoder decoder = new ParallelSplitsDecoder();
+            for (List<SplitEntity> entities : pages) {
+                decoder.submit(entities);
+            }
+            count += decoder.await().size();
+            long parallel = System.nanoTime() - start;
+
+            System.out.println("Sequential: " + sequential / 1000000 + " ms, parallel: "
+                    + parallel / 1000000 + " ms (" + count + ")");
+        }
+    }
+
+    private Split newSplit(String name) {
+        Split split = new Split();
+        split.name = name;
+        split.trafficTypeName = "user";
+        split.defaultTreatment = "off";
+        return split;
+    }
+
+    private SplitEntity newEntity(String name, String body) {
+        SplitEntity entity = new SplitEntity();
+        entity.setName(name);
+        entity.setBody(body);
+        return entity;
+    }
+}
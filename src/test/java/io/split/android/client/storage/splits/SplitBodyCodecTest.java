@@ -0,0 +1,177 @@
+package io.split.android.client.storage.splits;
+
+import com.google.common.io.BaseEncoding;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.split.android.client.dtos.Split;
+import io.split.android.client.utils.Json;
+import io.split.android.helpers.FileHelper;
+
+public class SplitBodyCodecTest {
+
+    @Test
+    public void roundTrip() {
+        List<Split> splits = loadSplits();
+
+        for (Split split : splits) {
+            String body = SplitBodyCodec.encode(split);
+            Split decoded = SplitBodyCodec.decode(body);
+
+            Assert.assertTrue(SplitBodyCodec.isBinary(body));
+            Assert.assertEquals(asJsonTree(split), asJsonTree(decoded));
+        }
+    }
+
+    @Test
+    public void roundTripEmptySplit() {
+        Split split = new Split();
+        split.name = "empty";
+
+        Split decoded = SplitBodyCodec.decode(SplitBodyCodec.encode(split));
+
+        Assert.assertEquals("empty", decoded.name);
+        Assert.assertNull(decoded.status);
+        Assert.assertNull(decoded.conditions);
+        Assert.assertNull(decoded.trafficAllocation);
+        Assert.assertNull(decoded.configurations);
+    }
+
+    @Test
+    public void jsonBodyDecoded() {
+        Split split = loadSplits().get(0);
+
+        Split decoded = SplitBodyCodec.decode(Json.toJson(split));
+
+        Assert.assertFalse(SplitBodyCodec.isBinary(Json.toJson(split)));
+        Assert.assertEquals(asJsonTree(split), asJsonTree(decoded));
+    }
+
+    @Test
+    public void invalidBodies() {
+        String body = SplitBodyCodec.encode(loadSplits().get(0));
+
+        Assert.assertNull(SplitBodyCodec.decode(null));
+        Assert.assertNull(SplitBodyCodec.decode(""));
+        Assert.assertNull(SplitBodyCodec.decode("{\"name\":"));
+        Assert.assertNull(SplitBodyCodec.decode(body.substring(0, body.length() / 2)));
+        Assert.assertNull(SplitBodyCodec.decode(SplitBodyCodec.BINARY_PREFIX + "not base64!"));
+    }
+
+    @Test
+    public void unknownVersion() {
+        byte[] bytes = {99, 0};
+        String body = SplitBodyCodec.BINARY_PREFIX + BaseEncoding.base64().encode(bytes);
+
+        Assert.assertNull(SplitBodyCodec.decode(body));
+    }
+
+    @Test
+    public void trafficTypeNameRead() {
+        for (Split split : loadSplits()) {
+            Assert.assertEquals(split.trafficTypeName,
+                    SplitBodyCodec.readTrafficTypeName(SplitBodyCodec.encode(split)));
+            Assert.assertEquals(split.trafficTypeName,
+                    SplitBodyCodec.readTrafficTypeName(Json.toJson(split)));
+        }
+        Assert.assertNull(SplitBodyCodec.readTrafficTypeName(SplitBodyCodec.encode(new Split())));
+        Assert.assertNull(SplitBodyCodec.readTrafficTypeName(null));
+        Assert.assertNull(SplitBodyCodec.readTrafficTypeName("{\"name\":"));
+        Assert.assertNull(SplitBodyCodec.readTrafficTypeName(SplitBodyCodec.BINARY_PREFIX + "not base64!"));
+    }
+
+    @Test
+    public void version1BodyDecoded() {
+        // Split "s1" with traffic type "user" after the conditions
+        byte[] bytes = {1, 6, 's', '1', 0, 0, 0, 0, 0, 10, 'u', 's', 'e', 'r', 4, 0, 0, 0, 0};
+        String body = SplitBodyCodec.BINARY_PREFIX + BaseEncoding.base64().encode(bytes);
+
+        Split decoded = SplitBodyCodec.decode(body);
+
+        Assert.assertEquals("s1", decoded.name);
+        Assert.assertEquals("user", decoded.trafficTypeName);
+        Assert.assertEquals(2, decoded.changeNumber);
+        Assert.assertEquals("user", SplitBodyCodec.readTrafficTypeName(body));
+    }
+
+    @Test
+    public void smallerThanJson() {
+        long jsonSize = 0;
+        long binarySize = 0;
+        for (Split split : loadSplits()) {
+            jsonSize += Json.toJson(split).length();
+            binarySize += SplitBodyCodec.encode(split).length();
+        }
+
+        Assert.assertTrue(binarySize < jsonSize);
+    }
+
+    /**
+     * Compares time and size of both formats for 2000 splits
+     * built from the ones in split_changes_1.json.
+     * Not a real benchmark, just run it manually to get an idea.
+     */
+    @Ignore
+    @Test
+    public void compareWithJson() {
+        List<Split> baseSplits = loadSplits();
+        List<Split> splits = new ArrayList<>();
+        for (int i = 0; splits.size() < 2000; i++) {
+            Split split = Json.fromJson(Json.toJson(baseSplits.get(i % baseSplits.size())), Split.class);
+            split.name = split.name + "_" + i;
+            splits.add(split);
+        }
+
+        for (int round = 0; round < 5; round++) {
+            List<String> jsonBodies = new ArrayList<>();
+            List<String> binaryBodies = new ArrayList<>();
+            long jsonSize = 0;
+            long binarySize = 0;
+
+            long start = System.nanoTime();
+            for (Split split : splits) {
+                jsonBodies.add(Json.toJson(split));
+            }
+            long jsonEncode = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (Split split : splits) {
+                binaryBodies.add(SplitBodyCodec.encode(split));
+            }
+            long binaryEncode = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (String body : jsonBodies) {
+                jsonSize += body.length();
+                Json.fromJson(body, Split.class);
+            }
+            long jsonDecode = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (String body : binaryBodies) {
+                binarySize += body.length();
+                SplitBodyCodec.decode(body);
+            }
+            long binaryDecode = System.nanoTime() - start;
+
+            System.out.println("JSON: encode " + jsonEncode / 1000000 + " ms, decode " + jsonDecode / 1000000
+                    + " ms, " + jsonSize / 1024 + " KB. Binary: encode " + binaryEncode / 1000000
+                    + " ms, decode " + binaryDecode / 1000000 + " ms, " + binarySize / 1024 + " KB");
+        }
+    }
+
+    private List<Split> loadSplits() {
+        return new FileHelper().loadAndParseSplitChangeFile("split_changes_1.json");
+    }
+
+    private JsonElement asJsonTree(Split split) {
+        return new JsonParser().parse(Json.toJson(split));
+    }
+}
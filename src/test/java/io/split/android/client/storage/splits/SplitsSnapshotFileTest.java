@@ -0,0 +1,189 @@
+package io.split.android.client.storage.splits;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.split.android.client.dtos.Split;
+import io.split.android.client.dtos.Status;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SplitsSnapshotFileTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File mFile;
+    private SplitsSnapshotFile mSnapshotFile;
+    private PersistentSplitsStorage mPersistentStorage;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = new File(mFolder.getRoot(), "db.splits");
+        mSnapshotFile = new SplitsSnapshotFile(mFile);
+        mPersistentStorage = mock(PersistentSplitsStorage.class);
+    }
+
+    @Test
+    public void writeAndRead() {
+        List<LazySplit> splits = Arrays.asList(LazySplit.of(newSplit("s1", "tt")),
+                LazySplit.of("s2", SplitBodyCodec.encode(newSplit("s2", "ñandú"))));
+
+        Assert.assertTrue(mSnapshotFile.write(100L, 200L, "&names=s1,s2", splits));
+        SplitsSnapshot snapshot = mSnapshotFile.read();
+
+        Assert.assertEquals(100L, snapshot.getChangeNumber());
+        Assert.assertEquals(200L, snapshot.getUpdateTimestamp());
+        Assert.assertEquals("&names=s1,s2", snapshot.getSplitsFilterQueryString());
+        Assert.assertEquals(2, snapshot.getLazySplits().size());
+        Assert.assertFalse(snapshot.getLazySplits().get(0).isDecoded());
+        Assert.assertEquals("s1", snapshot.getLazySplits().get(0).get().name);
+        Assert.assertEquals("ñandú", snapshot.getLazySplits().get(1).get().trafficTypeName);
+    }
+
+    @Test
+    public void writeAndReadNullQueryStringAndNoSplits() {
+        mSnapshotFile.write(-1L, 0L, null, Collections.<LazySplit>emptyList());
+        SplitsSnapshot snapshot = mSnapshotFile.read();
+
+        Assert.assertEquals(-1L, snapshot.getChangeNumber());
+        Assert.assertNull(snapshot.getSplitsFilterQueryString());
+        Assert.assertEquals(0, snapshot.getLazySplits().size());
+    }
+
+    @Test
+    public void noFile() {
+        Assert.assertNull(mSnapshotFile.read());
+    }
+
+    @Test
+    public void truncatedFile() throws IOException {
+        mSnapshotFile.write(100L, 200L, null, Arrays.asList(LazySplit.of(newSplit("s1", "tt"))));
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        file.setLength(file.length() - 5);
+        file.close();
+
+        Assert.assertNull(mSnapshotFile.read());
+    }
+
+    @Test
+    public void invalidFile() throws IOException {
+        FileOutputStream output = new FileOutputStream(mFile);
+        output.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        output.close();
+
+        Assert.assertNull(mSnapshotFile.read());
+    }
+
+    @Test
+    public void loadFromFileAheadOfPersistentStorage() {
+        mSnapshotFile.write(100L, 200L, "&names=s1",
+                Arrays.asList(LazySplit.of(newSplit("s1", "tt"))));
+        SplitsStorage storage = new SplitsStorageImpl(mPersistentStorage, null, mSnapshotFile);
+
+        storage.loadLocal();
+
+        verify(mPersistentStorage, never()).getSnapshot();
+        Assert.assertEquals(100L, storage.getTill());
+        Assert.assertEquals("&names=s1", storage.getSplitsFilterQueryString());
+        Assert.assertNotNull(storage.get("s1"));
+        Assert.assertTrue(storage.isValidTrafficType("tt"));
+    }
+
+    @Test
+    public void trafficTypesCheckedWithoutDecodingSplits() {
+        mSnapshotFile.write(100L, 200L, null, Arrays.asList(LazySplit.of(newSplit("s1", "tt")),
+                LazySplit.of("s2", "{\"name\":\"s2\", \"trafficTypeName\":\"Account\"}")));
+        SplitsStorage storage = new SplitsStorageImpl(mPersistentStorage, null, mSnapshotFile);
+
+        storage.loadLocal();
+
+        Assert.assertTrue(storage.isValidTrafficType("tt"));
+        Assert.assertTrue(storage.isValidTrafficType("account"));
+        Assert.assertFalse(storage.isValidTrafficType("user"));
+        for (LazySplit split : storage.getInMemorySnapshot().lazySplits()) {
+            Assert.assertFalse(split.isDecoded());
+        }
+    }
+
+    @Test
+    public void fileWrittenWhenLoadedFromPersistentStorage() {
+        when(mPersistentStorage.getSnapshot()).thenReturn(
+                new SplitsSnapshot(Arrays.asList(newSplit("s1", "tt")), 100L, 200L, null));
+        SplitsStorage storage = new SplitsStorageImpl(mPersistentStorage, null, mSnapshotFile);
+
+        storage.loadLocal();
+        SplitsSnapshot snapshot = mSnapshotFile.read();
+
+        Assert.assertEquals(100L, snapshot.getChangeNumber());
+        Assert.assertEquals("s1", snapshot.getLazySplits().get(0).name());
+    }
+
+    @Test
+    public void fileRewrittenOnUpdate() {
+        mSnapshotFile.write(100L, 200L, null, Arrays.asList(LazySplit.of(newSplit("s1", "tt")),
+                LazySplit.of(newSplit("s2", "tt"))));
+        SplitsStorage storage = new SplitsStorageImpl(mPersistentStorage, null, mSnapshotFile);
+        storage.loadLocal();
+
+        storage.update(new ProcessedSplitChange(Arrays.asList(newSplit("s3", "tt")),
+                Arrays.asList(newSplit("s1", "tt")), 101L, 300L));
+        storage.updateSplitsFilterQueryString("&names=s2,s3");
+        SplitsSnapshot snapshot = mSnapshotFile.read();
+        List<String> names = new ArrayList<>();
+        for (LazySplit split : snapshot.getLazySplits()) {
+            names.add(split.name());
+        }
+        Collections.sort(names);
+
+        Assert.assertEquals(101L, snapshot.getChangeNumber());
+        Assert.assertEquals(300L, snapshot.getUpdateTimestamp());
+        Assert.assertEquals("&names=s2,s3", snapshot.getSplitsFilterQueryString());
+        Assert.assertEquals(Arrays.asList("s2", "s3"), names);
+    }
+
+    @Test
+    public void fileDeletedOnUpdateIfNotLoaded() {
+        mSnapshotFile.write(100L, 200L, null, Arrays.asList(LazySplit.of(newSplit("s1", "tt"))));
+        SplitsStorage storage = new SplitsStorageImpl(mPersistentStorage, null, mSnapshotFile);
+
+        storage.update(new ProcessedSplitChange(Arrays.asList(newSplit("s3", "tt")),
+                Collections.<Split>emptyList(), 101L, 300L));
+
+        Assert.assertFalse(mFile.exists());
+    }
+
+    @Test
+    public void fileDeletedOnClear() {
+        mSnapshotFile.write(100L, 200L, null, Arrays.asList(LazySplit.of(newSplit("s1", "tt"))));
+        SplitsStorage storage = new SplitsStorageImpl(mPersistentStorage, null, mSnapshotFile);
+        storage.loadLocal();
+
+        storage.clear();
+
+        Assert.assertFalse(mFile.exists());
+    }
+
+    private Split newSplit(String name, String trafficType) {
+        Split split = new Split();
+        split.name = name;
+        split.status = Status.ACTIVE;
+        split.trafficTypeName = trafficType;
+        return split;
+    }
+}
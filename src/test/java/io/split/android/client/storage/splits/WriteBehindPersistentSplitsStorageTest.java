@@ -0,0 +1,311 @@
+package io.split.android.client.storage.splits;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.split.android.client.dtos.Split;
+import io.split.android.client.dtos.Status;
+
+public class WriteBehindPersistentSplitsStorageTest {
+
+    // Long enough for nothing to be written unless flushed
+    private static final long WRITE_DELAY = 60000;
+
+    private FakePersistentSplitsStorage mPersistentStorage;
+    private WriteBehindPersistentSplitsStorage mStorage;
+
+    @Before
+    public void setUp() {
+        mPersistentStorage = new FakePersistentSplitsStorage();
+        mStorage = new WriteBehindPersistentSplitsStorage(mPersistentStorage, WRITE_DELAY);
+    }
+
+    @After
+    public void tearDown() {
+        mStorage.close();
+    }
+
+    @Test
+    public void updatesNotWrittenUntilFlushed() {
+        mStorage.update(change(100L, Arrays.asList(newSplit("s1", 1L)), null));
+
+        Assert.assertEquals(0, mPersistentStorage.updateCount);
+
+        mStorage.flush();
+
+        Assert.assertEquals(1, mPersistentStorage.updateCount);
+        Assert.assertEquals(100L, mPersistentStorage.changeNumber);
+        Assert.assertEquals(1L, mPersistentStorage.splits.get("s1").changeNumber);
+    }
+
+    @Test
+    public void updatesCoalescedInOneWrite() {
+        mStorage.update(change(100L, Arrays.asList(newSplit("s1", 100L), newSplit("s2", 100L)), null));
+        mStorage.update(change(101L, Arrays.asList(newSplit("s1", 101L)), null));
+        mStorage.update(change(102L, Arrays.asList(newSplit("s1", 102L)), Arrays.asList(newSplit("s2", 102L))));
+        mStorage.update(change(103L, Arrays.asList(newSplit("s3", 103L)), null));
+
+        mStorage.flush();
+
+        Assert.assertEquals(1, mPersistentStorage.updateCount);
+        Assert.assertEquals(2, mPersistentStorage.lastChange.getActiveSplits().size());
+        Assert.assertEquals(1, mPersistentStorage.lastChange.getArchivedSplits().size());
+        Assert.assertEquals(103L, mPersistentStorage.changeNumber);
+        Assert.assertEquals(102L, mPersistentStorage.splits.get("s1").changeNumber);
+        Assert.assertNull(mPersistentStorage.splits.get("s2"));
+        Assert.assertEquals(103L, mPersistentStorage.splits.get("s3").changeNumber);
+    }
+
+    @Test
+    public void archivedAndActiveAgain() {
+        mStorage.update(change(100L, null, Arrays.asList(newSplit("s1", 100L))));
+        mStorage.update(change(101L, Arrays.asList(newSplit("s1", 101L)), null));
+
+        mStorage.flush();
+
+        Assert.assertEquals(0, mPersistentStorage.lastChange.getArchivedSplits().size());
+        Assert.assertEquals(101L, mPersistentStorage.splits.get("s1").changeNumber);
+    }
+
+    @Test
+    public void killedSplitCoalescedWithChange() {
+        mStorage.update(change(100L, Arrays.asList(newSplit("s1", 100L)), null));
+        Split killed = newSplit("s1", 100L);
+        killed.killed = true;
+        mStorage.update(killed);
+
+        mStorage.flush();
+
+        Assert.assertEquals(1, mPersistentStorage.updateCount);
+        Assert.assertTrue(mPersistentStorage.splits.get("s1").killed);
+    }
+
+    @Test
+    public void killedSplitWrittenWithoutChangingChangeNumber() {
+        mPersistentStorage.update(change(100L, Arrays.asList(newSplit("s1", 100L)), null));
+        Split killed = newSplit("s1", 100L);
+        killed.killed = true;
+
+        mStorage.update(killed);
+        mStorage.flush();
+
+        Assert.assertEquals(100L, mPersistentStorage.changeNumber);
+        Assert.assertTrue(mPersistentStorage.splits.get("s1").killed);
+    }
+
+    /**
+     * Simulates the process dying with updates not written yet.
+     * Stored change number always matches the stored splits, so a new sync
+     * fetches again whatever was lost.
+     */
+    @Test
+    public void pendingUpdatesLostOnCrashKeepStoredDataConsistent() {
+        mStorage.update(change(100L, Arrays.asList(newSplit("s1", 100L)), null));
+        mStorage.flush();
+
+        mStorage.update(change(101L, Arrays.asList(newSplit("s1", 101L), newSplit("s2", 101L)), null));
+        mStorage.update(change(102L, null, Arrays.asList(newSplit("s1", 102L))));
+        // Process dies here, a new storage is created on next start
+        WriteBehindPersistentSplitsStorage storage
+                = new WriteBehindPersistentSplitsStorage(mPersistentStorage, WRITE_DELAY);
+        SplitsSnapshot snapshot = storage.getSnapshot();
+        storage.close();
+
+        Assert.assertEquals(100L, snapshot.getChangeNumber());
+        Assert.assertEquals(1, snapshot.getSplits().size());
+        Assert.assertEquals(100L, snapshot.getSplits().get(0).changeNumber);
+    }
+
+    @Test
+    public void failedWriteQueuedAgainBeforeNewerUpdates() {
+        mPersistentStorage.failingWrites = 1;
+        mStorage.update(change(100L, Arrays.asList(newSplit("s1", 100L), newSplit("s2", 100L)), null));
+
+        boolean firstWritten = mStorage.flush();
+        mStorage.update(change(101L, null, Arrays.asList(newSplit("s1", 101L))));
+        boolean secondWritten = mStorage.flush();
+
+        Assert.assertFalse(firstWritten);
+        Assert.assertTrue(secondWritten);
+        Assert.assertEquals(1, mPersistentStorage.updateCount);
+        Assert.assertEquals(101L, mPersistentStorage.changeNumber);
+        Assert.assertNull(mPersistentStorage.splits.get("s1"));
+        Assert.assertEquals(100L, mPersistentStorage.splits.get("s2").changeNumber);
+    }
+
+    @Test
+    public void failedWriteRetried() throws InterruptedException {
+        mPersistentStorage.failingWrites = 1;
+        WriteBehindPersistentSplitsStorage storage
+                = new WriteBehindPersistentSplitsStorage(mPersistentStorage, 10);
+
+        storage.update(change(100L, Arrays.asList(newSplit("s1", 100L)), null));
+        for (int i = 0; i < 100 && mPersistentStorage.changeNumber != 100L; i++) {
+            Thread.sleep(10);
+        }
+        long changeNumber = mPersistentStorage.changeNumber;
+        storage.close();
+
+        Assert.assertEquals(100L, changeNumber);
+    }
+
+    @Test
+    public void pendingUpdatesWrittenBeforeReading() {
+        mStorage.update(change(100L, Arrays.asList(newSplit("s1", 100L)), null));
+        Assert.assertEquals(1, mStorage.getAll().size());
+
+        mStorage.update(change(101L, Arrays.asList(newSplit("s2", 101L)), null));
+        Assert.assertEquals(101L, mStorage.getSnapshot().getChangeNumber());
+
+        mStorage.update(change(102L, Arrays.asList(newSplit("s3", 102L)), null));
+        mStorage.delete(Arrays.asList("s3"));
+        Assert.assertNull(mPersistentStorage.splits.get("s3"));
+        Assert.assertEquals(102L, mPersistentStorage.changeNumber);
+    }
+
+    @Test
+    public void pendingUpdatesDroppedOnClear() {
+        mStorage.update(change(100L, Arrays.asList(newSplit("s1", 100L)), null));
+
+        mStorage.clear();
+        mStorage.flush();
+
+        Assert.assertEquals(0, mPersistentStorage.updateCount);
+        Assert.assertEquals(-1L, mPersistentStorage.changeNumber);
+    }
+
+    @Test
+    public void pendingUpdatesWrittenOnClose() {
+        mStorage.update(change(100L, Arrays.asList(newSplit("s1", 100L)), null));
+
+        mStorage.close();
+
+        Assert.assertEquals(100L, mPersistentStorage.changeNumber);
+        Assert.assertTrue(mPersistentStorage.closed);
+    }
+
+    @Test
+    public void pendingUpdatesWrittenOnPause() throws InterruptedException {
+        mStorage.update(change(100L, Arrays.asList(newSplit("s1", 100L)), null));
+
+        mStorage.pause();
+        for (int i = 0; i < 100 && mPersistentStorage.updateCount == 0; i++) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertEquals(1, mPersistentStorage.updateCount);
+    }
+
+    @Test
+    public void pendingUpdatesWrittenAfterDelay() throws InterruptedException {
+        WriteBehindPersistentSplitsStorage storage
+                = new WriteBehindPersistentSplitsStorage(mPersistentStorage, 10);
+
+        storage.update(change(100L, Arrays.asList(newSplit("s1", 100L)), null));
+        storage.update(change(101L, Arrays.asList(newSplit("s1", 101L)), null));
+        for (int i = 0; i < 100 && mPersistentStorage.changeNumber != 101L; i++) {
+            Thread.sleep(10);
+        }
+        long changeNumber = mPersistentStorage.changeNumber;
+        storage.close();
+
+        Assert.assertEquals(101L, changeNumber);
+    }
+
+    private ProcessedSplitChange change(long changeNumber, List<Split> active, List<Split> archived) {
+        return new ProcessedSplitChange(active != null ? active : Collections.<Split>emptyList(),
+                archived != null ? archived : Collections.<Split>emptyList(), changeNumber, changeNumber * 10);
+    }
+
+    private Split newSplit(String name, long changeNumber) {
+        Split split = new Split();
+        split.name = name;
+        split.changeNumber = changeNumber;
+        split.status = Status.ACTIVE;
+        return split;
+    }
+
+    /**
+     * Writes each update atomically, as the database does in a transaction.
+     */
+    private static class FakePersistentSplitsStorage implements PersistentSplitsStorage {
+        final Map<String, Split> splits = new HashMap<>();
+        volatile long changeNumber = -1;
+        long updateTimestamp;
+        volatile int updateCount;
+        ProcessedSplitChange lastChange;
+        boolean closed;
+        // Number of next updates failing, as if the database couldn't be written
+        int failingWrites;
+
+        @Override
+        public synchronized boolean update(ProcessedSplitChange splitChange) {
+            if (failingWrites > 0) {
+                failingWrites--;
+                throw new IllegalStateException("Database not writable");
+            }
+            for (Split split : splitChange.getActiveSplits()) {
+                splits.put(split.name, split);
+            }
+            for (Split split : splitChange.getArchivedSplits()) {
+                splits.remove(split.name);
+            }
+            changeNumber = splitChange.getChangeNumber();
+            updateTimestamp = splitChange.getUpdateTimestamp();
+            lastChange = splitChange;
+            updateCount++;
+            return true;
+        }
+
+        @Override
+        public synchronized SplitsSnapshot getSnapshot() {
+            return new SplitsSnapshot(getAll(), changeNumber, updateTimestamp, null);
+        }
+
+        @Override
+        public synchronized List<Split> getAll() {
+            return new ArrayList<>(splits.values());
+        }
+
+        @Override
+        public synchronized void update(Split split) {
+            splits.put(split.name, split);
+        }
+
+        @Override
+        public String getFilterQueryString() {
+            return null;
+        }
+
+        @Override
+        public void updateFilterQueryString(String queryString) {
+        }
+
+        @Override
+        public synchronized void delete(List<String> splitNames) {
+            for (String name : splitNames) {
+                splits.remove(name);
+            }
+        }
+
+        @Override
+        public synchronized void clear() {
+            splits.clear();
+            changeNumber = -1;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
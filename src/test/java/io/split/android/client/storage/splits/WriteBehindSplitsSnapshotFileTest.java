@@ -0,0 +1,149 @@
+package io.split.android.client.storage.splits;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import io.split.android.client.dtos.Split;
+import io.split.android.client.dtos.Status;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WriteBehindSplitsSnapshotFileTest {
+
+    // Long enough for nothing to be written unless flushed
+    private static final long WRITE_DELAY = 60000;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File mFile;
+    private WriteBehindSplitsSnapshotFile mSnapshotFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = new File(mFolder.getRoot(), "db.splits");
+        mSnapshotFile = new WriteBehindSplitsSnapshotFile(mFile, WRITE_DELAY);
+    }
+
+    @After
+    public void tearDown() {
+        mSnapshotFile.close();
+    }
+
+    @Test
+    public void writeNotDoneUntilFlushed() {
+        mSnapshotFile.write(100L, 200L, null, Arrays.asList(LazySplit.of(newSplit("s1"))));
+
+        Assert.assertFalse(mFile.exists());
+
+        mSnapshotFile.flush();
+
+        Assert.assertEquals(100L, new SplitsSnapshotFile(mFile).read().getChangeNumber());
+    }
+
+    @Test
+    public void writesCoalescedKeepingLast() {
+        mSnapshotFile.write(100L, 200L, null, Arrays.asList(LazySplit.of(newSplit("s1"))));
+        mSnapshotFile.write(101L, 300L, "&names=s2", Arrays.asList(LazySplit.of(newSplit("s2"))));
+
+        SplitsSnapshot snapshot = mSnapshotFile.read();
+
+        Assert.assertEquals(101L, snapshot.getChangeNumber());
+        Assert.assertEquals("&names=s2", snapshot.getSplitsFilterQueryString());
+        Assert.assertEquals(1, snapshot.getLazySplits().size());
+        Assert.assertEquals("s2", snapshot.getLazySplits().get(0).name());
+    }
+
+    @Test
+    public void deleteDropsPendingWrite() {
+        mSnapshotFile.write(100L, 200L, null, Arrays.asList(LazySplit.of(newSplit("s1"))));
+        mSnapshotFile.flush();
+        mSnapshotFile.write(101L, 300L, null, Arrays.asList(LazySplit.of(newSplit("s2"))));
+
+        mSnapshotFile.delete();
+        mSnapshotFile.flush();
+
+        Assert.assertFalse(mFile.exists());
+    }
+
+    @Test
+    public void pauseWritesInBackground() throws InterruptedException {
+        mSnapshotFile.write(100L, 200L, null, Collections.<LazySplit>emptyList());
+
+        mSnapshotFile.pause();
+        for (int i = 0; i < 50 && !mFile.exists(); i++) {
+            Thread.sleep(20);
+        }
+
+        Assert.assertTrue(mFile.exists());
+    }
+
+    @Test
+    public void storageUpdateDoesNotWaitForFile() {
+        new SplitsSnapshotFile(mFile).write(100L, 200L, null, Arrays.asList(LazySplit.of(newSplit("s1"))));
+        SplitsStorage storage = new SplitsStorageImpl(mock(PersistentSplitsStorage.class), null, mSnapshotFile);
+        storage.loadLocal();
+
+        storage.update(new ProcessedSplitChange(Arrays.asList(newSplit("s2")),
+                Collections.<Split>emptyList(), 101L, 300L));
+        storage.update(new ProcessedSplitChange(Arrays.asList(newSplit("s3")),
+                Collections.<Split>emptyList(), 102L, 400L));
+
+        Assert.assertEquals(100L, new SplitsSnapshotFile(mFile).read().getChangeNumber());
+
+        mSnapshotFile.close();
+
+        SplitsSnapshot snapshot = new SplitsSnapshotFile(mFile).read();
+        Assert.assertEquals(102L, snapshot.getChangeNumber());
+        Assert.assertEquals(3, snapshot.getLazySplits().size());
+    }
+
+    @Test
+    public void fileNotAheadOfPersistentStorage() {
+        PersistentSplitsStorage sqLiteStorage = mock(PersistentSplitsStorage.class);
+        when(sqLiteStorage.update(any(ProcessedSplitChange.class)))
+                .thenThrow(new IllegalStateException("Database not writable"))
+                .thenReturn(true);
+        when(sqLiteStorage.getSnapshot())
+                .thenReturn(new SplitsSnapshot(Collections.<Split>emptyList(), -1L, 0L, null));
+        WriteBehindPersistentSplitsStorage persistentStorage
+                = new WriteBehindPersistentSplitsStorage(sqLiteStorage, WRITE_DELAY);
+        mSnapshotFile.setPersistentStorage(persistentStorage);
+        SplitsStorage storage = new SplitsStorageImpl(persistentStorage, null, mSnapshotFile);
+        storage.loadLocal();
+        mSnapshotFile.flush();
+
+        storage.update(new ProcessedSplitChange(Arrays.asList(newSplit("s1")),
+                Collections.<Split>emptyList(), 101L, 300L));
+        mSnapshotFile.flush();
+        long changeNumberAfterFailure = new SplitsSnapshotFile(mFile).read().getChangeNumber();
+        mSnapshotFile.flush();
+        long changeNumberAfterRetry = new SplitsSnapshotFile(mFile).read().getChangeNumber();
+        persistentStorage.close();
+
+        Assert.assertEquals(-1L, changeNumberAfterFailure);
+        Assert.assertEquals(101L, changeNumberAfterRetry);
+        verify(sqLiteStorage, times(2)).update(any(ProcessedSplitChange.class));
+    }
+
+    private Split newSplit(String name) {
+        Split split = new Split();
+        split.name = name;
+        split.status = Status.ACTIVE;
+        split.trafficTypeName = "tt";
+        return split;
+    }
+}
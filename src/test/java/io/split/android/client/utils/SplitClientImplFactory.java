@@ -11,6 +11,7 @@ import io.split.android.client.impressions.ImpressionListener;
 import io.split.android.client.service.synchronizer.SyncManager;
 import io.split.android.client.storage.mysegments.MySegmentsStorage;
 import io.split.android.client.storage.splits.SplitsStorage;
+import io.split.android.engine.experiments.ParsedSplitsCache;
 import io.split.android.engine.experiments.SplitParser;
 import io.split.android.engine.metrics.Metrics;
 
@@ -30,7 +31,7 @@ public class SplitClientImplFactory {
         SplitClientImpl c = new SplitClientImpl(
                 mock(SplitFactory.class),
                 key,
-                splitParser,
+                new ParsedSplitsCache(splitParser),
                 new ImpressionListener.NoopImpressionListener(),
                 new Metrics.NoopMetrics(),
                 cfg,
@@ -55,7 +56,7 @@ public class SplitClientImplFactory {
         return new SplitClientImpl(
                 mock(SplitFactory.class),
                 key,
-                splitParser,
+                new ParsedSplitsCache(splitParser),
                 impressionListener,
                 new Metrics.NoopMetrics(),
                 cfg,
@@ -71,7 +72,7 @@ public class SplitClientImplFactory {
         return new SplitClientImpl(
                 mock(SplitFactory.class),
                 key,
-                splitParser,
+                new ParsedSplitsCache(splitParser),
                 new ImpressionListener.NoopImpressionListener(),
                 new Metrics.NoopMetrics(),
                 SplitClientConfig.builder().build(),
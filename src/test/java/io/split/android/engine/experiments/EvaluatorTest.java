@@ -4,6 +4,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -12,14 +13,25 @@ import java.util.Map;
 import java.util.Set;
 
 import io.split.android.client.EvaluationResult;
+import io.split.android.client.EvaluationResultsCache;
 import io.split.android.client.Evaluator;
 import io.split.android.client.EvaluatorImpl;
 import io.split.android.client.TreatmentLabels;
+import io.split.android.client.dtos.Condition;
+import io.split.android.client.dtos.DependencyMatcherData;
+import io.split.android.client.dtos.Matcher;
+import io.split.android.client.dtos.MatcherType;
+import io.split.android.client.dtos.Partition;
 import io.split.android.client.dtos.Split;
+import io.split.android.client.storage.mysegments.MySegmentsSnapshot;
 import io.split.android.client.storage.mysegments.MySegmentsStorage;
+import io.split.android.client.storage.splits.InMemorySplitsSnapshot;
 import io.split.android.client.storage.splits.SplitsStorage;
 import io.split.android.grammar.Treatments;
+import io.split.android.engine.matchers.AllKeysMatcher;
+import io.split.android.engine.matchers.CombiningMatcher;
 import io.split.android.helpers.FileHelper;
+import io.split.android.helpers.SplitHelper;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -28,13 +40,15 @@ public class EvaluatorTest {
 
     private SplitFetcher splitFetcher;
     private Evaluator evaluator;
+    private MySegmentsStorage mySegmentsStorage;
+    private SplitsStorage splitsStorage;
 
     @Before
     public void loadSplitsFromFile(){
         if(evaluator == null) {
             FileHelper fileHelper = new FileHelper();
-            MySegmentsStorage mySegmentsStorage = mock(MySegmentsStorage.class);
-            SplitsStorage splitsStorage = mock(SplitsStorage.class);
+            mySegmentsStorage = mock(MySegmentsStorage.class);
+            splitsStorage = mock(SplitsStorage.class);
 
             Set<String> mySegments = new HashSet(Arrays.asList("s1", "s2", "test_copy"));
             List<Split> splits = fileHelper.loadAndParseSplitChangeFile("split_changes_1.json");
@@ -42,12 +56,14 @@ public class EvaluatorTest {
 
             Map<String, Split> splitsMap = splitsMap(splits);
             when(splitsStorage.getAll()).thenReturn(splitsMap);
+            when(splitsStorage.getInMemorySnapshot()).thenReturn(InMemorySplitsSnapshot.of(splits, 1, 0));
             when(splitsStorage.get("FACUNDO_TEST")).thenReturn(splitsMap.get("FACUNDO_TEST"));
             when(splitsStorage.get("a_new_split_2")).thenReturn(splitsMap.get("a_new_split_2"));
             when(splitsStorage.get("Test")).thenReturn(splitsMap.get("Test"));
 
 
             when(mySegmentsStorage.getAll()).thenReturn(mySegments);
+            when(mySegmentsStorage.getSnapshot()).thenReturn(MySegmentsSnapshot.of(mySegments));
 
             evaluator = new EvaluatorImpl(splitsStorage, splitParser);
         }
@@ -96,6 +112,124 @@ public class EvaluatorTest {
         Assert.assertEquals("whitelisted segment", result.getLabel());
     }
 
+    @Test
+    public void testPinnedMySegments() {
+        String matchingKey = "anyKey";
+        String splitName = "a_new_split_2";
+        Evaluator pinnedEvaluator = evaluator.pinSnapshots();
+
+        when(mySegmentsStorage.getSnapshot()).thenReturn(MySegmentsSnapshot.EMPTY);
+        EvaluationResult pinnedResult = pinnedEvaluator.getTreatment(matchingKey, matchingKey, splitName, null);
+        EvaluationResult result = evaluator.getTreatment(matchingKey, matchingKey, splitName, null);
+
+        Assert.assertEquals("whitelisted segment", pinnedResult.getLabel());
+        Assert.assertNotEquals("whitelisted segment", result.getLabel());
+    }
+
+    @Test
+    public void testCachedResults() {
+        String matchingKey = "anyKey";
+        String splitName = "FACUNDO_TEST";
+        ParsedSplitsCache parsedSplitsCache = new ParsedSplitsCache(new SplitParser(mySegmentsStorage));
+        Evaluator cachedEvaluator = new EvaluatorImpl(splitsStorage, parsedSplitsCache, new EvaluationResultsCache(10));
+
+        EvaluationResult first = cachedEvaluator.getTreatment(matchingKey, matchingKey, splitName, null);
+        EvaluationResult second = cachedEvaluator.getTreatment(matchingKey, matchingKey, splitName, null);
+        parsedSplitsCache.invalidate(splitName);
+        EvaluationResult third = cachedEvaluator.getTreatment(matchingKey, matchingKey, splitName, null);
+
+        Assert.assertSame(first, second);
+        Assert.assertNotSame(first, third);
+        Assert.assertEquals(first.getTreatment(), third.getTreatment());
+    }
+
+    @Test
+    public void testPreEvaluatedTreatments() {
+        String matchingKey = "anyKey";
+        ParsedSplitsCache parsedSplitsCache = new ParsedSplitsCache(new SplitParser(mySegmentsStorage));
+        EvaluatorImpl preEvaluator = new EvaluatorImpl(splitsStorage, parsedSplitsCache);
+
+        preEvaluator.preEvaluate(matchingKey, matchingKey);
+        EvaluationResult first = preEvaluator.getTreatment(matchingKey, matchingKey, "FACUNDO_TEST", null);
+        EvaluationResult second = preEvaluator.getTreatment(matchingKey, matchingKey, "FACUNDO_TEST", null);
+        EvaluationResult withAttributes = preEvaluator.getTreatment(matchingKey, matchingKey, "a_new_split_2", null);
+        EvaluationResult otherKey = preEvaluator.getTreatment("otherKey", "otherKey", "FACUNDO_TEST", null);
+        parsedSplitsCache.invalidate("FACUNDO_TEST");
+        EvaluationResult afterUpdate = preEvaluator.getTreatment(matchingKey, matchingKey, "FACUNDO_TEST", null);
+
+        Assert.assertSame(first, second);
+        Assert.assertNotSame(withAttributes, preEvaluator.getTreatment(matchingKey, matchingKey, "a_new_split_2", null));
+        Assert.assertNotSame(otherKey, preEvaluator.getTreatment("otherKey", "otherKey", "FACUNDO_TEST", null));
+        Assert.assertNotSame(first, afterUpdate);
+        Assert.assertEquals(first.getTreatment(), afterUpdate.getTreatment());
+    }
+
+    @Test
+    public void testPreEvaluatedTreatmentsNewMySegments() {
+        String matchingKey = "anyKey";
+        EvaluatorImpl preEvaluator = new EvaluatorImpl(splitsStorage,
+                new ParsedSplitsCache(new SplitParser(mySegmentsStorage)));
+
+        preEvaluator.preEvaluate(matchingKey, matchingKey);
+        EvaluationResult first = preEvaluator.getTreatment(matchingKey, matchingKey, "FACUNDO_TEST", null);
+        when(mySegmentsStorage.getSnapshot()).thenReturn(MySegmentsSnapshot.of(Arrays.asList("s1")));
+        EvaluationResult second = preEvaluator.getTreatment(matchingKey, matchingKey, "FACUNDO_TEST", null);
+
+        Assert.assertNotSame(first, second);
+    }
+
+    @Test
+    public void testDependencyEvaluatedOncePerCall() {
+        SplitsStorage storage = mock(SplitsStorage.class);
+        when(storage.get("parent")).thenReturn(split("parent"));
+        when(storage.get("child")).thenReturn(split("child", "parent"));
+        when(storage.getInMemorySnapshot()).thenReturn(
+                InMemorySplitsSnapshot.of(Arrays.asList(split("parent"), split("child", "parent")), 1, 0));
+        Evaluator dependencyEvaluator = new EvaluatorImpl(storage, new SplitParser(mySegmentsStorage));
+        Evaluator pinnedEvaluator = dependencyEvaluator.pinSnapshots();
+
+        EvaluationResult child = pinnedEvaluator.getTreatment("anyKey", null, "child", null);
+        EvaluationResult parent = pinnedEvaluator.getTreatment("anyKey", null, "parent", null);
+
+        Assert.assertEquals("on", child.getTreatment());
+        Assert.assertSame(parent, pinnedEvaluator.getTreatment("anyKey", null, "parent", null));
+        Assert.assertNotSame(parent, dependencyEvaluator.getTreatment("anyKey", null, "parent", null));
+        Assert.assertNotSame(parent, pinnedEvaluator.getTreatment("otherKey", null, "parent", null));
+    }
+
+    @Test
+    public void testPinnedEvaluatorKeepsSplitsSnapshot() {
+        SplitsStorage storage = mock(SplitsStorage.class);
+        Split killed = split("parent");
+        killed.killed = true;
+        killed.changeNumber = 2;
+        when(storage.getInMemorySnapshot()).thenReturn(
+                InMemorySplitsSnapshot.of(Arrays.asList(split("parent"), split("child", "parent")), 1, 0));
+        Evaluator dependencyEvaluator = new EvaluatorImpl(storage, new SplitParser(mySegmentsStorage));
+        Evaluator pinnedEvaluator = dependencyEvaluator.pinSnapshots();
+        when(storage.getInMemorySnapshot()).thenReturn(
+                InMemorySplitsSnapshot.of(Arrays.asList(killed, split("child", "parent")), 2, 0));
+
+        Assert.assertEquals("on", pinnedEvaluator.getTreatment("anyKey", null, "parent", null).getTreatment());
+        Assert.assertEquals("on", pinnedEvaluator.getTreatment("anyKey", null, "child", null).getTreatment());
+        Assert.assertEquals("off", dependencyEvaluator.getTreatment("anyKey", null, "parent", null).getTreatment());
+    }
+
+    @Test
+    public void testCircularDependency() {
+        SplitsStorage storage = mock(SplitsStorage.class);
+        when(storage.get("a")).thenReturn(split("a", "b"));
+        when(storage.get("b")).thenReturn(split("b", "a"));
+        when(storage.getInMemorySnapshot()).thenReturn(
+                InMemorySplitsSnapshot.of(Arrays.asList(split("a", "b"), split("b", "a")), 1, 0));
+        Evaluator dependencyEvaluator = new EvaluatorImpl(storage, new SplitParser(mySegmentsStorage));
+
+        EvaluationResult result = dependencyEvaluator.getTreatment("anyKey", null, "a", null);
+
+        Assert.assertEquals(Treatments.CONTROL, result.getTreatment());
+        Assert.assertEquals(TreatmentLabels.EXCEPTION, result.getLabel());
+    }
+
     @Test
     public void testKilledSplit() {
         String matchingKey = "anyKey";
@@ -129,6 +263,24 @@ public class EvaluatorTest {
         Assert.assertEquals(TreatmentLabels.DEFINITION_NOT_FOUND, result.getLabel());
     }
 
+    private Split split(String name, String... dependencies) {
+        Partition partition = new Partition();
+        partition.treatment = "on";
+        partition.size = 100;
+        List<Condition> conditions = new ArrayList<>();
+        for (String dependency : dependencies) {
+            Condition condition = SplitHelper.createCondition(null, Arrays.asList(partition));
+            Matcher matcher = condition.matcherGroup.matchers.get(0);
+            matcher.matcherType = MatcherType.IN_SPLIT_TREATMENT;
+            matcher.dependencyMatcherData = new DependencyMatcherData();
+            matcher.dependencyMatcherData.split = dependency;
+            matcher.dependencyMatcherData.treatments = Arrays.asList("on");
+            conditions.add(condition);
+        }
+        conditions.add(SplitHelper.createCondition(CombiningMatcher.of(new AllKeysMatcher()), Arrays.asList(partition)));
+        return SplitHelper.createSplit(name, 1, false, "off", conditions, null, 1, 2, null);
+    }
+
     private Map<String, Split> splitsMap(List<Split> splits) {
         Map<String, Split> splitsMap = new HashMap<>();
         for(Split split : splits) {
@@ -0,0 +1,127 @@
+package io.split.android.engine.experiments;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import io.split.android.client.dtos.Condition;
+import io.split.android.client.dtos.ConditionType;
+import io.split.android.client.dtos.Partition;
+import io.split.android.client.dtos.Split;
+import io.split.android.client.dtos.Status;
+import io.split.android.client.storage.mysegments.MySegmentsSnapshot;
+import io.split.android.client.storage.mysegments.MySegmentsStorage;
+import io.split.android.engine.ConditionsTestUtil;
+import io.split.android.grammar.Treatments;
+
+import static org.mockito.Mockito.when;
+
+public class ParsedSplitsCacheTest {
+
+    MySegmentsStorage mMySegmentsStorage;
+    ParsedSplitsCache mParsedSplitsCache;
+
+    @Before
+    public void setup() {
+        mMySegmentsStorage = Mockito.mock(MySegmentsStorage.class);
+        when(mMySegmentsStorage.getAll()).thenReturn(new HashSet<>());
+        when(mMySegmentsStorage.getSnapshot()).thenReturn(MySegmentsSnapshot.EMPTY);
+        mParsedSplitsCache = new ParsedSplitsCache(new SplitParser(mMySegmentsStorage));
+    }
+
+    @Test
+    public void sameChangeNumberReturnsCachedInstance() {
+        Split split = makeSplit("split", 1);
+
+        ParsedSplit first = mParsedSplitsCache.get(split);
+        ParsedSplit second = mParsedSplitsCache.get(split);
+
+        Assert.assertNotNull(first);
+        Assert.assertSame(first, second);
+    }
+
+    @Test
+    public void newChangeNumberReparses() {
+        ParsedSplit first = mParsedSplitsCache.get(makeSplit("split", 1));
+        ParsedSplit second = mParsedSplitsCache.get(makeSplit("split", 2));
+
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(2, second.changeNumber());
+    }
+
+    @Test
+    public void invalidateReparses() {
+        Split split = makeSplit("split", 1);
+        ParsedSplit first = mParsedSplitsCache.get(split);
+
+        mParsedSplitsCache.invalidate("split");
+        ParsedSplit second = mParsedSplitsCache.get(split);
+
+        Assert.assertNotSame(first, second);
+    }
+
+    @Test
+    public void invalidateAllReparses() {
+        Split split = makeSplit("split", 1);
+        ParsedSplit first = mParsedSplitsCache.get(split);
+
+        mParsedSplitsCache.invalidateAll();
+        ParsedSplit second = mParsedSplitsCache.get(split);
+
+        Assert.assertNotSame(first, second);
+    }
+
+    @Test
+    public void mySegmentsUpdateDoesNotReparse() {
+        Split split = makeSplit("split", 1);
+        ParsedSplit first = mParsedSplitsCache.get(split);
+        Assert.assertFalse(first.parsedConditions().get(0).matcher().match("key", null, null, null));
+
+        when(mMySegmentsStorage.getSnapshot()).thenReturn(MySegmentsSnapshot.of(Arrays.asList("segment")));
+        ParsedSplit second = mParsedSplitsCache.get(split);
+
+        Assert.assertSame(first, second);
+        Assert.assertTrue(second.parsedConditions().get(0).matcher().match("key", null, null, null));
+    }
+
+    @Test
+    public void nullSplit() {
+        Assert.assertNull(mParsedSplitsCache.get(null));
+    }
+
+    @Test
+    public void archivedSplitIsNotCached() {
+        Split split = makeSplit("split", 1);
+        Assert.assertNotNull(mParsedSplitsCache.get(split));
+
+        Split archived = makeSplit("split", 2);
+        archived.status = Status.ARCHIVED;
+
+        Assert.assertNull(mParsedSplitsCache.get(archived));
+    }
+
+    private Split makeSplit(String name, long changeNumber) {
+        List<Partition> partitions = Lists.newArrayList(ConditionsTestUtil.partition("on", 100));
+        Condition condition = ConditionsTestUtil.makeUserDefinedSegmentCondition(ConditionType.ROLLOUT, "segment", partitions);
+
+        Split split = new Split();
+        split.name = name;
+        split.seed = 123;
+        split.trafficAllocation = 100;
+        split.trafficAllocationSeed = 123;
+        split.status = Status.ACTIVE;
+        split.conditions = Lists.newArrayList(condition);
+        split.defaultTreatment = Treatments.OFF;
+        split.trafficTypeName = "user";
+        split.changeNumber = changeNumber;
+        split.algo = 1;
+        return split;
+    }
+}
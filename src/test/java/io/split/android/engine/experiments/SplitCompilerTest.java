@@ -0,0 +1,340 @@
+package io.split.android.engine.experiments;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.split.android.client.EvaluationResult;
+import io.split.android.client.Evaluator;
+import io.split.android.client.EvaluatorImpl;
+import io.split.android.client.dtos.Condition;
+import io.split.android.client.dtos.ConditionType;
+import io.split.android.client.dtos.DataType;
+import io.split.android.client.dtos.KeySelector;
+import io.split.android.client.dtos.Matcher;
+import io.split.android.client.dtos.MatcherType;
+import io.split.android.client.dtos.Partition;
+import io.split.android.client.dtos.Split;
+import io.split.android.client.dtos.Status;
+import io.split.android.client.dtos.WhitelistMatcherData;
+import io.split.android.client.storage.mysegments.MySegmentsSnapshot;
+import io.split.android.client.storage.mysegments.MySegmentsStorage;
+import io.split.android.client.storage.splits.InMemorySplitsSnapshot;
+import io.split.android.client.storage.splits.SplitsStorage;
+import io.split.android.client.utils.Json;
+import io.split.android.engine.ConditionsTestUtil;
+import io.split.android.engine.splitter.Splitter;
+import io.split.android.grammar.Treatments;
+import io.split.android.helpers.FileHelper;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Differential test: compiled splits must give the same result
+ * as the matcher tree they were compiled from.
+ */
+public class SplitCompilerTest {
+
+    private static final String ATTR = "attr";
+    private static final List<String> KEYS = Arrays.asList("nico_test", "key", "", "prefix_key", "test_copy");
+    private static final List<String> SPLIT_CHANGE_FILES = Arrays.asList("split_changes_1.json", "splitchanges_int_test.json");
+    private static final List<String> SPLIT_FILES = Arrays.asList("split.json", "split_dependency.json");
+
+    private Map<String, Split> mSplits;
+    private ParsedSplitsCache mParsedSplitsCache;
+    private Evaluator mEvaluator;
+    private SplitCompiler mSplitCompiler;
+    private MySegmentsSnapshot mMySegments;
+
+    @Before
+    public void setup() {
+        MySegmentsStorage mySegmentsStorage = mock(MySegmentsStorage.class);
+        SplitsStorage splitsStorage = mock(SplitsStorage.class);
+        mMySegments = MySegmentsSnapshot.of(Arrays.asList("s1", "s2", "test_copy"));
+        when(mySegmentsStorage.getAll()).thenReturn(mMySegments.names());
+        when(mySegmentsStorage.getSnapshot()).thenReturn(mMySegments);
+
+        mSplits = new HashMap<>();
+        FileHelper fileHelper = new FileHelper();
+        for (String file : SPLIT_CHANGE_FILES) {
+            for (Split split : fileHelper.loadAndParseSplitChangeFile(file)) {
+                mSplits.put(split.name, split);
+            }
+        }
+        for (String file : SPLIT_FILES) {
+            Split split = Json.fromJson(fileHelper.loadFileContent(file), Split.class);
+            mSplits.put(split.name, split);
+        }
+        // Split that the one in split_dependency.json depends on
+        Split dependency = allKeysSplit("sample_1", "on");
+        mSplits.put(dependency.name, dependency);
+        Split synthetic = syntheticSplit();
+        mSplits.put(synthetic.name, synthetic);
+        when(splitsStorage.get(anyString())).thenAnswer(invocation -> mSplits.get(invocation.getArgument(0)));
+        when(splitsStorage.getInMemorySnapshot()).thenAnswer(invocation -> InMemorySplitsSnapshot.of(mSplits.values(), 1, 0));
+
+        mParsedSplitsCache = new ParsedSplitsCache(new SplitParser(mySegmentsStorage));
+        mEvaluator = new EvaluatorImpl(splitsStorage, mParsedSplitsCache);
+        mSplitCompiler = new SplitCompiler();
+    }
+
+    @Test
+    public void conditionsMatchInterpreter() {
+        int checks = 0;
+        for (Split split : mSplits.values()) {
+            ParsedSplit parsedSplit = mParsedSplitsCache.get(split);
+            if (parsedSplit == null) {
+                continue;
+            }
+            CompiledSplit compiledSplit = mSplitCompiler.compile(parsedSplit);
+            Assert.assertEquals(parsedSplit.parsedConditions().size(), compiledSplit.conditionCount());
+
+            for (int i = 0; i < compiledSplit.conditionCount(); i++) {
+                ParsedCondition parsedCondition = parsedSplit.parsedConditions().get(i);
+                for (String key : KEYS) {
+                    for (Map<String, Object> attributes : attributeMaps(split)) {
+                        Object expected = outcome(() -> parsedCondition.matcher().match(key, key, attributes, mEvaluator));
+                        Object actual = outcome(compiledMatch(compiledSplit, i, key, attributes));
+                        Assert.assertEquals(split.name + " condition " + i + " key " + key + " attributes " + attributes,
+                                expected, actual);
+                        checks++;
+                    }
+                }
+            }
+        }
+        Assert.assertTrue(checks > 0);
+    }
+
+    @Test
+    public void evaluatorMatchesInterpreter() {
+        for (Split split : mSplits.values()) {
+            ParsedSplit parsedSplit = mParsedSplitsCache.get(split);
+            for (String key : KEYS) {
+                for (Map<String, Object> attributes : attributeMaps(split)) {
+                    EvaluationResult result = mEvaluator.getTreatment(key, key, split.name, attributes);
+                    String expected = parsedSplit == null ? Treatments.CONTROL : interpret(parsedSplit, key, attributes);
+                    Assert.assertEquals(split.name + " key " + key + " attributes " + attributes,
+                            expected, result.getTreatment());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void dependencyMatched() {
+        EvaluationResult result = mEvaluator.getTreatment("key", "key", "dep_split", null);
+
+        Assert.assertEquals("on", result.getTreatment());
+        Assert.assertTrue(mParsedSplitsCache.getCompiled(mSplits.get("dep_split")).match(0, "key", "key",
+                TypedAttributes.of(null), mMySegments, mEvaluator));
+    }
+
+    @Test
+    public void compiledSplitIsCachedPerChangeNumber() {
+        Split split = mSplits.get("synthetic");
+        CompiledSplit first = mParsedSplitsCache.getCompiled(split);
+
+        Assert.assertSame(first, mParsedSplitsCache.getCompiled(split));
+        Assert.assertSame(first.parsedSplit(), mParsedSplitsCache.get(split));
+
+        split.changeNumber = split.changeNumber + 1;
+        Assert.assertNotSame(first, mParsedSplitsCache.getCompiled(split));
+    }
+
+    private Outcome compiledMatch(CompiledSplit compiledSplit, int index, String key, Map<String, Object> attributes) {
+        return () -> compiledSplit.match(index, key, key, TypedAttributes.of(attributes), mMySegments, mEvaluator);
+    }
+
+    /**
+     * Previous evaluation loop, running each condition's matcher tree.
+     */
+    private String interpret(ParsedSplit parsedSplit, String key, Map<String, Object> attributes) {
+        if (parsedSplit.killed()) {
+            return parsedSplit.defaultTreatment();
+        }
+        try {
+            boolean inRollout = false;
+            for (ParsedCondition parsedCondition : parsedSplit.parsedConditions()) {
+                if (!inRollout && parsedCondition.conditionType() == ConditionType.ROLLOUT) {
+                    if (parsedSplit.trafficAllocation() < 100
+                            && Splitter.getBucket(key, parsedSplit.trafficAllocationSeed(), parsedSplit.algo()) > parsedSplit.trafficAllocation()) {
+                        return parsedSplit.defaultTreatment();
+                    }
+                    inRollout = true;
+                }
+                if (parsedCondition.matcher().match(key, key, attributes, mEvaluator)) {
+                    return Splitter.getTreatment(key, parsedSplit.seed(), parsedCondition.partitions(), parsedSplit.algo());
+                }
+            }
+        } catch (Exception e) {
+            return Treatments.CONTROL;
+        }
+        return parsedSplit.defaultTreatment();
+    }
+
+    private List<Map<String, Object>> attributeMaps(Split split) {
+        Set<String> attributeNames = new HashSet<>();
+        attributeNames.add(ATTR);
+        List<Condition> conditions = split.conditions != null ? split.conditions : new ArrayList<>();
+        for (Condition condition : conditions) {
+            for (Matcher matcher : condition.matcherGroup.matchers) {
+                if (matcher.keySelector != null && matcher.keySelector.attribute != null) {
+                    attributeNames.add(matcher.keySelector.attribute);
+                }
+            }
+        }
+
+        List<Map<String, Object>> maps = new ArrayList<>();
+        maps.add(null);
+        maps.add(new HashMap<>());
+        for (Object value : attributeValues()) {
+            Map<String, Object> attributes = new HashMap<>();
+            for (String name : attributeNames) {
+                attributes.put(name, value);
+            }
+            maps.add(attributes);
+        }
+        return maps;
+    }
+
+    private List<Object> attributeValues() {
+        return Arrays.asList(
+                "", "a", "abc", "prefix_value", "value_suffix", "some_contained_value", "TRUE", "false", "tRuE", "yes",
+                true, false,
+                0, 5, 10, -1, 5L, 10L, 20L, -5L, 1.5, 10.0,
+                1482207323000L, 1482207323000L + 59999L, 1482192000000L, 1482192000000L - 1L, -1000L, Integer.MIN_VALUE,
+                Lists.newArrayList("a", "b"), Lists.newArrayList("a"), Lists.newArrayList("a", "b", "c"),
+                Sets.newHashSet("b", "a"), Collections.emptyList(), Lists.newArrayList(1, 2),
+                Lists.newArrayList("a", null),
+                new Object());
+    }
+
+    private Split syntheticSplit() {
+        List<Partition> partitions = Lists.newArrayList(ConditionsTestUtil.partition("on", 50), ConditionsTestUtil.partition("off", 50));
+        List<String> set = Lists.newArrayList("a", "b");
+        List<String> strings = Lists.newArrayList("prefix", "suffix", "contained", "");
+
+        List<Condition> conditions = new ArrayList<>();
+        for (boolean negate : new boolean[]{false, true}) {
+            for (DataType dataType : new DataType[]{DataType.NUMBER, DataType.DATETIME}) {
+                long number = dataType == DataType.NUMBER ? 10L : 1482207323000L;
+                conditions.add(ConditionsTestUtil.and(ConditionsTestUtil.numericMatcher("user", ATTR, MatcherType.EQUAL_TO, dataType, number, negate), partitions));
+                conditions.add(ConditionsTestUtil.and(ConditionsTestUtil.numericMatcher("user", ATTR, MatcherType.GREATER_THAN_OR_EQUAL_TO, dataType, number, negate), partitions));
+                conditions.add(ConditionsTestUtil.and(ConditionsTestUtil.numericMatcher("user", ATTR, MatcherType.LESS_THAN_OR_EQUAL_TO, dataType, number, negate), partitions));
+                conditions.add(ConditionsTestUtil.and(ConditionsTestUtil.betweenMatcher("user", ATTR, dataType, -number, number, negate), partitions));
+            }
+            conditions.add(ConditionsTestUtil.containsAnyOfSet("user", ATTR, set, negate, partitions));
+            conditions.add(ConditionsTestUtil.containsAllOfSet("user", ATTR, set, negate, partitions));
+            conditions.add(ConditionsTestUtil.isPartOfSet("user", ATTR, set, negate, partitions));
+            conditions.add(ConditionsTestUtil.equalToSet("user", ATTR, set, negate, partitions));
+            conditions.add(ConditionsTestUtil.startsWithString("user", ATTR, strings, negate, partitions));
+            conditions.add(ConditionsTestUtil.endsWithString("user", ATTR, strings, negate, partitions));
+            conditions.add(ConditionsTestUtil.containsString("user", ATTR, strings, negate, partitions));
+            conditions.add(ConditionsTestUtil.and(booleanMatcher(negate), partitions));
+            conditions.add(ConditionsTestUtil.and(regexMatcher(negate), partitions));
+            conditions.add(ConditionsTestUtil.and(keyWhitelistMatcher(negate), partitions));
+        }
+        conditions.add(ConditionsTestUtil.and(
+                ConditionsTestUtil.numericMatcher("user", ATTR, MatcherType.GREATER_THAN_OR_EQUAL_TO, DataType.NUMBER, 5L, false),
+                ConditionsTestUtil.numericMatcher("user", ATTR, MatcherType.LESS_THAN_OR_EQUAL_TO, DataType.NUMBER, 10L, false),
+                partitions));
+        conditions.add(ConditionsTestUtil.makeUserDefinedSegmentCondition(ConditionType.ROLLOUT, "test_copy", partitions));
+        conditions.add(ConditionsTestUtil.makeAllKeysCondition(partitions));
+        for (Condition condition : conditions) {
+            if (condition.conditionType == null) {
+                condition.conditionType = ConditionType.ROLLOUT;
+            }
+        }
+
+        Split split = new Split();
+        split.name = "synthetic";
+        split.seed = 123;
+        split.trafficAllocation = 100;
+        split.trafficAllocationSeed = 123;
+        split.status = Status.ACTIVE;
+        split.conditions = conditions;
+        split.defaultTreatment = Treatments.OFF;
+        split.trafficTypeName = "user";
+        split.changeNumber = 1;
+        split.algo = 2;
+        return split;
+    }
+
+    private Split allKeysSplit(String name, String treatment) {
+        Split split = new Split();
+        split.name = name;
+        split.seed = 1;
+        split.trafficAllocation = 100;
+        split.trafficAllocationSeed = 1;
+        split.status = Status.ACTIVE;
+        split.conditions = Lists.newArrayList(ConditionsTestUtil.makeAllKeysCondition(
+                Lists.newArrayList(ConditionsTestUtil.partition(treatment, 100))));
+        split.conditions.get(0).conditionType = ConditionType.ROLLOUT;
+        split.defaultTreatment = Treatments.OFF;
+        split.trafficTypeName = "client";
+        split.changeNumber = 1;
+        split.algo = 2;
+        return split;
+    }
+
+    private Matcher keyWhitelistMatcher(boolean negate) {
+        WhitelistMatcherData whitelistMatcherData = new WhitelistMatcherData();
+        whitelistMatcherData.whitelist = Lists.newArrayList("key", "nico_test");
+
+        Matcher matcher = new Matcher();
+        matcher.matcherType = MatcherType.WHITELIST;
+        matcher.negate = negate;
+        matcher.whitelistMatcherData = whitelistMatcherData;
+        return matcher;
+    }
+
+    private Matcher booleanMatcher(boolean negate) {
+        Matcher matcher = attributeMatcher(MatcherType.EQUAL_TO_BOOLEAN, negate);
+        matcher.booleanMatcherData = true;
+        return matcher;
+    }
+
+    private Matcher regexMatcher(boolean negate) {
+        Matcher matcher = attributeMatcher(MatcherType.MATCHES_STRING, negate);
+        matcher.stringMatcherData = "^[a-c]+$";
+        return matcher;
+    }
+
+    private Matcher attributeMatcher(MatcherType matcherType, boolean negate) {
+        KeySelector keySelector = new KeySelector();
+        keySelector.trafficType = "user";
+        keySelector.attribute = ATTR;
+
+        Matcher matcher = new Matcher();
+        matcher.keySelector = keySelector;
+        matcher.matcherType = matcherType;
+        matcher.negate = negate;
+        return matcher;
+    }
+
+    private Object outcome(Outcome outcome) {
+        try {
+            return outcome.match();
+        } catch (Exception e) {
+            return e.getClass();
+        }
+    }
+
+    private interface Outcome {
+        boolean match();
+    }
+}
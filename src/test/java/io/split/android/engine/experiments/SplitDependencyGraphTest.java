@@ -0,0 +1,148 @@
+package io.split.android.engine.experiments;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.split.android.client.dtos.Condition;
+import io.split.android.client.dtos.DependencyMatcherData;
+import io.split.android.client.dtos.Matcher;
+import io.split.android.client.dtos.MatcherType;
+import io.split.android.client.dtos.Partition;
+import io.split.android.client.dtos.Split;
+import io.split.android.client.storage.mysegments.MySegmentsStorage;
+import io.split.android.client.storage.splits.InMemorySplitsSnapshot;
+import io.split.android.engine.matchers.AllKeysMatcher;
+import io.split.android.engine.matchers.CombiningMatcher;
+import io.split.android.helpers.SplitHelper;
+
+import static org.mockito.Mockito.mock;
+
+public class SplitDependencyGraphTest {
+
+    private Map<String, Split> mSplits;
+    private ParsedSplitsCache mParsedSplitsCache;
+    private SplitDependencyGraph mGraph;
+
+    @Before
+    public void setup() {
+        mSplits = new HashMap<>();
+        mParsedSplitsCache = new ParsedSplitsCache(new SplitParser(mock(MySegmentsStorage.class)));
+    }
+
+    @Test
+    public void noDependencies() {
+        addSplit("split");
+
+        Assert.assertEquals(Collections.emptyList(), graph().evaluationOrder(compiled("split")));
+    }
+
+    @Test
+    public void dependenciesBeforeDependents() {
+        addSplit("child", "parent", "grandparent");
+        addSplit("parent", "grandparent");
+        addSplit("grandparent");
+
+        Assert.assertEquals(Arrays.asList("grandparent", "parent"), graph().evaluationOrder(compiled("child")));
+    }
+
+    @Test
+    public void sharedDependencyOnlyOnce() {
+        addSplit("child", "left", "right");
+        addSplit("left", "root");
+        addSplit("right", "root");
+        addSplit("root");
+
+        Assert.assertEquals(Arrays.asList("root", "left", "right"), graph().evaluationOrder(compiled("child")));
+    }
+
+    @Test
+    public void missingDependencyIsKept() {
+        addSplit("child", "not_exists");
+
+        Assert.assertEquals(Collections.singletonList("not_exists"), graph().evaluationOrder(compiled("child")));
+    }
+
+    @Test
+    public void cycle() {
+        addSplit("a", "b");
+        addSplit("b", "c");
+        addSplit("c", "a");
+
+        Assert.assertNull(graph().evaluationOrder(compiled("a")));
+        Assert.assertNull(graph().evaluationOrder(compiled("b")));
+    }
+
+    @Test
+    public void dependsOnCycle() {
+        addSplit("child", "a");
+        addSplit("a", "b");
+        addSplit("b", "a");
+
+        Assert.assertNull(graph().evaluationOrder(compiled("child")));
+    }
+
+    @Test
+    public void selfDependency() {
+        addSplit("a", "a");
+
+        Assert.assertNull(graph().evaluationOrder(compiled("a")));
+    }
+
+    @Test
+    public void dependenciesFromGraphSnapshot() {
+        addSplit("child", "parent");
+        addSplit("parent");
+        SplitDependencyGraph graph = graph();
+        // Added after the snapshot was taken
+        addSplit("parent", "grandparent");
+
+        Assert.assertEquals(Collections.singletonList("parent"), graph.evaluationOrder(compiled("child")));
+    }
+
+    private SplitDependencyGraph graph() {
+        if (mGraph == null) {
+            mGraph = new SplitDependencyGraph(InMemorySplitsSnapshot.of(mSplits.values(), 1, 0),
+                    mParsedSplitsCache);
+        }
+        return mGraph;
+    }
+
+    private CompiledSplit compiled(String name) {
+        return mParsedSplitsCache.getCompiled(mSplits.get(name));
+    }
+
+    private void addSplit(String name, String... dependencies) {
+        List<Condition> conditions = new ArrayList<>();
+        for (String dependency : dependencies) {
+            conditions.add(dependencyCondition(dependency));
+        }
+        conditions.add(SplitHelper.createCondition(CombiningMatcher.of(new AllKeysMatcher()), Arrays.asList(partition("on"))));
+        Split split = SplitHelper.createSplit(name, 1, false, "off", conditions, null, 1, 2, null);
+        mSplits.put(name, split);
+    }
+
+    private Condition dependencyCondition(String split) {
+        Condition condition = SplitHelper.createCondition(null, Arrays.asList(partition("on")));
+        Matcher matcher = condition.matcherGroup.matchers.get(0);
+        matcher.matcherType = MatcherType.IN_SPLIT_TREATMENT;
+        matcher.dependencyMatcherData = new DependencyMatcherData();
+        matcher.dependencyMatcherData.split = split;
+        matcher.dependencyMatcherData.treatments = Arrays.asList("on");
+        return condition;
+    }
+
+    private Partition partition(String treatment) {
+        Partition partition = new Partition();
+        partition.treatment = treatment;
+        partition.size = 100;
+        return partition;
+    }
+}
@@ -0,0 +1,37 @@
+package io.split.android.engine.experiments;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class TypedAttributesTest {
+
+    @Test
+    public void noAttributes() {
+        TypedAttributes attributes = TypedAttributes.of(null);
+
+        Assert.assertNull(attributes.asMap());
+        Assert.assertNull(attributes.get("age"));
+    }
+
+    @Test
+    public void stringSetIsConvertedOnce() {
+        List<Object> values = Arrays.<Object>asList("a", 1, 2L);
+        Map<String, Object> map = new HashMap<>();
+        map.put("values", values);
+        TypedAttributes attributes = TypedAttributes.of(map);
+
+        Set<String> stringSet = attributes.stringSet("values", values);
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "1", "2")), stringSet);
+        Assert.assertSame(stringSet, attributes.stringSet("values", values));
+        Assert.assertSame(map, attributes.asMap());
+        Assert.assertSame(values, attributes.get("values"));
+    }
+}
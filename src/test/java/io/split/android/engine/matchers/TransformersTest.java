@@ -3,6 +3,8 @@ package io.split.android.engine.matchers;
 import org.junit.Test;
 
 import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
 
 import static io.split.android.engine.matchers.Transformers.asDate;
 import static io.split.android.engine.matchers.Transformers.asDateHourMinute;
@@ -44,4 +46,27 @@ public class TransformersTest {
         assertThat(asDate(Calendar.getInstance()), is(nullValue()));
     }
 
+    @Test
+    public void truncationSameAsUtcCalendar() {
+        Random random = new Random(11);
+        long[] times = new long[1002];
+        times[0] = -1L;
+        times[1] = -86400001L;
+        for (int i = 2; i < times.length; i++) {
+            // From around 1900 to around 2100
+            times[i] = -2208988800000L + (long) (random.nextDouble() * 6311390400000L);
+        }
+
+        for (long time : times) {
+            Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            calendar.setTimeInMillis(time);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            assertThat(asDateHourMinute(time), is(equalTo(calendar.getTimeInMillis())));
+
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            assertThat(asDate(time), is(equalTo(calendar.getTimeInMillis())));
+        }
+    }
 }
@@ -0,0 +1,166 @@
+package io.split.android.engine.matchers.strings;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class StringAutomatonTest {
+
+    @Test
+    public void prefixes() {
+        StringAutomaton automaton = StringAutomaton.prefixes(Arrays.asList("ab", "abcd", "x", ""));
+
+        Assert.assertTrue(automaton.matches("ab"));
+        Assert.assertTrue(automaton.matches("abc"));
+        Assert.assertTrue(automaton.matches("xyz"));
+        Assert.assertFalse(automaton.matches("a"));
+        Assert.assertFalse(automaton.matches("cab"));
+        Assert.assertFalse(automaton.matches(""));
+    }
+
+    @Test
+    public void suffixes() {
+        StringAutomaton automaton = StringAutomaton.suffixes(Arrays.asList("ab", "zab", "x", ""));
+
+        Assert.assertTrue(automaton.matches("ab"));
+        Assert.assertTrue(automaton.matches("cab"));
+        Assert.assertTrue(automaton.matches("zyx"));
+        Assert.assertFalse(automaton.matches("b"));
+        Assert.assertFalse(automaton.matches("abc"));
+        Assert.assertFalse(automaton.matches(""));
+    }
+
+    @Test
+    public void substrings() {
+        StringAutomaton automaton = StringAutomaton.substrings(Arrays.asList("he", "she", "hers", "his", ""));
+
+        Assert.assertTrue(automaton.matches("ushers"));
+        Assert.assertTrue(automaton.matches("ahishers"));
+        Assert.assertTrue(automaton.matches("he"));
+        Assert.assertFalse(automaton.matches("hs"));
+        Assert.assertFalse(automaton.matches("h"));
+        Assert.assertFalse(automaton.matches(""));
+    }
+
+    @Test
+    public void substringFoundThroughFailLink() {
+        // "bcd" is only found after failing from the "abce" branch
+        StringAutomaton automaton = StringAutomaton.substrings(Arrays.asList("abce", "bcd"));
+
+        Assert.assertTrue(automaton.matches("abcd"));
+        Assert.assertFalse(automaton.matches("abcf"));
+    }
+
+    @Test
+    public void noValues() {
+        List<String> values = Collections.emptyList();
+
+        Assert.assertFalse(StringAutomaton.prefixes(values).matches("abc"));
+        Assert.assertFalse(StringAutomaton.suffixes(values).matches("abc"));
+        Assert.assertFalse(StringAutomaton.substrings(values).matches("abc"));
+    }
+
+    @Test
+    public void sameResultsAsLinearScan() {
+        Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            List<String> values = randomStrings(random, 1 + random.nextInt(30), 4, 4);
+            StringAutomaton prefixes = StringAutomaton.prefixes(values);
+            StringAutomaton suffixes = StringAutomaton.suffixes(values);
+            StringAutomaton substrings = StringAutomaton.substrings(values);
+
+            for (String value : randomStrings(random, 200, 12, 4)) {
+                Assert.assertEquals(linearStartsWith(value, values), prefixes.matches(value));
+                Assert.assertEquals(linearEndsWith(value, values), suffixes.matches(value));
+                Assert.assertEquals(linearContains(value, values), substrings.matches(value));
+            }
+        }
+    }
+
+    /**
+     * Compares the automatons with the linear scans they replace.
+     * Not a real benchmark, just run it manually to get an idea.
+     */
+    @Ignore
+    @Test
+    public void compareWithLinearScan() {
+        Random random = new Random();
+        List<String> inputs = randomStrings(random, 1000, 40, 26);
+        for (int size : new int[]{10, 1000, 10000}) {
+            List<String> values = randomStrings(random, size, 12, 26);
+            StringAutomaton prefixes = StringAutomaton.prefixes(values);
+            StringAutomaton substrings = StringAutomaton.substrings(values);
+            int rounds = size > 1000 ? 5 : 50;
+            int count = 0;
+
+            for (int warmUp = 0; warmUp < 2; warmUp++) {
+                long start = System.nanoTime();
+                for (int r = 0; r < rounds; r++) {
+                    for (String input : inputs) {
+                        count += linearStartsWith(input, values) ? 1 : 0;
+                        count += linearContains(input, values) ? 1 : 0;
+                    }
+                }
+                long linear = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int r = 0; r < rounds; r++) {
+                    for (String input : inputs) {
+                        count += prefixes.matches(input) ? 1 : 0;
+                        count += substrings.matches(input) ? 1 : 0;
+                    }
+                }
+                long automaton = System.nanoTime() - start;
+
+                System.out.println(size + " values. Linear: " + linear / (rounds * inputs.size()) + " ns, "
+                        + "automaton: " + automaton / (rounds * inputs.size()) + " ns (" + count + ")");
+            }
+        }
+    }
+
+    private List<String> randomStrings(Random random, int count, int maxLength, int letters) {
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = random.nextInt(maxLength + 1);
+            StringBuilder builder = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                builder.append((char) ('a' + random.nextInt(letters)));
+            }
+            strings.add(builder.toString());
+        }
+        return strings;
+    }
+
+    private boolean linearStartsWith(String value, List<String> values) {
+        for (String s : values) {
+            if (!s.isEmpty() && value.startsWith(s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean linearEndsWith(String value, List<String> values) {
+        for (String s : values) {
+            if (!s.isEmpty() && value.endsWith(s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean linearContains(String value, List<String> values) {
+        for (String s : values) {
+            if (!s.isEmpty() && value.contains(s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
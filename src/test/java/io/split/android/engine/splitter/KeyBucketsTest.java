@@ -0,0 +1,109 @@
+package io.split.android.engine.splitter;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class KeyBucketsTest {
+
+    private static final int ALGO_LEGACY = 1;
+    private static final int ALGO_MURMUR = 2;
+
+    @Test
+    public void sameBucketsAsSplitter() {
+        Random random = new Random(7);
+        KeyBuckets keyBuckets = new KeyBuckets("some_key");
+        int[] seeds = new int[5000];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextInt();
+        }
+
+        // Twice to check both computed and stored buckets
+        for (int round = 0; round < 2; round++) {
+            for (int seed : seeds) {
+                Assert.assertEquals(Splitter.getBucket("some_key", seed, ALGO_MURMUR), keyBuckets.getBucket(seed, ALGO_MURMUR));
+                Assert.assertEquals(Splitter.getBucket("some_key", seed, ALGO_LEGACY), keyBuckets.getBucket(seed, ALGO_LEGACY));
+            }
+        }
+        Assert.assertEquals(seeds.length * 2, keyBuckets.size());
+    }
+
+    @Test
+    public void tableIsBounded() {
+        KeyBuckets keyBuckets = new KeyBuckets("some_key");
+        for (int seed = 0; seed < 20000; seed++) {
+            Assert.assertEquals(Splitter.getBucket("some_key", seed, ALGO_MURMUR), keyBuckets.getBucket(seed, ALGO_MURMUR));
+        }
+
+        Assert.assertTrue(keyBuckets.size() <= 1 << 14);
+    }
+
+    @Test
+    public void sameBucketsFromSeveralThreads() throws InterruptedException {
+        final KeyBuckets keyBuckets = new KeyBuckets("some_key");
+        final AtomicInteger wrongBuckets = new AtomicInteger(0);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int round = 0; round < 3; round++) {
+                        for (int seed = 0; seed < 5000; seed++) {
+                            if (Splitter.getBucket("some_key", seed, ALGO_MURMUR) != keyBuckets.getBucket(seed, ALGO_MURMUR)) {
+                                wrongBuckets.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(0, wrongBuckets.get());
+    }
+
+    /**
+     * Compares hashing the key for 1000 splits against using stored buckets.
+     * Not a real benchmark, just run it manually to get an idea.
+     */
+    @Ignore
+    @Test
+    public void compareWithHashing() {
+        Random random = new Random();
+        int[] seeds = new int[1000];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextInt();
+        }
+        String key = "a_bucketing_key_1234";
+        KeyBuckets keyBuckets = new KeyBuckets(key);
+        int rounds = 10000;
+        long sum = 0;
+
+        for (int warmUp = 0; warmUp < 2; warmUp++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (int seed : seeds) {
+                    sum += Splitter.getBucket(key, seed, ALGO_MURMUR);
+                }
+            }
+            long hashing = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (int seed : seeds) {
+                    sum += keyBuckets.getBucket(seed, ALGO_MURMUR);
+                }
+            }
+            long stored = System.nanoTime() - start;
+
+            System.out.println("Hashing: " + hashing / (rounds * seeds.length) + " ns/split, "
+                    + "stored: " + stored / (rounds * seeds.length) + " ns/split (" + sum + ")");
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package io.split.android.http;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import io.split.android.client.dtos.MySegment;
+import io.split.android.client.dtos.SplitChange;
+import io.split.android.client.events.SplitEventsManager;
+import io.split.android.client.events.SplitInternalEvent;
+import io.split.android.client.network.HttpClient;
+import io.split.android.client.network.HttpClientImpl;
+import io.split.android.client.service.executor.SplitTaskExecutionInfo;
+import io.split.android.client.service.executor.SplitTaskExecutionStatus;
+import io.split.android.client.service.http.HttpFetcher;
+import io.split.android.client.service.http.HttpFetcherImpl;
+import io.split.android.client.service.http.HttpResponseParser;
+import io.split.android.client.service.mysegments.MySegmentsResponseParser;
+import io.split.android.client.service.mysegments.MySegmentsSyncTask;
+import io.split.android.client.service.mysegments.MySegmentsUpdater;
+import io.split.android.client.service.splits.SplitChangeProcessor;
+import io.split.android.client.service.splits.SplitChangeResponseParser;
+import io.split.android.client.service.splits.SplitsSyncHelper;
+import io.split.android.client.storage.mysegments.MySegmentsStorage;
+import io.split.android.client.storage.mysegments.MySegmentsStorageImpl;
+import io.split.android.client.storage.mysegments.PersistentMySegmentsStorage;
+import io.split.android.client.storage.splits.ProcessedSplitChange;
+import io.split.android.client.storage.splits.SplitsStorage;
+import io.split.android.client.utils.NetworkHelper;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConditionalRequestsTest {
+
+    private static final String MY_SEGMENTS_BODY
+            = "{\"mySegments\":[{\"id\":\"id1\", \"name\":\"groupa\"}, {\"id\":\"id2\", \"name\":\"groupb\"}]}";
+    private static final String SPLIT_CHANGES_BODY = "{\"splits\":[], \"since\":100, \"till\":100}";
+
+    private MockWebServer mWebServer;
+    private HttpClient mClient;
+    private NetworkHelper mNetworkHelper;
+
+    @Before
+    public void setup() throws IOException {
+        mWebServer = new MockWebServer();
+        mWebServer.start();
+        mClient = new HttpClientImpl.Builder().build();
+        mNetworkHelper = mock(NetworkHelper.class);
+        when(mNetworkHelper.isReachable(any(URI.class))).thenReturn(true);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mWebServer.shutdown();
+    }
+
+    @Test
+    public void eTagSentAndNotModifiedReturnsNull() throws Exception {
+        mWebServer.enqueue(new MockResponse().setResponseCode(200)
+                .setHeader("ETag", "\"v1\"").setBody(MY_SEGMENTS_BODY));
+        mWebServer.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+        HttpFetcher<List<MySegment>> fetcher = new HttpFetcherImpl<>(mClient,
+                mWebServer.url("/mySegments/key").uri(), mNetworkHelper, new MySegmentsResponseParser());
+
+        List<MySegment> first = fetcher.execute(new HashMap<String, Object>(), null);
+        List<MySegment> second = fetcher.execute(new HashMap<String, Object>(), null);
+        RecordedRequest firstRequest = mWebServer.takeRequest();
+        RecordedRequest secondRequest = mWebServer.takeRequest();
+
+        Assert.assertEquals(2, first.size());
+        Assert.assertNull(second);
+        Assert.assertNull(firstRequest.getHeader("If-None-Match"));
+        Assert.assertEquals("\"v1\"", secondRequest.getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void lastModifiedSentAsIfModifiedSince() throws Exception {
+        String lastModified = "Wed, 21 Oct 2015 07:28:00 GMT";
+        mWebServer.enqueue(new MockResponse().setResponseCode(200)
+                .setHeader("Last-Modified", lastModified).setBody("data"));
+        mWebServer.enqueue(new MockResponse().setResponseCode(304));
+        HttpFetcher<String> fetcher = new HttpFetcherImpl<>(mClient,
+                mWebServer.url("/data").uri(), mNetworkHelper, new HttpResponseParser<String>() {
+            @Override
+            public String parse(String responseData) {
+                return responseData;
+            }
+        });
+
+        Assert.assertEquals("data", fetcher.execute(new HashMap<String, Object>(), null));
+        Assert.assertNull(fetcher.execute(new HashMap<String, Object>(), null));
+        mWebServer.takeRequest();
+
+        Assert.assertEquals(lastModified, mWebServer.takeRequest().getHeader("If-Modified-Since"));
+    }
+
+    @Test
+    public void validatorsOnlySentForSameRequest() throws Exception {
+        mWebServer.enqueue(new MockResponse().setResponseCode(200)
+                .setHeader("ETag", "\"v1\"").setBody(SPLIT_CHANGES_BODY));
+        mWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(SPLIT_CHANGES_BODY));
+        HttpFetcher<SplitChange> fetcher = new HttpFetcherImpl<>(mClient,
+                mWebServer.url("/splitChanges").uri(), mNetworkHelper, new SplitChangeResponseParser());
+
+        fetcher.execute(sinceParams(-1L), null);
+        SplitChange splitChange = fetcher.execute(sinceParams(100L), null);
+        mWebServer.takeRequest();
+
+        Assert.assertEquals(100L, splitChange.till);
+        Assert.assertNull(mWebServer.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void noValidatorsNoConditionalRequest() throws Exception {
+        mWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(SPLIT_CHANGES_BODY));
+        mWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(SPLIT_CHANGES_BODY));
+        HttpFetcher<SplitChange> fetcher = new HttpFetcherImpl<>(mClient,
+                mWebServer.url("/splitChanges").uri(), mNetworkHelper, new SplitChangeResponseParser());
+
+        fetcher.execute(sinceParams(100L), null);
+        fetcher.execute(sinceParams(100L), null);
+        mWebServer.takeRequest();
+        RecordedRequest request = mWebServer.takeRequest();
+
+        Assert.assertNull(request.getHeader("If-None-Match"));
+        Assert.assertNull(request.getHeader("If-Modified-Since"));
+    }
+
+    @Test
+    public void mySegmentsNotStoredWhenNotModified() throws Exception {
+        mWebServer.enqueue(new MockResponse().setResponseCode(200)
+                .setHeader("ETag", "\"v1\"").setBody(MY_SEGMENTS_BODY));
+        mWebServer.enqueue(new MockResponse().setResponseCode(304));
+        MySegmentsStorage storage = mock(MySegmentsStorage.class);
+        SplitEventsManager eventsManager = mock(SplitEventsManager.class);
+        MySegmentsSyncTask task = new MySegmentsSyncTask(new HttpFetcherImpl<>(mClient,
+                mWebServer.url("/mySegments/key").uri(), mNetworkHelper, new MySegmentsResponseParser()),
+                storage, false, eventsManager);
+
+        Assert.assertEquals(SplitTaskExecutionStatus.SUCCESS, task.execute().getStatus());
+        Assert.assertEquals(SplitTaskExecutionStatus.SUCCESS, task.execute().getStatus());
+
+        verify(storage, times(1)).set(Arrays.asList("groupa", "groupb"));
+        verify(storage, times(1)).set(any());
+        verify(eventsManager, times(1)).notifyInternalEvent(SplitInternalEvent.MY_SEGMENTS_UPDATED);
+        verify(eventsManager, times(1)).notifyInternalEvent(SplitInternalEvent.MY_SEGMENTS_FETCHED);
+    }
+
+    @Test
+    public void pushedSegmentsDuringFetchNotKeptByNotModified() throws Exception {
+        MySegmentsStorage storage = new MySegmentsStorageImpl(mock(PersistentMySegmentsStorage.class));
+        final MySegmentsUpdater updater = new MySegmentsUpdater(new HttpFetcherImpl<>(mClient,
+                mWebServer.url("/mySegments/key").uri(), mNetworkHelper, new MySegmentsResponseParser()),
+                storage, null);
+        final boolean[] pushed = {false};
+        mWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (!pushed[0]) {
+                    // An older payload arrives while the first request is running
+                    pushed[0] = true;
+                    updater.update(Arrays.asList("groupc"), MySegmentsUpdater.NO_CHANGE_NUMBER);
+                }
+                if ("\"v1\"".equals(request.getHeader("If-None-Match"))) {
+                    return new MockResponse().setResponseCode(304);
+                }
+                return new MockResponse().setResponseCode(200)
+                        .setHeader("ETag", "\"v1\"").setBody(MY_SEGMENTS_BODY);
+            }
+        });
+
+        updater.sync(false);
+        updater.sync(false);
+        Assert.assertEquals(3, mWebServer.getRequestCount());
+        RecordedRequest discardedRequest = mWebServer.takeRequest();
+        RecordedRequest refetchRequest = mWebServer.takeRequest();
+        RecordedRequest pollingRequest = mWebServer.takeRequest();
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("groupa", "groupb")), storage.getAll());
+        Assert.assertNull(discardedRequest.getHeader("If-None-Match"));
+        Assert.assertNull(refetchRequest.getHeader("If-None-Match"));
+        Assert.assertEquals("\"v1\"", pollingRequest.getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void unconditionalRequestAfterCatchUpPageFails() throws Exception {
+        mWebServer.enqueue(new MockResponse().setResponseCode(200)
+                .setHeader("ETag", "\"v1\"").setBody("{\"splits\":[], \"since\":100, \"till\":200}"));
+        mWebServer.enqueue(new MockResponse().setResponseCode(500));
+        mWebServer.enqueue(new MockResponse().setResponseCode(200)
+                .setHeader("ETag", "\"v1\"").setBody("{\"splits\":[], \"since\":100, \"till\":200}"));
+        mWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("{\"splits\":[], \"since\":200, \"till\":200}"));
+        SplitsStorage storage = mock(SplitsStorage.class);
+        SplitsSyncHelper syncHelper = new SplitsSyncHelper(new HttpFetcherImpl<>(mClient,
+                mWebServer.url("/splitChanges").uri(), mNetworkHelper, new SplitChangeResponseParser()),
+                storage, new SplitChangeProcessor());
+
+        SplitTaskExecutionInfo failedSync = syncHelper.sync(sinceParams(100L), false, false);
+        SplitTaskExecutionInfo sync = syncHelper.sync(sinceParams(100L), false, false);
+        mWebServer.takeRequest();
+        mWebServer.takeRequest();
+        RecordedRequest retryRequest = mWebServer.takeRequest();
+
+        Assert.assertEquals(SplitTaskExecutionStatus.ERROR, failedSync.getStatus());
+        Assert.assertEquals(SplitTaskExecutionStatus.SUCCESS, sync.getStatus());
+        Assert.assertNull(retryRequest.getHeader("If-None-Match"));
+        verify(storage, times(1)).update(any(ProcessedSplitChange.class));
+    }
+
+    private Map<String, Object> sinceParams(long since) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("since", since);
+        return params;
+    }
+}
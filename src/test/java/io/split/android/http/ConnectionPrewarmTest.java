@@ -0,0 +1,124 @@
+package io.split.android.http;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import io.split.android.client.network.HttpClient;
+import io.split.android.client.network.HttpClientImpl;
+import io.split.android.client.network.HttpMethod;
+import io.split.android.client.network.HttpResponse;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+
+public class ConnectionPrewarmTest {
+
+    private static final HandshakeCertificates SERVER_CERTIFICATES = new HandshakeCertificates.Builder()
+            .heldCertificate(new HeldCertificate.Builder().addSubjectAlternativeName("localhost").build())
+            .build();
+
+    private MockWebServer mWebServer;
+
+    @Before
+    public void setup() throws IOException {
+        mWebServer = newServer();
+        mWebServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mWebServer.shutdown();
+    }
+
+    @Test
+    public void prewarmedConnectionReused() throws Exception {
+        mWebServer.enqueue(new MockResponse().setResponseCode(200));
+        mWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("{}"));
+        HttpClient client = newClient();
+        client.setHeader("Authorization", "Bearer key");
+
+        client.prewarm(mWebServer.url("/api/mySegments/key").uri());
+        RecordedRequest prewarmRequest = mWebServer.takeRequest(5, TimeUnit.SECONDS);
+        // Prewarm response is read asynchronously, giving it time to return the connection to the pool
+        Thread.sleep(200);
+        HttpResponse response = client.request(mWebServer.url("/api/splitChanges").uri(), HttpMethod.GET).execute();
+        RecordedRequest request = mWebServer.takeRequest();
+
+        Assert.assertEquals("HEAD", prewarmRequest.getMethod());
+        Assert.assertEquals("Bearer key", prewarmRequest.getHeader("Authorization"));
+        Assert.assertEquals(200, response.getHttpStatus());
+        // Second request in the same connection
+        Assert.assertEquals(1, request.getSequenceNumber());
+    }
+
+    @Test
+    public void prewarmFailureIgnored() throws Exception {
+        HttpClient client = newClient();
+        URI uri = mWebServer.url("/api").uri();
+        mWebServer.shutdown();
+
+        client.prewarm(uri);
+        client.prewarm(URI.create("mailto:someone"));
+    }
+
+    /**
+     * Compares the time it takes to get the responses needed for SDK_READY,
+     * split changes and my segments, with and without prewarming the connection
+     * while 50 ms of local loading are simulated.
+     * Local server uses TLS, so the handshake is included, but not the network round trips.
+     * SDK_READY itself is measured by ConnectionPrewarmReadyTest on a device.
+     * Not a real benchmark, just run it manually to get an idea.
+     */
+    @Ignore
+    @Test
+    public void compareReadyRequestsTime() throws Exception {
+        for (int round = 0; round < 5; round++) {
+            long cold = timeReadyRequests(false);
+            long prewarmed = timeReadyRequests(true);
+            System.out.println("Ready requests without prewarm: " + cold / 1000 + " us, prewarmed: "
+                    + prewarmed / 1000 + " us");
+        }
+    }
+
+    private long timeReadyRequests(boolean prewarm) throws Exception {
+        MockWebServer server = newServer();
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("{}"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("{}"));
+        server.start();
+        long start = System.nanoTime();
+        HttpClient client = newClient();
+        if (prewarm) {
+            client.prewarm(server.url("/api/mySegments/key").uri());
+        }
+        // Loading cached data
+        Thread.sleep(50);
+
+        client.request(server.url("/api/splitChanges").uri(), HttpMethod.GET).execute();
+        client.request(server.url("/api/mySegments/key").uri(), HttpMethod.GET).execute();
+        long time = System.nanoTime() - start;
+        client.close();
+        server.shutdown();
+        return time;
+    }
+
+    private MockWebServer newServer() {
+        MockWebServer server = new MockWebServer();
+        server.useHttps(SERVER_CERTIFICATES.sslSocketFactory(), false);
+        return server;
+    }
+
+    private HttpClient newClient() {
+        // Trusts the local server certificate
+        return new HttpClientImpl.Builder().enableSslDevelopmentMode(true).build();
+    }
+}
@@ -15,13 +15,17 @@ import io.split.android.client.dtos.TestImpressions;
 import io.split.android.client.network.HttpClient;
 import io.split.android.client.network.HttpClientImpl;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.util.zip.GZIPInputStream;
 import java.util.List;
 import java.util.Map;
 
 import io.split.android.client.network.HttpMethod;
 import io.split.android.client.network.HttpRequest;
+import io.split.android.client.network.HttpRequestBodyWriter;
 import io.split.android.client.network.HttpResponse;
 import io.split.android.client.utils.Json;
 import io.split.android.helpers.FileHelper;
@@ -182,6 +186,30 @@ public class HttpClientTest {
         Assert.assertNull(badResp.getData());
     }
 
+    @Test
+    public void gzipRequest() throws Exception {
+        HttpClient client = new HttpClientImpl.Builder().build();
+        final List<Event> events = parseTrackEvents(new FileHelper().loadFileContent("tracks_1.json"));
+
+        HttpUrl url = mWebServer.url("/tracks/");
+        HttpRequest request = client.gzipRequest(url.uri(), HttpMethod.POST, new HttpRequestBodyWriter() {
+            @Override
+            public void writeTo(Writer writer) throws IOException {
+                Json.toJson(events, writer);
+            }
+        });
+        HttpResponse response = request.execute();
+        RecordedRequest recReq = mWebServer.takeRequest();
+        GZIPInputStream input = new GZIPInputStream(
+                new ByteArrayInputStream(recReq.getBody().readByteArray()));
+        String body = new okio.Buffer().readFrom(input).readUtf8();
+
+        Assert.assertEquals(200, response.getHttpStatus());
+        Assert.assertEquals("gzip", recReq.getHeader("Content-Encoding"));
+        Assert.assertTrue(recReq.getHeader("Content-Type").startsWith("application/json"));
+        Assert.assertEquals(Json.toJson(events), body);
+    }
+
     @After
     public void tearDown() throws IOException {
         mWebServer.shutdown();